@@ -22,6 +22,7 @@ package com.htmltopdf.element;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.htmltopdf.fonts.Font;
 
@@ -33,6 +34,7 @@ public class AcroForm implements Element {
     private List<Element> fields;
     private List<Font> fonts;
     private boolean needAppearances = true;
+    private int sigFlags;
 
     /**
      * Constructor - Initialize variables
@@ -47,9 +49,20 @@ public class AcroForm implements Element {
      * @param field Element of the field object
      */
     public void addField(Element field) {
+        if (!needAppearances) {
+            checkAppearances(field);
+        }
         fields.add(field);
     }
 
+    /**
+     * Gets the fields of the acro form
+     * @return List of the field elements
+     */
+    public List<Element> getFields() {
+        return fields;
+    }
+
     /**
      * Adds a font to the acro form, if the font is present returns location of
      * the font, otherwise adds the font and returns the size
@@ -67,6 +80,49 @@ public class AcroForm implements Element {
         return fonts.size();
     }
 
+    /**
+     * Gets the fonts of the default resources, font /F1 is the first
+     * @return List of the fonts
+     */
+    public List<Font> getFonts() {
+        return fonts;
+    }
+
+    /**
+     * Sets if viewers must build the field appearances when the document
+     * is opened, default is true. Set to false when every widget has its
+     * normal appearances so the document opens without the fields being
+     * laid out again. Radio buttons have no generated appearances, so a
+     * form with radio buttons always needs appearances
+     * @param needAppearances boolean true if viewers must build the appearances
+     * @throws IllegalStateException throws if false and the form has a radio button
+     */
+    public void setNeedAppearances(boolean needAppearances) {
+        if (!needAppearances) {
+            fields.forEach(this::checkAppearances);
+        }
+        this.needAppearances = needAppearances;
+    }
+
+    /**
+     * Checks the field can be shown without the viewer building its appearances
+     * @param field Element of the field
+     */
+    private void checkAppearances(Element field) {
+        if (field instanceof Widget widget && widget.isRadio()) {
+            throw new IllegalStateException("Radio button " + widget.getFieldName() + " has no generated appearances, the form needs appearances built by the viewer");
+        }
+    }
+
+    /**
+     * Sets the signature flags, 3 for a signed document that must
+     * only be changed by incremental updates
+     * @param sigFlags int of the signature flags
+     */
+    public void setSigFlags(int sigFlags) {
+        this.sigFlags = sigFlags;
+    }
+
     @Override
     public void setObjectId(int objectId) {
         this.objectId = objectId;
@@ -90,6 +146,9 @@ public class AcroForm implements Element {
             }
         }
         sb.append("]\n");
+        if (sigFlags != 0) {
+            sb.append("/SigFlags " + sigFlags + "\n");
+        }
         if (!fonts.isEmpty()) {
             sb.append("/DR << ");
             sb.append("/Font << ");
@@ -106,14 +165,10 @@ public class AcroForm implements Element {
     }
 
     @Override
-    public List<Element> buildElementList() {
-        List<Element> elements = new ArrayList<>();
-        elements.add(this);
+    public void visitChildren(Consumer<Element> visitor) {
         for (Element field : fields) {
-            elements.add(field);
+            visitor.accept(field);
         }
-
-        return elements;
     }
     
 }
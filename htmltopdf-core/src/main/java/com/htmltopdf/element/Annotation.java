@@ -24,7 +24,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.htmltopdf.renderer.Util;
-import com.htmltopdf.security.PdfR4V4Security;
+import com.htmltopdf.security.PdfSecurity;
 
 /**
  * Class to handle annotations
@@ -75,6 +75,14 @@ public class Annotation implements Element {
         this.structParents = structParents;
     }
 
+    /**
+     * Gets the struct parents of the annotation
+     * @return int of the struct parents, -1 if not tagged
+     */
+    public int getStructParents() {
+        return structParents;
+    }
+
     /**
      * Sets the page of the annotation
      * @param page Page object
@@ -110,10 +118,10 @@ public class Annotation implements Element {
         sb.append("/Rect [" + startX + " " + startY + " " + endX + " " + endY + "]\n");
         sb.append("/Border [0 0 0]\n");
         if (encryptionKey != null) {
-            byte[] encryptedUri = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, Util.escapeText(uri).getBytes(StandardCharsets.ISO_8859_1));
-            byte[] encrytedContent = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, Util.escapeText(content).getBytes(StandardCharsets.ISO_8859_1));
-            sb.append("/A << /S /URI / URI <" + Util.byteToHex(encryptedUri) + " > >>\n");
-            sb.append("/Contents <" + Util.byteToHex(encrytedContent) + ">\n");
+            byte[] encryptedUri = PdfSecurity.encryptString(encryptionKey, objectId, 0, uri.getBytes(StandardCharsets.ISO_8859_1));
+            byte[] encrytedContent = PdfSecurity.encryptString(encryptionKey, objectId, 0, content.getBytes(StandardCharsets.ISO_8859_1));
+            sb.append("/A << /S /URI /URI " + Util.toPdfString(encryptedUri) + " >>\n");
+            sb.append("/Contents " + Util.toPdfString(encrytedContent) + "\n");
         } else {
             sb.append("/A << /S /URI /URI (" + uri + ") >>\n");
             sb.append("/Contents (" + Util.escapeText(content) + ")\n");
@@ -23,11 +23,18 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.htmltopdf.security.PdfR4V4Security;
+import com.htmltopdf.fonts.Font;
+import com.htmltopdf.renderer.Util;
+import com.htmltopdf.security.PdfSecurity;
 
 public class AppearanceStream implements Element {
     public static final String OFF = "Off";
     public static final String ON = "Yes";
+    public static final int ALIGN_LEFT = 0;
+    public static final int ALIGN_CENTER = 1;
+    public static final int ALIGN_RIGHT = 2;
+    private static final float PADDING = 2;
+    private static final int MAX_AUTO_SIZE = 12;
     private int objectId;
     private String type = null;
     private String font;
@@ -35,6 +42,9 @@ public class AppearanceStream implements Element {
     private String text;
     private float height = 0;
     private float width = 0;
+    private Font metrics;
+    private int alignment = ALIGN_LEFT;
+    private boolean multiLine = false;
 
     /**
      * Default Constructor
@@ -55,6 +65,29 @@ public class AppearanceStream implements Element {
         this.text = text;
     }
 
+    /**
+     * Sets the text of a text field appearance
+     * @param text String of the text
+     */
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Creates a copy of the appearance without an object Id
+     * @return AppearanceStream of the copy
+     */
+    public AppearanceStream copy() {
+        AppearanceStream copy = new AppearanceStream(font, size, text);
+        copy.setType(type);
+        copy.setBoxSize(width, height);
+        copy.setFontMetrics(metrics);
+        copy.setAlignment(alignment);
+        copy.setMultiLine(multiLine);
+
+        return copy;
+    }
+
     /**
      * Sets the stream type
      * @param type String of the type of stream
@@ -81,6 +114,65 @@ public class AppearanceStream implements Element {
         this.height = height;
     }
 
+    /**
+     * Sets the font the text is measured with. Text is only aligned,
+     * wrapped and centred in the box when the font and box size are set
+     * @param metrics Font of the font identifier
+     */
+    public void setFontMetrics(Font metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sets the alignment of the text, the quadding of the field
+     * @param alignment int of the alignment, ALIGN_LEFT, ALIGN_CENTER or ALIGN_RIGHT
+     */
+    public void setAlignment(int alignment) {
+        this.alignment = alignment;
+    }
+
+    /**
+     * Sets the text to be wrapped onto lines from the top of the box
+     * @param multiLine boolean true for a multi-line text field
+     */
+    public void setMultiLine(boolean multiLine) {
+        this.multiLine = multiLine;
+    }
+
+    /**
+     * Gets the font identifier of a text field appearance
+     * @return String of the font identifier
+     */
+    public String getFont() {
+        return font;
+    }
+
+    /**
+     * Gets the width of the appearance box
+     * @return float of the width
+     */
+    public float getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the appearance box
+     * @return float of the height
+     */
+    public float getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets a key of the stream content, appearances with the same key
+     * draw the same and can be shared by widgets
+     * @return String of the content key
+     */
+    public String getContentKey() {
+        return type + "/" + font + "/" + size + "/" + width + "x" + height + "/" + (metrics != null ? metrics.getObjectId() : 0)
+                + "/" + alignment + "/" + multiLine + "/" + text;
+    }
+
     @Override
     public void setObjectId(int objectId) {
         this.objectId = objectId;
@@ -93,14 +185,59 @@ public class AppearanceStream implements Element {
 
     @Override
     public byte[] toByte(byte[] encryptionKey) {
-        StringBuilder sb = new StringBuilder();
+        byte[] bytes = buildContent(font).getBytes(StandardCharsets.ISO_8859_1);
+        if (encryptionKey != null) {
+            bytes = PdfSecurity.encryptObject(encryptionKey, objectId, 0, bytes);
+        }
+
+        StringBuilder start = new StringBuilder();
         if (type == null) {
+            start.append(objectId + " 0 obj\n");
+            start.append("<< /Type /XObject\n");
+            start.append("/Subtype /Form\n");
+            start.append("/BBox [0 0 " + width + " " + height + "]\n");
+            if (metrics != null) {
+                start.append("/Resources << /Font << /" + font + " " + metrics.getObjectId() + " 0 R >> >>\n");
+            }
+            start.append("/Length " + bytes.length + "\n");
+            start.append(">>\n");
+            start.append("stream\n");
+        } else {
+            start.append(objectId + " 0 obj\n");
+            start.append("<< /Type /XObject\n");
+            start.append("/Subtype /Form\n");
+            start.append("/BBox [0 0 " + width + " " + height + "]\n");
+            start.append("/Length " + bytes.length + "\n");
+            start.append(">>\n");
+            start.append("stream\n");
+        }
+        byte[] starting = start.toString().getBytes(StandardCharsets.ISO_8859_1);
+        byte[] ending = "\nendstream\nendobj\n".getBytes(StandardCharsets.ISO_8859_1);
+
+        byte[] output = new byte[starting.length + bytes.length + ending.length];
+        System.arraycopy(starting, 0, output, 0, starting.length);
+        System.arraycopy(bytes, 0, output, starting.length, bytes.length);
+        System.arraycopy(ending, 0, output, starting.length + bytes.length, ending.length);
+
+        return output;
+    }
+
+    /**
+     * Builds the content operators of the appearance
+     * @param fontIdentifier String of the font identifier in the resources the content is drawn with
+     * @return String of the content operators
+     */
+    String buildContent(String fontIdentifier) {
+        StringBuilder sb = new StringBuilder();
+        if (type == null && metrics != null && width > 0 && height > 0) {
+            appendText(sb, fontIdentifier);
+        } else if (type == null) {
             sb.append("q\n");
             sb.append("BT\n");
-            sb.append("/" + font + " " + size + " Tf\n");
+            sb.append("/" + fontIdentifier + " " + size + " Tf\n");
             sb.append("0 0 0 rg\n");
             sb.append("2 4 Td\n");
-            sb.append("(" + text + ") Tj\n");
+            sb.append("(" + Util.escapeText(text) + ") Tj\n");
             sb.append("ET\n");
             sb.append("Q\n");
         } else {
@@ -108,10 +245,10 @@ public class AppearanceStream implements Element {
             sb.append("0.8 0.8 0.8 rg\n");
             sb.append("0 0 " + width + " " + height + " re\n");
             sb.append("f\n");
-            if (type.equals(AppearanceStream.ON)) {
+            if (!type.equals(AppearanceStream.OFF)) {
                 float w = width - 2;
                 float h = height - 2;
-                sb.append("0.5w\n");
+                sb.append("0.5 w\n");
                 sb.append("0 0 0 RG\n");
                 sb.append("2 " + h + " m\n");
                 sb.append(w + " 2 l\n");
@@ -123,38 +260,94 @@ public class AppearanceStream implements Element {
             sb.append("Q\n");
         }
 
-        byte[] bytes = sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+        return sb.toString();
+    }
 
-        StringBuilder start = new StringBuilder();
-        if (type == null) {
-            start.append(objectId + " 0 obj\n");
-            start.append("<< /Type /XObject\n");
-            start.append("/Subtype /Form\n");
-            start.append("/BBox [0 0 " + width + " " + height + "]\n");
-            start.append("/Length " + bytes.length + "\n");
-            start.append(">>\n");
-            start.append("stream\n");
-        } else {
-            start.append(objectId + " 0 obj\n");
-            start.append("<< /Type /XObject\n");
-            start.append("/Subtype /Form\n");
-            start.append("/BBox [0 0 " + width + " " + height + "]\n");
-            start.append("/Length " + bytes.length + "\n");
-            start.append(">>\n");
-            start.append("stream\n");
+    /**
+     * Appends the text laid out with the font metrics, a single line is
+     * centred vertically and multiple lines are wrapped from the top of
+     * the box. The text is marked as variable text clipped to the box
+     * @param sb StringBuilder of the content
+     * @param fontIdentifier String of the font identifier
+     */
+    private void appendText(StringBuilder sb, String fontIdentifier) {
+        float unitsPerEm = metrics.getUnitsPerEm();
+        float ascent = metrics.getFontDecriptor().getAscent() / unitsPerEm;
+        float descent = metrics.getFontDecriptor().getDescent() / unitsPerEm;
+        int fontSize = size;
+        if (fontSize <= 0) {
+            // Auto sized text fills the height of a single line field
+            fontSize = Math.max(1, Math.min(MAX_AUTO_SIZE, (int) ((height - 2 * PADDING) / (ascent - descent))));
         }
-        byte[] starting = start.toString().getBytes(StandardCharsets.ISO_8859_1);
-        byte[] ending = "\nendstream\nendobj\n".getBytes(StandardCharsets.ISO_8859_1);
-        
-        if (encryptionKey != null) {
-            bytes = PdfR4V4Security.encryptObject(encryptionKey, objectId, 0, bytes);
+        float leading = (ascent - descent) * fontSize;
+        List<String> lines = multiLine ? wrapLines(fontSize) : List.of(text != null ? text : "");
+
+        sb.append("/Tx BMC\n");
+        sb.append("q\n");
+        sb.append(PADDING + " " + PADDING + " " + round(width - 2 * PADDING) + " " + round(height - 2 * PADDING) + " re W n\n");
+        sb.append("BT\n");
+        sb.append("/" + fontIdentifier + " " + fontSize + " Tf\n");
+        sb.append("0 0 0 rg\n");
+        float y = multiLine ? height - PADDING - ascent * fontSize : (height - leading) / 2 - descent * fontSize;
+        for (String line : lines) {
+            float x = PADDING;
+            if (alignment != ALIGN_LEFT) {
+                float free = width - 2 * PADDING - textWidth(line, fontSize);
+                x += alignment == ALIGN_CENTER ? free / 2 : free;
+            }
+            sb.append("1 0 0 1 " + round(x) + " " + round(y) + " Tm\n");
+            sb.append("(" + Util.escapeText(line) + ") Tj\n");
+            y -= leading;
         }
-        byte[] output = new byte[starting.length + bytes.length + ending.length];
-        System.arraycopy(starting, 0, output, 0, starting.length);
-        System.arraycopy(bytes, 0, output, starting.length, bytes.length);
-        System.arraycopy(ending, 0, output, starting.length + bytes.length, ending.length);
+        sb.append("ET\n");
+        sb.append("Q\n");
+        sb.append("EMC\n");
+    }
 
-        return output;
+    /**
+     * Wraps the text at the spaces into lines that fit the width of the
+     * box, new lines in the text always start a line
+     * @param fontSize int of the font size
+     * @return List of the lines
+     */
+    private List<String> wrapLines(int fontSize) {
+        List<String> lines = new ArrayList<>();
+        float maxWidth = width - 2 * PADDING;
+        for (String paragraph : (text != null ? text : "").split("\r?\n", -1)) {
+            StringBuilder line = new StringBuilder();
+            for (String word : paragraph.split(" ")) {
+                if (line.length() > 0 && textWidth(line + " " + word, fontSize) > maxWidth) {
+                    lines.add(line.toString());
+                    line.setLength(0);
+                }
+                if (line.length() > 0) {
+                    line.append(' ');
+                }
+                line.append(word);
+            }
+            lines.add(line.toString());
+        }
+
+        return lines;
+    }
+
+    /**
+     * Gets the width of a line of text
+     * @param line String of the line
+     * @param fontSize int of the font size
+     * @return float of the width
+     */
+    private float textWidth(String line, int fontSize) {
+        return metrics.getTextWidth(line) * fontSize / 1000f;
+    }
+
+    /**
+     * Rounds a coordinate to two decimals
+     * @param value float of the coordinate
+     * @return float of the rounded coordinate
+     */
+    private static float round(float value) {
+        return Math.round(value * 100) / 100f;
     }
 
     @Override
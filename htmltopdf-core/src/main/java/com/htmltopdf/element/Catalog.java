@@ -20,11 +20,10 @@
 package com.htmltopdf.element;
 
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.function.Consumer;
 
 import com.htmltopdf.renderer.Util;
-import com.htmltopdf.security.PdfR4V4Security;
+import com.htmltopdf.security.PdfSecurity;
 
 /**
  * Class that holds the Catalog structure data
@@ -161,7 +160,7 @@ public class Catalog implements Element {
             sb.append("/AcroForm " + acroForm.getObjectId() + " 0 R\n");
         }
         if (encryptionKey != null) {
-            sb.append("/Lang <" + Util.byteToHex(PdfR4V4Security.encryptString(encryptionKey, objectId, 0, language.getBytes(StandardCharsets.ISO_8859_1))) + ">\n");
+            sb.append("/Lang " + Util.toPdfString(PdfSecurity.encryptString(encryptionKey, objectId, 0, language.getBytes(StandardCharsets.ISO_8859_1))) + "\n");
         } else {
             sb.append("/Lang (" + language + ")\n");
         }
@@ -178,20 +177,16 @@ public class Catalog implements Element {
     }
 
     @Override
-    public List<Element> buildElementList() {
-        List<Element> elements = new ArrayList<>();
-        elements.add(this);
+    public void visitChildren(Consumer<Element> visitor) {
         if (outlines != null) {
-            elements.addAll(outlines.buildElementList());
+            visitor.accept(outlines);
         }
-        elements.addAll(structTreeRoot.buildElementList());
-        elements.addAll(pages.buildElementList());
+        visitor.accept(structTreeRoot);
+        visitor.accept(pages);
         if (acroForm != null) {
-            elements.addAll(acroForm.buildElementList());
+            visitor.accept(acroForm);
         }
-        elements.add(metaData);
-
-        return elements;
+        visitor.accept(metaData);
     }
     
 }
@@ -0,0 +1,77 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.element;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class to hold the attribute classes of the structure tree. Identical
+ * attribute dictionaries are interned into one class that structure
+ * elements refer to with /C instead of repeating the dictionary
+ */
+public class ClassMap implements Element {
+    private int objectId;
+    private Map<String, String> classes = new LinkedHashMap<>();
+
+    /**
+     * Gets the class name for the attributes, adding a class the first
+     * time the attributes are seen
+     * @param owner String of the attribute owner used to name the class
+     * @param attributes String of the attribute dictionary
+     * @return String of the class name
+     */
+    public synchronized String intern(String owner, String attributes) {
+        return classes.computeIfAbsent(attributes, key -> owner + (classes.size() + 1));
+    }
+
+    /**
+     * Gets if no classes have been added
+     * @return boolean true if empty
+     */
+    public synchronized boolean isEmpty() {
+        return classes.isEmpty();
+    }
+
+    @Override
+    public void setObjectId(int objectId) {
+        this.objectId = objectId;
+    }
+
+    @Override
+    public int getObjectId() {
+        return objectId;
+    }
+
+    @Override
+    public synchronized byte[] toByte(byte[] encryptionKey) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(objectId + " 0 obj\n");
+        sb.append("<<");
+        for (Map.Entry<String, String> entry : classes.entrySet()) {
+            sb.append(" /" + entry.getValue() + " " + entry.getKey() + "\n");
+        }
+        sb.append(">>\n");
+        sb.append("endobj\n");
+
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -19,12 +19,15 @@
 
 package com.htmltopdf.element;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
 import com.htmltopdf.renderer.Util;
-import com.htmltopdf.security.PdfR4V4Security;
+import com.htmltopdf.security.PdfSecurity;
 
 /**
  * Class to hold all the Content stream data for a page
@@ -80,27 +83,12 @@ public class ContentStream implements Element {
 
     @Override
     public byte[] toByte(byte[] encryptionKey) {
-        byte[] content = new byte[0];
-        for (Element c : contents) {
-            byte[] childContent = c.toByte(encryptionKey);
-            byte[] copy = new byte[content.length + childContent.length];
-            System.arraycopy(content, 0, copy, 0, content.length);
-            System.arraycopy(childContent, 0, copy, content.length, childContent.length);
-            content = copy;
-        }
-
-        if (compressContent) {
-            content = Util.compressStream(content);
-        }
+        byte[] content = buildContent(encryptionKey);
         if (encryptionKey != null) {
-            content = PdfR4V4Security.encryptObject(encryptionKey, objectId, 0, content);
+            content = PdfSecurity.encryptObject(encryptionKey, objectId, 0, content);
         }
 
-        StringBuilder sb = new StringBuilder();
-        sb.append(objectId + " 0 obj\n");
-        sb.append("<< /Length " + content.length + (compressContent ? " /Filter /FlateDecode >>\n" : ">>\n"));
-        sb.append("stream\n");
-        byte[] start = sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+        byte[] start = buildHeader(content.length);
         byte[] end = "\nendstream\nendobj\n".getBytes(StandardCharsets.ISO_8859_1);
 
         byte[] output = new byte[start.length + content.length + end.length];
@@ -111,6 +99,50 @@ public class ContentStream implements Element {
         return output;
     }
 
+    @Override
+    public void write(OutputStream outputStream, byte[] encryptionKey) throws IOException {
+        byte[] content = buildContent(encryptionKey);
+        if (encryptionKey != null) {
+            // Encrypted as it is written, without another copy of the content
+            outputStream.write(buildHeader(PdfSecurity.encryptedLength(content.length)));
+            try (OutputStream encrypting = PdfSecurity.encryptingStream(encryptionKey, objectId, 0, outputStream)) {
+                encrypting.write(content);
+            }
+        } else {
+            outputStream.write(buildHeader(content.length));
+            outputStream.write(content);
+        }
+        outputStream.write("\nendstream\nendobj\n".getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Builds the content operators, compressed if compress content is set
+     * @param encryptionKey byte array of the encryption key
+     * @return byte array of the stream data before encryption
+     */
+    private byte[] buildContent(byte[] encryptionKey) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (Element c : contents) {
+            baos.writeBytes(c.toByte(encryptionKey));
+        }
+
+        return compressContent ? Util.compressStream(baos.toByteArray()) : baos.toByteArray();
+    }
+
+    /**
+     * Builds the stream dictionary up to the start of the stream data
+     * @param length long of the stream length
+     * @return byte array of the object header
+     */
+    private byte[] buildHeader(long length) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(objectId + " 0 obj\n");
+        sb.append("<< /Length " + length + (compressContent ? " /Filter /FlateDecode >>\n" : ">>\n"));
+        sb.append("stream\n");
+
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
     @Override
     public List<Element> buildElementList() {
         // Not needed by this element type
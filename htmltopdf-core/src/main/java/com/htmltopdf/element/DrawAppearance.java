@@ -0,0 +1,96 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.element;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Class to draw the appearance of a flattened form field in a content
+ * stream, the appearance operators are written in place of the widget
+ */
+public class DrawAppearance implements Element {
+    private AppearanceStream appearanceStream;
+    private String fontIdentifier;
+    private float x;
+    private float y;
+    private int mcid = -1;
+
+    /**
+     * Constructor - Initialize object to draw the appearance at a position
+     * @param appearanceStream AppearanceStream of the appearance to draw
+     * @param fontIdentifier String of the font identifier in the page resources
+     * @param x float of the X coordinate
+     * @param y float of the Y coordinate
+     */
+    public DrawAppearance(AppearanceStream appearanceStream, String fontIdentifier, float x, float y) {
+        this.appearanceStream = appearanceStream;
+        this.fontIdentifier = fontIdentifier;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Sets the mcid of the marked content
+     * @param mcid int of the mcid
+     */
+    public void setMcid(int mcid) {
+        this.mcid = mcid;
+    }
+
+    @Override
+    public void setObjectId(int objectId) {
+        // Not needed for this Element type
+        throw new UnsupportedOperationException("DrawAppearance has an Unimplemented method 'setObjectId'");
+    }
+
+    @Override
+    public int getObjectId() {
+        // Not needed for this Element type
+        throw new UnsupportedOperationException("DrawAppearance has an Unimplemented method 'getObjectId'");
+    }
+
+    @Override
+    public byte[] toByte(byte[] encryptionKey) {
+        StringBuilder sb = new StringBuilder();
+        if (mcid != -1) {
+            sb.append("/Form << /MCID " + mcid + " >> BDC\n");
+        }
+        sb.append("q\n");
+        sb.append("1 0 0 1 " + x + " " + y + " cm\n");
+        if (appearanceStream.getWidth() > 0 && appearanceStream.getHeight() > 0) {
+            // Clipped to the box as the form XObject was by its BBox
+            sb.append("0 0 " + appearanceStream.getWidth() + " " + appearanceStream.getHeight() + " re W n\n");
+        }
+        sb.append(appearanceStream.buildContent(fontIdentifier));
+        sb.append("Q\n");
+        if (mcid != -1) {
+            sb.append("EMC\n");
+        }
+
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public List<Element> buildElementList() {
+        // Not needed for this Element type
+        throw new UnsupportedOperationException("DrawAppearance has an Unimplemented method 'buildElementList'");
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.element;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Class to draw a Form XObject in a content stream
+ */
+public class DrawForm implements Element {
+    private int identifier;
+    private float x;
+    private float y;
+
+    /**
+     * Constructor - Initialize object to draw the form at its origin
+     * @param formXObject FormXObject to draw
+     */
+    public DrawForm(FormXObject formXObject) {
+        this(formXObject, 0, 0);
+    }
+
+    /**
+     * Constructor - Initialize object to draw the form at a position
+     * @param formXObject FormXObject to draw
+     * @param x float of the X coordinate
+     * @param y float of the Y coordinate
+     */
+    public DrawForm(FormXObject formXObject, float x, float y) {
+        this.identifier = formXObject.getIdentifier();
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public void setObjectId(int objectId) {
+        // Not needed for this Element type
+        throw new UnsupportedOperationException("DrawForm has an Unimplemented method 'setObjectId'");
+    }
+
+    @Override
+    public int getObjectId() {
+        // Not needed for this Element type
+        throw new UnsupportedOperationException("DrawForm has an Unimplemented method 'getObjectId'");
+    }
+
+    @Override
+    public byte[] toByte(byte[] encryptionKey) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("q\n");
+        if (x != 0 || y != 0) {
+            sb.append("1 0 0 1 " + x + " " + y + " cm\n");
+        }
+        sb.append("/Fm" + identifier + " Do\n");
+        sb.append("Q\n");
+
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public List<Element> buildElementList() {
+        // Not needed for this Element type
+        throw new UnsupportedOperationException("DrawForm has an Unimplemented method 'buildElementList'");
+    }
+}
@@ -24,6 +24,7 @@ import java.util.List;
 
 public class DrawImage implements Element {
     private int identifier;
+    private XObject xObject;
     private float x;
     private float y;
     private float width;
@@ -48,6 +49,22 @@ public class DrawImage implements Element {
         this.height = height;
     }
 
+    /**
+     * Constructor - Initialize object for the image and record the
+     * placement size on the image, inline images are written in the
+     * content stream
+     * @param xObject XObject of the image
+     * @param x float of the X coordinate
+     * @param y float of the Y coordinate
+     * @param width float of the width
+     * @param height float of the height
+     */
+    public DrawImage(XObject xObject, float x, float y, float width, float height) {
+        this(xObject.getIdentifier(), x, y, width, height);
+        this.xObject = xObject;
+        xObject.addPlacement(width, height);
+    }
+
     /**
      * Sets the mcid if the image is marked content
      * @param mcid int of the mcid
@@ -77,7 +94,18 @@ public class DrawImage implements Element {
         sb.append("/Artifact BMC\n");
         sb.append("q\n");
         sb.append(width + " " + scaleX + " " + scaleY + " " + height + " " + x + " " + y + " cm\n");
-        sb.append("/Im" + identifier +  " Do\n");
+        if (xObject != null && xObject.isInline()) {
+            byte[] start = sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+            byte[] image = xObject.toInlineImage();
+            byte[] end = "Q\nEMC\n".getBytes(StandardCharsets.ISO_8859_1);
+            byte[] output = new byte[start.length + image.length + end.length];
+            System.arraycopy(start, 0, output, 0, start.length);
+            System.arraycopy(image, 0, output, start.length, image.length);
+            System.arraycopy(end, 0, output, start.length + image.length, end.length);
+
+            return output;
+        }
+        sb.append("/" + (xObject != null ? xObject.getResourceName() : "Im" + identifier) +  " Do\n");
         sb.append("Q\n");
         sb.append("EMC\n");
 
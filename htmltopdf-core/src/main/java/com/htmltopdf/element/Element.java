@@ -19,7 +19,11 @@
 
 package com.htmltopdf.element;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface for all PDF Structure elements
@@ -47,9 +51,35 @@ public interface Element {
     public byte[] toByte(byte[] encryptionKey);
 
     /**
-     * Builds a List of the element and child elements
-     * If unneeded throws Unsupported Operation Exception
+     * Writes the element to the output stream. Elements with large
+     * stream data override this to write the data without building
+     * the whole element in memory
+     * @param outputStream OutputStream to write the element to
+     * @param encryptionKey byte array of the encryption key
+     * @throws IOException throws if the output stream cannot be written to
+     */
+    public default void write(OutputStream outputStream, byte[] encryptionKey) throws IOException {
+        outputStream.write(toByte(encryptionKey));
+    }
+
+    /**
+     * Passes the child elements written as their own objects to the
+     * visitor. Elements without children do not override this
+     * @param visitor Consumer of the child elements
+     */
+    public default void visitChildren(Consumer<Element> visitor) {
+    }
+
+    /**
+     * Builds a List of the element and child elements by walking
+     * visitChildren with an ElementWalker, each element with an object
+     * Id is listed once
      * @return List of elements
      */
-    public List<Element> buildElementList();
+    public default List<Element> buildElementList() {
+        List<Element> elements = new ArrayList<>();
+        new ElementWalker(elements::add).walk(this);
+
+        return elements;
+    }
 }
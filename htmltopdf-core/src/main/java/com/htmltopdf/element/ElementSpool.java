@@ -0,0 +1,172 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.element;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Temporary file holding elements serialized before the document is
+ * written, so finished parts of the document do not stay on the heap.
+ * Only the object Id and where the bytes are in the file are kept for
+ * each element. The file is deleted when the spool is closed, after that
+ * the spool cannot be written or walked again
+ */
+public class ElementSpool implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ElementSpool.class);
+    private Path path;
+    private FileChannel channel;
+    private int[] objectIds = new int[256];
+    private long[] positions = new long[256];
+    private int[] lengths = new int[256];
+    private int count;
+    private boolean closed;
+
+    /**
+     * Serializes the element to the end of the spool file
+     * @param element Element to serialize, its object Id must be set
+     * @param encryptionKey byte array of the encryption key
+     */
+    public void append(Element element, byte[] encryptionKey) {
+        checkOpen();
+        byte[] bytes = element.toByte(encryptionKey);
+        try {
+            if (channel == null) {
+                path = Files.createTempFile("htmltopdf", ".spool");
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            long position = channel.size();
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+
+            if (count == objectIds.length) {
+                objectIds = Arrays.copyOf(objectIds, count * 2);
+                positions = Arrays.copyOf(positions, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            objectIds[count] = element.getObjectId();
+            positions[count] = position;
+            lengths[count] = bytes.length;
+            count++;
+        } catch (IOException ioEx) {
+            logger.error("IO Exception was encountered writing object " + element.getObjectId() + " to the spool file", ioEx);
+            throw new RuntimeException("IO Exception was encountered writing object " + element.getObjectId() + " to the spool file");
+        }
+    }
+
+    /**
+     * Walks the spooled elements so they are written with the document
+     * @param walker ElementWalker of the document elements
+     */
+    public void walk(ElementWalker walker) {
+        checkOpen();
+        for (int i = 0; i < count; i++) {
+            walker.walk(new SpooledElement(i));
+        }
+    }
+
+    /**
+     * Checks the spool file has not been deleted yet
+     */
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The spool file is deleted once the document is written, a document with sealed structure elements can only be written once");
+        }
+    }
+
+    /**
+     * Reads serialized bytes back from the spool file
+     * @param position long of the position in the file
+     * @param length int of the number of bytes
+     * @return byte array of the serialized element
+     * @throws IOException throws if the spool file cannot be read
+     */
+    private byte[] read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the spool file " + path);
+            }
+        }
+
+        return buffer.array();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Element serialized to the spool file
+     */
+    private class SpooledElement implements Element {
+        private int index;
+
+        /**
+         * Constructor - Initialize with the index of the spooled element
+         * @param index int of the index in the spool
+         */
+        SpooledElement(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void setObjectId(int objectId) {
+            objectIds[index] = objectId;
+        }
+
+        @Override
+        public int getObjectId() {
+            return objectIds[index];
+        }
+
+        @Override
+        public byte[] toByte(byte[] encryptionKey) {
+            try {
+                return read(positions[index], lengths[index]);
+            } catch (IOException ioEx) {
+                logger.error("IO Exception was encountered reading object " + objectIds[index] + " from the spool file", ioEx);
+                throw new RuntimeException("IO Exception was encountered reading object " + objectIds[index] + " from the spool file");
+            }
+        }
+
+        @Override
+        public void write(OutputStream outputStream, byte[] encryptionKey) throws IOException {
+            outputStream.write(read(positions[index], lengths[index]));
+        }
+    }
+}
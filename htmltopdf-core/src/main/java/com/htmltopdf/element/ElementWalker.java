@@ -0,0 +1,75 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.element;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Walks the element graph with an explicit stack, so deep structure
+ * trees do not use the call stack or copy child lists into their
+ * parents. Each element is visited once however many roots or parents
+ * reach it, elements without an object Id are walked but not visited
+ */
+public class ElementWalker {
+    private final Consumer<Element> visitor;
+    private final Set<Element> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Deque<Element> stack = new ArrayDeque<>();
+    private final List<Element> children = new ArrayList<>();
+    private final Consumer<Element> addChild = children::add;
+
+    /**
+     * Constructor - Initialize with the visitor
+     * @param visitor Consumer of the elements with an object Id
+     */
+    public ElementWalker(Consumer<Element> visitor) {
+        this.visitor = visitor;
+    }
+
+    /**
+     * Visits the element and its children in document order,
+     * skipping elements visited from an earlier root
+     * @param root Element to start from
+     */
+    public void walk(Element root) {
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Element element = stack.pop();
+            if (!visited.add(element)) {
+                continue;
+            }
+            if (element.getObjectId() > 0) {
+                visitor.accept(element);
+            }
+
+            element.visitChildren(addChild);
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+            children.clear();
+        }
+    }
+}
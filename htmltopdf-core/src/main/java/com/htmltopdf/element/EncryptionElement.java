@@ -24,15 +24,23 @@ import java.util.List;
 
 import com.htmltopdf.renderer.Util;
 import com.htmltopdf.security.PdfR4V4Security;
+import com.htmltopdf.security.PdfR6V5Security;
 
 /**
  * Class to hold all the encryption data
  */
 public class EncryptionElement implements Element {
+    public static final int AES_128 = 4;
+    public static final int AES_256 = 6;
+
     private int objectId;
+    private int revision;
     private byte[] encryptionKey;
     private byte[] owner;
     private byte[] user;
+    private byte[] ownerEncryption;
+    private byte[] userEncryption;
+    private byte[] perms;
     private int permissions;
     private boolean encryptMetaData;
 
@@ -45,10 +53,36 @@ public class EncryptionElement implements Element {
      * @param encryptMetaData boolean encrypt meta data
      */
     public EncryptionElement(String ownerPassword, String userPassword, String documentId, int permissions, boolean encryptMetaData) {
-        byte[] fileId = Util.hexStringToBytes(documentId);
-        owner = PdfR4V4Security.computeOwnerValue(ownerPassword, userPassword);
-        encryptionKey = PdfR4V4Security.computeEncryptionKey(userPassword, owner, permissions, fileId, encryptMetaData);
-        user = PdfR4V4Security.computeUserValue(encryptionKey, fileId);
+        this(AES_128, ownerPassword, userPassword, documentId, permissions, encryptMetaData);
+    }
+
+    /**
+     * Constructor - Initializes encryption objects for the security handler revision.
+     * AES_256 uses one random file key for every object, AES_128 derives a key per object
+     * @param revision int of the revision, AES_128 or AES_256
+     * @param ownerPassword String of the owner password
+     * @param userPassword String of the user password
+     * @param documentId String of the document Id
+     * @param permissions int of the permissions
+     * @param encryptMetaData boolean encrypt meta data
+     */
+    public EncryptionElement(int revision, String ownerPassword, String userPassword, String documentId, int permissions, boolean encryptMetaData) {
+        if (revision == AES_256) {
+            encryptionKey = PdfR6V5Security.generateFileKey();
+            user = PdfR6V5Security.computeUserValue(userPassword);
+            userEncryption = PdfR6V5Security.computeUserEncryptionValue(userPassword, user, encryptionKey);
+            owner = PdfR6V5Security.computeOwnerValue(ownerPassword, user);
+            ownerEncryption = PdfR6V5Security.computeOwnerEncryptionValue(ownerPassword, owner, user, encryptionKey);
+            perms = PdfR6V5Security.computePermsValue(encryptionKey, permissions, encryptMetaData);
+        } else if (revision == AES_128) {
+            byte[] fileId = Util.hexStringToBytes(documentId);
+            owner = PdfR4V4Security.computeOwnerValue(ownerPassword, userPassword);
+            encryptionKey = PdfR4V4Security.computeEncryptionKey(userPassword, owner, permissions, fileId, encryptMetaData);
+            user = PdfR4V4Security.computeUserValue(encryptionKey, fileId);
+        } else {
+            throw new IllegalArgumentException("Unsupported security handler revision " + revision);
+        }
+        this.revision = revision;
         this.permissions = permissions;
         this.encryptMetaData = encryptMetaData;
     }
@@ -61,6 +95,14 @@ public class EncryptionElement implements Element {
         return encryptionKey;
     }
 
+    /**
+     * Gets if the meta data stream is encrypted
+     * @return boolean true if the meta data is encrypted
+     */
+    public boolean isEncryptMetaData() {
+        return encryptMetaData;
+    }
+
     @Override
     public void setObjectId(int objectId) {
         this.objectId = objectId;
@@ -76,14 +118,26 @@ public class EncryptionElement implements Element {
         StringBuilder sb = new StringBuilder();
         sb.append(objectId + " 0 obj\n");
         sb.append("<< /Filter /Standard\n");
-        sb.append("/V 4\n");
-        sb.append("/R 4\n");
-        sb.append("/Length 128\n");
-        sb.append("/CF << /StdCF << /CFM /AESV2 /Length 16 >> >>\n");
+        if (revision == AES_256) {
+            sb.append("/V 5\n");
+            sb.append("/R 6\n");
+            sb.append("/Length 256\n");
+            sb.append("/CF << /StdCF << /AuthEvent /DocOpen /CFM /AESV3 /Length 32 >> >>\n");
+        } else {
+            sb.append("/V 4\n");
+            sb.append("/R 4\n");
+            sb.append("/Length 128\n");
+            sb.append("/CF << /StdCF << /CFM /AESV2 /Length 16 >> >>\n");
+        }
         sb.append("/StmF /StdCF\n");
         sb.append("/StrF /StdCF\n");
         sb.append("/O <" + Util.byteToHex(owner) + ">\n");
         sb.append("/U <" + Util.byteToHex(user) + ">\n");
+        if (revision == AES_256) {
+            sb.append("/OE <" + Util.byteToHex(ownerEncryption) + ">\n");
+            sb.append("/UE <" + Util.byteToHex(userEncryption) + ">\n");
+            sb.append("/Perms <" + Util.byteToHex(perms) + ">\n");
+        }
         sb.append("/P " + permissions + "\n");
         sb.append("/EncryptMetadata " + (encryptMetaData ? "true" : "false") + "\n");
         sb.append(">>\n");
@@ -31,6 +31,7 @@ public class FormElement implements Element {
     private Element parent;
     private Element widget;
     private Page page;
+    private int mcid = -1;
 
     /**
      * Sets the parent Element
@@ -56,6 +57,39 @@ public class FormElement implements Element {
         this.page = page;
     }
 
+    /**
+     * Gets the page element
+     * @return Page object
+     */
+    public Page getPage() {
+        return page;
+    }
+
+    /**
+     * Sets the mcid of the marked content of a flattened field, which
+     * replaces the widget as the content of the form element
+     * @param mcid int of the mcid
+     */
+    public void setMcid(int mcid) {
+        this.mcid = mcid;
+    }
+
+    /**
+     * Gets the mcid of the marked content of a flattened field
+     * @return int of the mcid, -1 if the field is not flattened
+     */
+    public int getMcid() {
+        return mcid;
+    }
+
+    /**
+     * Gets the widget of the form element
+     * @return Element of the widget
+     */
+    public Element getWidget() {
+        return widget;
+    }
+
     @Override
     public void setObjectId(int objectId) {
         this.objectId = objectId;
@@ -76,6 +110,8 @@ public class FormElement implements Element {
         sb.append("/Pg " + page.getObjectId() + " 0 R\n");
         if (widget != null) {
             sb.append("/K [<< /Type /OBJR /Obj " + widget.getObjectId() + " 0 R >>]\n");
+        } else if (mcid != -1) {
+            sb.append("/K [" + mcid + "]\n");
         }
         sb.append(">>\n");
         sb.append("endobj\n");
@@ -24,7 +24,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.htmltopdf.renderer.Util;
-import com.htmltopdf.security.PdfR4V4Security;
+import com.htmltopdf.security.PdfSecurity;
 
 /**
  * Class to hold the form field data
@@ -78,8 +78,8 @@ public class FormField implements Element {
         sb.append(objectId + " 0 obj\n");
         sb.append("<< /FT /" + type + "\n");
         if (encryptionKey != null) {
-            byte[] encrypted = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, Util.escapeText(text).getBytes(StandardCharsets.ISO_8859_1));
-            sb.append("/T <" + Util.byteToHex(encrypted) + ">\n");
+            byte[] encrypted = PdfSecurity.encryptString(encryptionKey, objectId, 0, text.getBytes(StandardCharsets.ISO_8859_1));
+            sb.append("/T " + Util.toPdfString(encrypted) + "\n");
         } else {
             sb.append("/T (" + Util.escapeText(text) + ")\n");
         }
@@ -0,0 +1,195 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.element;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.htmltopdf.fonts.Font;
+import com.htmltopdf.renderer.Util;
+import com.htmltopdf.security.PdfSecurity;
+
+/**
+ * Class to hold a Form XObject, content that is built once and drawn
+ * on any number of pages with DrawForm such as watermarks, headers and
+ * footers. Fonts, images and the watermark graphics state used by the
+ * drawings are added to the form resources
+ */
+public class FormXObject implements Element {
+    private int objectId;
+    private int identifier;
+    private String bBox;
+    private Resources resources;
+    private List<Element> drawings;
+
+    /**
+     * Constructor - Initialize the form with its bounding box
+     * @param width int of the width of the form
+     * @param height int of the height of the form
+     */
+    public FormXObject(int width, int height) {
+        this.bBox = "[0 0 " + width + " " + height + "]";
+        resources = new Resources();
+        drawings = new ArrayList<>();
+    }
+
+    /**
+     * Set the Identifier for the form
+     * @param identifier int identifier of the form
+     */
+    public void setIdentifier(int identifier) {
+        this.identifier = identifier;
+    }
+
+    /**
+     * Get the form identifier
+     * @return int of the form identifier
+     */
+    public int getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Adds a font to the form resources
+     * @param font Font of the desired font
+     * @return int of the index of the font
+     */
+    public int addFont(Font font) {
+        return resources.addFont(font);
+    }
+
+    /**
+     * Add an X Object drawn by the form to its resources
+     * @param xObject XObject to be added
+     */
+    public void addXObject(XObject xObject) {
+        resources.addXObject(xObject);
+    }
+
+    /**
+     * Sets boolean to add the watermark graphics state to the form
+     * @param addWatermark boolean True to add the watermark
+     */
+    public void setAddWatermark(boolean addWatermark) {
+        resources.setAddWatermark(addWatermark);
+    }
+
+    /**
+     * Gets the resources used by the form drawings
+     * @return Resources of the form
+     */
+    public Resources getResources() {
+        return resources;
+    }
+
+    /**
+     * Add drawing content to the form such as text, images or a watermark
+     * @param drawing Element of the content operators
+     */
+    public void addDrawing(Element drawing) {
+        drawings.add(drawing);
+    }
+
+    @Override
+    public void setObjectId(int objectId) {
+        this.objectId = objectId;
+    }
+
+    @Override
+    public int getObjectId() {
+        return objectId;
+    }
+
+    @Override
+    public byte[] toByte(byte[] encryptionKey) {
+        byte[] content = buildContent(encryptionKey);
+        if (encryptionKey != null) {
+            content = PdfSecurity.encryptObject(encryptionKey, objectId, 0, content);
+        }
+
+        byte[] start = buildHeader(content.length);
+        byte[] end = "\nendstream\nendobj\n".getBytes(StandardCharsets.ISO_8859_1);
+
+        byte[] output = new byte[start.length + content.length + end.length];
+        System.arraycopy(start, 0, output, 0, start.length);
+        System.arraycopy(content, 0, output, start.length, content.length);
+        System.arraycopy(end, 0, output, start.length + content.length, end.length);
+
+        return output;
+    }
+
+    @Override
+    public void write(OutputStream outputStream, byte[] encryptionKey) throws IOException {
+        byte[] content = buildContent(encryptionKey);
+        if (encryptionKey != null) {
+            outputStream.write(buildHeader(PdfSecurity.encryptedLength(content.length)));
+            try (OutputStream encrypting = PdfSecurity.encryptingStream(encryptionKey, objectId, 0, outputStream)) {
+                encrypting.write(content);
+            }
+        } else {
+            outputStream.write(buildHeader(content.length));
+            outputStream.write(content);
+        }
+        outputStream.write("\nendstream\nendobj\n".getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Builds the compressed drawing operators
+     * @param encryptionKey byte array of the encryption key
+     * @return byte array of the stream data before encryption
+     */
+    private byte[] buildContent(byte[] encryptionKey) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (Element drawing : drawings) {
+            baos.writeBytes(drawing.toByte(encryptionKey));
+        }
+
+        return Util.compressStream(baos.toByteArray());
+    }
+
+    /**
+     * Builds the form dictionary up to the start of the stream data
+     * @param length long of the stream length
+     * @return byte array of the object header
+     */
+    private byte[] buildHeader(long length) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(objectId + " 0 obj\n");
+        sb.append("<< /Type /XObject\n");
+        sb.append("/Subtype /Form\n");
+        sb.append("/BBox " + bBox + "\n");
+        resources.append(sb);
+        sb.append("/Length " + length + " /Filter /FlateDecode\n");
+        sb.append(">>\n");
+        sb.append("stream\n");
+
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public void visitChildren(Consumer<Element> visitor) {
+        resources.visitXObjects(visitor);
+    }
+}
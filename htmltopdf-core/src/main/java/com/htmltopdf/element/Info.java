@@ -25,7 +25,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 import com.htmltopdf.renderer.Util;
-import com.htmltopdf.security.PdfR4V4Security;
+import com.htmltopdf.security.PdfSecurity;
 
 /**
  * Class to hold the Information element for the PDF
@@ -149,18 +149,18 @@ public class Info implements Element {
         StringBuilder sb = new StringBuilder();
         sb.append(objectId + " 0 obj\n");
         if (encryptionKey != null) {
-            byte[] encryptTitle = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, title.getBytes(StandardCharsets.ISO_8859_1));
-            byte[] encryptAuthor = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, author.getBytes(StandardCharsets.ISO_8859_1));
-            byte[] encryptSubject = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, subject.getBytes(StandardCharsets.ISO_8859_1));
-            byte[] encryptCreator = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, creator.getBytes(StandardCharsets.ISO_8859_1));
-            byte[] encryptProducer = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, producer.getBytes(StandardCharsets.ISO_8859_1));
-            byte[] encryptCreateDate = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, creationDate.getBytes(StandardCharsets.ISO_8859_1));
-            sb.append("<< /Title <" + Util.byteToHex(encryptTitle) + ">\n");
-            sb.append("/Author <" + Util.byteToHex(encryptAuthor) + ">\n");
-            sb.append("/Subject <" + Util.byteToHex(encryptSubject) + ">\n");
-            sb.append("/Creator <" + Util.byteToHex(encryptCreator) + ">\n");
-            sb.append("/Producer <" + Util.byteToHex(encryptProducer) + ">\n");
-            sb.append("/CreationDate <" + Util.byteToHex(encryptCreateDate) + ">\n");
+            byte[] encryptTitle = PdfSecurity.encryptString(encryptionKey, objectId, 0, title.getBytes(StandardCharsets.ISO_8859_1));
+            byte[] encryptAuthor = PdfSecurity.encryptString(encryptionKey, objectId, 0, author.getBytes(StandardCharsets.ISO_8859_1));
+            byte[] encryptSubject = PdfSecurity.encryptString(encryptionKey, objectId, 0, subject.getBytes(StandardCharsets.ISO_8859_1));
+            byte[] encryptCreator = PdfSecurity.encryptString(encryptionKey, objectId, 0, creator.getBytes(StandardCharsets.ISO_8859_1));
+            byte[] encryptProducer = PdfSecurity.encryptString(encryptionKey, objectId, 0, producer.getBytes(StandardCharsets.ISO_8859_1));
+            byte[] encryptCreateDate = PdfSecurity.encryptString(encryptionKey, objectId, 0, creationDate.getBytes(StandardCharsets.ISO_8859_1));
+            sb.append("<< /Title " + Util.toPdfString(encryptTitle) + "\n");
+            sb.append("/Author " + Util.toPdfString(encryptAuthor) + "\n");
+            sb.append("/Subject " + Util.toPdfString(encryptSubject) + "\n");
+            sb.append("/Creator " + Util.toPdfString(encryptCreator) + "\n");
+            sb.append("/Producer " + Util.toPdfString(encryptProducer) + "\n");
+            sb.append("/CreationDate " + Util.toPdfString(encryptCreateDate) + "\n");
         } else {
             sb.append("<< /Title (" + title + ")\n");
             sb.append("/Author (" + author + ")\n");
@@ -73,6 +73,38 @@ public class LinkElement implements Element {
         this.annotation = annotation;
     }
 
+    /**
+     * Gets the page of the link
+     * @return Page of the link
+     */
+    public Page getPage() {
+        return page;
+    }
+
+    /**
+     * Gets the alternate text of the link
+     * @return String of the alternate text
+     */
+    public String getAltText() {
+        return altText;
+    }
+
+    /**
+     * Gets the mcid of the link text
+     * @return int of the mcid
+     */
+    public int getMcid() {
+        return mcid;
+    }
+
+    /**
+     * Gets the link annotation
+     * @return Element of the annotation
+     */
+    public Element getAnnotation() {
+        return annotation;
+    }
+
     @Override
     public void setObjectId(int objectId) {
         this.objectId = objectId;
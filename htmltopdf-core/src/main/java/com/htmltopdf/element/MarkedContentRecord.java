@@ -20,11 +20,11 @@
 package com.htmltopdf.element;
 
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
- * Class to hold the marked content data
+ * Class to hold the marked content data. A record without an object Id
+ * is written inline in its structure element's /K array, as the bare
+ * MCID when it is on the structure element's page
  */
 public class MarkedContentRecord implements Element {
     private int objectId;
@@ -47,6 +47,35 @@ public class MarkedContentRecord implements Element {
         this.mcid = mcid;
     }
 
+    /**
+     * Gets the mcid for the marked content
+     * @return int of the mcid
+     */
+    public int getMcid() {
+        return mcid;
+    }
+
+    /**
+     * Gets the page of the marked content
+     * @return Page object
+     */
+    public Page getPage() {
+        return page;
+    }
+
+    /**
+     * Builds the inline form of the record for a /K array
+     * @param parentPage Page of the structure element holding the record
+     * @return String of the MCID or the MCR dictionary
+     */
+    public String toInline(Page parentPage) {
+        if (page == parentPage) {
+            return String.valueOf(mcid);
+        }
+
+        return "<< /Type /MCR /Pg " + page.getObjectId() + " 0 R /MCID " + mcid + " >>";
+    }
+
     @Override
     public void setObjectId(int objectId) {
         this.objectId = objectId;
@@ -70,11 +99,4 @@ public class MarkedContentRecord implements Element {
         return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
     }
 
-    @Override
-    public List<Element> buildElementList() {
-        List<Element> elements = new ArrayList<>();
-        elements.add(this);
-        return elements;
-    }
-    
 }
@@ -24,7 +24,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Class to hold the number array
+ * Class to hold the number array. An array without an object Id
+ * is written inline in the parent tree
  */
 public class Num implements Element {
     private int objectId;
@@ -77,6 +78,24 @@ public class Num implements Element {
         return isAnnotation;
     }
 
+    /**
+     * Builds the array of references
+     * @return String of the reference array
+     */
+    public String toArray() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        for (int i = 0; i < refs.size(); i++) {
+            sb.append(refs.get(i).getObjectId() + " 0 R");
+            if (i < refs.size() - 1) {
+                sb.append(" ");
+            }
+        }
+        sb.append("]");
+
+        return sb.toString();
+    }
+
     @Override
     public void setObjectId(int objectId) {
         this.objectId = objectId;
@@ -92,27 +111,11 @@ public class Num implements Element {
         StringBuilder sb = new StringBuilder();
         if (!isAnnotation) {
             sb.append(objectId + " 0 obj\n");
-            sb.append("[");
-            if (!refs.isEmpty()) {
-                for (int i = 0; i < refs.size(); i++) {
-                    sb.append(refs.get(i).getObjectId() + " 0 R");
-                    if (i < refs.size() - 1) {
-                        sb.append(" ");
-                    }
-                }
-            }
-            sb.append("]\n");
+            sb.append(toArray() + "\n");
             sb.append("endobj\n");
         }
 
         return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
     }
 
-    @Override
-    public List<Element> buildElementList() {
-        List<Element> elements = new ArrayList<>();
-        elements.add(this);
-        return elements;
-    }
-    
 }
@@ -23,7 +23,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import com.htmltopdf.renderer.Util;
-import com.htmltopdf.security.PdfR4V4Security;
+import com.htmltopdf.security.PdfSecurity;
 
 /**
  * Class to hold the data for one bookmark
@@ -103,8 +103,8 @@ public class Outline implements Element {
         StringBuilder sb = new StringBuilder();
         sb.append(objectId + " 0 obj\n");
         if (encryptionKey != null) {
-            byte[] encrypted = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, title.getBytes(StandardCharsets.ISO_8859_1));
-            sb.append("<< /Title <" + Util.byteToHex(encrypted) + ">\n");
+            byte[] encrypted = PdfSecurity.encryptString(encryptionKey, objectId, 0, title.getBytes(StandardCharsets.ISO_8859_1));
+            sb.append("<< /Title " + Util.toPdfString(encrypted) + "\n");
         } else {
             sb.append("<< /Title (" + title + ")\n");
         }
@@ -22,6 +22,7 @@ package com.htmltopdf.element;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Manages the bookmark list
@@ -77,11 +78,8 @@ public class Outlines implements Element {
     }
 
     @Override
-    public List<Element> buildElementList() {
-        List<Element> elements = new ArrayList<>();
-        elements.add(this);
-        elements.addAll(outlines);
-        return elements;
+    public void visitChildren(Consumer<Element> visitor) {
+        outlines.forEach(visitor);
     }
     
 }
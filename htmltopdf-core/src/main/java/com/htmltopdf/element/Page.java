@@ -22,6 +22,7 @@ package com.htmltopdf.element;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.htmltopdf.fonts.Font;
 
@@ -33,12 +34,11 @@ public class Page implements Element {
     protected Element parent;
     protected String mediaBox;
     protected List<ContentStream> contents;
-    protected List<Font> fonts;
-    protected List<XObject> xObjects;
+    protected Resources resources;
     protected List<Element> annotations;
     protected String tabs = "/S";
     protected int structParents;
-    protected boolean addWatermark;
+    protected int mcidCount;
 
     /**
      * Constructor - initalize variables
@@ -47,8 +47,7 @@ public class Page implements Element {
      */
     public Page(int width, int height) {
         contents = new ArrayList<>();
-        fonts = new ArrayList<>();
-        xObjects = new ArrayList<>();
+        resources = new Resources();
         annotations = new ArrayList<>();
         this.mediaBox = "[0 0 " + width + " " + height + "]";
     }
@@ -59,8 +58,7 @@ public class Page implements Element {
      */
     public Page(Size size) {
         contents = new ArrayList<>();
-        fonts = new ArrayList<>();
-        xObjects = new ArrayList<>();
+        resources = new Resources();
         annotations = new ArrayList<>();
         this.mediaBox = "[0 0 " + size.x + " " + size.y + "]";
     }
@@ -89,6 +87,30 @@ public class Page implements Element {
         return structParents;
     }
 
+    /**
+     * Sets the number of MCIDs assigned to the page content
+     * @param mcidCount int of the MCID count
+     */
+    public void setMcidCount(int mcidCount) {
+        this.mcidCount = mcidCount;
+    }
+
+    /**
+     * Gets the number of MCIDs assigned to the page content
+     * @return int of the MCID count
+     */
+    public int getMcidCount() {
+        return mcidCount;
+    }
+
+    /**
+     * Gets the annotations of the page
+     * @return List of the annotations
+     */
+    public List<Element> getAnnotations() {
+        return annotations;
+    }
+
     /**
      * Adds a font to the page. If font has already been added the index
      * of the font is returned. Otherwise, the font is added to the array
@@ -97,14 +119,7 @@ public class Page implements Element {
      * @return int of the index of the font
      */
     public int addFont(Font font) {
-        for (int i = 0; i < fonts.size(); i++) {
-            if (fonts.get(i).getObjectId() == font.getObjectId()) {
-                return i + 1;
-            }
-        }
-
-        fonts.add(font);
-        return fonts.size();
+        return resources.addFont(font);
     }
 
     /**
@@ -124,11 +139,30 @@ public class Page implements Element {
     }
 
     /**
-     * Add an X Object to the page
+     * Add an X Object to the page, an X Object already
+     * on the page is only referenced once and inline images are
+     * written in the content stream instead of the page resources
      * @param xObject XObject to be added
      */
     public void addXObject(XObject xObject) {
-        xObjects.add(xObject);
+        resources.addXObject(xObject);
+    }
+
+    /**
+     * Add a Form X Object to the page, a form already on the
+     * page is only referenced once
+     * @param formXObject FormXObject to be added
+     */
+    public void addFormXObject(FormXObject formXObject) {
+        resources.addFormXObject(formXObject);
+    }
+
+    /**
+     * Gets the content streams of the page
+     * @return List of the content streams
+     */
+    public List<ContentStream> getContents() {
+        return contents;
     }
 
     /**
@@ -144,7 +178,15 @@ public class Page implements Element {
      * @param addWatermark boolean True to add the watermark
      */
     public void setAddWatermark(boolean addWatermark) {
-        this.addWatermark = addWatermark;
+        resources.setAddWatermark(addWatermark);
+    }
+
+    /**
+     * Gets the resources used by the page content
+     * @return Resources of the page
+     */
+    public Resources getResources() {
+        return resources;
     }
 
     @Override
@@ -170,33 +212,7 @@ public class Page implements Element {
                 sb.append(e.getObjectId() + " 0 R\n");
             }
         }
-        if (!xObjects.isEmpty() || !fonts.isEmpty() || addWatermark) {
-            sb.append("/Resources <<\n");
-            if (!fonts.isEmpty()) {
-                sb.append("/Font << ");
-                for (int i = 0; i < fonts.size(); i++) {
-                    sb.append("/F" + (i + 1) + " " + fonts.get(i).getObjectId() +  " 0 R ");
-                }
-                sb.append(">>\n");
-            }
-            if (!xObjects.isEmpty()) {
-                sb.append("/XObject << ");
-                for (int i = 0; i < xObjects.size(); i++) {
-                    sb.append("/Im" + xObjects.get(i).getIdentifier() + " " + xObjects.get(i).getObjectId() + " 0 R ");
-                }
-                sb.append(">>\n");
-            }
-            if (addWatermark) {
-                sb.append("/ExtGState <<\n");
-                sb.append("/GS1 <<\n");
-                sb.append("/Type /ExtGState\n");
-                sb.append("/ca 0.10\n");
-                sb.append("/CA 0.10\n");
-                sb.append(">>\n");
-                sb.append(">>\n");
-            }
-            sb.append(">>\n");
-        }
+        resources.append(sb);
         if (!annotations.isEmpty()) {
             sb.append("/Annots [");
             for (int i = 0; i < annotations.size(); i++) {
@@ -217,16 +233,12 @@ public class Page implements Element {
     }
 
     @Override
-    public List<Element> buildElementList() {
-        List<Element> elements = new ArrayList<>();
-        elements.add(this);
-        if (!contents.isEmpty()) elements.addAll(contents);
-        if (!xObjects.isEmpty()) elements.addAll(xObjects);
+    public void visitChildren(Consumer<Element> visitor) {
+        contents.forEach(visitor);
+        resources.visitXObjects(visitor);
         for (Element element : annotations) {
-            elements.addAll(element.buildElementList());
+            visitor.accept(element);
         }
-
-        return elements;
     }
     
     public static enum Size {
@@ -22,6 +22,7 @@ package com.htmltopdf.element;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Class to Hold the pages PDF structure
@@ -55,6 +56,14 @@ public class Pages implements Element {
         return kids.size();
     }
 
+    /**
+     * Gets the pages of the PDF
+     * @return List of the pages
+     */
+    public List<Page> getKids() {
+        return kids;
+    }
+
     @Override
     public void setObjectId(int objectId) {
         this.objectId = objectId;
@@ -86,14 +95,10 @@ public class Pages implements Element {
     }
 
     @Override
-    public List<Element> buildElementList() {
-        List<Element> elements = new ArrayList<>();
-        elements.add(this);
+    public void visitChildren(Consumer<Element> visitor) {
         for (Page kid : kids) {
-            elements.addAll(kid.buildElementList());
+            visitor.accept(kid);
         }
-
-        return elements;
     }
     
 }
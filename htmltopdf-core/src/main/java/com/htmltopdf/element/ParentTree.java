@@ -20,15 +20,26 @@
 package com.htmltopdf.element;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
 
 /**
- * Class to build the Parent tree
+ * Class to build the Parent tree, number arrays without an
+ * object Id are written inline. Parent trees with more entries than
+ * a leaf holds are written as a balanced number tree of /Kids with
+ * /Limits, the node object Ids are assigned by buildNodes
  */
 public class ParentTree implements Element {
     private int objectId;
     private List<Num> nums;
+    private int leafSize = 64;
+    private List<NumberTreeNode> kids;
+    private List<NumberTreeNode> nodes;
+    private int builtSize;
 
     /**
      * Constructor - Initialize variables
@@ -45,6 +56,68 @@ public class ParentTree implements Element {
         nums.add(num);
     }
 
+    /**
+     * Sets the most entries in a leaf and kids in a node, default is 64
+     * @param leafSize int of the node size
+     */
+    public void setLeafSize(int leafSize) {
+        this.leafSize = leafSize;
+    }
+
+    /**
+     * Builds the balanced number tree when there are more entries than
+     * a leaf holds. Called once all the pages are added, before the
+     * element list is built. The tree is built again when entries were
+     * added since the last build, the node object Ids are reused
+     * @param objectIds IntSupplier of the next object Id
+     */
+    public void buildNodes(IntSupplier objectIds) {
+        if (nums.size() == builtSize) {
+            return;
+        }
+        Deque<Integer> previousIds = new ArrayDeque<>();
+        if (nodes != null) {
+            for (NumberTreeNode node : nodes) {
+                previousIds.add(node.getObjectId());
+            }
+        }
+        builtSize = nums.size();
+        nodes = null;
+        kids = null;
+        if (nums.size() <= leafSize) {
+            return;
+        }
+
+        nodes = new ArrayList<>();
+        List<NumberTreeNode> level = new ArrayList<>();
+        for (int[] range : split(0, nums.size())) {
+            level.add(new NumberTreeNode(range[0], range[1], null));
+        }
+        nodes.addAll(level);
+        while (level.size() > leafSize) {
+            List<NumberTreeNode> parents = new ArrayList<>();
+            for (int[] range : split(0, level.size())) {
+                List<NumberTreeNode> children = level.subList(range[0], range[1]);
+                parents.add(new NumberTreeNode(children.get(0).first, children.get(children.size() - 1).last, children));
+            }
+            nodes.addAll(parents);
+            level = parents;
+        }
+        kids = level;
+
+        for (NumberTreeNode node : nodes) {
+            node.setObjectId(previousIds.isEmpty() ? objectIds.getAsInt() : previousIds.poll());
+        }
+    }
+
+    /**
+     * Gets the number arrays, the index is the parent tree key
+     * @return List of the Num arrays
+     */
+    public List<Num> getNums() {
+        return nums;
+    }
+
     @Override
     public void setObjectId(int objectId) {
         this.objectId = objectId;
@@ -59,20 +132,11 @@ public class ParentTree implements Element {
     public byte[] toByte(byte[] encryptionKey) {
         StringBuilder sb = new StringBuilder();
         sb.append(objectId + " 0 obj\n");
-        sb.append("<< /Nums [");
-        if (!nums.isEmpty()) {
-            for (int i = 0; i < nums.size(); i++) {
-                if (nums.get(i).getIsAnnotation()) {
-                    sb.append(i + " " + nums.get(i).getReference().get(0).getObjectId() + " 0 R");
-                } else {
-                    sb.append(i + " " + nums.get(i).getObjectId() + " 0 R");
-                }
-                if (i < nums.size() - 1) {
-                    sb.append(" ");
-                }
-            }
+        if (kids != null) {
+            sb.append("<< /Kids " + references(kids) + "\n");
+        } else {
+            sb.append("<< /Nums [" + entries(0, nums.size()) + "]\n");
         }
-        sb.append("]\n");
         sb.append(">>\n");
         sb.append("endobj\n");
 
@@ -80,14 +144,131 @@ public class ParentTree implements Element {
     }
 
     @Override
-    public List<Element> buildElementList() {
-        List<Element> elements = new ArrayList<>();
-        elements.add(this);
+    public void visitChildren(Consumer<Element> visitor) {
+        if (nodes != null) {
+            nodes.forEach(visitor);
+        }
         for (Element num : nums) {
-            elements.addAll(num.buildElementList());
+            visitor.accept(num);
+        }
+    }
+
+    /**
+     * Builds the /Nums entries of a range of keys
+     * @param first int of the first key
+     * @param last int of the key after the last key
+     * @return String of the entries
+     */
+    private String entries(int first, int last) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = first; i < last; i++) {
+            Num num = nums.get(i);
+            if (num.getIsAnnotation()) {
+                sb.append(i + " " + num.getReference().get(0).getObjectId() + " 0 R");
+            } else if (num.getObjectId() == 0) {
+                sb.append(i + " " + num.toArray());
+            } else {
+                sb.append(i + " " + num.getObjectId() + " 0 R");
+            }
+            if (i < last - 1) {
+                sb.append(" ");
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Builds an array of references to tree nodes
+     * @param children List of the nodes
+     * @return String of the reference array
+     */
+    private static String references(List<NumberTreeNode> children) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        for (int i = 0; i < children.size(); i++) {
+            sb.append(children.get(i).getObjectId() + " 0 R");
+            if (i < children.size() - 1) {
+                sb.append(" ");
+            }
+        }
+        sb.append("]");
+
+        return sb.toString();
+    }
+
+    /**
+     * Splits a range into the fewest groups of at most leaf size,
+     * spreading the items evenly so the tree stays balanced
+     * @param first int of the first item
+     * @param last int of the item after the last item
+     * @return List of the [first, last) ranges
+     */
+    private List<int[]> split(int first, int last) {
+        int count = last - first;
+        int groups = (count + leafSize - 1) / leafSize;
+        List<int[]> ranges = new ArrayList<>();
+        int start = first;
+        for (int g = 0; g < groups; g++) {
+            int size = count / groups + (g < count % groups ? 1 : 0);
+            ranges.add(new int[] {start, start + size});
+            start += size;
         }
 
-        return elements;
+        return ranges;
+    }
+
+    /**
+     * Intermediate or leaf node of the number tree
+     */
+    private class NumberTreeNode implements Element {
+        private int objectId;
+        private int first;
+        private int last;
+        private List<NumberTreeNode> children;
+
+        /**
+         * Constructor - Initialize with the keys of the node
+         * @param first int of the first key
+         * @param last int of the key after the last key
+         * @param children List of the child nodes, null for a leaf
+         */
+        NumberTreeNode(int first, int last, List<NumberTreeNode> children) {
+            this.first = first;
+            this.last = last;
+            this.children = children;
+        }
+
+        @Override
+        public void setObjectId(int objectId) {
+            this.objectId = objectId;
+        }
+
+        @Override
+        public int getObjectId() {
+            return objectId;
+        }
+
+        @Override
+        public byte[] toByte(byte[] encryptionKey) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(objectId + " 0 obj\n");
+            sb.append("<< /Limits [" + first + " " + (last - 1) + "]\n");
+            if (children != null) {
+                sb.append("/Kids " + references(children) + "\n");
+            } else {
+                sb.append("/Nums [" + entries(first, last) + "]\n");
+            }
+            sb.append(">>\n");
+            sb.append("endobj\n");
+
+            return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public List<Element> buildElementList() {
+            // Nodes are listed by the parent tree
+            throw new UnsupportedOperationException("NumberTreeNode has an Unimplemented method 'buildElementList'");
+        }
     }
-    
 }
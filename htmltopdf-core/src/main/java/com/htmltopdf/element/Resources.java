@@ -0,0 +1,143 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.htmltopdf.element;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.htmltopdf.fonts.Font;
+
+/**
+ * Class to hold the resources used by the content of a page or a
+ * Form XObject, the fonts, images, forms and the watermark graphics state
+ */
+public class Resources {
+    private List<Font> fonts;
+    private List<XObject> xObjects;
+    private List<FormXObject> formXObjects;
+    private boolean addWatermark;
+
+    /**
+     * Constructor - initialize variables
+     */
+    public Resources() {
+        fonts = new ArrayList<>();
+        xObjects = new ArrayList<>();
+        formXObjects = new ArrayList<>();
+    }
+
+    /**
+     * Adds a font to the resources. If font has already been added the index
+     * of the font is returned. Otherwise, the font is added to the array
+     * and the size is returned
+     * @param font Font of the desired font
+     * @return int of the index of the font
+     */
+    public int addFont(Font font) {
+        for (int i = 0; i < fonts.size(); i++) {
+            if (fonts.get(i).getObjectId() == font.getObjectId()) {
+                return i + 1;
+            }
+        }
+
+        fonts.add(font);
+        return fonts.size();
+    }
+
+    /**
+     * Add an X Object to the resources, an X Object already added
+     * is only referenced once and inline images are written in the
+     * content stream instead of the resources
+     * @param xObject XObject to be added
+     */
+    public void addXObject(XObject xObject) {
+        if (!xObject.isInline() && !xObjects.contains(xObject)) {
+            xObjects.add(xObject);
+        }
+    }
+
+    /**
+     * Add a Form X Object to the resources, a form already added
+     * is only referenced once
+     * @param formXObject FormXObject to be added
+     */
+    public void addFormXObject(FormXObject formXObject) {
+        if (!formXObjects.contains(formXObject)) {
+            formXObjects.add(formXObject);
+        }
+    }
+
+    /**
+     * Sets boolean to add the watermark graphics state
+     * @param addWatermark boolean True to add the watermark
+     */
+    public void setAddWatermark(boolean addWatermark) {
+        this.addWatermark = addWatermark;
+    }
+
+    /**
+     * Appends the resource dictionary of the fonts, images, forms
+     * and watermark graphics state used by the content
+     * @param sb StringBuilder of the object dictionary
+     */
+    public void append(StringBuilder sb) {
+        if (!xObjects.isEmpty() || !formXObjects.isEmpty() || !fonts.isEmpty() || addWatermark) {
+            sb.append("/Resources <<\n");
+            if (!fonts.isEmpty()) {
+                sb.append("/Font << ");
+                for (int i = 0; i < fonts.size(); i++) {
+                    sb.append("/F" + (i + 1) + " " + fonts.get(i).getObjectId() +  " 0 R ");
+                }
+                sb.append(">>\n");
+            }
+            if (!xObjects.isEmpty() || !formXObjects.isEmpty()) {
+                sb.append("/XObject << ");
+                for (int i = 0; i < xObjects.size(); i++) {
+                    sb.append("/" + xObjects.get(i).getResourceName() + " " + xObjects.get(i).getObjectId() + " 0 R ");
+                }
+                for (FormXObject formXObject : formXObjects) {
+                    sb.append("/Fm" + formXObject.getIdentifier() + " " + formXObject.getObjectId() + " 0 R ");
+                }
+                sb.append(">>\n");
+            }
+            if (addWatermark) {
+                sb.append("/ExtGState <<\n");
+                sb.append("/GS1 <<\n");
+                sb.append("/Type /ExtGState\n");
+                sb.append("/ca 0.10\n");
+                sb.append("/CA 0.10\n");
+                sb.append(">>\n");
+                sb.append(">>\n");
+            }
+            sb.append(">>\n");
+        }
+    }
+
+    /**
+     * Passes the images written with the owner of the resources to the
+     * visitor, shared images are written once by the image registry
+     * @param visitor Consumer of the images
+     */
+    public void visitXObjects(Consumer<Element> visitor) {
+        for (XObject xObject : xObjects) {
+            if (!xObject.isShared()) visitor.accept(xObject);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.element;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.htmltopdf.image.ImageInfo;
+import com.htmltopdf.image.RawImage;
+import com.htmltopdf.image.ScanlineSource;
+import com.htmltopdf.security.PdfSecurity;
+
+/**
+ * Image XObject that pulls its rows from a scanline source and Flate
+ * encodes them straight into the output, so only a few rows of the
+ * image are in memory however large the image is. The stream length
+ * is only known after the rows are written and is written as an
+ * indirect object. The source is closed once the image is written, so
+ * the image can only be written once and a document using it can only
+ * be written once
+ */
+public class ScanlineXObject extends XObject {
+    private static final Logger logger = LoggerFactory.getLogger(ScanlineXObject.class);
+    private static final int FILTER_UP = 2;
+    private static final int BUFFER_SIZE = 65536;
+    private ScanlineSource scanlineSource;
+    private StreamLength streamLength = new StreamLength();
+    private boolean written = false;
+
+    /**
+     * Constructor - Initialize with the scanline source
+     * @param scanlineSource ScanlineSource of the image rows
+     */
+    public ScanlineXObject(ScanlineSource scanlineSource) {
+        super(IMAGE);
+        this.scanlineSource = scanlineSource;
+
+        ImageInfo imageInfo = new ImageInfo();
+        imageInfo.setSize(scanlineSource.getWidth(), scanlineSource.getHeight());
+        imageInfo.setComponents(scanlineSource.getComponents());
+        imageInfo.setBitsPerComponent(scanlineSource.getBitsPerComponent());
+        imageInfo.setColorSpace(RawImage.colorSpace(scanlineSource.getComponents()));
+        imageInfo.setFilter(ImageInfo.FLATE_DECODE);
+        imageInfo.setDecodeParms(RawImage.predictorParms(scanlineSource.getComponents(), scanlineSource.getBitsPerComponent(), scanlineSource.getWidth()));
+        setImageInfo(imageInfo);
+    }
+
+    /**
+     * Get the indirect length of the image stream, its object Id
+     * must be set before the document is written
+     * @return StreamLength of the image stream
+     */
+    public StreamLength getStreamLength() {
+        return streamLength;
+    }
+
+    @Override
+    public byte[] toByte(byte[] encryptionKey) {
+        byte[] output = null;
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            encodeRows(baos);
+            byte[] data = baos.toByteArray();
+            if (encryptionKey != null) {
+                data = PdfSecurity.encryptObject(encryptionKey, getObjectId(), 0, data);
+            }
+            streamLength.setLength(data.length);
+
+            byte[] end = "\nendstream\nendobj\n".getBytes(StandardCharsets.ISO_8859_1);
+            byte[] start = buildHeader(streamLength.getObjectId() + " 0 R");
+            output = new byte[start.length + data.length + end.length];
+            System.arraycopy(start, 0, output, 0, start.length);
+            System.arraycopy(data, 0, output, start.length, data.length);
+            System.arraycopy(end, 0, output, start.length + data.length, end.length);
+        } catch (IOException ioEx) {
+            logger.error("IO Exception was encountered reading the rows of image " + getIdentifier(), ioEx);
+            throw new RuntimeException("IO Exception was encountered while reading the rows of image " + getIdentifier());
+        }
+
+        return output;
+    }
+
+    @Override
+    public void write(OutputStream outputStream, byte[] encryptionKey) throws IOException {
+        outputStream.write(buildHeader(streamLength.getObjectId() + " 0 R"));
+        CountingOutputStream counting = new CountingOutputStream(outputStream);
+        if (encryptionKey != null) {
+            try (OutputStream encrypting = PdfSecurity.encryptingStream(encryptionKey, getObjectId(), 0, counting)) {
+                encodeRows(encrypting);
+            }
+        } else {
+            encodeRows(counting);
+        }
+        streamLength.setLength(counting.count);
+        outputStream.write("\nendstream\nendobj\n".getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Reads the rows from the source and writes them Flate encoded
+     * with the PNG Up predictor, the output stream is not closed and
+     * the source is closed
+     * @param outputStream OutputStream to write the encoded rows to
+     * @throws IOException throws if a row cannot be read or written
+     */
+    private void encodeRows(OutputStream outputStream) throws IOException {
+        if (written) {
+            throw new IllegalStateException("Image " + getIdentifier() + " was already written and its scanline source is closed");
+        }
+        written = true;
+        int stride = (getWidth() * scanlineSource.getComponents() * scanlineSource.getBitsPerComponent() + 7) / 8;
+        byte[] previous = new byte[stride];
+        byte[] current = new byte[stride];
+        byte[] filtered = new byte[stride + 1];
+        filtered[0] = FILTER_UP;
+
+        Deflater deflater = new Deflater();
+        try (ScanlineSource source = scanlineSource) {
+            DeflaterOutputStream dos = new DeflaterOutputStream(outputStream, deflater, BUFFER_SIZE);
+            for (int y = 0; y < getHeight(); y++) {
+                source.readRow(y, current);
+                for (int i = 0; i < stride; i++) {
+                    filtered[i + 1] = (byte) (current[i] - previous[i]);
+                }
+                dos.write(filtered);
+
+                byte[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            dos.finish();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public void visitChildren(Consumer<Element> visitor) {
+        super.visitChildren(visitor);
+        visitor.accept(streamLength);
+    }
+
+    /**
+     * Output stream counting the bytes written through it
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        /**
+         * Constructor - Initialize with the stream to write to
+         * @param outputStream OutputStream to write to
+         */
+        CountingOutputStream(OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
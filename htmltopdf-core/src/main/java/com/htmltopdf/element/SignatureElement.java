@@ -0,0 +1,227 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.element;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import com.htmltopdf.renderer.Util;
+import com.htmltopdf.security.PdfSecurity;
+import com.htmltopdf.security.PdfSigner;
+
+/**
+ * Class to hold the signature dictionary of a PAdES signature. The
+ * /ByteRange and /Contents are written as fixed width placeholders,
+ * PDFWriter fills in the byte range before writing the dictionary and
+ * patches the CMS signature into /Contents once the file is written
+ */
+public class SignatureElement implements Element {
+    // Wide enough for any offset or length, a signed file can be larger than 10 digits of bytes
+    private static final int BYTE_RANGE_WIDTH = String.valueOf(Long.MAX_VALUE).length();
+    private int objectId;
+    private PdfSigner signer;
+    private int contentsSize = 8192;
+    private long[] byteRange = new long[4];
+    private String signingTime;
+    private String reason;
+    private String location;
+    private String contactInfo;
+
+    /**
+     * Constructor - Initialize with the signer
+     * @param signer PdfSigner of the signing key and certificates
+     */
+    public SignatureElement(PdfSigner signer) {
+        this.signer = signer;
+        this.signingTime = formatDateTime();
+    }
+
+    /**
+     * Get the signer
+     * @return PdfSigner of the signing key and certificates
+     */
+    public PdfSigner getSigner() {
+        return signer;
+    }
+
+    /**
+     * Sets the reason for signing
+     * @param reason String of the reason
+     */
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    /**
+     * Sets the location of signing
+     * @param location String of the location
+     */
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    /**
+     * Sets the signer's contact information
+     * @param contactInfo String of the contact information
+     */
+    public void setContactInfo(String contactInfo) {
+        this.contactInfo = contactInfo;
+    }
+
+    /**
+     * Sets the space reserved for the CMS signature, default is 8192 bytes.
+     * Increase for long certificate chains
+     * @param contentsSize int of the reserved size in bytes
+     */
+    public void setContentsSize(int contentsSize) {
+        this.contentsSize = contentsSize;
+    }
+
+    /**
+     * Get the space reserved for the CMS signature
+     * @return int of the reserved size in bytes
+     */
+    public int getContentsSize() {
+        return contentsSize;
+    }
+
+    /**
+     * Sets the signed byte ranges, the document before and after /Contents
+     * @param byteRange long array of the offset and length of both ranges
+     */
+    public void setByteRange(long[] byteRange) {
+        this.byteRange = byteRange;
+    }
+
+    /**
+     * Writes the byte range into a dictionary already built by toByte.
+     * The byte range numbers are fixed width, so only the start of the
+     * dictionary is replaced and its length does not change
+     * @param dictionary byte array of the dictionary built by toByte
+     */
+    public void writeByteRange(byte[] dictionary) {
+        byte[] start = buildStart().getBytes(StandardCharsets.ISO_8859_1);
+        System.arraycopy(start, 0, dictionary, 0, start.length);
+    }
+
+    /**
+     * Get the offset of the /Contents hex string, its opening bracket,
+     * from the start of the object
+     * @return int of the offset
+     */
+    public int getContentsOffset() {
+        return buildStart().length();
+    }
+
+    @Override
+    public void setObjectId(int objectId) {
+        this.objectId = objectId;
+    }
+
+    @Override
+    public int getObjectId() {
+        return objectId;
+    }
+
+    @Override
+    public byte[] toByte(byte[] encryptionKey) {
+        StringBuilder sb = new StringBuilder(buildStart());
+        // The signature is never encrypted
+        sb.append("<" + "0".repeat(contentsSize * 2) + ">\n");
+        sb.append("/M " + string(signingTime, encryptionKey) + "\n");
+        sb.append("/Name " + string(signer.getSignerName(), encryptionKey) + "\n");
+        if (reason != null) {
+            sb.append("/Reason " + string(reason, encryptionKey) + "\n");
+        }
+        if (location != null) {
+            sb.append("/Location " + string(location, encryptionKey) + "\n");
+        }
+        if (contactInfo != null) {
+            sb.append("/ContactInfo " + string(contactInfo, encryptionKey) + "\n");
+        }
+        sb.append(">>\n");
+        sb.append("endobj\n");
+
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public List<Element> buildElementList() {
+        // Not needed for this element type
+        throw new UnsupportedOperationException("SignatureElement has an Unimplemented method 'buildElementList'");
+    }
+
+    /**
+     * Builds the dictionary up to the /Contents value, the byte range
+     * numbers are padded so the length does not depend on them
+     * @return String of the start of the dictionary
+     */
+    private String buildStart() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(objectId + " 0 obj\n");
+        sb.append("<< /Type /Sig\n");
+        sb.append("/Filter /Adobe.PPKLite\n");
+        sb.append("/SubFilter /ETSI.CAdES.detached\n");
+        sb.append("/ByteRange [");
+        for (int i = 0; i < byteRange.length; i++) {
+            String value = String.valueOf(byteRange[i]);
+            if (value.length() > BYTE_RANGE_WIDTH) {
+                throw new IllegalStateException("Byte range value " + value + " does not fit the " + BYTE_RANGE_WIDTH + " digit placeholder");
+            }
+            sb.append(value + " ".repeat(BYTE_RANGE_WIDTH - value.length()));
+            if (i < byteRange.length - 1) {
+                sb.append(" ");
+            }
+        }
+        sb.append("]\n");
+        sb.append("/Contents ");
+
+        return sb.toString();
+    }
+
+    /**
+     * Writes a text string, encrypted if the document is encrypted
+     * @param text String of the text
+     * @param encryptionKey byte array of the encryption key
+     * @return String of the PDF string
+     */
+    private String string(String text, byte[] encryptionKey) {
+        if (encryptionKey != null) {
+            return Util.toPdfString(PdfSecurity.encryptString(encryptionKey, objectId, 0, text.getBytes(StandardCharsets.ISO_8859_1)));
+        }
+
+        return "(" + Util.escapeText(text) + ")";
+    }
+
+    /**
+     * Formats the signing time as a PDF date
+     * @return String of the signing time
+     */
+    private String formatDateTime() {
+        ZonedDateTime now = ZonedDateTime.now();
+        DateTimeFormatter pdfFormat = DateTimeFormatter.ofPattern("'D:'yyyyMMddHHmmssZ");
+        String pdfDate = now.format(pdfFormat)
+            .replaceFirst("(\\+|\\-)(\\d{2})(\\d{2})", "$1$2'$3'");
+
+        return pdfDate;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.element;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Class to hold a stream length written as an indirect object,
+ * used by streams whose length is only known after they are written
+ */
+public class StreamLength implements Element {
+    private int objectId;
+    private long length;
+
+    /**
+     * Set the length of the stream
+     * @param length long of the stream length
+     */
+    public void setLength(long length) {
+        this.length = length;
+    }
+
+    /**
+     * Get the length of the stream
+     * @return long of the stream length
+     */
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public void setObjectId(int objectId) {
+        this.objectId = objectId;
+    }
+
+    @Override
+    public int getObjectId() {
+        return objectId;
+    }
+
+    @Override
+    public byte[] toByte(byte[] encryptionKey) {
+        return (objectId + " 0 obj\n" + length + "\nendobj\n").getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public List<Element> buildElementList() {
+        // Not needed for this element type
+        throw new UnsupportedOperationException("StreamLength has an Unimplemented method 'buildElementList'");
+    }
+}
@@ -22,9 +22,10 @@ package com.htmltopdf.element;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.htmltopdf.renderer.Util;
-import com.htmltopdf.security.PdfR4V4Security;
+import com.htmltopdf.security.PdfSecurity;
 
 /**
  * Class to hold the Structure data
@@ -61,6 +62,8 @@ public class StructElement implements Element {
     private String bBox;
     private int rowspan = 0;
     private int colspan = 0;
+    private String className;
+    private boolean sealed;
 
     /**
      * Constructor - Initialize variables
@@ -104,13 +107,27 @@ public class StructElement implements Element {
     }
 
     /**
-     * Adds a child element to the structure
+     * Adds a child element to the structure. Marked content records
+     * without an object Id are written inline
      * @param kid Element of the kid
      */
     public void addKid(Element kid) {
+        checkNotSealed();
         kids.add(kid);
     }
 
+    /**
+     * Adds marked content to the structure as an inline MCID
+     * @param page Page of the marked content
+     * @param mcid int of the mcid
+     */
+    public void addMcid(Page page, int mcid) {
+        checkNotSealed();
+        MarkedContentRecord mcr = new MarkedContentRecord(page);
+        mcr.setMcid(mcid);
+        kids.add(mcr);
+    }
+
     /**
      * Sets the alternate text of the structure element
      * @param altText String of the alternate text
@@ -146,6 +163,105 @@ public class StructElement implements Element {
         this.colspan = colspan;
     }
 
+    /**
+     * Moves the table attributes of a TH or TD cell to a class in the
+     * class map, so cells with the same attributes share one dictionary
+     * @param classMap ClassMap of the structure tree
+     */
+    public void buildClass(ClassMap classMap) {
+        if (type.equals(TD) || type.equals(TH)) {
+            className = classMap.intern(type, tableAttributes());
+        }
+    }
+
+    /**
+     * Builds the table attribute dictionary of a TH or TD cell
+     * @return String of the attribute dictionary
+     */
+    private String tableAttributes() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<< /O /Table");
+        if (rowspan != 0) sb.append(" /RowSpan " + rowspan);
+        if (colspan != 0) sb.append(" /ColSpan " + colspan);
+        if (type.equals(TH)) sb.append(" /Scope /Column");
+        sb.append(" >>");
+
+        return sb.toString();
+    }
+
+    /**
+     * Seals the element once all of its pages are complete. The element
+     * and its subtree are serialized to the spool and release their
+     * content, keeping only the type and object Id. Kids cannot be
+     * added to a sealed element
+     * @param spool ElementSpool to serialize to
+     * @param classMap ClassMap of the structure tree
+     * @param encryptionKey byte array of the encryption key
+     */
+    public void seal(ElementSpool spool, ClassMap classMap, byte[] encryptionKey) {
+        if (sealed) {
+            return;
+        }
+
+        List<Element> subtree = buildElementList();
+        for (Element element : subtree) {
+            if (element instanceof StructElement structElement) {
+                structElement.buildClass(classMap);
+            }
+            spool.append(element, encryptionKey);
+        }
+        for (Element element : subtree) {
+            if (element instanceof StructElement structElement) {
+                structElement.release();
+            }
+        }
+    }
+
+    /**
+     * Gets if the element has been sealed
+     * @return boolean true if sealed
+     */
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * Releases the content of a spooled element
+     */
+    private void release() {
+        sealed = true;
+        kids = List.of();
+        parent = null;
+        page = null;
+        altText = null;
+        bBox = null;
+    }
+
+    /**
+     * Throws if the element has been sealed
+     */
+    private void checkNotSealed() {
+        if (sealed) {
+            throw new IllegalStateException("Structure element " + objectId + " is sealed");
+        }
+    }
+
+    /**
+     * Gets the child elements
+     * @return List of the kids
+     */
+    public List<Element> getKids() {
+        return kids;
+    }
+
+    /**
+     * Gets the alternate text
+     * @return String of the alternate text
+     */
+    public String getAltText() {
+        return altText;
+    }
+
     @Override
     public void setObjectId(int objectId) {
         this.objectId = objectId;
@@ -158,6 +274,10 @@ public class StructElement implements Element {
 
     @Override
     public byte[] toByte(byte[] encryptionKey) {
+        if (sealed) {
+            throw new IllegalStateException("Structure element " + objectId + " is sealed, it is written from the spool");
+        }
+
         StringBuilder sb = new StringBuilder();
         sb.append(objectId + " 0 obj\n");
         sb.append("<< /Type /StructElem\n");
@@ -167,7 +287,12 @@ public class StructElement implements Element {
         if (!kids.isEmpty()) {
             sb.append("/K [");
             for (int i = 0; i < kids.size(); i++) {
-                sb.append(kids.get(i).getObjectId() + " 0 R");
+                Element kid = kids.get(i);
+                if (kid instanceof MarkedContentRecord mcr && mcr.getObjectId() == 0) {
+                    sb.append(mcr.toInline(page));
+                } else {
+                    sb.append(kid.getObjectId() + " 0 R");
+                }
                 if (i == kids.size() - 1) {
                     sb.append("]\n");
                 } else {
@@ -175,35 +300,38 @@ public class StructElement implements Element {
                 }
             }
         }
-        if (type.equals(TD)) {
-            sb.append("/A << /O / Table" + (rowspan != 0 ? " /RowSpan " + rowspan : "") + (colspan != 0 ? " /ColSpan " + colspan : "") + ">>\n");
-        }
-        if (type.equals(TH)) {
-            if (colspan != 0) {
-                sb.append("/A << /O /Table /Colspan " + colspan + " /Scope /Column >>\n");
-            } else {
-                sb.append("/A << /O /Table /Scope /Column >>\n");
-            }
+        if (className != null) {
+            sb.append("/C /" + className + "\n");
+        } else if (type.equals(TD) || type.equals(TH)) {
+            sb.append("/A " + tableAttributes() + "\n");
         }
+        List<String> attributes = new ArrayList<>();
         if (type.equals(TABLE)) {
-            if (encryptionKey != null) {
-                byte[] encrytped = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, altText.getBytes(StandardCharsets.ISO_8859_1));
-                sb.append("/A << /O /Table /Summary <" + Util.byteToHex(encrytped) + "> >>\n");
-            } else {
-                sb.append("/A << /O /Table /Summary (" + altText + ") >>\n");
+            if (altText != null) {
+                if (encryptionKey != null) {
+                    byte[] encrytped = PdfSecurity.encryptString(encryptionKey, objectId, 0, altText.getBytes(StandardCharsets.ISO_8859_1));
+                    attributes.add("<< /O /Table /Summary " + Util.toPdfString(encrytped) + " >>");
+                } else {
+                    attributes.add("<< /O /Table /Summary (" + altText + ") >>");
+                }
             }
         } else {
             if (altText != null) {
                 if (encryptionKey != null) {
-                    byte[] encrypted = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, altText.getBytes(StandardCharsets.ISO_8859_1));
-                    sb.append("/Alt <" + Util.byteToHex(encrypted) + ">\n");
+                    byte[] encrypted = PdfSecurity.encryptString(encryptionKey, objectId, 0, altText.getBytes(StandardCharsets.ISO_8859_1));
+                    sb.append("/Alt " + Util.toPdfString(encrypted) + "\n");
                 } else {
                     sb.append("/Alt (" + altText + ")\n");
                 }
             }
         }
         if (bBox != null) {
-            sb.append("/A << /BBox " + bBox + " /O /Layout >>\n");
+            attributes.add("<< /BBox " + bBox + " /O /Layout >>");
+        }
+        if (attributes.size() == 1) {
+            sb.append("/A " + attributes.get(0) + "\n");
+        } else if (attributes.size() > 1) {
+            sb.append("/A [" + String.join(" ", attributes) + "]\n");
         }
         sb.append(">>\n");
         sb.append("endobj\n");
@@ -212,14 +340,13 @@ public class StructElement implements Element {
     }
 
     @Override
-    public List<Element> buildElementList() {
-        List<Element> elements = new ArrayList<>();
-        elements.add(this);
+    public void visitChildren(Consumer<Element> visitor) {
+        // Sealed kids are written from the spool
         for (Element child : kids) {
-            elements.addAll(child.buildElementList());
+            if (!(child instanceof StructElement structElement && structElement.sealed)) {
+                visitor.accept(child);
+            }
         }
-
-        return elements;
     }
     
 }
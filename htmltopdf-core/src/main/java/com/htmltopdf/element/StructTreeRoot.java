@@ -22,6 +22,7 @@ package com.htmltopdf.element;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Class to hold the struct tree root structure
@@ -31,12 +32,14 @@ public class StructTreeRoot implements Element {
     private Element parentTree;
     private int parentTreeNextKey;
     private List<StructElement> kids;
+    private ClassMap classMap;
 
     /**
      * Constructor - Initialize variables
      */
     public StructTreeRoot() {
         this.kids = new ArrayList<>();
+        this.classMap = new ClassMap();
     }
 
     /**
@@ -63,6 +66,31 @@ public class StructTreeRoot implements Element {
         this.parentTree = parentTree;
     }
 
+    /**
+     * Gets the parent tree element
+     * @return Element of the parent tree
+     */
+    public Element getParentTree() {
+        return parentTree;
+    }
+
+    /**
+     * Gets the class map of the shared attribute classes, it is only
+     * written once it has an object Id
+     * @return ClassMap of the structure tree
+     */
+    public ClassMap getClassMap() {
+        return classMap;
+    }
+
+    /**
+     * Gets the child elements of the structure tree
+     * @return List of the kids
+     */
+    public List<StructElement> getKids() {
+        return kids;
+    }
+
     @Override
     public void setObjectId(int objectId) {
         this.objectId = objectId;
@@ -94,6 +122,9 @@ public class StructTreeRoot implements Element {
             }
         }
         sb.append("/RoleMap << /SPAN /Span /Page /Part >>\n");
+        if (classMap.getObjectId() > 0) {
+            sb.append("/ClassMap " + classMap.getObjectId() + " 0 R\n");
+        }
         if (parentTree != null) {
             sb.append("/ParentTree " + parentTree.getObjectId() + " 0 R\n");
         }
@@ -105,15 +136,15 @@ public class StructTreeRoot implements Element {
     }
 
     @Override
-    public List<Element> buildElementList() {
-        List<Element> elements = new ArrayList<>();
-        elements.add(this);
+    public void visitChildren(Consumer<Element> visitor) {
+        // Sealed kids are written from the spool
         for (StructElement child : kids) {
-            elements.addAll(child.buildElementList());
+            if (!child.isSealed()) {
+                visitor.accept(child);
+            }
         }
-        elements.addAll(parentTree.buildElementList());
-
-        return elements;
+        visitor.accept(parentTree);
+        visitor.accept(classMap);
     }
     
 }
@@ -35,12 +35,12 @@ public class Watermark implements Element {
 
     /**
      * Constructore - initialize object
-     * @param page Page object to add the watermark
+     * @param resources Resources of the page or Form XObject the watermark is drawn in
      * @param pageSize Page.Size of the desired page
      * @param font Font for the desired font
      */
-    public Watermark(Page page, Page.Size pageSize, Font font) {
-        this.fontId = page.addFont(font);
+    public Watermark(Resources resources, Page.Size pageSize, Font font) {
+        this.fontId = resources.addFont(font);
         this.pageHeight = pageSize.getY();
         this.pageWidth = pageSize.getX();
     }
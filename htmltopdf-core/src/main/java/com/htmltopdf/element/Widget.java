@@ -22,9 +22,11 @@ package com.htmltopdf.element;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+import com.htmltopdf.fonts.Font;
 import com.htmltopdf.renderer.Util;
-import com.htmltopdf.security.PdfR4V4Security;
+import com.htmltopdf.security.PdfSecurity;
 
 /**
  * Class to hold the information for a widget element
@@ -33,9 +35,18 @@ public class Widget implements Element {
     public static final String TEXT = "Tx";
     public static final String BUTTON = "Btn";
     public static final String SIGNATURE = "Sig";
+    public static final String CHOICE = "Ch";
+    public static final int MULTILINE = 1 << 12;
+    public static final int RADIO = 1 << 15;
+    public static final int COMBO = 1 << 17;
     private int objectId;
     private Page page;
     private String rect;
+    private float x;
+    private float y;
+    private float width;
+    private float height;
+    private List<String> options;
     private String type;
     private String fieldName;
     private String toolTip;
@@ -50,6 +61,7 @@ public class Widget implements Element {
     private List<AppearanceStream> appearanceStreams;
     private String apState = null;
     private boolean isDateField = false;
+    private SignatureElement signature;
 
     /**
      * Constructor - Initializes type and variables
@@ -77,6 +89,34 @@ public class Widget implements Element {
      */
     public void setRect(float x1, float y1, float x2, float y2) {
         this.rect = "[" + x1 + " " + y1 + " " + x2 + " " + y2 + "]";
+        this.x = x1;
+        this.y = y1;
+        this.width = x2 - x1;
+        this.height = y2 - y1;
+    }
+
+    /**
+     * Gets the Page of the widget
+     * @return Page object for the page
+     */
+    public Page getPage() {
+        return page;
+    }
+
+    /**
+     * Gets the X of the lower left corner of the widget
+     * @return float of the X coordinate
+     */
+    public float getX() {
+        return x;
+    }
+
+    /**
+     * Gets the Y of the lower left corner of the widget
+     * @return float of the Y coordinate
+     */
+    public float getY() {
+        return y;
     }
 
     /**
@@ -111,6 +151,15 @@ public class Widget implements Element {
         this.formFlag = formFlag;
     }
 
+    /**
+     * Gets if the widget is a radio button, radio buttons have no
+     * generated appearances and are laid out by the viewer
+     * @return boolean true if the radio flag is set
+     */
+    public boolean isRadio() {
+        return BUTTON.equals(type) && (formFlag & RADIO) != 0;
+    }
+
     /**
      * Sets the value of the widget (Visible text)
      * @param value String of the value
@@ -119,6 +168,22 @@ public class Widget implements Element {
         this.value = value;
     }
 
+    /**
+     * Gets the value of the widget
+     * @return String of the value
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Gets the field type of the widget
+     * @return String of the widget type
+     */
+    public String getType() {
+        return type;
+    }
+
     /**
      * Sets the struct parents for the widget
      * @param structParents int of the struct parent id
@@ -177,6 +242,14 @@ public class Widget implements Element {
         this.toolTip = toolTip;
     }
 
+    /**
+     * Gets the widget tool tip
+     * @return String of the tool tip
+     */
+    public String getToolTip() {
+        return toolTip;
+    }
+
     /**
      * Adds an Appearance stream to the widget
      * @param appearanceStream AppearanceStream element to add to the widget
@@ -185,6 +258,14 @@ public class Widget implements Element {
         appearanceStreams.add(appearanceStream);
     }
 
+    /**
+     * Gets the appearance streams of the widget
+     * @return List of the appearance streams
+     */
+    public List<AppearanceStream> getAppearanceStreams() {
+        return appearanceStreams;
+    }
+
     /**
      * Sets the state of a checkbox, Checked or unchecked
      * @param apState String of the Appearance State
@@ -193,6 +274,14 @@ public class Widget implements Element {
         this.apState = apState;
     }
 
+    /**
+     * Gets the state of a checkbox
+     * @return String of the Appearance State, null if not a checkbox
+     */
+    public String getApState() {
+        return apState;
+    }
+
     /**
      * Sets the alignment of the widget value
      * @param alignment int of the alignment 0-left, 1-center, 2-right
@@ -201,6 +290,44 @@ public class Widget implements Element {
         this.alignment = alignment;
     }
 
+    /**
+     * Sets the options of a choice field
+     * @param options List of the option texts
+     */
+    public void setOptions(List<String> options) {
+        this.options = options;
+    }
+
+    /**
+     * Creates the normal appearances of the field from its value, box,
+     * font and flags so viewers do not need to build them. Text and
+     * choice fields get a text appearance laid out with the font metrics,
+     * checkboxes get their on and off states. The widget is not changed,
+     * the state of a button is set before. The appearances have no object Id
+     * @param metrics Font of the font identifier of the widget
+     * @return List of the appearance streams, empty for a signature field or radio button
+     */
+    public List<AppearanceStream> createAppearanceStreams(Font metrics) {
+        List<AppearanceStream> created = new ArrayList<>();
+        if (TEXT.equals(type) || CHOICE.equals(type)) {
+            AppearanceStream appearanceStream = new AppearanceStream(font, size, value);
+            appearanceStream.setBoxSize(width, height);
+            appearanceStream.setFontMetrics(metrics);
+            appearanceStream.setAlignment(alignment);
+            appearanceStream.setMultiLine(TEXT.equals(type) && (formFlag & MULTILINE) != 0);
+            created.add(appearanceStream);
+        } else if (BUTTON.equals(type) && !isRadio()) {
+            for (String state : new String[] {AppearanceStream.ON, AppearanceStream.OFF}) {
+                AppearanceStream appearanceStream = new AppearanceStream();
+                appearanceStream.setType(state);
+                appearanceStream.setBoxSize(width, height);
+                created.add(appearanceStream);
+            }
+        }
+
+        return created;
+    }
+
     /**
      * Flag to determine if the field is a date field
      * TRUE will add the javascript date field functionality
@@ -210,6 +337,14 @@ public class Widget implements Element {
         this.isDateField = isDateField;
     }
 
+    /**
+     * Sets the signature of a signature field
+     * @param signature SignatureElement of the signature dictionary
+     */
+    public void setSignature(SignatureElement signature) {
+        this.signature = signature;
+    }
+
     @Override
     public void setObjectId(int objectId) {
         this.objectId = objectId;
@@ -229,8 +364,8 @@ public class Widget implements Element {
         sb.append("/P " + page.getObjectId() + " 0 R\n");
         if (encryptionKey != null) {
             byte[] text = ("/" + font + " " + size + " Tf 0 0 0 rg\n").getBytes(StandardCharsets.ISO_8859_1);
-            text = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, text);
-            sb.append("/DA <" + Util.byteToHex(text) + ">\n");
+            text = PdfSecurity.encryptString(encryptionKey, objectId, 0, text);
+            sb.append("/DA " + Util.toPdfString(text) + "\n");
         } else {
             sb.append("/DA (/" + font + " " + size + " Tf 0 0 0 rg)\n");
         }
@@ -239,10 +374,10 @@ public class Widget implements Element {
         sb.append("/Ff " + formFlag + "\n");
         sb.append("/Q " + alignment + "\n");
         if (encryptionKey != null) {
-            byte[] encryptText = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, fieldName.getBytes(StandardCharsets.ISO_8859_1));
-            byte[] encryptToolTip = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, toolTip.getBytes(StandardCharsets.ISO_8859_1));
-            sb.append("/T <" + Util.byteToHex(encryptText) + ">\n");
-            sb.append("/TU <" + Util.byteToHex(encryptToolTip) + ">\n");
+            byte[] encryptText = PdfSecurity.encryptString(encryptionKey, objectId, 0, fieldName.getBytes(StandardCharsets.ISO_8859_1));
+            byte[] encryptToolTip = PdfSecurity.encryptString(encryptionKey, objectId, 0, toolTip.getBytes(StandardCharsets.ISO_8859_1));
+            sb.append("/T " + Util.toPdfString(encryptText) + "\n");
+            sb.append("/TU " + Util.toPdfString(encryptToolTip) + "\n");
         } else {
             sb.append("/T (" + Util.escapeText(fieldName) + ")\n");
             sb.append("/TU (" + Util.escapeText(toolTip) + ")\n");
@@ -250,8 +385,8 @@ public class Widget implements Element {
         if (isDateField) {
             if (encryptionKey != null) {
                 String javaScript = "AFDate_FormatEx(\"mm/dd/yyyy\");";
-                byte[] encrypted = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, javaScript.getBytes(StandardCharsets.ISO_8859_1));
-                sb.append("/AA << /F << /S /JavaScript /JS <" + Util.byteToHex(encrypted) + "> >> >>\n");
+                byte[] encrypted = PdfSecurity.encryptString(encryptionKey, objectId, 0, javaScript.getBytes(StandardCharsets.ISO_8859_1));
+                sb.append("/AA << /F << /S /JavaScript /JS " + Util.toPdfString(encrypted) + " >> >>\n");
             } else {
                 sb.append("/AA << /F << /S /JavaScript / JS (AFDate_FormatEX(\"mm/dd/yyyy\");) >> >>\n");
             }
@@ -260,21 +395,40 @@ public class Widget implements Element {
             sb.append("/V /" + value + "\n");
             sb.append("/AS /" + apState + "\n");
             if (encryptionKey != null) {
-                byte[] encrypted = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, "8".getBytes(StandardCharsets.ISO_8859_1));
-                sb.append("/MK << /CA <" + Util.byteToHex(encrypted) + "> >>\n");
+                byte[] encrypted = PdfSecurity.encryptString(encryptionKey, objectId, 0, "8".getBytes(StandardCharsets.ISO_8859_1));
+                sb.append("/MK << /CA " + Util.toPdfString(encrypted) + " >>\n");
             } else {
                 sb.append("/MK << /CA (8) >>\n");
             }
         } else {
-            if (type != Widget.SIGNATURE) {
+            if (type == Widget.SIGNATURE) {
+                if (signature != null) {
+                    sb.append("/V " + signature.getObjectId() + " 0 R\n");
+                }
+            } else {
                 if (encryptionKey != null) {
-                    byte[] encrypted = PdfR4V4Security.encryptString(encryptionKey, objectId, 0, value.getBytes(StandardCharsets.ISO_8859_1));
-                    sb.append("/V <" + Util.byteToHex(encrypted) + ">\n");
+                    byte[] encrypted = PdfSecurity.encryptString(encryptionKey, objectId, 0, value.getBytes(StandardCharsets.ISO_8859_1));
+                    sb.append("/V " + Util.toPdfString(encrypted) + "\n");
                 } else {
-                    sb.append("/V (" + value + ")\n");
+                    sb.append("/V (" + Util.escapeText(value) + ")\n");
                 }
             }
         }
+        if (options != null) {
+            sb.append("/Opt [");
+            for (int i = 0; i < options.size(); i++) {
+                if (encryptionKey != null) {
+                    byte[] encrypted = PdfSecurity.encryptString(encryptionKey, objectId, 0, options.get(i).getBytes(StandardCharsets.ISO_8859_1));
+                    sb.append(Util.toPdfString(encrypted));
+                } else {
+                    sb.append("(" + Util.escapeText(options.get(i)) + ")");
+                }
+                if (i < options.size() - 1) {
+                    sb.append(" ");
+                }
+            }
+            sb.append("]\n");
+        }
         sb.append("/Rect " + rect + "\n");
         sb.append("/StructParent " + structParents + "\n");
         if (!appearanceStreams.isEmpty()) {
@@ -285,13 +439,11 @@ public class Widget implements Element {
                 for (AppearanceStream ap : appearanceStreams) {
                     sb.append("/" + ap.getType() + " " + ap.getObjectId() + " 0 R ");
                 }
-                sb.append(">> ");
+                sb.append(">> /N << ");
                 for (AppearanceStream ap : appearanceStreams) {
-                    if (ap.getType().equals(AppearanceStream.ON)) {
-                        sb.append("/N << /" + ap.getType() + " " + ap.getObjectId() + " 0 R >>");
-                    }
+                    sb.append("/" + ap.getType() + " " + ap.getObjectId() + " 0 R ");
                 }
-                sb.append(">>\n");
+                sb.append(">> >>\n");
             }
         }
         sb.append(">>\nendobj\n");
@@ -300,12 +452,8 @@ public class Widget implements Element {
     }
 
     @Override
-    public List<Element> buildElementList() {
-        List<Element> elements = new ArrayList<>();
-        elements.add(this);
-        elements.addAll(appearanceStreams);
-
-        return elements;
+    public void visitChildren(Consumer<Element> visitor) {
+        appearanceStreams.forEach(visitor);
     }
     
 }
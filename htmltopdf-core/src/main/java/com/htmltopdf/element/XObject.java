@@ -19,22 +19,43 @@
 
 package com.htmltopdf.element;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
+import java.util.function.Consumer;
 
-import com.htmltopdf.security.PdfR4V4Security;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.htmltopdf.image.ByteArrayImageSource;
+import com.htmltopdf.image.ImageInfo;
+import com.htmltopdf.image.ImageSource;
+import com.htmltopdf.security.PdfSecurity;
 
 /**
  * Class to hold the XObject information
  */
 public class XObject implements Element {
     public static final String IMAGE = "Image";
+    private static final Logger logger = LoggerFactory.getLogger(XObject.class);
     private int objectId;
     private int identifier;
     private String subType;
     private int width;
     private int height;
-    private byte[] image;
+    private ImageSource imageSource;
+    private int components = 3;
+    private String colorSpace = ImageInfo.DEVICE_RGB;
+    private int bitsPerComponent = 8;
+    private String filter = ImageInfo.DCT_DECODE;
+    private String decodeParms;
+    private String decode;
+    private String mask;
+    private XObject sMask;
+    private boolean shared;
+    private boolean inline;
+    private float placedWidth;
+    private float placedHeight;
 
     /**
      * Constructor - Initializes the Element with sub type
@@ -54,12 +75,141 @@ public class XObject implements Element {
         this.height = height;
     }
 
+    /**
+     * Get the image width
+     * @return int of the width in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the image height
+     * @return int of the height in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the stream filter of the image
+     * @return String of the filter name
+     */
+    public String getFilter() {
+        return filter;
+    }
+
+    /**
+     * Get the colour key mask of the image
+     * @return String of the mask array or null
+     */
+    public String getMask() {
+        return mask;
+    }
+
+    /**
+     * Records a placement of the image, the largest placement
+     * is kept to find the resolution the image needs
+     * @param width float of the placed width in points
+     * @param height float of the placed height in points
+     */
+    public synchronized void addPlacement(float width, float height) {
+        placedWidth = Math.max(placedWidth, Math.abs(width));
+        placedHeight = Math.max(placedHeight, Math.abs(height));
+    }
+
+    /**
+     * Get the largest placed width of the image
+     * @return float of the width in points, 0 if never placed
+     */
+    public synchronized float getPlacedWidth() {
+        return placedWidth;
+    }
+
+    /**
+     * Get the largest placed height of the image
+     * @return float of the height in points, 0 if never placed
+     */
+    public synchronized float getPlacedHeight() {
+        return placedHeight;
+    }
+
     /**
      * Set the image
      * @param image byte array of the image
      */
     public void setImage(byte[] image) {
-        this.image = image;
+        this.imageSource = new ByteArrayImageSource(image);
+    }
+
+    /**
+     * Set the source of the image, the image data is not read
+     * until the XObject is written
+     * @param imageSource ImageSource of the image data
+     */
+    public void setImageSource(ImageSource imageSource) {
+        this.imageSource = imageSource;
+    }
+
+    /**
+     * Get the source of the image
+     * @return ImageSource of the image data
+     */
+    public ImageSource getImageSource() {
+        return imageSource;
+    }
+
+    /**
+     * Set the image from the image information, the image data is
+     * read from the source of the information when written
+     * @param imageInfo ImageInfo of the image
+     */
+    public void setImageInfo(ImageInfo imageInfo) {
+        this.width = imageInfo.getWidth();
+        this.height = imageInfo.getHeight();
+        this.imageSource = imageInfo.getImageSource();
+        this.components = imageInfo.getComponents();
+        this.colorSpace = imageInfo.getColorSpace();
+        this.bitsPerComponent = imageInfo.getBitsPerComponent();
+        this.filter = imageInfo.getFilter();
+        this.decodeParms = imageInfo.getDecodeParms();
+        this.decode = imageInfo.getDecode();
+        this.mask = imageInfo.getMask();
+    }
+
+    /**
+     * Get the image information of the image
+     * @return ImageInfo of the image
+     */
+    public ImageInfo getImageInfo() {
+        ImageInfo imageInfo = new ImageInfo();
+        imageInfo.setSize(width, height);
+        imageInfo.setImageSource(imageSource);
+        imageInfo.setComponents(components);
+        imageInfo.setColorSpace(colorSpace);
+        imageInfo.setBitsPerComponent(bitsPerComponent);
+        imageInfo.setFilter(filter);
+        imageInfo.setDecodeParms(decodeParms);
+        imageInfo.setDecode(decode);
+        imageInfo.setMask(mask);
+
+        return imageInfo;
+    }
+
+    /**
+     * Set the soft mask holding the alpha of the image
+     * @param sMask XObject of the soft mask
+     */
+    public void setSMask(XObject sMask) {
+        this.sMask = sMask;
+    }
+
+    /**
+     * Get the soft mask of the image
+     * @return XObject of the soft mask or null
+     */
+    public XObject getSMask() {
+        return sMask;
     }
 
     /**
@@ -78,6 +228,94 @@ public class XObject implements Element {
         return identifier;
     }
 
+    /**
+     * Get the name of the image in the page resources. Shared images
+     * are numbered by the image registry and use their own prefix so
+     * they never clash with images identified by the caller
+     * @return String of the resource name
+     */
+    public String getResourceName() {
+        return (shared ? "Is" : "Im") + identifier;
+    }
+
+    /**
+     * Sets if the image is shared between pages through the
+     * document image registry, shared images are written once by the renderer
+     * @param shared boolean true if the image is shared
+     */
+    public void setShared(boolean shared) {
+        this.shared = shared;
+    }
+
+    /**
+     * Get if the image is shared between pages
+     * @return boolean true if the image is shared
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Sets if the image is written inline in the content streams that
+     * draw it, inline images have no object Id and no page resource
+     * @param inline boolean true if the image is inline
+     */
+    public void setInline(boolean inline) {
+        this.inline = inline;
+    }
+
+    /**
+     * Get if the image is written inline
+     * @return boolean true if the image is inline
+     */
+    public boolean isInline() {
+        return inline;
+    }
+
+    /**
+     * Checks if the image can be written inline, inline images
+     * cannot have a mask or soft mask
+     * @return boolean true if the image can be inline
+     */
+    public boolean canInline() {
+        return mask == null && sMask == null && imageSource != null && IMAGE.equals(subType);
+    }
+
+    /**
+     * Builds the inline image operators with the abbreviated
+     * inline image keys and names. The data length is written so
+     * readers do not scan the binary data for the EI operator
+     * @return byte array of the BI ID EI operators
+     */
+    public byte[] toInlineImage() {
+        byte[] output = null;
+        try {
+            byte[] data = imageSource.readAllBytes();
+            StringBuilder sb = new StringBuilder();
+            sb.append("BI\n");
+            sb.append("/W " + width + " /H " + height + "\n");
+            sb.append("/CS " + colorSpace.replace("/DeviceRGB", "/RGB").replace("/DeviceGray", "/G").replace("/DeviceCMYK", "/CMYK").replace("/Indexed", "/I") + "\n");
+            sb.append("/BPC " + bitsPerComponent + "\n");
+            sb.append("/F /" + (ImageInfo.DCT_DECODE.equals(filter) ? "DCT" : ImageInfo.FLATE_DECODE.equals(filter) ? "Fl" : ImageInfo.CCITT_FAX_DECODE.equals(filter) ? "CCF" : filter) + "\n");
+            if (decodeParms != null) sb.append("/DP " + decodeParms + "\n");
+            if (decode != null) sb.append("/D " + decode + "\n");
+            sb.append("/L " + data.length + "\n");
+            sb.append("ID ");
+
+            byte[] start = sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+            byte[] end = "\nEI\n".getBytes(StandardCharsets.ISO_8859_1);
+            output = new byte[start.length + data.length + end.length];
+            System.arraycopy(start, 0, output, 0, start.length);
+            System.arraycopy(data, 0, output, start.length, data.length);
+            System.arraycopy(end, 0, output, start.length + data.length, end.length);
+        } catch (IOException ioEx) {
+            logger.error("IO Exception was encountered reading image " + identifier, ioEx);
+            throw new RuntimeException("IO Exception was encountered while reading image " + identifier);
+        }
+
+        return output;
+    }
+
     @Override
     public void setObjectId(int objectId) {
         this.objectId = objectId;
@@ -90,37 +328,72 @@ public class XObject implements Element {
 
     @Override
     public byte[] toByte(byte[] encryptionKey) {
+        byte[] output = null;
+        try {
+            byte[] data = imageSource.readAllBytes();
+            if (encryptionKey != null) {
+                data = PdfSecurity.encryptObject(encryptionKey, objectId, 0, data);
+            }
+
+            byte[] end = "\nendstream\nendobj\n".getBytes(StandardCharsets.ISO_8859_1);
+            byte[] start = buildHeader(String.valueOf(data.length));
+            output = new byte[start.length + data.length + end.length];
+            System.arraycopy(start, 0, output, 0, start.length);
+            System.arraycopy(data, 0, output, start.length, data.length);
+            System.arraycopy(end, 0, output, start.length + data.length, end.length);
+        } catch (IOException ioEx) {
+            logger.error("IO Exception was encountered reading image " + identifier, ioEx);
+            throw new RuntimeException("IO Exception was encountered while reading image " + identifier);
+        }
+
+        return output;
+    }
+
+    @Override
+    public void write(OutputStream outputStream, byte[] encryptionKey) throws IOException {
+        if (encryptionKey != null) {
+            // Encrypted image data goes through the cipher as it is read from the source
+            outputStream.write(buildHeader(String.valueOf(PdfSecurity.encryptedLength(imageSource.length()))));
+            try (OutputStream encrypting = PdfSecurity.encryptingStream(encryptionKey, objectId, 0, outputStream)) {
+                imageSource.writeTo(encrypting);
+            }
+        } else {
+            // Unencrypted image data is moved straight from the source to the output
+            outputStream.write(buildHeader(String.valueOf(imageSource.length())));
+            imageSource.writeTo(outputStream);
+        }
+        outputStream.write("\nendstream\nendobj\n".getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Builds the object dictionary up to the start of the stream data
+     * @param length String of the stream length, a number or an indirect reference
+     * @return byte array of the object header
+     */
+    protected byte[] buildHeader(String length) {
         StringBuilder sb = new StringBuilder();
         sb.append(objectId + " 0 obj\n");
         sb.append("<< /Type /XObject\n");
         sb.append("/Subtype /" + subType + "\n");
         sb.append("/Width " + width + "\n");
         sb.append("/Height " + height + "\n");
-        sb.append("/ColorSpace /DeviceRGB\n");
-        sb.append("/BitsPerComponent 8\n");
-        sb.append("/Filter /DCTDecode\n");
-        sb.append("/Length " + image.length + "\n");
+        sb.append("/ColorSpace " + colorSpace + "\n");
+        sb.append("/BitsPerComponent " + bitsPerComponent + "\n");
+        sb.append("/Filter /" + filter + "\n");
+        if (decodeParms != null) sb.append("/DecodeParms " + decodeParms + "\n");
+        if (decode != null) sb.append("/Decode " + decode + "\n");
+        if (mask != null) sb.append("/Mask " + mask + "\n");
+        if (sMask != null) sb.append("/SMask " + sMask.getObjectId() + " 0 R\n");
+        sb.append("/Length " + length + "\n");
         sb.append(">>\n");
         sb.append("stream\n");
 
-        if (encryptionKey != null) {
-            image = PdfR4V4Security.encryptObject(encryptionKey, objectId, 0, image);
-        }
-
-        byte[] end = "\nendstream\nendobj\n".getBytes(StandardCharsets.ISO_8859_1);
-        byte[] start = sb.toString().getBytes(StandardCharsets.ISO_8859_1);
-        byte[] output = new byte[start.length + image.length + end.length];
-        System.arraycopy(start, 0, output, 0, start.length);
-        System.arraycopy(image, 0, output, start.length, image.length);
-        System.arraycopy(end, 0, output, start.length + image.length, end.length);
-
-        return output;
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
     }
 
     @Override
-    public List<Element> buildElementList() {
-        // Not needed for this element type
-        throw new UnsupportedOperationException("XObject has an Unimplemented method 'buildElementList'");
+    public void visitChildren(Consumer<Element> visitor) {
+        if (sMask != null) visitor.accept(sMask);
     }
     
 }
@@ -26,6 +26,8 @@ import java.security.NoSuchAlgorithmException;
 import java.util.List;
 import java.util.UUID;
 
+import com.htmltopdf.security.PdfSecurity;
+
 /**
  * Class that holds the XMP meta data
  */
@@ -33,12 +35,22 @@ public class XmpMetaData implements Element {
     private int objectId;
     private Info info;
     private String documentId;
+    private boolean encrypted;
 
     /**
      * Constructor - Sets the Unique document ID
      */
     public XmpMetaData() {
         documentId = generatePDFID();
+        encrypted = true;
+    }
+
+    /**
+     * Sets if the meta data stream is encrypted when the document is encrypted
+     * @param encrypted boolean true to encrypt the meta data
+     */
+    public void setEncrypted(boolean encrypted) {
+        this.encrypted = encrypted;
     }
 
     /**
@@ -70,6 +82,9 @@ public class XmpMetaData implements Element {
     @Override
     public byte[] toByte(byte[] encryptionKey) {
         byte[] stream = buildMetadata();
+        if (encryptionKey != null && encrypted) {
+            stream = PdfSecurity.encryptObject(encryptionKey, objectId, 0, stream);
+        }
 
         StringBuilder object = new StringBuilder();
         object.append(objectId + " 0 obj\n");
@@ -0,0 +1,406 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.fonts;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class to subset a bare CFF font program (the 'CFF ' table of an OpenType font)
+ * The glyph order and charset are kept so the glyph names still resolve through
+ * the font encoding, only the outlines of unused glyphs are replaced with endchar
+ */
+public class CFFSubsetter {
+    private static final int OP_CHARSET = 15;
+    private static final int OP_ENCODING = 16;
+    private static final int OP_CHARSTRINGS = 17;
+    private static final int OP_PRIVATE = 18;
+    private static final int OP_SUBRS = 19;
+    private static final int OP_ESCAPE = 12;
+    private static final int OP_ROS = 30;
+    private static final byte[] ENDCHAR = {14};
+
+    private final byte[] cff;
+
+    /**
+     * Constructor - Initialize with the CFF table bytes
+     * @param cff byte array of the CFF font program
+     */
+    public CFFSubsetter(byte[] cff) {
+        this.cff = cff;
+    }
+
+    /**
+     * Builds the subset font program. CID keyed fonts are rejected, they
+     * can only be embedded in a Type0 font which is not written
+     * @param glyphIds Set of the glyph ids to keep, .notdef is always kept
+     * @return byte array of the subset CFF font program
+     * @throws IllegalArgumentException throws if the font program is CID keyed
+     */
+    public byte[] subset(Set<Integer> glyphIds) {
+        int headerSize = cff[2] & 0xFF;
+        int nameStart = headerSize;
+        int topDictStart = indexEnd(nameStart);
+        int stringStart = indexEnd(topDictStart);
+        int globalSubrStart = indexEnd(stringStart);
+        int globalSubrEnd = indexEnd(globalSubrStart);
+
+        List<byte[]> topDicts = readIndex(topDictStart);
+        if (topDicts.size() != 1) {
+            return cff;
+        }
+        List<DictEntry> topDict = parseDict(topDicts.get(0));
+        if (findEntry(topDict, OP_ESCAPE, OP_ROS) != null) {
+            throw new IllegalArgumentException("CID keyed CFF font programs are not supported");
+        }
+
+        DictEntry charStringsEntry = findEntry(topDict, OP_CHARSTRINGS, -1);
+        DictEntry privateEntry = findEntry(topDict, OP_PRIVATE, -1);
+        DictEntry charsetEntry = findEntry(topDict, OP_CHARSET, -1);
+        DictEntry encodingEntry = findEntry(topDict, OP_ENCODING, -1);
+        if (charStringsEntry == null || privateEntry == null) {
+            return cff;
+        }
+
+        // Replace the outlines of every glyph that is not used
+        List<byte[]> charStrings = readIndex(charStringsEntry.getInt(0));
+        for (int gid = 1; gid < charStrings.size(); gid++) {
+            if (!glyphIds.contains(gid)) {
+                charStrings.set(gid, ENDCHAR);
+            }
+        }
+        byte[] charStringsIndex = writeIndex(charStrings);
+
+        // Charset and encoding tables are copied as is, predefined ones are offsets 0 - 2
+        byte[] charset = new byte[0];
+        if (charsetEntry != null && charsetEntry.getInt(0) > 2) {
+            int start = charsetEntry.getInt(0);
+            charset = Arrays.copyOfRange(cff, start, charsetEnd(start, charStrings.size()));
+        }
+        byte[] encoding = new byte[0];
+        if (encodingEntry != null && encodingEntry.getInt(0) > 1) {
+            int start = encodingEntry.getInt(0);
+            encoding = Arrays.copyOfRange(cff, start, encodingEnd(start));
+        }
+
+        // Private DICT and the local subroutines are moved together, the Subrs offset is relative
+        int privateSize = privateEntry.getInt(0);
+        int privateStart = privateEntry.getInt(1);
+        int privateEnd = privateStart + privateSize;
+        DictEntry subrsEntry = findEntry(parseDict(Arrays.copyOfRange(cff, privateStart, privateEnd)), OP_SUBRS, -1);
+        if (subrsEntry != null) {
+            privateEnd = Math.max(privateEnd, indexEnd(privateStart + subrsEntry.getInt(0)));
+        }
+        byte[] privateBlock = Arrays.copyOfRange(cff, privateStart, privateEnd);
+
+        // Lay out the new font, offsets are always written as 5 byte integers so the size is known
+        if (encoding.length > 0) encodingEntry.setOffsets(0);
+        if (charset.length > 0) charsetEntry.setOffsets(0);
+        charStringsEntry.setOffsets(0);
+        privateEntry.setOffsets(0, 0);
+        byte[] topDictIndex = writeIndex(List.of(writeDict(topDict)));
+        int offset = headerSize + (topDictStart - nameStart) + topDictIndex.length + (globalSubrEnd - stringStart);
+        int encodingOffset = offset;
+        offset += encoding.length;
+        int charsetOffset = offset;
+        offset += charset.length;
+        int charStringsOffset = offset;
+        offset += charStringsIndex.length;
+        int privateOffset = offset;
+
+        if (encoding.length > 0) encodingEntry.setOffsets(encodingOffset);
+        if (charset.length > 0) charsetEntry.setOffsets(charsetOffset);
+        charStringsEntry.setOffsets(charStringsOffset);
+        privateEntry.setOffsets(privateSize, privateOffset);
+        topDictIndex = writeIndex(List.of(writeDict(topDict)));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(privateOffset + privateBlock.length);
+        baos.write(cff, 0, headerSize);
+        baos.write(cff, nameStart, topDictStart - nameStart);
+        baos.writeBytes(topDictIndex);
+        baos.write(cff, stringStart, globalSubrEnd - stringStart);
+        baos.writeBytes(encoding);
+        baos.writeBytes(charset);
+        baos.writeBytes(charStringsIndex);
+        baos.writeBytes(privateBlock);
+
+        return baos.toByteArray();
+    }
+
+    /**
+     * Gets the end position of an INDEX structure
+     * @param start int of the start of the INDEX
+     * @return int of the position after the INDEX
+     */
+    private int indexEnd(int start) {
+        int count = readCard(start, 2);
+        if (count == 0) {
+            return start + 2;
+        }
+        int offSize = cff[start + 2] & 0xFF;
+        int dataStart = start + 3 + (count + 1) * offSize - 1;
+        return dataStart + readCard(start + 3 + count * offSize, offSize);
+    }
+
+    /**
+     * Reads all the items of an INDEX structure
+     * @param start int of the start of the INDEX
+     * @return List of byte arrays of the items
+     */
+    private List<byte[]> readIndex(int start) {
+        int count = readCard(start, 2);
+        List<byte[]> items = new ArrayList<>(count);
+        if (count == 0) {
+            return items;
+        }
+        int offSize = cff[start + 2] & 0xFF;
+        int dataStart = start + 3 + (count + 1) * offSize - 1;
+        int previous = readCard(start + 3, offSize);
+        for (int i = 1; i <= count; i++) {
+            int next = readCard(start + 3 + i * offSize, offSize);
+            items.add(Arrays.copyOfRange(cff, dataStart + previous, dataStart + next));
+            previous = next;
+        }
+
+        return items;
+    }
+
+    /**
+     * Writes a list of items as an INDEX structure
+     * @param items List of byte arrays of the items
+     * @return byte array of the INDEX
+     */
+    private static byte[] writeIndex(List<byte[]> items) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write(items.size() >> 8);
+        baos.write(items.size());
+        if (items.isEmpty()) {
+            return baos.toByteArray();
+        }
+
+        int dataLength = 0;
+        for (byte[] item : items) {
+            dataLength += item.length;
+        }
+        int offSize = dataLength + 1 < 0x100 ? 1 : dataLength + 1 < 0x10000 ? 2 : dataLength + 1 < 0x1000000 ? 3 : 4;
+        baos.write(offSize);
+        int offset = 1;
+        writeCard(baos, offset, offSize);
+        for (byte[] item : items) {
+            offset += item.length;
+            writeCard(baos, offset, offSize);
+        }
+        for (byte[] item : items) {
+            baos.writeBytes(item);
+        }
+
+        return baos.toByteArray();
+    }
+
+    /**
+     * Gets the end position of a custom charset
+     * @param start int of the start of the charset
+     * @param glyphCount int of the number of glyphs
+     * @return int of the position after the charset
+     */
+    private int charsetEnd(int start, int glyphCount) {
+        int format = cff[start] & 0xFF;
+        if (format == 0) {
+            return start + 1 + (glyphCount - 1) * 2;
+        }
+
+        int rangeSize = format == 1 ? 3 : 4;
+        int pos = start + 1;
+        int covered = 1;
+        while (covered < glyphCount) {
+            covered += readCard(pos + 2, rangeSize - 2) + 1;
+            pos += rangeSize;
+        }
+
+        return pos;
+    }
+
+    /**
+     * Gets the end position of a custom encoding
+     * @param start int of the start of the encoding
+     * @return int of the position after the encoding
+     */
+    private int encodingEnd(int start) {
+        int format = cff[start] & 0xFF;
+        int count = cff[start + 1] & 0xFF;
+        int pos = start + 2 + ((format & 0x7F) == 0 ? count : count * 2);
+        if ((format & 0x80) != 0) {
+            pos += 1 + (cff[pos] & 0xFF) * 3;
+        }
+
+        return pos;
+    }
+
+    /**
+     * Reads an unsigned big endian number
+     * @param pos int of the position
+     * @param size int of the number of bytes
+     * @return int of the value
+     */
+    private int readCard(int pos, int size) {
+        int value = 0;
+        for (int i = 0; i < size; i++) {
+            value = (value << 8) | (cff[pos + i] & 0xFF);
+        }
+
+        return value;
+    }
+
+    /**
+     * Writes an unsigned big endian number
+     * @param baos ByteArrayOutputStream to write to
+     * @param value int of the value
+     * @param size int of the number of bytes
+     */
+    private static void writeCard(ByteArrayOutputStream baos, int value, int size) {
+        for (int i = size - 1; i >= 0; i--) {
+            baos.write(value >> (8 * i));
+        }
+    }
+
+    /**
+     * Parses a DICT into its entries, keeping the raw operand bytes
+     * @param dict byte array of the DICT data
+     * @return List of DictEntry
+     */
+    private static List<DictEntry> parseDict(byte[] dict) {
+        List<DictEntry> entries = new ArrayList<>();
+        DictEntry entry = new DictEntry();
+        int pos = 0;
+        while (pos < dict.length) {
+            int b0 = dict[pos] & 0xFF;
+            int start = pos;
+            if (b0 <= 21) {
+                entry.operator = b0;
+                pos++;
+                if (b0 == OP_ESCAPE) {
+                    entry.escape = dict[pos] & 0xFF;
+                    pos++;
+                }
+                entries.add(entry);
+                entry = new DictEntry();
+                continue;
+            } else if (b0 == 28) {
+                entry.values.add((int) (short) (((dict[pos + 1] & 0xFF) << 8) | (dict[pos + 2] & 0xFF)));
+                pos += 3;
+            } else if (b0 == 29) {
+                entry.values.add(((dict[pos + 1] & 0xFF) << 24) | ((dict[pos + 2] & 0xFF) << 16) | ((dict[pos + 3] & 0xFF) << 8) | (dict[pos + 4] & 0xFF));
+                pos += 5;
+            } else if (b0 == 30) {
+                pos++;
+                while (pos < dict.length && (dict[pos] & 0x0F) != 0x0F && (dict[pos] & 0xF0) != 0xF0) {
+                    pos++;
+                }
+                pos++;
+                entry.values.add(0);
+            } else if (b0 >= 32 && b0 <= 246) {
+                entry.values.add(b0 - 139);
+                pos++;
+            } else if (b0 >= 247 && b0 <= 250) {
+                entry.values.add((b0 - 247) * 256 + (dict[pos + 1] & 0xFF) + 108);
+                pos += 2;
+            } else if (b0 >= 251 && b0 <= 254) {
+                entry.values.add(-(b0 - 251) * 256 - (dict[pos + 1] & 0xFF) - 108);
+                pos += 2;
+            } else {
+                throw new IllegalArgumentException("Invalid CFF DICT operand " + b0);
+            }
+            entry.operands.write(dict, start, pos - start);
+        }
+
+        return entries;
+    }
+
+    /**
+     * Writes the DICT entries back to bytes
+     * @param entries List of DictEntry
+     * @return byte array of the DICT data
+     */
+    private static byte[] writeDict(List<DictEntry> entries) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (DictEntry entry : entries) {
+            baos.writeBytes(entry.operands.toByteArray());
+            baos.write(entry.operator);
+            if (entry.operator == OP_ESCAPE) {
+                baos.write(entry.escape);
+            }
+        }
+
+        return baos.toByteArray();
+    }
+
+    /**
+     * Finds a DICT entry by operator
+     * @param entries List of DictEntry
+     * @param operator int of the operator
+     * @param escape int of the escaped operator, -1 if not escaped
+     * @return DictEntry or null if not present
+     */
+    private static DictEntry findEntry(List<DictEntry> entries, int operator, int escape) {
+        for (DictEntry entry : entries) {
+            if (entry.operator == operator && (escape == -1 || entry.escape == escape)) {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Class to hold one DICT operator and its operands
+     */
+    private static class DictEntry {
+        private int operator;
+        private int escape = -1;
+        private List<Integer> values = new ArrayList<>();
+        private ByteArrayOutputStream operands = new ByteArrayOutputStream();
+
+        /**
+         * Gets an integer operand
+         * @param index int of the operand index
+         * @return int of the operand value
+         */
+        private int getInt(int index) {
+            return values.get(index);
+        }
+
+        /**
+         * Replaces the operands with 5 byte integers
+         * @param offsets int values of the operands
+         */
+        private void setOffsets(int... offsets) {
+            values.clear();
+            operands.reset();
+            for (int offset : offsets) {
+                values.add(offset);
+                operands.write(29);
+                writeCard(operands, offset, 4);
+            }
+        }
+    }
+}
@@ -26,9 +26,11 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.apache.fontbox.ttf.CmapLookup;
 import org.apache.fontbox.ttf.HorizontalMetricsTable;
+import org.apache.fontbox.ttf.OTFParser;
 import org.apache.fontbox.ttf.TTFParser;
 import org.apache.fontbox.ttf.TrueTypeFont;
 
@@ -38,8 +40,13 @@ import com.htmltopdf.element.Element;
  * Class to hold the font information
  */
 public class Font implements Element {
+    public static final String TRUE_TYPE = "TrueType";
+    public static final String TYPE1 = "Type1";
     protected int objectId;
     private FontName fontName;
+    private String name;
+    private String subType;
+    private String path;
     protected FontDecriptor fontDecriptor;
     protected int firstChar = 0;
     protected int lastChar = 0;
@@ -52,8 +59,34 @@ public class Font implements Element {
      * @param fontName FontName for the font
      */
     public Font(int objectId, FontName fontName) {
-        setObjectId(objectId);
+        this(objectId, fontName.getName(), fontName.getSubType(), fontName.getPath());
         this.fontName = fontName;
+    }
+
+    /**
+     * Constructor - Initialize a font from a font file that is not
+     * one of the FontName constants. OpenType fonts with CFF outlines
+     * are embedded as Type1 fonts with a FontFile3 program
+     * @param objectId int of the object id
+     * @param name String of the font name
+     * @param path String path of the font file
+     */
+    public Font(int objectId, String name, String path) {
+        this(objectId, name, FontFile.isCompactFontFormat(path) ? TYPE1 : TRUE_TYPE, path);
+    }
+
+    /**
+     * Constructor - Initialize variables
+     * @param objectId int of the object id
+     * @param name String of the font name
+     * @param subType String of the font sub type
+     * @param path String path of the font file
+     */
+    private Font(int objectId, String name, String subType, String path) {
+        setObjectId(objectId);
+        this.name = name;
+        this.subType = subType;
+        this.path = path;
         this.widths = new ArrayList<>();
     }
 
@@ -89,14 +122,62 @@ public class Font implements Element {
         this.lastChar = lastChar;
     }
 
+    /**
+     * Get the first character
+     * @return int of the first character
+     */
+    public int getFirstChar() {
+        return firstChar;
+    }
+
+    /**
+     * Get the last character
+     * @return int of the last character
+     */
+    public int getLastChar() {
+        return lastChar;
+    }
+
     /**
      * Get the font name
-     * @return FontName object
+     * @return FontName object, null if the font was loaded from a path
      */
     public FontName getFontName() {
         return fontName;
     }
 
+    /**
+     * Get the base font name written to the PDF
+     * @return String of the base font name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the base font name, subset fonts are prefixed with a tag
+     * @param name String of the base font name
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the font sub type
+     * @return String of the sub type
+     */
+    public String getSubType() {
+        return subType;
+    }
+
+    /**
+     * Get the path of the font file
+     * @return String of the font file path
+     */
+    public String getPath() {
+        return path;
+    }
+
     /**
      * Sets the Units per Em
      * @param unitsPerEm int of the units per em value
@@ -128,9 +209,9 @@ public class Font implements Element {
     }
 
     public void buildWidthArray() {
-        TTFParser parser = new TTFParser();
+        TTFParser parser = TYPE1.equals(subType) ? new OTFParser() : new TTFParser();
 
-        try (InputStream inputStream = new FileInputStream(fontName.getPath());
+        try (InputStream inputStream = new FileInputStream(path);
                 TrueTypeFont ttFont = parser.parseEmbedded(inputStream)) {
             HorizontalMetricsTable hmtx = ttFont.getHorizontalMetrics();
             int unitsPerEm = ttFont.getHeader().getUnitsPerEm();
@@ -143,9 +224,9 @@ public class Font implements Element {
                 }
             }
         } catch (FileNotFoundException notFoundEx) {
-            throw new RuntimeException("Font File not found at specified Path " + fontName.getPath());
+            throw new RuntimeException("Font File not found at specified Path " + path);
         } catch (IOException ioEx) {
-            throw new RuntimeException("IO Exception encountered while building the width array for font " + fontName.getName());
+            throw new RuntimeException("IO Exception encountered while building the width array for font " + name);
         }
     }
 
@@ -164,8 +245,8 @@ public class Font implements Element {
         StringBuilder sb = new StringBuilder();
         sb.append(objectId + " 0 obj\n");
         sb.append("<< /Type /Font\n");
-        sb.append("/Subtype /" + fontName.getSubType() + "\n");
-        sb.append("/BaseFont /" + fontName.getName() + "\n");
+        sb.append("/Subtype /" + subType + "\n");
+        sb.append("/BaseFont /" + name + "\n");
         sb.append("/FirstChar " + firstChar + "\n");
         sb.append("/LastChar " + lastChar + "\n");
         sb.append("/Widths [");
@@ -184,12 +265,8 @@ public class Font implements Element {
     }
 
     @Override
-    public List<Element> buildElementList() {
-        List<Element> elements = new ArrayList<>();
-        elements.add(this);
-        elements.addAll(fontDecriptor.buildElementList());
-
-        return elements;
+    public void visitChildren(Consumer<Element> visitor) {
+        visitor.accept(fontDecriptor);
     }
     
 }
@@ -20,8 +20,7 @@
 package com.htmltopdf.fonts;
 
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.function.Consumer;
 
 import com.htmltopdf.element.Element;
 
@@ -151,7 +150,7 @@ public class FontDecriptor implements Element {
         sb.append("/Descent " + descent + "\n");
         sb.append("/CapHeight " + capHeight + "\n");
         sb.append("/StemV " + stemV + "\n");
-        sb.append("/FontFile2 " + fontFile.getObjectId() + " 0 R\n");
+        sb.append((fontFile.isCompactFontFormat() ? "/FontFile3 " : "/FontFile2 ") + fontFile.getObjectId() + " 0 R\n");
         sb.append(">>\n");
         sb.append("endobj\n");
 
@@ -159,11 +158,7 @@ public class FontDecriptor implements Element {
     }
 
     @Override
-    public List<Element> buildElementList() {
-        List<Element> elements = new ArrayList<>();
-        elements.add(this);
-        elements.add(fontFile);
-
-        return elements;
+    public void visitChildren(Consumer<Element> visitor) {
+        visitor.accept(fontFile);
     }
 }
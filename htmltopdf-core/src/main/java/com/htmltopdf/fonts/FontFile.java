@@ -23,15 +23,22 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import org.apache.fontbox.ttf.CmapLookup;
+import org.apache.fontbox.ttf.OTFParser;
+import org.apache.fontbox.ttf.OpenTypeFont;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.htmltopdf.element.Element;
 import com.htmltopdf.renderer.Util;
-import com.htmltopdf.security.PdfR4V4Security;
+import com.htmltopdf.security.PdfSecurity;
 
 /**
  * Class to hold the embedded font file
@@ -40,6 +47,9 @@ public class FontFile implements Element {
     private static final Logger logger = LoggerFactory.getLogger(FontFile.class);
     protected int objectId;
     private String path;
+    private boolean compactFontFormat;
+    private int firstChar = 32;
+    private int lastChar = 126;
 
     /**
      * Constructor - Initialize element with the file path
@@ -47,6 +57,7 @@ public class FontFile implements Element {
      */
     public FontFile(String path) {
         this.path = path;
+        this.compactFontFormat = isCompactFontFormat(path);
     }
 
     /**
@@ -56,6 +67,39 @@ public class FontFile implements Element {
 
     }
 
+    /**
+     * Checks if the font file is an OpenType font with CFF outlines
+     * @param path String path for the font file
+     * @return boolean true if the font has CFF outlines
+     */
+    public static boolean isCompactFontFormat(String path) {
+        try (InputStream inputStream = new FileInputStream(path)) {
+            byte[] tag = inputStream.readNBytes(4);
+            return new String(tag, StandardCharsets.ISO_8859_1).equals("OTTO");
+        } catch (IOException ioEx) {
+            return false;
+        }
+    }
+
+    /**
+     * Is the embedded font program CFF (FontFile3) instead of TrueType (FontFile2)
+     * @return boolean true if the font program is CFF
+     */
+    public boolean isCompactFontFormat() {
+        return compactFontFormat;
+    }
+
+    /**
+     * Sets the range of character codes used by the font,
+     * CFF font programs are subset to the glyphs of this range
+     * @param firstChar int of the first character code
+     * @param lastChar int of the last character code
+     */
+    public void setCharacterRange(int firstChar, int lastChar) {
+        this.firstChar = firstChar;
+        this.lastChar = lastChar;
+    }
+
     @Override
     public void setObjectId(int objectId) {
         this.objectId = objectId;
@@ -69,26 +113,19 @@ public class FontFile implements Element {
     @Override
     public byte[] toByte(byte[] encryptionKey) {
         byte[] output = new byte[0];
-        try (FileInputStream inputStream = new FileInputStream(new File(path))) {
-            byte[] bytes = null;
-            byte[] uncompressed = inputStream.readAllBytes();
+        try {
+            byte[] uncompressed = readFontProgram();
+            byte[] bytes = Util.compressStream(uncompressed);
             if (encryptionKey != null) {
-                bytes = PdfR4V4Security.encryptObject(encryptionKey, objectId, 0, Util.compressStream(uncompressed));
-            } else {
-                bytes = Util.compressStream(uncompressed);
+                bytes = PdfSecurity.encryptObject(encryptionKey, objectId, 0, bytes);
             }
 
-            StringBuilder sb = new StringBuilder();
-            sb.append(objectId + " 0 obj\n");
-            sb.append("<< /Length " + bytes.length + " /Length1 " + uncompressed.length + " /Filter /FlateDecode >>\n");
-            sb.append("stream\n");
-
+            byte[] start = buildHeader(bytes.length, uncompressed.length);
             byte[] end = "\nendstream\nendobj\n".getBytes(StandardCharsets.ISO_8859_1);
-            int len = sb.toString().getBytes(StandardCharsets.ISO_8859_1).length;
-            output = new byte[len + bytes.length + end.length];
-            System.arraycopy(sb.toString().getBytes(StandardCharsets.ISO_8859_1), 0, output, 0, len);
-            System.arraycopy(bytes, 0, output, len, bytes.length);
-            System.arraycopy(end, 0, output, len + bytes.length, end.length);
+            output = new byte[start.length + bytes.length + end.length];
+            System.arraycopy(start, 0, output, 0, start.length);
+            System.arraycopy(bytes, 0, output, start.length, bytes.length);
+            System.arraycopy(end, 0, output, start.length + bytes.length, end.length);
         } catch (FileNotFoundException notFound) {
             logger.error("File not found at path " + path, notFound);
             throw new RuntimeException("File not found at specified path");
@@ -100,6 +137,87 @@ public class FontFile implements Element {
         return output;
     }
 
+    @Override
+    public void write(OutputStream outputStream, byte[] encryptionKey) throws IOException {
+        byte[] uncompressed;
+        try {
+            uncompressed = readFontProgram();
+        } catch (FileNotFoundException notFound) {
+            logger.error("File not found at path " + path, notFound);
+            throw new RuntimeException("File not found at specified path");
+        }
+        byte[] bytes = Util.compressStream(uncompressed);
+
+        if (encryptionKey != null) {
+            // Encrypted as it is written, without another copy of the font program
+            outputStream.write(buildHeader(PdfSecurity.encryptedLength(bytes.length), uncompressed.length));
+            try (OutputStream encrypting = PdfSecurity.encryptingStream(encryptionKey, objectId, 0, outputStream)) {
+                encrypting.write(bytes);
+            }
+        } else {
+            outputStream.write(buildHeader(bytes.length, uncompressed.length));
+            outputStream.write(bytes);
+        }
+        outputStream.write("\nendstream\nendobj\n".getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Reads the font program, the subset CFF table for OpenType fonts
+     * or the whole file for TrueType fonts
+     * @return byte array of the font program
+     * @throws IOException throws if the font file cannot be read
+     */
+    private byte[] readFontProgram() throws IOException {
+        if (compactFontFormat) {
+            return readCompactFontProgram();
+        }
+        try (FileInputStream inputStream = new FileInputStream(new File(path))) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    /**
+     * Builds the stream dictionary up to the start of the stream data
+     * @param length long of the stream length
+     * @param uncompressedLength int of the font program length
+     * @return byte array of the object header
+     */
+    private byte[] buildHeader(long length, int uncompressedLength) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(objectId + " 0 obj\n");
+        if (compactFontFormat) {
+            sb.append("<< /Length " + length + " /Subtype /Type1C /Filter /FlateDecode >>\n");
+        } else {
+            sb.append("<< /Length " + length + " /Length1 " + uncompressedLength + " /Filter /FlateDecode >>\n");
+        }
+        sb.append("stream\n");
+
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Reads the CFF table from the OpenType font and subsets it
+     * to the glyphs mapped by the character range
+     * @return byte array of the CFF font program
+     * @throws IOException throws if the font file cannot be read
+     */
+    private byte[] readCompactFontProgram() throws IOException {
+        try (InputStream inputStream = new FileInputStream(path);
+                OpenTypeFont otFont = (OpenTypeFont) new OTFParser().parseEmbedded(inputStream)) {
+            CmapLookup cmap = otFont.getUnicodeCmapLookup();
+            Set<Integer> glyphIds = new HashSet<>();
+            for (int code = firstChar; code <= lastChar; code++) {
+                int glyphId = cmap.getGlyphId(code);
+                if (glyphId > 0) {
+                    glyphIds.add(glyphId);
+                }
+            }
+
+            byte[] cff = otFont.getTableBytes(otFont.getTableMap().get("CFF "));
+            return new CFFSubsetter(cff).subset(glyphIds);
+        }
+    }
+
     @Override
     public List<Element> buildElementList() {
         // Not needed for this Element type
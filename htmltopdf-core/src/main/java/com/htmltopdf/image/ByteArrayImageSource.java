@@ -0,0 +1,60 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Image source for image data that is already in memory
+ */
+public class ByteArrayImageSource implements ImageSource {
+    private byte[] image;
+
+    /**
+     * Constructor - Initialize with the image data
+     * @param image byte array of the image
+     */
+    public ByteArrayImageSource(byte[] image) {
+        this.image = image;
+    }
+
+    @Override
+    public long length() {
+        return image.length;
+    }
+
+    @Override
+    public InputStream openStream() {
+        return new ByteArrayInputStream(image);
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(image);
+    }
+
+    @Override
+    public byte[] readAllBytes() {
+        return image;
+    }
+}
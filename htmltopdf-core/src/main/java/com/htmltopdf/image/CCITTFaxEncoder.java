@@ -0,0 +1,351 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Encodes bi-level images with CCITT Group 4 (T.6) two dimensional
+ * coding for the CCITTFaxDecode filter. Scanned text pages compress
+ * to a fraction of their JPEG size. Pixels darker than the threshold
+ * are black, the threshold is found with Otsu's method by default
+ */
+public class CCITTFaxEncoder {
+    private static final int WHITE = 0;
+    private static final int BLACK = 1;
+    private static final int MAX_MAKEUP = 2560;
+    private static final double MAX_MIDTONES = 0.08;
+    private static final int MAX_CHROMA = 48;
+
+    private static final String[] WHITE_TERMINATING = {
+        "00110101", "000111", "0111", "1000", "1011", "1100", "1110", "1111",
+        "10011", "10100", "00111", "01000", "001000", "000011", "110100", "110101",
+        "101010", "101011", "0100111", "0001100", "0001000", "0010111", "0000011", "0000100",
+        "0101000", "0101011", "0010011", "0100100", "0011000", "00000010", "00000011", "00011010",
+        "00011011", "00010010", "00010011", "00010100", "00010101", "00010110", "00010111", "00101000",
+        "00101001", "00101010", "00101011", "00101100", "00101101", "00000100", "00000101", "00001010",
+        "00001011", "01010010", "01010011", "01010100", "01010101", "00100100", "00100101", "01011000",
+        "01011001", "01011010", "01011011", "01001010", "01001011", "00110010", "00110011", "00110100"
+    };
+
+    private static final String[] BLACK_TERMINATING = {
+        "0000110111", "010", "11", "10", "011", "0011", "0010", "00011",
+        "000101", "000100", "0000100", "0000101", "0000111", "00000100", "00000111", "000011000",
+        "0000010111", "0000011000", "0000001000", "00001100111", "00001101000", "00001101100", "00000110111", "00000101000",
+        "00000010111", "00000011000", "000011001010", "000011001011", "000011001100", "000011001101", "000001101000", "000001101001",
+        "000001101010", "000001101011", "000011010010", "000011010011", "000011010100", "000011010101", "000011010110", "000011010111",
+        "000001101100", "000001101101", "000011011010", "000011011011", "000001010100", "000001010101", "000001010110", "000001010111",
+        "000001100100", "000001100101", "000001010010", "000001010011", "000000100100", "000000110111", "000000111000", "000000100111",
+        "000000101000", "000001011000", "000001011001", "000000101011", "000000101100", "000001011010", "000001100110", "000001100111"
+    };
+
+    // Make up codes for 64 to 1728 in steps of 64
+    private static final String[] WHITE_MAKEUP = {
+        "11011", "10010", "010111", "0110111", "00110110", "00110111", "01100100", "01100101",
+        "01101000", "01100111", "011001100", "011001101", "011010010", "011010011", "011010100", "011010101",
+        "011010110", "011010111", "011011000", "011011001", "011011010", "011011011", "010011000", "010011001",
+        "010011010", "011000", "010011011"
+    };
+
+    private static final String[] BLACK_MAKEUP = {
+        "0000001111", "000011001000", "000011001001", "000001011011", "000000110011", "000000110100", "000000110101", "0000001101100",
+        "0000001101101", "0000001001010", "0000001001011", "0000001001100", "0000001001101", "0000001110010", "0000001110011", "0000001110100",
+        "0000001110101", "0000001110110", "0000001110111", "0000001010010", "0000001010011", "0000001010100", "0000001010101", "0000001011010",
+        "0000001011011", "0000001100100", "0000001100101"
+    };
+
+    // Make up codes for 1792 to 2560 shared by both colours
+    private static final String[] EXTENDED_MAKEUP = {
+        "00000001000", "00000001100", "00000001101", "000000010010", "000000010011", "000000010100", "000000010101",
+        "000000010110", "000000010111", "000000011100", "000000011101", "000000011110", "000000011111"
+    };
+
+    // Vertical mode codes for a1 - b1 from -3 to 3
+    private static final String[] VERTICAL = {
+        "0000010", "000010", "010", "1", "011", "000011", "0000011"
+    };
+    private static final String PASS = "0001";
+    private static final String HORIZONTAL = "001";
+    private static final String EOFB = "000000000001000000000001";
+
+    /**
+     * Checks if the image is essentially black and white. Images with
+     * few mid tones and no strong colour are bi-level, the edge pixels
+     * of scanned text and compression noise are allowed
+     * @param image BufferedImage to check
+     * @return boolean true if the image can be encoded as bi-level
+     */
+    public static boolean isBilevel(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] row = new int[width];
+        long midtones = 0;
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int r = (row[x] >> 16) & 0xFF;
+                int g = (row[x] >> 8) & 0xFF;
+                int b = row[x] & 0xFF;
+                int chroma = Math.max(r, Math.max(g, b)) - Math.min(r, Math.min(g, b));
+                int luminance = (r * 299 + g * 587 + b * 114) / 1000;
+                if (chroma > MAX_CHROMA || (luminance >= 64 && luminance < 192)) {
+                    midtones++;
+                }
+            }
+        }
+
+        return midtones <= MAX_MIDTONES * width * height;
+    }
+
+    /**
+     * Finds the threshold between black and white with Otsu's method
+     * @param image BufferedImage of the image
+     * @return int of the threshold, luminance below it is black
+     */
+    public static int threshold(BufferedImage image) {
+        long[] histogram = new long[256];
+        int width = image.getWidth();
+        byte[] gray = new byte[width];
+        for (int y = 0; y < image.getHeight(); y++) {
+            luminance(image, y, gray);
+            for (byte value : gray) {
+                histogram[value & 0xFF]++;
+            }
+        }
+
+        long total = (long) width * image.getHeight();
+        double sum = 0;
+        for (int i = 0; i < 256; i++) {
+            sum += i * (double) histogram[i];
+        }
+
+        double sumBackground = 0;
+        long weightBackground = 0;
+        double best = -1;
+        int threshold = 128;
+        for (int i = 0; i < 256; i++) {
+            weightBackground += histogram[i];
+            if (weightBackground == 0) continue;
+            long weightForeground = total - weightBackground;
+            if (weightForeground == 0) break;
+
+            sumBackground += i * (double) histogram[i];
+            double meanBackground = sumBackground / weightBackground;
+            double meanForeground = (sum - sumBackground) / weightForeground;
+            double between = (double) weightBackground * weightForeground * (meanBackground - meanForeground) * (meanBackground - meanForeground);
+            if (between > best) {
+                best = between;
+                threshold = i + 1;
+            }
+        }
+
+        return threshold;
+    }
+
+    /**
+     * Encodes the image as bi-level with the Otsu threshold
+     * @param image BufferedImage of the image
+     * @return ImageInfo of the CCITT encoded image
+     */
+    public static ImageInfo encode(BufferedImage image) {
+        return encode(image, threshold(image));
+    }
+
+    /**
+     * Encodes the image as bi-level
+     * @param image BufferedImage of the image
+     * @param threshold int of the threshold, luminance below it is black
+     * @return ImageInfo of the CCITT encoded image
+     */
+    public static ImageInfo encode(BufferedImage image, int threshold) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BitWriter bits = new BitWriter();
+        byte[] gray = new byte[width];
+        // Changing elements of each line followed by two end markers
+        int[] reference = new int[width + 2];
+        int[] coding = new int[width + 2];
+        reference[0] = width;
+        reference[1] = width;
+
+        for (int y = 0; y < height; y++) {
+            luminance(image, y, gray);
+            int changes = 0;
+            int color = WHITE;
+            for (int x = 0; x < width; x++) {
+                int pixel = (gray[x] & 0xFF) < threshold ? BLACK : WHITE;
+                if (pixel != color) {
+                    coding[changes++] = x;
+                    color = pixel;
+                }
+            }
+            coding[changes] = width;
+            coding[changes + 1] = width;
+
+            encodeLine(bits, reference, coding, width);
+
+            int[] swap = reference;
+            reference = coding;
+            coding = swap;
+        }
+        bits.write(EOFB);
+
+        ImageInfo imageInfo = new ImageInfo();
+        imageInfo.setSize(width, height);
+        imageInfo.setComponents(1);
+        imageInfo.setBitsPerComponent(1);
+        imageInfo.setColorSpace(ImageInfo.DEVICE_GRAY);
+        imageInfo.setFilter(ImageInfo.CCITT_FAX_DECODE);
+        imageInfo.setDecodeParms("<< /K -1 /Columns " + width + " /Rows " + height + " >>");
+        imageInfo.setImageSource(new ByteArrayImageSource(bits.toByteArray()));
+
+        return imageInfo;
+    }
+
+    /**
+     * Encodes one line against the reference line with the pass,
+     * vertical and horizontal modes
+     * @param bits BitWriter of the output
+     * @param reference int array of the changing elements of the reference line
+     * @param coding int array of the changing elements of the coding line
+     * @param width int of the line width
+     */
+    private static void encodeLine(BitWriter bits, int[] reference, int[] coding, int width) {
+        int a0 = -1;
+        int color = WHITE;
+        // Indexes of the first changes after a0, changes alternate starting white to black
+        int a1Index = 0;
+        int b1Index = 0;
+        while (a0 < width) {
+            while (coding[a1Index] <= a0 && coding[a1Index] < width) a1Index++;
+            int a1 = coding[a1Index];
+
+            // b1 is the first reference change after a0 to the colour opposite a0
+            while (reference[b1Index] <= a0 && reference[b1Index] < width) b1Index++;
+            int b1Change = b1Index;
+            if ((b1Change & 1) != color && reference[b1Change] < width) b1Change++;
+            int b1 = reference[b1Change];
+            int b2 = b1 < width ? reference[b1Change + 1] : width;
+
+            if (b2 < a1) {
+                bits.write(PASS);
+                a0 = b2;
+            } else if (Math.abs(a1 - b1) <= 3) {
+                bits.write(VERTICAL[a1 - b1 + 3]);
+                a0 = a1;
+                color ^= 1;
+            } else {
+                int a2 = a1 < width ? coding[a1Index + 1] : width;
+                bits.write(HORIZONTAL);
+                writeRun(bits, a1 - Math.max(a0, 0), color);
+                writeRun(bits, a2 - a1, color ^ 1);
+                a0 = a2;
+            }
+        }
+    }
+
+    /**
+     * Writes a run length with the make up and terminating codes
+     * @param bits BitWriter of the output
+     * @param run int of the run length
+     * @param color int of the run colour
+     */
+    private static void writeRun(BitWriter bits, int run, int color) {
+        while (run > MAX_MAKEUP) {
+            bits.write(EXTENDED_MAKEUP[EXTENDED_MAKEUP.length - 1]);
+            run -= MAX_MAKEUP;
+        }
+        if (run >= 64) {
+            int makeup = run / 64;
+            if (makeup > 27) {
+                bits.write(EXTENDED_MAKEUP[makeup - 28]);
+            } else {
+                bits.write(color == WHITE ? WHITE_MAKEUP[makeup - 1] : BLACK_MAKEUP[makeup - 1]);
+            }
+            run -= makeup * 64;
+        }
+        bits.write(color == WHITE ? WHITE_TERMINATING[run] : BLACK_TERMINATING[run]);
+    }
+
+    /**
+     * Reads the luminance of a row of the image
+     * @param image BufferedImage of the image
+     * @param y int of the row
+     * @param gray byte array to fill with the luminance
+     */
+    private static void luminance(BufferedImage image, int y, byte[] gray) {
+        int width = image.getWidth();
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY || image.getType() == BufferedImage.TYPE_BYTE_BINARY && image.getColorModel().getPixelSize() == 1) {
+            int[] samples = image.getRaster().getSamples(0, y, width, 1, 0, (int[]) null);
+            int scale = image.getType() == BufferedImage.TYPE_BYTE_GRAY ? 1 : 255;
+            for (int x = 0; x < width; x++) {
+                gray[x] = (byte) (samples[x] * scale);
+            }
+            return;
+        }
+
+        int[] row = image.getRGB(0, y, width, 1, null, 0, width);
+        for (int x = 0; x < width; x++) {
+            int r = (row[x] >> 16) & 0xFF;
+            int g = (row[x] >> 8) & 0xFF;
+            int b = row[x] & 0xFF;
+            gray[x] = (byte) ((r * 299 + g * 587 + b * 114) / 1000);
+        }
+    }
+
+    /**
+     * Writes codes most significant bit first
+     */
+    private static class BitWriter {
+        private ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private int current;
+        private int count;
+
+        /**
+         * Writes the bits of a code
+         * @param code String of the code bits
+         */
+        void write(String code) {
+            for (int i = 0; i < code.length(); i++) {
+                current = (current << 1) | (code.charAt(i) - '0');
+                if (++count == 8) {
+                    output.write(current);
+                    current = 0;
+                    count = 0;
+                }
+            }
+        }
+
+        /**
+         * Gets the written bytes, the last byte is padded with zeros
+         * @return byte array of the codes
+         */
+        byte[] toByteArray() {
+            if (count > 0) {
+                output.write(current << (8 - count));
+                current = 0;
+                count = 0;
+            }
+
+            return output.toByteArray();
+        }
+    }
+}
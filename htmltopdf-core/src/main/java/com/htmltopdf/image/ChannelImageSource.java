@@ -0,0 +1,58 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+
+/**
+ * Image source backed by an open file channel, the whole
+ * channel is the image. The channel is not closed by the source
+ */
+public class ChannelImageSource implements ImageSource {
+    private FileChannel channel;
+
+    /**
+     * Constructor - Initialize with the channel
+     * @param channel FileChannel of the image data
+     */
+    public ChannelImageSource(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public long length() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        return new ChannelInputStream(channel);
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        if (!ImageSource.transfer(channel, channel.size(), outputStream)) {
+            ImageSource.super.writeTo(outputStream);
+        }
+    }
+}
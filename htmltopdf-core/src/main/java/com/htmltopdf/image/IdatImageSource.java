@@ -0,0 +1,129 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Image source of the zlib data of a PNG image. The IDAT chunks
+ * are read from the PNG source when the image is written, so the
+ * compressed data is never held in memory
+ */
+public class IdatImageSource implements ImageSource {
+    private ImageSource pngSource;
+    private long length;
+
+    /**
+     * Constructor - Initialize with the PNG source
+     * @param pngSource ImageSource of the PNG image
+     * @param length long of the total IDAT data length
+     */
+    public IdatImageSource(ImageSource pngSource, long length) {
+        this.pngSource = pngSource;
+        this.length = length;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        DataInputStream in = new DataInputStream(pngSource.openStream());
+        if (in.readLong() != PngReader.SIGNATURE) {
+            in.close();
+            throw new IOException("Image is not a PNG image");
+        }
+
+        return new IdatInputStream(in);
+    }
+
+    /**
+     * Input stream joining the data of the IDAT chunks
+     */
+    private static class IdatInputStream extends InputStream {
+        private DataInputStream in;
+        private long remaining;
+        private boolean ended;
+
+        /**
+         * Constructor - Initialize with the PNG stream after the signature
+         * @param in DataInputStream of the PNG image
+         */
+        IdatInputStream(DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            while (remaining == 0) {
+                if (!nextChunk()) return -1;
+            }
+
+            int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read < 0) {
+                throw new IOException("PNG image ended inside an IDAT chunk");
+            }
+            remaining -= read;
+            if (remaining == 0) {
+                // Skip the chunk CRC
+                in.readInt();
+            }
+
+            return read;
+        }
+
+        /**
+         * Moves to the next IDAT chunk
+         * @return boolean false once the image end is reached
+         * @throws IOException throws if the stream cannot be read
+         */
+        private boolean nextChunk() throws IOException {
+            while (!ended) {
+                int length = in.readInt();
+                int type = in.readInt();
+                if (type == PngReader.IEND) {
+                    ended = true;
+                } else if (type == PngReader.IDAT && length > 0) {
+                    remaining = length;
+                    return true;
+                } else {
+                    ImageScanner.skipFully(in, length + 4L);
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Decodes the stream data of an image back to pixels, used
+ * when an image has to be resampled
+ */
+public class ImageDecoder {
+
+    /**
+     * Decodes the image. JPEG images are decoded with ImageIO, Flate
+     * images are inflated and the PNG predictors reversed
+     * @param imageInfo ImageInfo of the image
+     * @return BufferedImage of the pixels or null if the image type cannot be decoded
+     * @throws IOException throws if the image data cannot be read
+     */
+    public static BufferedImage decode(ImageInfo imageInfo) throws IOException {
+        if (ImageInfo.DCT_DECODE.equals(imageInfo.getFilter())) {
+            try (InputStream inputStream = imageInfo.getImageSource().openStream()) {
+                return ImageIO.read(inputStream);
+            }
+        }
+
+        boolean gray = ImageInfo.DEVICE_GRAY.equals(imageInfo.getColorSpace());
+        int bitsPerComponent = imageInfo.getBitsPerComponent();
+        if (!ImageInfo.FLATE_DECODE.equals(imageInfo.getFilter())
+            || !(gray || ImageInfo.DEVICE_RGB.equals(imageInfo.getColorSpace()))
+            || (bitsPerComponent != 8 && bitsPerComponent != 16)) {
+            return null;
+        }
+
+        int width = imageInfo.getWidth();
+        int height = imageInfo.getHeight();
+        int channels = gray ? 1 : 3;
+        byte[] data = PngReader.inflate(imageInfo.getImageSource().readAllBytes());
+        if (imageInfo.getDecodeParms() != null && imageInfo.getDecodeParms().contains("/Predictor")) {
+            data = PngReader.unfilter(data, width, height, channels, bitsPerComponent);
+        }
+
+        int sampleBytes = bitsPerComponent / 8;
+        if (data.length < width * height * channels * sampleBytes) {
+            throw new IOException("Image data is shorter than the image size");
+        }
+
+        BufferedImage image = new BufferedImage(width, height, gray ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB);
+        int[] row = new int[width * channels];
+        for (int y = 0; y < height; y++) {
+            for (int i = 0; i < row.length; i++) {
+                // The high byte of 16 bit samples comes first
+                row[i] = data[(y * row.length + i) * sampleBytes] & 0xFF;
+            }
+            image.getRaster().setPixels(0, y, width, 1, row);
+        }
+
+        return image;
+    }
+}
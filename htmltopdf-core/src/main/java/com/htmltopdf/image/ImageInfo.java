@@ -0,0 +1,215 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+/**
+ * Class to hold the image information needed to write an image
+ * XObject, filled in from the image headers without decoding pixels
+ */
+public class ImageInfo {
+    public static final String DEVICE_GRAY = "/DeviceGray";
+    public static final String DEVICE_RGB = "/DeviceRGB";
+    public static final String DEVICE_CMYK = "/DeviceCMYK";
+    public static final String DCT_DECODE = "DCTDecode";
+    public static final String FLATE_DECODE = "FlateDecode";
+    public static final String CCITT_FAX_DECODE = "CCITTFaxDecode";
+    private int width;
+    private int height;
+    private int components = 3;
+    private int bitsPerComponent = 8;
+    private String colorSpace = DEVICE_RGB;
+    private String filter = DCT_DECODE;
+    private String decodeParms;
+    private String decode;
+    private String mask;
+    private ImageSource imageSource;
+    private ImageInfo alpha;
+
+    /**
+     * Set the size of the image
+     * @param width int of the width
+     * @param height int of the height
+     */
+    public void setSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Get the image width
+     * @return int of the width in pixels
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the image height
+     * @return int of the height in pixels
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Set the number of colour components
+     * @param components int of the number of components
+     */
+    public void setComponents(int components) {
+        this.components = components;
+    }
+
+    /**
+     * Get the number of colour components
+     * @return int of the number of components
+     */
+    public int getComponents() {
+        return components;
+    }
+
+    /**
+     * Set the bits per component
+     * @param bitsPerComponent int of the bits per component
+     */
+    public void setBitsPerComponent(int bitsPerComponent) {
+        this.bitsPerComponent = bitsPerComponent;
+    }
+
+    /**
+     * Get the bits per component
+     * @return int of the bits per component
+     */
+    public int getBitsPerComponent() {
+        return bitsPerComponent;
+    }
+
+    /**
+     * Set the colour space, either a device colour space name or
+     * a colour space array such as /Indexed
+     * @param colorSpace String of the PDF colour space
+     */
+    public void setColorSpace(String colorSpace) {
+        this.colorSpace = colorSpace;
+    }
+
+    /**
+     * Get the colour space
+     * @return String of the PDF colour space
+     */
+    public String getColorSpace() {
+        return colorSpace;
+    }
+
+    /**
+     * Set the stream filter
+     * @param filter String of the filter name without the slash
+     */
+    public void setFilter(String filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Get the stream filter
+     * @return String of the filter name
+     */
+    public String getFilter() {
+        return filter;
+    }
+
+    /**
+     * Set the decode parameters of the filter
+     * @param decodeParms String of the decode parameters dictionary
+     */
+    public void setDecodeParms(String decodeParms) {
+        this.decodeParms = decodeParms;
+    }
+
+    /**
+     * Get the decode parameters of the filter
+     * @return String of the decode parameters dictionary or null
+     */
+    public String getDecodeParms() {
+        return decodeParms;
+    }
+
+    /**
+     * Set the decode array
+     * @param decode String of the decode array
+     */
+    public void setDecode(String decode) {
+        this.decode = decode;
+    }
+
+    /**
+     * Get the decode array
+     * @return String of the decode array or null
+     */
+    public String getDecode() {
+        return decode;
+    }
+
+    /**
+     * Set the colour key mask array
+     * @param mask String of the colour key mask array
+     */
+    public void setMask(String mask) {
+        this.mask = mask;
+    }
+
+    /**
+     * Get the colour key mask array
+     * @return String of the colour key mask array or null
+     */
+    public String getMask() {
+        return mask;
+    }
+
+    /**
+     * Set the source of the encoded image data
+     * @param imageSource ImageSource of the image data
+     */
+    public void setImageSource(ImageSource imageSource) {
+        this.imageSource = imageSource;
+    }
+
+    /**
+     * Get the source of the encoded image data
+     * @return ImageSource of the image data
+     */
+    public ImageSource getImageSource() {
+        return imageSource;
+    }
+
+    /**
+     * Set the alpha channel, written as the soft mask of the image
+     * @param alpha ImageInfo of the alpha channel
+     */
+    public void setAlpha(ImageInfo alpha) {
+        this.alpha = alpha;
+    }
+
+    /**
+     * Get the alpha channel
+     * @return ImageInfo of the alpha channel or null
+     */
+    public ImageInfo getAlpha() {
+        return alpha;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+import java.awt.Rectangle;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+
+/**
+ * Scanline source reading an image with an ImageIO reader in strips
+ * of rows, only one strip of the image is decoded at a time. Alpha is
+ * not kept, gray images are read as gray and all others as RGB
+ */
+public class ImageReaderScanlineSource implements ScanlineSource {
+    private ImageReader reader;
+    private int stripHeight;
+    private int width;
+    private int height;
+    private boolean gray;
+    private BufferedImage strip;
+    private int stripStart;
+    private int[] pixels;
+
+    /**
+     * Constructor - Initialize with a reader that has its input set,
+     * the first image of the input is read
+     * @param reader ImageReader with the input set
+     * @param stripHeight int of the rows decoded at a time
+     * @throws IOException throws if the image header cannot be read
+     */
+    public ImageReaderScanlineSource(ImageReader reader, int stripHeight) throws IOException {
+        this.reader = reader;
+        this.stripHeight = Math.max(1, stripHeight);
+        this.width = reader.getWidth(0);
+        this.height = reader.getHeight(0);
+        this.gray = reader.getRawImageType(0) != null
+            && reader.getRawImageType(0).getColorModel().getColorSpace().getType() == ColorSpace.TYPE_GRAY
+            && reader.getRawImageType(0).getNumBands() == 1
+            && reader.getRawImageType(0).getSampleModel().getSampleSize(0) == 8;
+        this.pixels = new int[width];
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getComponents() {
+        return gray ? 1 : 3;
+    }
+
+    @Override
+    public void readRow(int y, byte[] row) throws IOException {
+        if (strip == null || y < stripStart || y >= stripStart + strip.getHeight()) {
+            stripStart = y;
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(new Rectangle(0, y, width, Math.min(stripHeight, height - y)));
+            strip = reader.read(0, param);
+        }
+
+        int stripRow = y - stripStart;
+        if (gray) {
+            strip.getRaster().getSamples(0, stripRow, width, 1, 0, pixels);
+            for (int x = 0; x < width; x++) {
+                row[x] = (byte) pixels[x];
+            }
+        } else {
+            strip.getRGB(0, stripRow, width, 1, pixels, 0, width);
+            for (int x = 0, p = 0; x < width; x++) {
+                row[p++] = (byte) (pixels[x] >> 16);
+                row[p++] = (byte) (pixels[x] >> 8);
+                row[p++] = (byte) pixels[x];
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        strip = null;
+        reader.dispose();
+    }
+}
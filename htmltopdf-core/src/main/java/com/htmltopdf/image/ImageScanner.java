@@ -0,0 +1,168 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the image type and dimensions from the JPEG SOF or PNG IHDR
+ * headers, only the start of the image data is read and no pixels
+ * are decoded
+ */
+public class ImageScanner {
+    private static final int JPEG_MAGIC = 0xFFD8;
+    private static final int PNG_MAGIC = 0x89504E47;
+    private static final int MARKER_APP14 = 0xEE;
+    private static final int MARKER_SOS = 0xDA;
+
+    /**
+     * Scans the image headers for the type, size and colour space.
+     * The returned information does not hold the image source
+     * @param imageSource ImageSource of a JPEG or PNG image
+     * @return ImageInfo of the image header
+     * @throws IOException throws if the source cannot be read or is not a supported image
+     */
+    public static ImageInfo scan(ImageSource imageSource) throws IOException {
+        try (DataInputStream in = new DataInputStream(imageSource.openStream())) {
+            int magic = in.readInt();
+            if ((magic >>> 16) == JPEG_MAGIC) {
+                return scanJpeg(in, magic & 0xFFFF);
+            } else if (magic == PNG_MAGIC) {
+                in.readInt();
+                return PngReader.readHeader(in).toImageInfo();
+            }
+        } catch (EOFException eof) {
+            throw new IOException("Image data ended before the image header", eof);
+        }
+
+        throw new IOException("Image is not a JPEG or PNG image");
+    }
+
+    /**
+     * Reads the image ready to write as an XObject. JPEG data is used
+     * as it is and PNG data is reused where the PNG predictors allow it
+     * @param imageSource ImageSource of a JPEG or PNG image
+     * @return ImageInfo of the image with the source to write
+     * @throws IOException throws if the source cannot be read or is not a supported image
+     */
+    public static ImageInfo read(ImageSource imageSource) throws IOException {
+        ImageInfo imageInfo = scan(imageSource);
+        if (ImageInfo.DCT_DECODE.equals(imageInfo.getFilter())) {
+            imageInfo.setImageSource(imageSource);
+            return imageInfo;
+        }
+
+        return new PngReader(imageSource).read();
+    }
+
+    /**
+     * Scans the JPEG markers up to the start of frame
+     * @param in DataInputStream positioned after the SOI marker
+     * @param first int of the first marker already read
+     * @return ImageInfo of the JPEG header
+     * @throws IOException throws if the stream cannot be read
+     */
+    private static ImageInfo scanJpeg(DataInputStream in, int first) throws IOException {
+        boolean adobe = false;
+        int marker = first;
+        while (true) {
+            // Skip fill bytes before the marker code
+            while ((marker & 0xFF) == 0xFF) {
+                marker = 0xFF00 | in.readUnsignedByte();
+            }
+
+            int code = marker & 0xFF;
+            if (code == 0x01 || (code >= 0xD0 && code <= 0xD9)) {
+                marker = in.readUnsignedShort();
+                continue;
+            }
+            if (code == MARKER_SOS) {
+                break;
+            }
+
+            int length = in.readUnsignedShort() - 2;
+            if (isStartOfFrame(code)) {
+                ImageInfo imageInfo = new ImageInfo();
+                imageInfo.setBitsPerComponent(in.readUnsignedByte());
+                int height = in.readUnsignedShort();
+                int width = in.readUnsignedShort();
+                int components = in.readUnsignedByte();
+                imageInfo.setSize(width, height);
+                imageInfo.setComponents(components);
+                imageInfo.setFilter(ImageInfo.DCT_DECODE);
+                switch (components) {
+                    case 1:
+                        imageInfo.setColorSpace(ImageInfo.DEVICE_GRAY);
+                        break;
+                    case 4:
+                        imageInfo.setColorSpace(ImageInfo.DEVICE_CMYK);
+                        // Adobe writes CMYK JPEGs with inverted values
+                        if (adobe) imageInfo.setDecode("[1 0 1 0 1 0 1 0]");
+                        break;
+                    default:
+                        imageInfo.setColorSpace(ImageInfo.DEVICE_RGB);
+                }
+
+                return imageInfo;
+            }
+
+            if (code == MARKER_APP14 && length >= 5) {
+                byte[] tag = new byte[5];
+                in.readFully(tag);
+                adobe = "Adobe".equals(new String(tag, StandardCharsets.ISO_8859_1));
+                length -= 5;
+            }
+            skipFully(in, length);
+            marker = in.readUnsignedShort();
+        }
+
+        throw new IOException("JPEG image has no start of frame marker");
+    }
+
+    /**
+     * Checks if the marker is a start of frame marker
+     * @param code int of the marker code
+     * @return boolean true if the marker starts a frame
+     */
+    private static boolean isStartOfFrame(int code) {
+        return code >= 0xC0 && code <= 0xCF && code != 0xC4 && code != 0xC8 && code != 0xCC;
+    }
+
+    /**
+     * Skips the number of bytes in the stream
+     * @param in InputStream to skip
+     * @param length long of the number of bytes to skip
+     * @throws IOException throws if the stream ends early
+     */
+    static void skipFully(InputStream in, long length) throws IOException {
+        while (length > 0) {
+            long skipped = in.skip(length);
+            if (skipped <= 0) {
+                if (in.read() == -1) throw new EOFException();
+                skipped = 1;
+            }
+            length -= skipped;
+        }
+    }
+}
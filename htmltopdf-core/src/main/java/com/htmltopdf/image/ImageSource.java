@@ -0,0 +1,97 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+
+/**
+ * Interface for the source of the image data. The data is only
+ * read when the image is written, so no image is held in heap
+ * while the document is being built
+ */
+public interface ImageSource {
+
+    /**
+     * Gets the length of the image data
+     * @return long of the number of bytes
+     * @throws IOException throws if the source cannot be read
+     */
+    public long length() throws IOException;
+
+    /**
+     * Opens a new stream of the image data
+     * @return InputStream of the image data
+     * @throws IOException throws if the source cannot be read
+     */
+    public InputStream openStream() throws IOException;
+
+    /**
+     * Writes the image data to the output stream
+     * @param outputStream OutputStream to write the image to
+     * @throws IOException throws if the source cannot be read or the output written
+     */
+    public default void writeTo(OutputStream outputStream) throws IOException {
+        try (InputStream inputStream = openStream()) {
+            inputStream.transferTo(outputStream);
+        }
+    }
+
+    /**
+     * Reads all of the image data into a byte array
+     * @return byte array of the image data
+     * @throws IOException throws if the source cannot be read
+     */
+    public default byte[] readAllBytes() throws IOException {
+        try (InputStream inputStream = openStream()) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    /**
+     * Utility method to move data from a file channel straight to a file
+     * output stream without copying it through the heap
+     * @param channel FileChannel of the source
+     * @param length long of the number of bytes to move
+     * @param outputStream OutputStream to write to
+     * @return boolean true if the data was transferred, false if the output is not a file
+     * @throws IOException throws if the transfer fails
+     */
+    public static boolean transfer(FileChannel channel, long length, OutputStream outputStream) throws IOException {
+        if (!(outputStream instanceof FileOutputStream fileOutputStream)) {
+            return false;
+        }
+
+        FileChannel target = fileOutputStream.getChannel();
+        long position = 0;
+        while (position < length) {
+            long transferred = channel.transferTo(position, length - position, target);
+            if (transferred <= 0) {
+                throw new IOException("Unable to transfer image data, " + (length - position) + " bytes remaining");
+            }
+            position += transferred;
+        }
+
+        return true;
+    }
+}
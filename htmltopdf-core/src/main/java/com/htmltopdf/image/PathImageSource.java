@@ -0,0 +1,71 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Image source backed by a file. Unencrypted images are moved
+ * to the output with FileChannel.transferTo
+ */
+public class PathImageSource implements ImageSource {
+    private Path path;
+
+    /**
+     * Constructor - Initialize with the image path
+     * @param path Path of the image file
+     */
+    public PathImageSource(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Get the path of the image file
+     * @return Path of the image file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public long length() throws IOException {
+        return Files.size(path);
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (!ImageSource.transfer(channel, channel.size(), outputStream)) {
+                ImageSource.super.writeTo(outputStream);
+            }
+        }
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HexFormat;
+import java.util.zip.InflaterOutputStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Reads PNG images for writing as XObjects. The PNG row filters are
+ * the same as the PDF PNG predictors, so the zlib IDAT data of opaque
+ * images is written as it is without decoding. Only images with an
+ * alpha channel are decoded to split the alpha into a soft mask
+ */
+public class PngReader {
+    static final long SIGNATURE = 0x89504E470D0A1A0AL;
+    static final int IHDR = 0x49484452;
+    static final int PLTE = 0x504C5445;
+    static final int TRNS = 0x74524E53;
+    static final int IDAT = 0x49444154;
+    static final int IEND = 0x49454E44;
+    private static final int GRAY = 0;
+    private static final int RGB = 2;
+    private static final int INDEXED = 3;
+    private static final int GRAY_ALPHA = 4;
+    private static final int RGB_ALPHA = 6;
+    private ImageSource imageSource;
+
+    /**
+     * Constructor - Initialize with the PNG source
+     * @param imageSource ImageSource of the PNG image
+     */
+    public PngReader(ImageSource imageSource) {
+        this.imageSource = imageSource;
+    }
+
+    /**
+     * Reads the PNG chunks and builds the image information
+     * @return ImageInfo of the image
+     * @throws IOException throws if the source cannot be read or is not a valid PNG
+     */
+    public ImageInfo read() throws IOException {
+        Header header;
+        byte[] palette = null;
+        byte[] transparency = null;
+        long idatLength = 0;
+        ByteArrayOutputStream idat = null;
+        try (DataInputStream in = new DataInputStream(imageSource.openStream())) {
+            if (in.readLong() != SIGNATURE) {
+                throw new IOException("Image is not a PNG image");
+            }
+            header = readHeader(in);
+            if (header.interlace != 0) {
+                // Interlaced rows do not match the PDF predictors, decode the whole image
+                BufferedImage image;
+                try (InputStream inputStream = imageSource.openStream()) {
+                    image = ImageIO.read(inputStream);
+                }
+                if (image == null) {
+                    throw new IOException("Interlaced PNG image could not be decoded");
+                }
+                return RawImage.fromBufferedImage(image);
+            }
+
+            while (true) {
+                int length = in.readInt();
+                int type = in.readInt();
+                if (type == IEND) {
+                    break;
+                } else if (type == PLTE) {
+                    palette = readChunk(in, length);
+                } else if (type == TRNS) {
+                    transparency = readChunk(in, length);
+                } else if (type == IDAT) {
+                    idatLength += length;
+                    if (idat == null && needsDecode(header, transparency)) {
+                        idat = new ByteArrayOutputStream();
+                    }
+                    if (idat != null) {
+                        idat.write(readChunk(in, length));
+                    } else {
+                        ImageScanner.skipFully(in, length);
+                    }
+                } else {
+                    ImageScanner.skipFully(in, length);
+                }
+                // Skip the chunk CRC
+                in.readInt();
+            }
+        }
+
+        ImageInfo imageInfo = header.toImageInfo();
+        if (header.colorType == INDEXED) {
+            if (palette == null) throw new IOException("Indexed PNG image has no palette");
+            imageInfo.setColorSpace("[/Indexed /DeviceRGB " + (palette.length / 3 - 1) + " <" + HexFormat.of().withUpperCase().formatHex(palette) + ">]");
+        }
+
+        if (idat == null) {
+            imageInfo.setFilter(ImageInfo.FLATE_DECODE);
+            imageInfo.setDecodeParms(RawImage.predictorParms(header.channels(), header.bitDepth, header.width));
+            imageInfo.setImageSource(new IdatImageSource(imageSource, idatLength));
+            if (transparency != null) imageInfo.setMask(colorKeyMask(header, transparency));
+            return imageInfo;
+        }
+
+        byte[] pixels = unfilter(inflate(idat.toByteArray()), header.width, header.height, header.channels(), header.bitDepth);
+        if (header.colorType == INDEXED) {
+            // Palette indices are kept, the tRNS alpha of each index becomes the soft mask
+            imageInfo.setFilter(ImageInfo.FLATE_DECODE);
+            imageInfo.setDecodeParms(RawImage.predictorParms(1, header.bitDepth, header.width));
+            imageInfo.setImageSource(new IdatImageSource(imageSource, idatLength));
+            imageInfo.setAlpha(RawImage.fromPixels(indexAlpha(pixels, header, transparency), header.width, header.height, 1, 8));
+            return imageInfo;
+        }
+
+        int sampleBytes = header.bitDepth / 8;
+        int colorBytes = (header.channels() - 1) * sampleBytes;
+        int pixelCount = header.width * header.height;
+        byte[] color = new byte[pixelCount * colorBytes];
+        byte[] alpha = new byte[pixelCount * sampleBytes];
+        for (int i = 0; i < pixelCount; i++) {
+            int source = i * (colorBytes + sampleBytes);
+            System.arraycopy(pixels, source, color, i * colorBytes, colorBytes);
+            System.arraycopy(pixels, source + colorBytes, alpha, i * sampleBytes, sampleBytes);
+        }
+
+        return RawImage.fromPixels(color, alpha, header.width, header.height, header.channels() - 1, header.bitDepth);
+    }
+
+    /**
+     * Reads the IHDR chunk following the PNG signature
+     * @param in DataInputStream positioned after the signature
+     * @return Header of the PNG image
+     * @throws IOException throws if the first chunk is not a valid IHDR
+     */
+    static Header readHeader(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (in.readInt() != IHDR || length != 13) {
+            throw new IOException("PNG image does not start with an IHDR chunk");
+        }
+
+        Header header = new Header();
+        header.width = in.readInt();
+        header.height = in.readInt();
+        header.bitDepth = in.readUnsignedByte();
+        header.colorType = in.readUnsignedByte();
+        in.readUnsignedByte();
+        in.readUnsignedByte();
+        header.interlace = in.readUnsignedByte();
+        in.readInt();
+
+        return header;
+    }
+
+    /**
+     * Checks if the image data has to be decoded, which is only
+     * needed to split an alpha channel into a soft mask
+     * @param header Header of the PNG image
+     * @param transparency byte array of the tRNS chunk or null
+     * @return boolean true if the image data must be decoded
+     */
+    private static boolean needsDecode(Header header, byte[] transparency) {
+        return header.colorType == GRAY_ALPHA || header.colorType == RGB_ALPHA
+            || (header.colorType == INDEXED && transparency != null);
+    }
+
+    /**
+     * Reads the data of a chunk
+     * @param in DataInputStream positioned at the chunk data
+     * @param length int of the chunk length
+     * @return byte array of the chunk data
+     * @throws IOException throws if the stream ends early
+     */
+    private static byte[] readChunk(DataInputStream in, int length) throws IOException {
+        byte[] data = new byte[length];
+        in.readFully(data);
+        return data;
+    }
+
+    /**
+     * Builds the colour key mask of a gray or RGB tRNS chunk
+     * @param header Header of the PNG image
+     * @param transparency byte array of the tRNS chunk
+     * @return String of the mask array
+     */
+    private static String colorKeyMask(Header header, byte[] transparency) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i + 1 < transparency.length; i += 2) {
+            int value = ((transparency[i] & 0xFF) << 8) | (transparency[i + 1] & 0xFF);
+            sb.append(value + " " + value + (i + 3 < transparency.length ? " " : ""));
+        }
+        sb.append("]");
+
+        return sb.toString();
+    }
+
+    /**
+     * Maps the palette index of each pixel to the alpha of the index
+     * @param pixels byte array of the unfiltered rows
+     * @param header Header of the PNG image
+     * @param transparency byte array of the alpha of each index
+     * @return byte array of 8 bit alpha samples
+     */
+    private static byte[] indexAlpha(byte[] pixels, Header header, byte[] transparency) {
+        int stride = header.stride();
+        int mask = (1 << header.bitDepth) - 1;
+        byte[] alpha = new byte[header.width * header.height];
+        for (int y = 0; y < header.height; y++) {
+            for (int x = 0; x < header.width; x++) {
+                int bit = x * header.bitDepth;
+                int index = (pixels[y * stride + bit / 8] >> (8 - header.bitDepth - bit % 8)) & mask;
+                alpha[y * header.width + x] = index < transparency.length ? transparency[index] : (byte) 0xFF;
+            }
+        }
+
+        return alpha;
+    }
+
+    /**
+     * Inflates the zlib image data
+     * @param data byte array of the IDAT data
+     * @return byte array of the filtered rows
+     * @throws IOException throws if the data is not valid zlib data
+     */
+    static byte[] inflate(byte[] data) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (InflaterOutputStream ios = new InflaterOutputStream(baos)) {
+            ios.write(data);
+        }
+
+        return baos.toByteArray();
+    }
+
+    /**
+     * Reverses the PNG row filters
+     * @param data byte array of the filtered rows
+     * @param width int of the width in pixels
+     * @param height int of the height in pixels
+     * @param channels int of the samples per pixel
+     * @param bitDepth int of the bits per sample
+     * @return byte array of the unfiltered rows without filter bytes
+     * @throws IOException throws if the data is short or a filter is unknown
+     */
+    static byte[] unfilter(byte[] data, int width, int height, int channels, int bitDepth) throws IOException {
+        int stride = (width * channels * bitDepth + 7) / 8;
+        int bpp = Math.max(1, channels * bitDepth / 8);
+        if (data.length < (stride + 1) * height) {
+            throw new IOException("PNG image data is shorter than the image size");
+        }
+
+        byte[] pixels = new byte[stride * height];
+        for (int y = 0; y < height; y++) {
+            int filter = data[y * (stride + 1)];
+            int in = y * (stride + 1) + 1;
+            int out = y * stride;
+            for (int i = 0; i < stride; i++) {
+                int raw = data[in + i] & 0xFF;
+                int left = i >= bpp ? pixels[out + i - bpp] & 0xFF : 0;
+                int up = y > 0 ? pixels[out - stride + i] & 0xFF : 0;
+                int upLeft = y > 0 && i >= bpp ? pixels[out - stride + i - bpp] & 0xFF : 0;
+                switch (filter) {
+                    case 0:
+                        break;
+                    case 1:
+                        raw += left;
+                        break;
+                    case 2:
+                        raw += up;
+                        break;
+                    case 3:
+                        raw += (left + up) / 2;
+                        break;
+                    case 4:
+                        raw += paeth(left, up, upLeft);
+                        break;
+                    default:
+                        throw new IOException("Unknown PNG filter type " + filter);
+                }
+                pixels[out + i] = (byte) raw;
+            }
+        }
+
+        return pixels;
+    }
+
+    /**
+     * PNG Paeth predictor
+     * @param a int of the left byte
+     * @param b int of the byte above
+     * @param c int of the byte above left
+     * @return int of the predicted byte
+     */
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) return a;
+        return pb <= pc ? b : c;
+    }
+
+    /**
+     * Class to hold the IHDR values
+     */
+    static class Header {
+        private int width;
+        private int height;
+        private int bitDepth;
+        private int colorType;
+        private int interlace;
+
+        /**
+         * Get the samples per pixel of the colour type
+         * @return int of the samples per pixel
+         */
+        int channels() {
+            switch (colorType) {
+                case RGB:
+                    return 3;
+                case GRAY_ALPHA:
+                    return 2;
+                case RGB_ALPHA:
+                    return 4;
+                default:
+                    return 1;
+            }
+        }
+
+        /**
+         * Get the number of bytes in a row without the filter byte
+         * @return int of the row length
+         */
+        int stride() {
+            return (width * channels() * bitDepth + 7) / 8;
+        }
+
+        /**
+         * Builds the image information of the header
+         * @return ImageInfo of the header
+         */
+        ImageInfo toImageInfo() {
+            ImageInfo imageInfo = new ImageInfo();
+            imageInfo.setSize(width, height);
+            imageInfo.setBitsPerComponent(bitDepth);
+            imageInfo.setFilter(ImageInfo.FLATE_DECODE);
+            boolean gray = colorType == GRAY || colorType == GRAY_ALPHA;
+            imageInfo.setComponents(gray || colorType == INDEXED ? 1 : 3);
+            imageInfo.setColorSpace(gray ? ImageInfo.DEVICE_GRAY : ImageInfo.DEVICE_RGB);
+
+            return imageInfo;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Builds Flate encoded images from raw pixel data. Rows are written
+ * with the PNG Up predictor which compresses screenshots and charts
+ * far better than the plain pixels
+ */
+public class RawImage {
+    private static final int FILTER_UP = 2;
+
+    /**
+     * Builds the image from interleaved pixel data, rows are packed
+     * to a whole number of bytes
+     * @param pixels byte array of the pixel data
+     * @param width int of the width in pixels
+     * @param height int of the height in pixels
+     * @param components int of the colour components, 1 gray, 3 RGB or 4 CMYK
+     * @param bitsPerComponent int of the bits per component
+     * @return ImageInfo of the Flate encoded image
+     */
+    public static ImageInfo fromPixels(byte[] pixels, int width, int height, int components, int bitsPerComponent) {
+        int stride = (width * components * bitsPerComponent + 7) / 8;
+        if (pixels.length < stride * height) {
+            throw new IllegalArgumentException("Pixel data is shorter than " + height + " rows of " + stride + " bytes");
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DeflaterOutputStream dos = new DeflaterOutputStream(baos)) {
+            byte[] row = new byte[stride + 1];
+            row[0] = FILTER_UP;
+            for (int y = 0; y < height; y++) {
+                int offset = y * stride;
+                for (int i = 0; i < stride; i++) {
+                    int up = y > 0 ? pixels[offset - stride + i] : 0;
+                    row[i + 1] = (byte) (pixels[offset + i] - up);
+                }
+                dos.write(row);
+            }
+        } catch (IOException ioex) {
+            throw new RuntimeException("IO Exception encountered while compressing image");
+        }
+
+        ImageInfo imageInfo = new ImageInfo();
+        imageInfo.setSize(width, height);
+        imageInfo.setComponents(components);
+        imageInfo.setBitsPerComponent(bitsPerComponent);
+        imageInfo.setColorSpace(colorSpace(components));
+        imageInfo.setFilter(ImageInfo.FLATE_DECODE);
+        imageInfo.setDecodeParms(predictorParms(components, bitsPerComponent, width));
+        imageInfo.setImageSource(new ByteArrayImageSource(baos.toByteArray()));
+
+        return imageInfo;
+    }
+
+    /**
+     * Builds the image from interleaved pixel data with a separate
+     * alpha channel written as the soft mask
+     * @param pixels byte array of the colour pixel data
+     * @param alpha byte array of the alpha data, one 8 or 16 bit sample per pixel
+     * @param width int of the width in pixels
+     * @param height int of the height in pixels
+     * @param components int of the colour components, 1 gray, 3 RGB or 4 CMYK
+     * @param bitsPerComponent int of the bits per component
+     * @return ImageInfo of the Flate encoded image
+     */
+    public static ImageInfo fromPixels(byte[] pixels, byte[] alpha, int width, int height, int components, int bitsPerComponent) {
+        ImageInfo imageInfo = fromPixels(pixels, width, height, components, bitsPerComponent);
+        if (alpha != null && !isOpaque(alpha)) {
+            imageInfo.setAlpha(fromPixels(alpha, width, height, 1, bitsPerComponent));
+        }
+
+        return imageInfo;
+    }
+
+    /**
+     * Builds the image from a buffered image, alpha is kept as
+     * the soft mask when the image is not fully opaque
+     * @param image BufferedImage of the image
+     * @return ImageInfo of the Flate encoded image
+     */
+    public static ImageInfo fromBufferedImage(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean gray = image.getType() == BufferedImage.TYPE_BYTE_GRAY;
+        int components = gray ? 1 : 3;
+        byte[] pixels = new byte[width * height * components];
+        byte[] alpha = image.getColorModel().hasAlpha() ? new byte[width * height] : null;
+        int[] row = new int[width];
+        int[] samples = new int[width];
+        int p = 0;
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            if (gray) {
+                // Read gray samples from the raster, getRGB applies a gamma conversion
+                image.getRaster().getSamples(0, y, width, 1, 0, samples);
+            }
+            for (int x = 0; x < width; x++) {
+                int argb = row[x];
+                if (gray) {
+                    pixels[p++] = (byte) samples[x];
+                } else {
+                    pixels[p++] = (byte) (argb >> 16);
+                    pixels[p++] = (byte) (argb >> 8);
+                    pixels[p++] = (byte) argb;
+                }
+                if (alpha != null) alpha[y * width + x] = (byte) (argb >>> 24);
+            }
+        }
+
+        return fromPixels(pixels, alpha, width, height, components, 8);
+    }
+
+    /**
+     * Builds the PNG predictor decode parameters
+     * @param colors int of the colour components per pixel
+     * @param bitsPerComponent int of the bits per component
+     * @param columns int of the pixels per row
+     * @return String of the decode parameters dictionary
+     */
+    public static String predictorParms(int colors, int bitsPerComponent, int columns) {
+        return "<< /Predictor 15 /Colors " + colors + " /BitsPerComponent " + bitsPerComponent + " /Columns " + columns + " >>";
+    }
+
+    /**
+     * Gets the device colour space for the number of components
+     * @param components int of the colour components
+     * @return String of the device colour space
+     */
+    public static String colorSpace(int components) {
+        switch (components) {
+            case 1:
+                return ImageInfo.DEVICE_GRAY;
+            case 4:
+                return ImageInfo.DEVICE_CMYK;
+            default:
+                return ImageInfo.DEVICE_RGB;
+        }
+    }
+
+    /**
+     * Checks if every alpha sample is fully opaque
+     * @param alpha byte array of the alpha samples
+     * @return boolean true if no sample is transparent
+     */
+    private static boolean isOpaque(byte[] alpha) {
+        for (byte sample : alpha) {
+            if (sample != (byte) 0xFF) return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Interface for a source of image rows. Rows are requested in order
+ * from the top of the image, so the source only needs to hold the
+ * rows being read
+ */
+public interface ScanlineSource extends Closeable {
+
+    /**
+     * Gets the image width
+     * @return int of the width in pixels
+     */
+    public int getWidth();
+
+    /**
+     * Gets the image height
+     * @return int of the height in pixels
+     */
+    public int getHeight();
+
+    /**
+     * Gets the number of colour components, 1 gray, 3 RGB or 4 CMYK
+     * @return int of the number of components
+     */
+    public int getComponents();
+
+    /**
+     * Gets the bits per component
+     * @return int of the bits per component
+     */
+    public default int getBitsPerComponent() {
+        return 8;
+    }
+
+    /**
+     * Reads the next row of interleaved samples, rows are packed to
+     * a whole number of bytes
+     * @param y int of the row, starting at 0 for the top row
+     * @param row byte array to fill with the row samples
+     * @throws IOException throws if the row cannot be read
+     */
+    public void readRow(int y, byte[] row) throws IOException;
+
+    @Override
+    public default void close() throws IOException {
+        // Nothing to release by default
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Supplier;
+
+/**
+ * Image source that opens a new stream from a supplier each time
+ * the data is needed, for example from a database blob or a URL
+ */
+public class SupplierImageSource implements ImageSource {
+    private Supplier<InputStream> supplier;
+    private long length;
+
+    /**
+     * Constructor - Initialize with a supplier of unknown length,
+     * the length is counted from the stream when it is first needed
+     * @param supplier Supplier of the InputStream
+     */
+    public SupplierImageSource(Supplier<InputStream> supplier) {
+        this(supplier, -1);
+    }
+
+    /**
+     * Constructor - Initialize with a supplier and the data length
+     * @param supplier Supplier of the InputStream
+     * @param length long of the number of bytes
+     */
+    public SupplierImageSource(Supplier<InputStream> supplier, long length) {
+        this.supplier = supplier;
+        this.length = length;
+    }
+
+    @Override
+    public long length() throws IOException {
+        if (length < 0) {
+            try (InputStream inputStream = openStream()) {
+                length = inputStream.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+
+        return length;
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        InputStream inputStream = supplier.get();
+        if (inputStream == null) {
+            throw new IOException("Image supplier did not return a stream");
+        }
+
+        return inputStream;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.renderer;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.htmltopdf.element.AcroForm;
+import com.htmltopdf.element.AppearanceStream;
+import com.htmltopdf.element.Catalog;
+import com.htmltopdf.element.ContentStream;
+import com.htmltopdf.element.DrawAppearance;
+import com.htmltopdf.element.Element;
+import com.htmltopdf.element.FormElement;
+import com.htmltopdf.element.Num;
+import com.htmltopdf.element.Page;
+import com.htmltopdf.element.ParentTree;
+import com.htmltopdf.element.StructElement;
+import com.htmltopdf.element.StructTreeRoot;
+import com.htmltopdf.element.Widget;
+import com.htmltopdf.fonts.Font;
+
+/**
+ * Flattens the form of a document for archival copies. The normal
+ * appearance of each widget is drawn into the content of its page as
+ * marked content of the form structure element, then the widgets and
+ * the AcroForm are dropped so no interactive objects are written
+ */
+class FormFlattener {
+    private static final Logger logger = LoggerFactory.getLogger(FormFlattener.class);
+    private PDFRenderer renderer;
+    private Map<Element, FormElement> formElements;
+
+    /**
+     * Constructor - Initialize with the document to flatten
+     * @param renderer PDFRenderer of the form document
+     */
+    FormFlattener(PDFRenderer renderer) {
+        this.renderer = renderer;
+        this.formElements = new IdentityHashMap<>();
+    }
+
+    /**
+     * Flattens every widget of the document and removes the AcroForm
+     */
+    void flatten() {
+        Catalog catalog = renderer.getCatalog();
+        AcroForm acroForm = catalog.getAcroForm();
+        if (acroForm == null) {
+            return;
+        }
+        if (renderer.isSigned()) {
+            throw new IllegalStateException("A signed document cannot be flattened");
+        }
+
+        List<Num> nums = List.of();
+        StructTreeRoot structTreeRoot = catalog.getStructTreeRoot();
+        if (structTreeRoot != null) {
+            indexFormElements(structTreeRoot);
+            if (structTreeRoot.getParentTree() instanceof ParentTree parentTree) {
+                nums = parentTree.getNums();
+            }
+        }
+
+        int flattened = 0;
+        for (Page page : catalog.getPages().getKids()) {
+            Set<Element> widgets = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Element annotation : page.getAnnotations()) {
+                if (annotation instanceof Widget widget) {
+                    flattenWidget(widget, page, acroForm, nums);
+                    widgets.add(widget);
+                }
+            }
+            page.getAnnotations().removeIf(widgets::contains);
+            flattened += widgets.size();
+        }
+        catalog.setAcroForm(null);
+        logger.debug("Flattened " + flattened + " form fields");
+    }
+
+    /**
+     * Draws the normal appearance of a widget into the last content
+     * stream of its page, tagged as the content of its form element
+     * @param widget Widget to flatten
+     * @param page Page of the widget
+     * @param acroForm AcroForm holding the default resources
+     * @param nums List of the parent tree entries
+     */
+    private void flattenWidget(Widget widget, Page page, AcroForm acroForm, List<Num> nums) {
+        if (widget.isRadio()) {
+            throw new IllegalStateException("Radio button " + widget.getFieldName() + " has no generated appearance to flatten");
+        }
+        AppearanceStream appearanceStream = normalAppearance(widget);
+        FormElement formElement = formElements.get(widget);
+        if (formElement != null) {
+            formElement.setWidget(null);
+        }
+        if (appearanceStream == null) {
+            return;
+        }
+
+        String fontIdentifier = null;
+        if (appearanceStream.getType() == null) {
+            fontIdentifier = "F" + page.addFont(formFont(acroForm, appearanceStream.getFont(), widget));
+        }
+        DrawAppearance drawAppearance = new DrawAppearance(appearanceStream, fontIdentifier, widget.getX(), widget.getY());
+
+        int key = page.getStructParents();
+        if (formElement != null && key >= 0 && key < nums.size()) {
+            // The parent tree entry of the page is indexed by MCID, the next MCID is its size
+            Num num = nums.get(key);
+            int mcid = num.getReference().size();
+            if (page.getMcidCount() > mcid) {
+                throw new IllegalStateException("Page " + page.getObjectId() + " has " + page.getMcidCount()
+                        + " MCIDs but its parent tree entry maps " + mcid + ", field " + widget.getFieldName() + " cannot be tagged");
+            }
+            page.setMcidCount(mcid + 1);
+            num.addReference(formElement);
+            formElement.setMcid(mcid);
+            drawAppearance.setMcid(mcid);
+        }
+
+        if (page.getContents().isEmpty()) {
+            page.addContent(new ContentStream(renderer.getNextObjectId()));
+        }
+        ((ContentStream) page.getLastcontentStream()).addContent(drawAppearance);
+    }
+
+    /**
+     * Gets the appearance a viewer would show for the widget, the text
+     * appearance or the appearance of the current checkbox state
+     * @param widget Widget of the field
+     * @return AppearanceStream of the normal appearance, null if the widget has none
+     */
+    private AppearanceStream normalAppearance(Widget widget) {
+        String state = widget.getApState();
+        for (AppearanceStream appearanceStream : widget.getAppearanceStreams()) {
+            if (state == null ? appearanceStream.getType() == null : state.equals(appearanceStream.getType())) {
+                return appearanceStream;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the font of the AcroForm default resources a text appearance is drawn with
+     * @param acroForm AcroForm holding the default resources
+     * @param fontIdentifier String of the font identifier, /F1 is the first font
+     * @param widget Widget of the field
+     * @return Font of the identifier
+     */
+    private Font formFont(AcroForm acroForm, String fontIdentifier, Widget widget) {
+        List<Font> fonts = acroForm.getFonts();
+        if (fontIdentifier != null && fontIdentifier.matches("F\\d+")) {
+            int index = Integer.parseInt(fontIdentifier.substring(1)) - 1;
+            if (index >= 0 && index < fonts.size()) {
+                return fonts.get(index);
+            }
+        }
+
+        throw new IllegalStateException("Font " + fontIdentifier + " of field " + widget.getFieldName() + " is not in the AcroForm resources");
+    }
+
+    /**
+     * Walks the structure tree indexing the form element of each widget
+     * @param structTreeRoot StructTreeRoot of the document
+     */
+    private void indexFormElements(StructTreeRoot structTreeRoot) {
+        Deque<Element> stack = new ArrayDeque<>(structTreeRoot.getKids());
+        while (!stack.isEmpty()) {
+            Element element = stack.pop();
+            if (element instanceof StructElement structElement) {
+                if (structElement.isSealed()) {
+                    throw new IllegalStateException("Structure sealed before the form is flattened cannot be retagged");
+                }
+                structElement.getKids().forEach(stack::push);
+            } else if (element instanceof FormElement formElement && formElement.getWidget() != null) {
+                formElements.put(formElement.getWidget(), formElement);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.renderer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.htmltopdf.element.AcroForm;
+import com.htmltopdf.element.AppearanceStream;
+import com.htmltopdf.element.Element;
+import com.htmltopdf.element.Widget;
+
+/**
+ * Form document built once and written many times with different field
+ * values. The objects that do not change with the values are serialized
+ * once and their bytes reused, only the field widgets and their text
+ * appearances are serialized for each record. Fields are found through
+ * a hash index of the field names
+ */
+public class FormTemplate {
+    private static final Logger logger = LoggerFactory.getLogger(FormTemplate.class);
+    private PDFRenderer renderer;
+    private Map<String, Widget> fields;
+    private List<Element> elements;
+
+    /**
+     * Constructor - Builds the template from a finished form document,
+     * the renderer must not be changed or written once the template is built
+     * @param renderer PDFRenderer of the form document
+     */
+    public FormTemplate(PDFRenderer renderer) {
+        AcroForm acroForm = renderer.getCatalog().getAcroForm();
+        if (acroForm == null) {
+            throw new IllegalStateException("The document has no AcroForm to fill");
+        }
+        if (renderer.isSigned()) {
+            throw new IllegalStateException("A signed document cannot be used as a form template");
+        }
+        if (renderer.isFlattenForms()) {
+            throw new IllegalStateException("A flattened document cannot be used as a form template");
+        }
+        this.renderer = renderer;
+        this.fields = new HashMap<>();
+
+        // Text appearances change with the value, so widgets sharing one get their own copy
+        Set<Element> dynamic = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Element field : acroForm.getFields()) {
+            if (field instanceof Widget widget && widget.getFieldName() != null) {
+                fields.put(widget.getFieldName(), widget);
+                dynamic.add(widget);
+                List<AppearanceStream> appearanceStreams = widget.getAppearanceStreams();
+                for (int i = 0; i < appearanceStreams.size(); i++) {
+                    AppearanceStream appearanceStream = appearanceStreams.get(i);
+                    if (appearanceStream.getType() == null && !dynamic.add(appearanceStream)) {
+                        AppearanceStream copy = appearanceStream.copy();
+                        copy.setObjectId(renderer.getNextObjectId());
+                        appearanceStreams.set(i, copy);
+                        dynamic.add(copy);
+                    }
+                }
+            }
+        }
+
+        elements = renderer.buildElementList();
+        byte[] encryptionKey = renderer.getEncryptionKey();
+        for (int i = 0; i < elements.size(); i++) {
+            if (!dynamic.contains(elements.get(i))) {
+                elements.set(i, new CachedElement(elements.get(i), encryptionKey));
+            }
+        }
+    }
+
+    /**
+     * Sets the value of a field for the next record, a checkbox value
+     * is its appearance state, Yes or Off
+     * @param fieldName String of the field name
+     * @param value String of the value
+     * @throws IllegalArgumentException throws if the field does not exist or a checkbox has no such state
+     */
+    public void setValue(String fieldName, String value) {
+        Widget widget = fields.get(fieldName);
+        if (widget == null) {
+            throw new IllegalArgumentException("The form has no field named " + fieldName);
+        }
+        if (widget.getApState() != null) {
+            List<String> states = new ArrayList<>();
+            for (AppearanceStream appearanceStream : widget.getAppearanceStreams()) {
+                if (appearanceStream.getType() != null) {
+                    states.add(appearanceStream.getType());
+                }
+            }
+            if (states.isEmpty()) {
+                states = List.of(AppearanceStream.ON, AppearanceStream.OFF);
+            }
+            if (!states.contains(value)) {
+                throw new IllegalArgumentException("Checkbox " + fieldName + " has no state " + value + ", its states are " + states);
+            }
+        }
+
+        widget.setValue(value);
+        if (widget.getApState() != null) {
+            widget.setApState(value);
+        }
+        for (AppearanceStream appearanceStream : widget.getAppearanceStreams()) {
+            if (appearanceStream.getType() == null) {
+                appearanceStream.setText(value);
+            }
+        }
+    }
+
+    /**
+     * Sets the values of the fields for the next record
+     * @param values Map of the field names to values
+     */
+    public void setValues(Map<String, String> values) {
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            setValue(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Writes the form with the current field values
+     * @param outputStream FileOutputStream of the record file
+     * @throws IOException throws if the file cannot be written to
+     */
+    public void write(FileOutputStream outputStream) throws IOException {
+        renderer.write(outputStream, elements);
+    }
+
+    /**
+     * Element written from the bytes it was serialized to
+     */
+    private static class CachedElement implements Element {
+        private int objectId;
+        private byte[] bytes;
+
+        /**
+         * Constructor - Serializes the element
+         * @param element Element to serialize
+         * @param encryptionKey byte array of the encryption key
+         */
+        CachedElement(Element element, byte[] encryptionKey) {
+            this.objectId = element.getObjectId();
+            try {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                element.write(baos, encryptionKey);
+                this.bytes = baos.toByteArray();
+            } catch (IOException ioEx) {
+                logger.error("IO Exception was encountered serializing object " + objectId, ioEx);
+                throw new RuntimeException("IO Exception was encountered serializing object " + objectId);
+            }
+        }
+
+        @Override
+        public void setObjectId(int objectId) {
+            this.objectId = objectId;
+        }
+
+        @Override
+        public int getObjectId() {
+            return objectId;
+        }
+
+        @Override
+        public byte[] toByte(byte[] encryptionKey) {
+            return bytes;
+        }
+
+        @Override
+        public void write(OutputStream outputStream, byte[] encryptionKey) throws IOException {
+            outputStream.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.renderer;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.htmltopdf.element.XObject;
+import com.htmltopdf.image.ByteArrayImageSource;
+import com.htmltopdf.image.ImageDecoder;
+import com.htmltopdf.image.ImageInfo;
+import com.htmltopdf.image.ImageScanner;
+import com.htmltopdf.image.RawImage;
+
+/**
+ * Downsamples images to a target resolution for the size they are
+ * drawn at. Images placed with DrawImage(XObject, ...) record their
+ * largest placement, images above the target resolution are scaled
+ * down and recompressed before the document is written. Results are
+ * cached by image digest and scale so one downsampler can be shared
+ * by several renderers
+ */
+public class ImageDownsampler {
+    private static final Logger logger = LoggerFactory.getLogger(ImageDownsampler.class);
+    private static final float POINTS_PER_INCH = 72f;
+    private final Map<String, ImageInfo> cache = new ConcurrentHashMap<>();
+    private int targetDpi;
+    private float quality = 0.85f;
+    private float threshold = 1.5f;
+    private int parallelThreshold = 4;
+
+    /**
+     * Constructor - Initialize with the target resolution
+     * @param targetDpi int of the target pixels per inch
+     */
+    public ImageDownsampler(int targetDpi) {
+        this.targetDpi = targetDpi;
+    }
+
+    /**
+     * Set the JPEG quality used to recompress JPEG images
+     * @param quality float of the quality from 0 to 1
+     */
+    public void setQuality(float quality) {
+        this.quality = quality;
+    }
+
+    /**
+     * Set how far above the target resolution an image must be
+     * before it is downsampled, 1.5 downsamples images above 1.5
+     * times the target
+     * @param threshold float of the resolution ratio
+     */
+    public void setThreshold(float threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Set the number of images from which the images are
+     * downsampled in parallel
+     * @param parallelThreshold int of the image count
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Downsamples the images that are above the target resolution
+     * @param images Collection of the image XObjects
+     */
+    public void downsample(Collection<XObject> images) {
+        if (images.size() >= parallelThreshold) {
+            images.parallelStream().forEach(this::downsample);
+        } else {
+            images.forEach(this::downsample);
+        }
+    }
+
+    /**
+     * Downsamples the image if it is above the target resolution
+     * @param xObject XObject of the image
+     */
+    public void downsample(XObject xObject) {
+        if (xObject.getPlacedWidth() <= 0 || xObject.getPlacedHeight() <= 0 || xObject.getMask() != null || xObject.getImageSource() == null) {
+            return;
+        }
+
+        // Keep the aspect ratio, the direction needing the most pixels decides the scale
+        double scale = Math.max(
+            targetDpi * xObject.getPlacedWidth() / POINTS_PER_INCH / xObject.getWidth(),
+            targetDpi * xObject.getPlacedHeight() / POINTS_PER_INCH / xObject.getHeight());
+        if (scale * threshold >= 1) {
+            return;
+        }
+
+        int width = Math.max(1, (int) Math.round(xObject.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(xObject.getHeight() * scale));
+        try {
+            String key = ImageRegistry.digest(xObject.getImageSource()) + "@" + width + "x" + height
+                + (xObject.getSMask() != null ? "/" + ImageRegistry.digest(xObject.getSMask().getImageSource()) : "");
+            ImageInfo imageInfo = cache.get(key);
+            if (imageInfo == null) {
+                imageInfo = resample(xObject, width, height);
+                if (imageInfo == null) return;
+                cache.put(key, imageInfo);
+            }
+
+            xObject.setImageInfo(imageInfo);
+            if (xObject.getSMask() != null) {
+                xObject.getSMask().setImageInfo(imageInfo.getAlpha());
+            }
+        } catch (IOException ioEx) {
+            logger.warn("Image " + xObject.getIdentifier() + " could not be downsampled", ioEx);
+        }
+    }
+
+    /**
+     * Decodes, scales and recompresses the image
+     * @param xObject XObject of the image
+     * @param width int of the new width
+     * @param height int of the new height
+     * @return ImageInfo of the downsampled image or null if it cannot be decoded
+     * @throws IOException throws if the image cannot be read
+     */
+    private ImageInfo resample(XObject xObject, int width, int height) throws IOException {
+        BufferedImage image = ImageDecoder.decode(xObject.getImageInfo());
+        BufferedImage alpha = xObject.getSMask() != null ? ImageDecoder.decode(xObject.getSMask().getImageInfo()) : null;
+        if (image == null || (xObject.getSMask() != null && alpha == null)) {
+            logger.warn("Image " + xObject.getIdentifier() + " has a colour space or filter that cannot be downsampled");
+            return null;
+        }
+
+        boolean gray = image.getType() == BufferedImage.TYPE_BYTE_GRAY;
+
+        BufferedImage scaled = scale(image, width, height, gray ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB);
+        if (alpha == null && ImageInfo.DCT_DECODE.equals(xObject.getFilter())) {
+            ByteArrayImageSource jpeg = new ByteArrayImageSource(encodeJpeg(scaled));
+            ImageInfo imageInfo = ImageScanner.scan(jpeg);
+            imageInfo.setImageSource(jpeg);
+            return imageInfo;
+        }
+
+        ImageInfo imageInfo = RawImage.fromBufferedImage(scaled);
+        if (alpha != null) {
+            BufferedImage scaledAlpha = scale(alpha, width, height, BufferedImage.TYPE_BYTE_GRAY);
+            imageInfo.setAlpha(RawImage.fromBufferedImage(scaledAlpha));
+        }
+
+        return imageInfo;
+    }
+
+    /**
+     * Scales the image, halving it in steps first so the
+     * bilinear scaling does not skip source pixels
+     * @param image BufferedImage to scale
+     * @param width int of the new width
+     * @param height int of the new height
+     * @param type int of the BufferedImage type of the result
+     * @return BufferedImage of the scaled image
+     */
+    private static BufferedImage scale(BufferedImage image, int width, int height, int type) {
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            g.dispose();
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+
+        return current;
+    }
+
+    /**
+     * Encodes the image as a JPEG at the configured quality
+     * @param image BufferedImage to encode
+     * @return byte array of the JPEG image
+     * @throws IOException throws if the image cannot be encoded
+     */
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(baos)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+
+        return baos.toByteArray();
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.renderer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import com.htmltopdf.element.ElementWalker;
+import com.htmltopdf.element.XObject;
+import com.htmltopdf.image.ByteArrayImageSource;
+import com.htmltopdf.image.ImageInfo;
+import com.htmltopdf.image.ImageSource;
+
+/**
+ * Document level registry of image XObjects. Images are keyed by a
+ * SHA-256 digest of their content so identical images are embedded once
+ * and shared by every page. Safe to use from pages built on different threads
+ */
+public class ImageRegistry {
+    private final Map<String, XObject> images = new ConcurrentHashMap<>();
+    private final AtomicInteger nextIdentifier = new AtomicInteger(1);
+    private int inlineLimit;
+
+    /**
+     * Gets the shared XObject for the image, creating it if the
+     * content has not been registered yet
+     * @param image byte array of the JPEG image
+     * @param width int of the image width
+     * @param height int of the image height
+     * @param objectIds IntSupplier of the next object Id
+     * @return XObject shared by all pages using the image
+     */
+    public XObject getImage(byte[] image, int width, int height, IntSupplier objectIds) {
+        return register(digest(image), new ByteArrayImageSource(image), width, height, objectIds);
+    }
+
+    /**
+     * Gets the shared XObject for an image source. The source is read
+     * once through a digest to find duplicates but none of the image
+     * data is kept, it is read again when the XObject is written
+     * @param imageSource ImageSource of the JPEG image
+     * @param width int of the image width
+     * @param height int of the image height
+     * @param objectIds IntSupplier of the next object Id
+     * @return XObject shared by all pages using the image
+     */
+    public XObject getImage(ImageSource imageSource, int width, int height, IntSupplier objectIds) {
+        return register(digest(imageSource), imageSource, width, height, objectIds);
+    }
+
+    /**
+     * Gets the shared XObject for the image information, an alpha
+     * channel is registered with the image as its soft mask. Images are
+     * shared only when their data and every image dictionary entry match
+     * @param imageInfo ImageInfo of the image
+     * @param objectIds IntSupplier of the next object Id
+     * @return XObject shared by all pages using the image
+     */
+    public XObject getImage(ImageInfo imageInfo, IntSupplier objectIds) {
+        String key = key(imageInfo);
+        if (imageInfo.getAlpha() != null) {
+            key += "/" + key(imageInfo.getAlpha());
+        }
+
+        return images.computeIfAbsent(key, digest -> {
+            XObject xObject = new XObject(XObject.IMAGE);
+            xObject.setImageInfo(imageInfo);
+            XObject sMask = null;
+            if (imageInfo.getAlpha() != null) {
+                // Attached before the Id is assigned so an image with a soft mask is never inlined
+                sMask = new XObject(XObject.IMAGE);
+                sMask.setImageInfo(imageInfo.getAlpha());
+                xObject.setSMask(sMask);
+            }
+            assignObjectId(xObject, objectIds);
+            if (sMask != null) {
+                sMask.setObjectId(objectIds.getAsInt());
+            }
+            xObject.setShared(true);
+            return xObject;
+        });
+    }
+
+    /**
+     * Builds the registry key of an image from its data digest and the
+     * entries written to its image dictionary
+     * @param imageInfo ImageInfo of the image
+     * @return String of the key
+     */
+    private static String key(ImageInfo imageInfo) {
+        return digest(imageInfo.getImageSource()) + imageInfo.getWidth() + "x" + imageInfo.getHeight() + imageInfo.getColorSpace()
+                + "/" + imageInfo.getBitsPerComponent() + "/" + imageInfo.getFilter() + "/" + imageInfo.getDecodeParms()
+                + "/" + imageInfo.getDecode() + "/" + imageInfo.getMask();
+    }
+
+    /**
+     * Adds an image that is not registered by content, such as an
+     * image streamed from a scanline source, so it is written once
+     * with the other shared images
+     * @param xObject XObject of the image with the object Id set
+     * @return XObject added
+     */
+    public XObject add(XObject xObject) {
+        xObject.setIdentifier(nextIdentifier.getAndIncrement());
+        xObject.setShared(true);
+        images.put("#" + xObject.getObjectId(), xObject);
+
+        return xObject;
+    }
+
+    /**
+     * Registers the image under the digest if it is not registered yet
+     * @param digest String of the content digest
+     * @param imageSource ImageSource of the image data
+     * @param width int of the image width
+     * @param height int of the image height
+     * @param objectIds IntSupplier of the next object Id
+     * @return XObject registered for the digest
+     */
+    private XObject register(String digest, ImageSource imageSource, int width, int height, IntSupplier objectIds) {
+        return images.computeIfAbsent(digest, key -> {
+            XObject xObject = new XObject(XObject.IMAGE);
+            xObject.setSize(width, height);
+            xObject.setImageSource(imageSource);
+            assignObjectId(xObject, objectIds);
+            xObject.setShared(true);
+            return xObject;
+        });
+    }
+
+    /**
+     * Set the largest image written inline in the content streams,
+     * smaller images do not get an object or a page resource
+     * @param inlineLimit int of the largest inline image in bytes, 0 for no inline images
+     */
+    public void setInlineLimit(int inlineLimit) {
+        this.inlineLimit = inlineLimit;
+    }
+
+    /**
+     * Marks the image inline if it is small enough, otherwise assigns
+     * the object Id and resource identifier
+     * @param xObject XObject of the new image
+     * @param objectIds IntSupplier of the next object Id
+     */
+    private void assignObjectId(XObject xObject, IntSupplier objectIds) {
+        try {
+            if (inlineLimit > 0 && xObject.canInline() && xObject.getImageSource().length() <= inlineLimit) {
+                xObject.setInline(true);
+                return;
+            }
+        } catch (IOException ioEx) {
+            throw new RuntimeException("IO Exception encountered while reading image", ioEx);
+        }
+
+        xObject.setObjectId(objectIds.getAsInt());
+        xObject.setIdentifier(nextIdentifier.getAndIncrement());
+    }
+
+    /**
+     * Gets the number of distinct images
+     * @return int of the image count
+     */
+    public int size() {
+        return images.size();
+    }
+
+    /**
+     * Gets the registered images
+     * @return Collection of the image XObjects
+     */
+    public Collection<XObject> getImages() {
+        return images.values();
+    }
+
+    /**
+     * Walks the registered images written as objects
+     * @param walker ElementWalker of the document elements
+     */
+    public void walk(ElementWalker walker) {
+        for (XObject xObject : images.values()) {
+            if (!xObject.isInline()) walker.walk(xObject);
+        }
+    }
+
+    /**
+     * Computes the content digest of an image
+     * @param image byte array of the image
+     * @return String of the hex digest
+     */
+    private static String digest(byte[] image) {
+        try {
+            return Util.byteToHex(MessageDigest.getInstance("SHA-256").digest(image));
+        } catch (NoSuchAlgorithmException noAlgorithm) {
+            throw new RuntimeException(noAlgorithm);
+        }
+    }
+
+    /**
+     * Computes the content digest of an image source without
+     * holding the image in memory
+     * @param imageSource ImageSource of the image
+     * @return String of the hex digest
+     */
+    static String digest(ImageSource imageSource) {
+        try (InputStream inputStream = new DigestInputStream(imageSource.openStream(), MessageDigest.getInstance("SHA-256"))) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+            return Util.byteToHex(((DigestInputStream) inputStream).getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException noAlgorithm) {
+            throw new RuntimeException(noAlgorithm);
+        } catch (IOException ioEx) {
+            throw new RuntimeException("IO Exception encountered while reading image", ioEx);
+        }
+    }
+}
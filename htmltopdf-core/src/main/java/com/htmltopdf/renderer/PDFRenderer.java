@@ -19,6 +19,7 @@
 
 package com.htmltopdf.renderer;
 
+import java.awt.image.BufferedImage;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -26,44 +27,85 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.imageio.ImageIO;
+
+import org.apache.fontbox.cff.CFFCIDFont;
 import org.apache.fontbox.ttf.HeaderTable;
 import org.apache.fontbox.ttf.HorizontalHeaderTable;
+import org.apache.fontbox.ttf.OTFParser;
+import org.apache.fontbox.ttf.OpenTypeFont;
 import org.apache.fontbox.ttf.OS2WindowsMetricsTable;
 import org.apache.fontbox.ttf.PostScriptTable;
 import org.apache.fontbox.ttf.TTFParser;
 import org.apache.fontbox.ttf.TrueTypeFont;
 
+import com.htmltopdf.element.AppearanceStream;
 import com.htmltopdf.element.Catalog;
+import com.htmltopdf.element.ClassMap;
 import com.htmltopdf.element.Element;
+import com.htmltopdf.element.ElementSpool;
+import com.htmltopdf.element.ElementWalker;
 import com.htmltopdf.element.EncryptionElement;
+import com.htmltopdf.element.FormXObject;
 import com.htmltopdf.element.Info;
 import com.htmltopdf.element.Page;
 import com.htmltopdf.element.Pages;
+import com.htmltopdf.element.ParentTree;
+import com.htmltopdf.element.ScanlineXObject;
+import com.htmltopdf.element.SignatureElement;
+import com.htmltopdf.element.StructElement;
 import com.htmltopdf.element.StructTreeRoot;
+import com.htmltopdf.element.Watermark;
+import com.htmltopdf.element.Widget;
+import com.htmltopdf.element.XObject;
 import com.htmltopdf.fonts.Font;
 import com.htmltopdf.fonts.FontDecriptor;
 import com.htmltopdf.fonts.FontFile;
 import com.htmltopdf.fonts.FontName;
+import com.htmltopdf.image.CCITTFaxEncoder;
+import com.htmltopdf.image.ImageInfo;
+import com.htmltopdf.image.ImageScanner;
+import com.htmltopdf.image.ImageSource;
+import com.htmltopdf.image.ScanlineSource;
 
 /**
  * Class that manages all the PDF structure object
  */
 public class PDFRenderer {
-    private int objectId = 1;
+    private final AtomicInteger objectId = new AtomicInteger(1);
     private int parentTreeNextKey = -1;
     private int nextMcid = 0;
     private Catalog catalog;
     private List<Font> fonts;
     private Info info;
     private EncryptionElement encryptionElement;
+    private ImageRegistry imageRegistry;
+    private ImageDownsampler imageDownsampler;
+    private PaletteQuantizer paletteQuantizer;
+    private List<FormXObject> formXObjects;
+    private Map<String, FormXObject> watermarks;
+    private Map<String, AppearanceStream> appearanceStreams;
+    private SignatureElement signature;
+    private Widget signatureField;
+    private ElementSpool elementSpool;
+    private Page currentPage;
+    private boolean flattenForms = false;
 
     /**
      * Constructor - Initialize renderer
      */
     public PDFRenderer() {
         fonts = new ArrayList<>();
+        imageRegistry = new ImageRegistry();
+        formXObjects = new ArrayList<>();
+        watermarks = new HashMap<>();
+        appearanceStreams = new ConcurrentHashMap<>();
         catalog = new Catalog();
         catalog.setObjectId(getNextObjectId());
         addStructTreeRoot();
@@ -91,17 +133,103 @@ public class PDFRenderer {
      * @param encryptionElement EncryptionElement object
      */
     public void setEncryptionElement(EncryptionElement encryptionElement) {
+        if (elementSpool != null) {
+            throw new IllegalStateException("The encryption element must be set before structure elements are sealed");
+        }
         this.encryptionElement = encryptionElement;
     }
 
+    /**
+     * Gets the encryption key of the document
+     * @return byte array of the encryption key, null if not encrypted
+     */
+    byte[] getEncryptionKey() {
+        return encryptionElement != null ? encryptionElement.getEncryptionKey() : null;
+    }
+
+    /**
+     * Gets if the document is signed when it is written
+     * @return boolean true if a signature is set
+     */
+    boolean isSigned() {
+        return signature != null;
+    }
+
+    /**
+     * Signs the document while it is written. The signature dictionary
+     * is given the last object Id when the document is written
+     * @param signature SignatureElement of the signer and signature details
+     * @param signatureField Widget of the signature field, added to a page and the AcroForm
+     */
+    public void setSignature(SignatureElement signature, Widget signatureField) {
+        this.signature = signature;
+        this.signatureField = signatureField;
+    }
+
+    /**
+     * Seals a structure element once all of its pages are complete. The
+     * element and its subtree are serialized to a temporary spool file
+     * so only their object Ids stay in memory until the document is written
+     * @param structElement StructElement to seal
+     */
+    public void sealStructElement(StructElement structElement) {
+        if (elementSpool == null) {
+            elementSpool = new ElementSpool();
+        }
+        structElement.seal(elementSpool, catalog.getStructTreeRoot().getClassMap(), getEncryptionKey());
+    }
+
+    /**
+     * Gets the shared appearance stream drawing the same content as the
+     * appearance, so identical widgets refer to one stream object. The
+     * object Id is assigned the first time the content is seen and must
+     * not be set on the appearance
+     * @param appearanceStream AppearanceStream of the widget appearance
+     * @return AppearanceStream shared by all widgets with the same appearance
+     */
+    public AppearanceStream getAppearanceStream(AppearanceStream appearanceStream) {
+        return appearanceStreams.computeIfAbsent(appearanceStream.getContentKey(), key -> {
+            appearanceStream.setObjectId(getNextObjectId());
+            return appearanceStream;
+        });
+    }
+
+    /**
+     * Adds the normal appearances generated for a widget, replacing the
+     * appearances it has, and shares them with widgets drawn the same.
+     * A checkbox without a state is set from its value, off unless it is on.
+     * Radio buttons get no appearances
+     * @param widget Widget of the field with its value, rect, font and flags set
+     * @param font Font of the font identifier of the widget
+     */
+    public void addAppearanceStreams(Widget widget, Font font) {
+        if (Widget.BUTTON.equals(widget.getType()) && !widget.isRadio() && widget.getApState() == null) {
+            String state = AppearanceStream.ON.equals(widget.getValue()) ? AppearanceStream.ON : AppearanceStream.OFF;
+            widget.setApState(state);
+            widget.setValue(state);
+        }
+        widget.getAppearanceStreams().clear();
+        for (AppearanceStream appearanceStream : widget.createAppearanceStreams(font)) {
+            widget.addAppearanceStream(getAppearanceStream(appearanceStream));
+        }
+    }
+
+    /**
+     * Validates the tagged structure of the document, run it before
+     * structure elements are sealed to validate the whole tree
+     * @return List of the structure issues, empty if the structure is valid
+     */
+    public List<StructureValidator.Issue> validateStructure() {
+        return new StructureValidator(catalog).validate();
+    }
+
     /**
      * Gets the current object Id and then increments by 1
+     * Safe to call from pages built on different threads
      * @return int of the object Id
      */
     public int getNextObjectId() {
-        int id = objectId;
-        objectId++;
-        return id;
+        return objectId.getAndIncrement();
     }
 
     /**
@@ -111,6 +239,9 @@ public class PDFRenderer {
     public int getNextMcid() {
         int mcid = nextMcid;
         nextMcid++;
+        if (currentPage != null) {
+            currentPage.setMcidCount(nextMcid);
+        }
         return mcid;
     }
 
@@ -138,6 +269,7 @@ public class PDFRenderer {
         page.setStructParents(getNextParentTreeKey());
         catalog.getStructTreeRoot().setParentTreeNextKey(parentTreeNextKey);
         nextMcid = 0;
+        currentPage = page;
         catalog.getPages().addKid(page);
     }
 
@@ -160,29 +292,313 @@ public class PDFRenderer {
      * @throws FileNotFoundException throws if the font file is not found
      * @throws IOException throws if other I/O exception occurs
      */
-    @SuppressWarnings("unlikely-arg-type")
     public Font getFont(FontName fontName) throws FileNotFoundException, IOException {
         for (Font font : fonts) {
-            if (font.equals(fontName)) {
+            if (font.getFontName() == fontName) {
                 return font;
             }
         }
 
-        Font newFont = new Font(getNextObjectId(), fontName);
-        TTFParser parser = new TTFParser();
-        InputStream file = new FileInputStream(fontName.getPath());
-        try (TrueTypeFont ttFont = parser.parseEmbedded(file)) {
+        return loadFont(new Font(getNextObjectId(), fontName));
+    }
+
+    public void write(FileOutputStream outputStream) throws IOException {
+        write(outputStream, buildElementList());
+    }
+
+    /**
+     * Gets the font object for a font file that is not one of the
+     * FontName constants, TrueType and OpenType (CFF) fonts are supported
+     * @param name String of the font name
+     * @param path String path of the font file
+     * @return Font object
+     * @throws FileNotFoundException throws if the font file is not found
+     * @throws IOException throws if other I/O exception occurs
+     */
+    public Font getFont(String name, String path) throws FileNotFoundException, IOException {
+        for (Font font : fonts) {
+            if (font.getFontName() == null && path.equals(font.getPath())) {
+                return font;
+            }
+        }
+
+        return loadFont(new Font(getNextObjectId(), name, path));
+    }
+
+    /**
+     * Gets the image XObject to add to a page. Identical images
+     * resolve to one XObject that is shared by every page using it
+     * @param image byte array of the JPEG image
+     * @param width int of the image width
+     * @param height int of the image height
+     * @return XObject of the image
+     */
+    public XObject getImage(byte[] image, int width, int height) {
+        return imageRegistry.getImage(image, width, height, this::getNextObjectId);
+    }
+
+    /**
+     * Gets the image XObject for an image source. The image data is
+     * read from the source when the document is written
+     * @param imageSource ImageSource of the JPEG image
+     * @param width int of the image width
+     * @param height int of the image height
+     * @return XObject of the image
+     */
+    public XObject getImage(ImageSource imageSource, int width, int height) {
+        return imageRegistry.getImage(imageSource, width, height, this::getNextObjectId);
+    }
+
+    /**
+     * Gets the image XObject for a JPEG or PNG image source. The size
+     * and colour space are read from the image headers
+     * @param imageSource ImageSource of the JPEG or PNG image
+     * @return XObject of the image
+     * @throws IOException throws if the image cannot be read
+     */
+    public XObject getImage(ImageSource imageSource) throws IOException {
+        return getImage(ImageScanner.read(imageSource));
+    }
+
+    /**
+     * Gets the image XObject for a scanned image. Images that are
+     * essentially black and white are encoded with CCITT Group 4,
+     * other images are kept as they are
+     * @param imageSource ImageSource of the JPEG or PNG image
+     * @return XObject of the image
+     * @throws IOException throws if the image cannot be read
+     */
+    public XObject getScannedImage(ImageSource imageSource) throws IOException {
+        BufferedImage image;
+        try (InputStream inputStream = imageSource.openStream()) {
+            image = ImageIO.read(inputStream);
+        }
+        if (image == null || !CCITTFaxEncoder.isBilevel(image)) {
+            return getImage(imageSource);
+        }
+
+        return getImage(CCITTFaxEncoder.encode(image));
+    }
+
+    /**
+     * Gets an image XObject that reads its rows from the scanline
+     * source while the document is written, for images too large to
+     * hold in memory. Streamed images are not shared by content
+     * @param scanlineSource ScanlineSource of the image rows
+     * @return XObject of the image
+     */
+    public XObject getImage(ScanlineSource scanlineSource) {
+        ScanlineXObject xObject = new ScanlineXObject(scanlineSource);
+        xObject.setObjectId(getNextObjectId());
+        xObject.getStreamLength().setObjectId(getNextObjectId());
+
+        return imageRegistry.add(xObject);
+    }
+
+    /**
+     * Gets the image XObject for the image information, such as
+     * raw pixels built with RawImage
+     * @param imageInfo ImageInfo of the image
+     * @return XObject of the image
+     */
+    public XObject getImage(ImageInfo imageInfo) {
+        return imageRegistry.getImage(imageInfo, this::getNextObjectId);
+    }
+
+    /**
+     * Creates a Form XObject written once with the document. Content
+     * added to the form is drawn on a page with DrawForm after the form
+     * is added to the page with Page.addFormXObject
+     * @param width int of the width of the form
+     * @param height int of the height of the form
+     * @return FormXObject of the new form
+     */
+    public synchronized FormXObject createFormXObject(int width, int height) {
+        FormXObject formXObject = new FormXObject(width, height);
+        formXObject.setObjectId(getNextObjectId());
+        formXObject.setIdentifier(formXObjects.size() + 1);
+        formXObjects.add(formXObject);
+
+        return formXObject;
+    }
+
+    /**
+     * Gets the watermark form for the page size and font, the watermark
+     * is built once and drawn on each page with DrawForm
+     * @param size Page.Size of the pages
+     * @param font Font of the watermark text
+     * @return FormXObject of the watermark
+     */
+    public synchronized FormXObject getWatermark(Page.Size size, Font font) {
+        String key = size + "/" + font.getObjectId();
+        FormXObject watermark = watermarks.get(key);
+        if (watermark == null) {
+            watermark = createFormXObject(size.getX(), size.getY());
+            watermark.setAddWatermark(true);
+            watermark.addDrawing(new Watermark(watermark.getResources(), size, font));
+            watermarks.put(key, watermark);
+        }
+
+        return watermark;
+    }
+
+    /**
+     * Sets the downsampler applied to the images when the document
+     * is written, images drawn above the target resolution are scaled down
+     * @param imageDownsampler ImageDownsampler of the target resolution or null to keep the images
+     */
+    public void setImageDownsampler(ImageDownsampler imageDownsampler) {
+        this.imageDownsampler = imageDownsampler;
+    }
+
+    /**
+     * Sets the quantizer applied to the images when the document is
+     * written, RGB images with few colours are written with a palette
+     * @param paletteQuantizer PaletteQuantizer of the colour tolerance or null to keep the images
+     */
+    public void setPaletteQuantizer(PaletteQuantizer paletteQuantizer) {
+        this.paletteQuantizer = paletteQuantizer;
+    }
+
+    /**
+     * Sets the largest image written inline in the content streams.
+     * Inline images must be drawn with DrawImage(XObject, ...) and
+     * cannot have an alpha channel or colour key mask
+     * @param inlineLimit int of the largest inline image in bytes, 0 for no inline images
+     */
+    public void setInlineImageLimit(int inlineLimit) {
+        imageRegistry.setInlineLimit(inlineLimit);
+    }
+
+    /**
+     * Sets the form to be flattened when the document is written for
+     * archival copies. The widget appearances are drawn into the page
+     * content and no widgets or AcroForm are written
+     * @param flattenForms boolean true to flatten the form
+     */
+    public void setFlattenForms(boolean flattenForms) {
+        this.flattenForms = flattenForms;
+    }
+
+    /**
+     * Gets if the form is flattened when the document is written
+     * @return boolean true if the form is flattened
+     */
+    boolean isFlattenForms() {
+        return flattenForms;
+    }
+
+    /**
+     * Builds the sorted list of the document objects, assigning the
+     * object Ids of the objects only known when the document is written
+     * @return List of the elements to write
+     */
+    List<Element> buildElementList() {
+        if (flattenForms) {
+            new FormFlattener(this).flatten();
+        }
+        StructTreeRoot structTreeRoot = catalog.getStructTreeRoot();
+        if (structTreeRoot != null && structTreeRoot.getParentTree() instanceof ParentTree parentTree) {
+            parentTree.buildNodes(this::getNextObjectId);
+        }
+        List<Element> elements = new ArrayList<>();
+        ElementWalker walker = new ElementWalker(elements::add);
+        walker.walk(catalog);
+        for (Font font : fonts) {
+            walker.walk(font);
+        }
+        if (imageDownsampler != null) {
+            imageDownsampler.downsample(imageRegistry.getImages());
+        }
+        if (paletteQuantizer != null) {
+            paletteQuantizer.quantize(imageRegistry.getImages());
+        }
+        imageRegistry.walk(walker);
+        for (FormXObject formXObject : formXObjects) {
+            walker.walk(formXObject);
+        }
+        if (elementSpool != null) {
+            elementSpool.walk(walker);
+        }
+        if (structTreeRoot != null) {
+            ClassMap classMap = structTreeRoot.getClassMap();
+            for (Element element : elements) {
+                if (element instanceof StructElement structElement) {
+                    structElement.buildClass(classMap);
+                }
+            }
+            if (!classMap.isEmpty() && classMap.getObjectId() == 0) {
+                classMap.setObjectId(getNextObjectId());
+                elements.add(classMap);
+            }
+        }
+        elements.add(info);
+        if (encryptionElement != null) {
+            catalog.getMetaData().setEncrypted(encryptionElement.isEncryptMetaData());
+            elements.add(encryptionElement);
+        }
+        if (signature != null) {
+            signature.setObjectId(getNextObjectId());
+            signatureField.setSignature(signature);
+            if (catalog.getAcroForm() != null) {
+                catalog.getAcroForm().setSigFlags(3);
+            }
+            elements.add(signature);
+        }
+        elements.sort(Comparator.comparingInt(Element::getObjectId));
+
+        return elements;
+    }
+
+    /**
+     * Writes the document objects with the cross reference table and trailer
+     * @param outputStream FileOutputStream of the file
+     * @param elements List of the sorted elements
+     * @throws IOException throws if the file cannot be written to
+     */
+    void write(FileOutputStream outputStream, List<Element> elements) throws IOException {
+        PDFWriter writer = new PDFWriter();
+        writer.setSignature(signature);
+        try {
+            writer.write(outputStream, elements, info, catalog.getMetaData().getDocumentId(), encryptionElement != null ? encryptionElement.getObjectId() : 0, getEncryptionKey());
+        } finally {
+            if (elementSpool != null) {
+                elementSpool.close();
+            }
+        }
+    }
+
+    /**
+     * Loads the metrics, font descriptor and font file of a new font
+     * @param newFont Font object to load
+     * @return Font object
+     * @throws FileNotFoundException throws if the font file is not found
+     * @throws IOException throws if other I/O exception occurs
+     * @throws IllegalArgumentException throws if the OpenType font is CID keyed
+     */
+    private Font loadFont(Font newFont) throws FileNotFoundException, IOException {
+        boolean compactFontFormat = Font.TYPE1.equals(newFont.getSubType());
+        TTFParser parser = compactFontFormat ? new OTFParser() : new TTFParser();
+        try (InputStream file = new FileInputStream(newFont.getPath());
+                TrueTypeFont ttFont = parser.parseEmbedded(file)) {
+            if (compactFontFormat && ((OpenTypeFont) ttFont).getCFF().getFont() instanceof CFFCIDFont) {
+                throw new IllegalArgumentException("Font " + newFont.getPath() + " is a CID keyed OpenType font, only name keyed CFF fonts are supported");
+            }
             newFont.setUnitsPerEm(ttFont.getHeader().getUnitsPerEm());
             setRangeOfGlyphs(ttFont, newFont);
             newFont.buildWidthArray();
+            if (compactFontFormat) {
+                newFont.setName(getSubsetTag(newFont) + "+" + newFont.getName());
+            }
 
-            FontDecriptor fontDecriptor = new FontDecriptor(fontName.getName());
+            FontDecriptor fontDecriptor = new FontDecriptor(newFont.getName());
             fontDecriptor.setObjectId(getNextObjectId());
             setFontDescriptor(ttFont, fontDecriptor);
             newFont.setFontDescriptor(fontDecriptor);
 
-            FontFile fontFile = new FontFile(fontName.getPath());
+            FontFile fontFile = new FontFile(newFont.getPath());
             fontFile.setObjectId(getNextObjectId());
+            fontFile.setCharacterRange(newFont.getFirstChar(), newFont.getLastChar());
             fontDecriptor.setFontFile(fontFile);
             fonts.add(newFont);
         }
@@ -190,15 +606,20 @@ public class PDFRenderer {
         return newFont;
     }
 
-    public void write(FileOutputStream outputStream) throws IOException {
-        List<Element> elements = catalog.buildElementList();
-        for (Font font : fonts) {
-            elements.addAll(font.buildElementList());
+    /**
+     * Builds the six letter tag that prefixes the name of a subset font
+     * @param font Font object
+     * @return String of the subset tag
+     */
+    private String getSubsetTag(Font font) {
+        long hash = Integer.toUnsignedLong((font.getPath() + font.getFirstChar() + font.getLastChar()).hashCode());
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            sb.append((char) ('A' + (hash % 26)));
+            hash /= 26;
         }
-        elements.add(info);
-        elements.sort(Comparator.comparingInt(Element::getObjectId));
-        PDFWriter writer = new PDFWriter();
-        writer.write(outputStream, elements, info, catalog.getMetaData().getDocumentId(), encryptionElement != null ? encryptionElement.getObjectId() : 0, encryptionElement != null ? encryptionElement.getEncryptionKey() : null);
+
+        return sb.toString();
     }
 
     /**
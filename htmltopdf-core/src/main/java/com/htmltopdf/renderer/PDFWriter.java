@@ -21,12 +21,18 @@ package com.htmltopdf.renderer;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
 
 import com.htmltopdf.element.Element;
 import com.htmltopdf.element.Info;
+import com.htmltopdf.element.SignatureElement;
 
 /**
  * Class to write the PDF structure elements to a PDF file
@@ -36,6 +42,16 @@ public class PDFWriter {
     private static final byte[] MARKER = {'%', (byte) 0xE2, (byte) 0xE3, (byte) 0xCF, (byte) 0xD3, '\n'};
     private static final String EOF = "%%EOF\n";
     private List<Long> offsets = new ArrayList<>();
+    private SignatureElement signature;
+
+    /**
+     * Sets the signature to sign the document with while it is written.
+     * The signature must be the last object of the document
+     * @param signature SignatureElement of the signature dictionary
+     */
+    public void setSignature(SignatureElement signature) {
+        this.signature = signature;
+    }
 
     /**
      * Writes the structure to a file as bytes
@@ -48,38 +64,136 @@ public class PDFWriter {
      * @throws IOException throws IO Exception if the output stream cannot be written to
      */
     public void write(FileOutputStream outputStream, List<Element> elements, Info info, String documentId, int encryptionElementId, byte[] encryptionKey) throws IOException {
+        // A signed document is hashed as it is written
+        DigestOutputStream digestStream = signature != null ? new DigestOutputStream(outputStream, sha256()) : null;
+        OutputStream out = digestStream != null ? digestStream : outputStream;
+
         // Write Header
-        outputStream.write(HEADER.getBytes(StandardCharsets.ISO_8859_1));
-        outputStream.write(MARKER);
+        out.write(HEADER.getBytes(StandardCharsets.ISO_8859_1));
+        out.write(MARKER);
         long pos = outputStream.getChannel().position();
 
         // Write Body
-        for (Element element : elements) {
+        for (int i = 0; i < elements.size(); i++) {
+            Element element = elements.get(i);
             if (element.getObjectId() > 0) {
+                // Object Ids of elements that were dropped are free entries
+                while (offsets.size() < element.getObjectId() - 1) {
+                    offsets.add(0L);
+                }
                 pos = outputStream.getChannel().position();
                 offsets.add(pos);
-                outputStream.write(element.toByte(encryptionKey));
+                if (element == signature) {
+                    if (i != elements.size() - 1) {
+                        throw new IllegalStateException("The signature must be the last object of the document");
+                    }
+                    writeSignature(outputStream, digestStream, pos, info, documentId, encryptionElementId, encryptionKey);
+                    return;
+                }
+                element.write(out, encryptionKey);
             }
         }
 
-        // Write XREF table
+        // Write XREF table, trailer and end of file
         pos = outputStream.getChannel().position();
-        outputStream.write("xref\n".getBytes(StandardCharsets.ISO_8859_1));
-        outputStream.write(("0 " + (offsets.size() + 1) + "\n").getBytes(StandardCharsets.ISO_8859_1));
-        outputStream.write("0000000000 65535 f \n".getBytes(StandardCharsets.ISO_8859_1));
-        for (long offset : offsets) {
-            outputStream.write(String.format("%010d 00000 n \n", offset).getBytes(StandardCharsets.ISO_8859_1));
+        out.write(buildXrefAndTrailer(pos, info, documentId, encryptionElementId));
+    }
+
+    /**
+     * Writes the signature dictionary as the last object. The length of
+     * the rest of the file is known at this point so the byte range is
+     * written directly, the digest skips the /Contents placeholder and
+     * the CMS signature is patched into it once the file is written
+     * @param outputStream FileOutputStream of the file
+     * @param digestStream DigestOutputStream hashing the written file
+     * @param pos long of the position of the signature dictionary
+     * @param info Info element
+     * @param documentId String of the Unique document Id
+     * @param encryptionElementId int of the Encryption Element Object Id
+     * @param encryptionKey byte array of the encryption key
+     * @throws IOException throws IO Exception if the output stream cannot be written to
+     */
+    private void writeSignature(FileOutputStream outputStream, DigestOutputStream digestStream, long pos, Info info, String documentId, int encryptionElementId, byte[] encryptionKey) throws IOException {
+        // Built once, encrypted strings do not have the same length each time they are built
+        byte[] dictionary = signature.toByte(encryptionKey);
+        long xrefPos = pos + dictionary.length;
+        byte[] tail = buildXrefAndTrailer(xrefPos, info, documentId, encryptionElementId);
+
+        int contentsOffset = signature.getContentsOffset();
+        int contentsLength = signature.getContentsSize() * 2 + 2;
+        long contentsStart = pos + contentsOffset;
+        long contentsEnd = contentsStart + contentsLength;
+        signature.setByteRange(new long[] {0, contentsStart, contentsEnd, xrefPos + tail.length - contentsEnd});
+        signature.writeByteRange(dictionary);
+
+        digestStream.write(dictionary, 0, contentsOffset);
+        digestStream.on(false);
+        digestStream.write(dictionary, contentsOffset, contentsLength);
+        digestStream.on(true);
+        digestStream.write(dictionary, contentsOffset + contentsLength, dictionary.length - contentsOffset - contentsLength);
+        digestStream.write(tail);
+
+        byte[] cms = signature.getSigner().sign(digestStream.getMessageDigest().digest());
+        if (cms.length > signature.getContentsSize()) {
+            throw new IllegalStateException("Signature of " + cms.length + " bytes is larger than the reserved " + signature.getContentsSize() + " bytes");
+        }
+        outputStream.flush();
+        outputStream.getChannel().write(ByteBuffer.wrap(Util.byteToHex(cms).getBytes(StandardCharsets.ISO_8859_1)), contentsStart + 1);
+    }
+
+    /**
+     * Builds the XREF table, trailer and end of file
+     * @param pos long of the position of the XREF table
+     * @param info Info element
+     * @param documentId String of the Unique document Id
+     * @param encryptionElementId int of the Encryption Element Object Id
+     * @return byte array of the end of the file
+     */
+    private byte[] buildXrefAndTrailer(long pos, Info info, String documentId, int encryptionElementId) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("xref\n");
+        sb.append("0 " + (offsets.size() + 1) + "\n");
+        // Free entries are linked in a list from object 0 back to object 0
+        int[] nextFree = new int[offsets.size() + 1];
+        for (int i = offsets.size(), next = 0; i >= 0; i--) {
+            nextFree[i] = next;
+            if (i > 0 && offsets.get(i - 1) == 0) {
+                next = i;
+            }
+        }
+        sb.append(String.format("%010d 65535 f \n", nextFree[0]));
+        for (int i = 0; i < offsets.size(); i++) {
+            long offset = offsets.get(i);
+            if (offset == 0) {
+                sb.append(String.format("%010d 00001 f \n", nextFree[i + 1]));
+            } else {
+                sb.append(String.format("%010d 00000 n \n", offset));
+            }
         }
 
         // Write Trailer
-        outputStream.write("trailer\n".getBytes(StandardCharsets.ISO_8859_1));
-        outputStream.write(("<< /Size " + (offsets.size() + 1) + "\n").getBytes(StandardCharsets.ISO_8859_1));
-        if (encryptionElementId != 0) outputStream.write(("/Encrypt " + encryptionElementId + " 0 R\n").getBytes(StandardCharsets.ISO_8859_1));
-        outputStream.write(("/Root 1 0 R\n" + "/Info " + info.getObjectId() + " 0 R\n").getBytes(StandardCharsets.ISO_8859_1));
-        outputStream.write(("/ID [<" + documentId + "> <" + documentId + ">]\n" + ">>\n").getBytes(StandardCharsets.ISO_8859_1));
-        outputStream.write(("startxref\n" + pos + "\n").getBytes(StandardCharsets.ISO_8859_1));
+        sb.append("trailer\n");
+        sb.append("<< /Size " + (offsets.size() + 1) + "\n");
+        if (encryptionElementId != 0) sb.append("/Encrypt " + encryptionElementId + " 0 R\n");
+        sb.append("/Root 1 0 R\n" + "/Info " + info.getObjectId() + " 0 R\n");
+        sb.append("/ID [<" + documentId + "> <" + documentId + ">]\n" + ">>\n");
+        sb.append("startxref\n" + pos + "\n");
 
         // Write End of File
-        outputStream.write(EOF.getBytes(StandardCharsets.ISO_8859_1));
+        sb.append(EOF);
+
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Gets a SHA-256 digest for the signed byte ranges
+     * @return MessageDigest of SHA-256
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException noAlgorithm) {
+            throw new RuntimeException(noAlgorithm);
+        }
     }
 }
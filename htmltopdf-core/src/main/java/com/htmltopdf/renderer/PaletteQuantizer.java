@@ -0,0 +1,204 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.renderer;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.htmltopdf.element.XObject;
+import com.htmltopdf.image.ImageDecoder;
+import com.htmltopdf.image.ImageInfo;
+import com.htmltopdf.image.RawImage;
+
+/**
+ * Converts RGB images with few colours to an /Indexed colour space
+ * with 1, 2, 4 or 8 bit samples. Charts, logos and icons shrink to
+ * a fraction of their RGB size. Colours within the tolerance of a
+ * palette colour are merged into it, a tolerance of 0 only converts
+ * images that already have 256 colours or less
+ */
+public class PaletteQuantizer {
+    private static final Logger logger = LoggerFactory.getLogger(PaletteQuantizer.class);
+    private static final int MAX_COLORS = 256;
+    private int tolerance;
+    private int parallelThreshold = 4;
+
+    /**
+     * Constructor - Initialize with the colour tolerance
+     * @param tolerance int of the largest channel difference merged into a palette colour
+     */
+    public PaletteQuantizer(int tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Set the number of images from which the images are
+     * quantized in parallel
+     * @param parallelThreshold int of the image count
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Quantizes the Flate RGB images that fit in a palette
+     * @param images Collection of the image XObjects
+     */
+    public void quantize(Collection<XObject> images) {
+        if (images.size() >= parallelThreshold) {
+            images.parallelStream().forEach(this::quantize);
+        } else {
+            images.forEach(this::quantize);
+        }
+    }
+
+    /**
+     * Quantizes the image if it is an 8 bit Flate RGB image that fits
+     * in a palette and the indexed image is smaller. A soft mask is kept,
+     * 16 bit images are skipped as only the high byte is decoded
+     * @param xObject XObject of the image
+     */
+    public void quantize(XObject xObject) {
+        ImageInfo current = xObject.getImageInfo();
+        if (current.getImageSource() == null || current.getMask() != null
+            || !ImageInfo.FLATE_DECODE.equals(current.getFilter())
+            || !ImageInfo.DEVICE_RGB.equals(current.getColorSpace())
+            || current.getBitsPerComponent() != 8) {
+            return;
+        }
+
+        try {
+            BufferedImage image = ImageDecoder.decode(current);
+            ImageInfo indexed = image != null ? quantize(image) : null;
+            if (indexed != null && indexed.getImageSource().length() < current.getImageSource().length()) {
+                indexed.setAlpha(null);
+                xObject.setImageInfo(indexed);
+            }
+        } catch (IOException ioEx) {
+            logger.warn("Image " + xObject.getIdentifier() + " could not be quantized", ioEx);
+        }
+    }
+
+    /**
+     * Quantizes the image to an indexed image, alpha is kept
+     * as the soft mask
+     * @param image BufferedImage of the image
+     * @return ImageInfo of the indexed image or null if it needs more than 256 colours
+     */
+    public ImageInfo quantize(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] palette = new int[MAX_COLORS];
+        int colors = 0;
+        // Open addressing map of the colours seen to their palette index
+        int[] keys = new int[1 << 12];
+        int[] values = new int[keys.length];
+        Arrays.fill(keys, -1);
+        int mapped = 0;
+
+        byte[] indices = new byte[width * height];
+        byte[] alpha = image.getColorModel().hasAlpha() ? new byte[width * height] : null;
+        boolean opaque = true;
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x] & 0xFFFFFF;
+                if (alpha != null) {
+                    alpha[y * width + x] = (byte) (row[x] >>> 24);
+                    opaque &= (row[x] >>> 24) == 0xFF;
+                }
+
+                int slot = (rgb * 0x9E3779B1 >>> 20) & (keys.length - 1);
+                while (keys[slot] != -1 && keys[slot] != rgb) {
+                    slot = (slot + 1) & (keys.length - 1);
+                }
+                if (keys[slot] == -1) {
+                    int index = find(palette, colors, rgb);
+                    if (index < 0) {
+                        if (colors == MAX_COLORS) return null;
+                        index = colors;
+                        palette[colors++] = rgb;
+                    }
+                    if (mapped * 2 >= keys.length) {
+                        // Stop caching once the map is half full, lookups still work
+                        indices[y * width + x] = (byte) index;
+                        continue;
+                    }
+                    keys[slot] = rgb;
+                    values[slot] = index;
+                    mapped++;
+                }
+                indices[y * width + x] = (byte) values[slot];
+            }
+        }
+
+        int bits = colors <= 2 ? 1 : colors <= 4 ? 2 : colors <= 16 ? 4 : 8;
+        int stride = (width * bits + 7) / 8;
+        byte[] packed = new byte[stride * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int bit = x * bits;
+                packed[y * stride + bit / 8] |= (byte) ((indices[y * width + x] & 0xFF) << (8 - bits - bit % 8));
+            }
+        }
+
+        byte[] rgb = new byte[colors * 3];
+        for (int i = 0; i < colors; i++) {
+            rgb[i * 3] = (byte) (palette[i] >> 16);
+            rgb[i * 3 + 1] = (byte) (palette[i] >> 8);
+            rgb[i * 3 + 2] = (byte) palette[i];
+        }
+
+        ImageInfo imageInfo = RawImage.fromPixels(packed, width, height, 1, bits);
+        imageInfo.setColorSpace("[/Indexed /DeviceRGB " + (colors - 1) + " <" + HexFormat.of().withUpperCase().formatHex(rgb) + ">]");
+        if (alpha != null && !opaque) {
+            imageInfo.setAlpha(RawImage.fromPixels(alpha, width, height, 1, 8));
+        }
+
+        return imageInfo;
+    }
+
+    /**
+     * Finds the palette colour within the tolerance of the colour
+     * @param palette int array of the palette colours
+     * @param colors int of the number of palette colours
+     * @param rgb int of the colour
+     * @return int of the palette index or -1 if no colour is close enough
+     */
+    private int find(int[] palette, int colors, int rgb) {
+        for (int i = 0; i < colors; i++) {
+            int color = palette[i];
+            if (Math.abs(((color >> 16) & 0xFF) - ((rgb >> 16) & 0xFF)) <= tolerance
+                && Math.abs(((color >> 8) & 0xFF) - ((rgb >> 8) & 0xFF)) <= tolerance
+                && Math.abs((color & 0xFF) - (rgb & 0xFF)) <= tolerance) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.renderer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.htmltopdf.element.Annotation;
+import com.htmltopdf.element.Catalog;
+import com.htmltopdf.element.Element;
+import com.htmltopdf.element.FormElement;
+import com.htmltopdf.element.LinkElement;
+import com.htmltopdf.element.MarkedContentRecord;
+import com.htmltopdf.element.Num;
+import com.htmltopdf.element.Page;
+import com.htmltopdf.element.ParentTree;
+import com.htmltopdf.element.StructElement;
+import com.htmltopdf.element.StructTreeRoot;
+import com.htmltopdf.element.Widget;
+
+/**
+ * Checks the tagged structure of a document before it is written. The
+ * structure tree is walked once to index which element owns each MCID
+ * and annotation, then every page is checked against the index and the
+ * parent tree, so the time taken is linear in the size of the document.
+ * Sealed structure elements are not validated
+ */
+public class StructureValidator {
+    private Catalog catalog;
+    private List<Issue> issues;
+    private Map<Long, Element> mcidOwners;
+    private Map<Element, Element> annotationOwners;
+    private Map<Integer, Element> parentTreeKeys;
+    private boolean sealed;
+
+    /**
+     * Constructor - Initialize with the document catalog
+     * @param catalog Catalog of the document
+     */
+    public StructureValidator(Catalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Validates the structure tree, parent tree and marked content
+     * @return List of the issues found, empty if the structure is valid
+     */
+    public List<Issue> validate() {
+        issues = new ArrayList<>();
+        mcidOwners = new HashMap<>();
+        annotationOwners = new IdentityHashMap<>();
+        parentTreeKeys = new HashMap<>();
+        sealed = false;
+
+        StructTreeRoot structTreeRoot = catalog.getStructTreeRoot();
+        if (structTreeRoot == null) {
+            return issues;
+        }
+        indexStructure(structTreeRoot);
+
+        List<Num> nums = structTreeRoot.getParentTree() instanceof ParentTree parentTree ? parentTree.getNums() : List.of();
+        for (Page page : catalog.getPages().getKids()) {
+            checkPage(page, nums);
+            for (Element annotation : page.getAnnotations()) {
+                checkAnnotation(annotation, nums);
+            }
+        }
+
+        return issues;
+    }
+
+    /**
+     * Walks the structure tree indexing the owner of each MCID and
+     * annotation, and checks the alternate text of each element
+     * @param structTreeRoot StructTreeRoot of the document
+     */
+    private void indexStructure(StructTreeRoot structTreeRoot) {
+        Deque<Element> stack = new ArrayDeque<>(structTreeRoot.getKids());
+        while (!stack.isEmpty()) {
+            Element element = stack.pop();
+            if (element instanceof StructElement structElement) {
+                if (structElement.isSealed()) {
+                    sealed = true;
+                    issues.add(new Issue(Issue.Type.NOT_VALIDATED, element, "Structure element is sealed and was not validated"));
+                    continue;
+                }
+                if (StructElement.FIGURE.equals(structElement.getType()) && structElement.getAltText() == null) {
+                    issues.add(new Issue(Issue.Type.MISSING_ALT_TEXT, element, "Figure has no alternate text"));
+                }
+                for (Element kid : structElement.getKids()) {
+                    if (kid instanceof MarkedContentRecord mcr) {
+                        claimMcid(mcr.getPage(), mcr.getMcid(), structElement);
+                    } else {
+                        stack.push(kid);
+                    }
+                }
+            } else if (element instanceof LinkElement link) {
+                if (link.getAltText() == null) {
+                    issues.add(new Issue(Issue.Type.MISSING_ALT_TEXT, element, "Link has no alternate text"));
+                }
+                claimMcid(link.getPage(), link.getMcid(), link);
+                annotationOwners.put(link.getAnnotation(), link);
+            } else if (element instanceof FormElement form) {
+                if (form.getWidget() != null) {
+                    annotationOwners.put(form.getWidget(), form);
+                    if (form.getWidget() instanceof Widget widget && widget.getToolTip() == null) {
+                        issues.add(new Issue(Issue.Type.MISSING_ALT_TEXT, widget, "Form field " + widget.getFieldName() + " has no tool tip"));
+                    }
+                } else if (form.getMcid() != -1) {
+                    claimMcid(form.getPage(), form.getMcid(), form);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the owner of an MCID, reporting MCIDs claimed twice or
+     * not assigned to the page
+     * @param page Page of the marked content
+     * @param mcid int of the mcid
+     * @param owner Element claiming the mcid
+     */
+    private void claimMcid(Page page, int mcid, Element owner) {
+        if (page == null) {
+            return;
+        }
+        if (mcidOwners.putIfAbsent(mcidKey(page, mcid), owner) != null) {
+            issues.add(new Issue(Issue.Type.DUPLICATE_MCID, owner, "MCID " + mcid + " on page " + page.getObjectId() + " is claimed by more than one element"));
+        }
+        if (mcid < 0 || mcid >= page.getMcidCount()) {
+            issues.add(new Issue(Issue.Type.UNASSIGNED_MCID, owner, "MCID " + mcid + " was not assigned on page " + page.getObjectId()));
+        }
+    }
+
+    /**
+     * Checks every MCID of the page is owned by the structure tree and
+     * the parent tree entry of the page maps it to the same owner
+     * @param page Page to check
+     * @param nums List of the parent tree entries
+     */
+    private void checkPage(Page page, List<Num> nums) {
+        int key = page.getStructParents();
+        checkParentTreeKey(key, page);
+        if (page.getMcidCount() == 0) {
+            return;
+        }
+
+        Num num = key >= 0 && key < nums.size() ? nums.get(key) : null;
+        if (num == null) {
+            issues.add(new Issue(Issue.Type.MISSING_PARENT_TREE_ENTRY, page, "Page has no parent tree entry for key " + key));
+        }
+        List<Element> refs = num != null ? num.getReference() : List.of();
+        for (int mcid = 0; mcid < page.getMcidCount(); mcid++) {
+            Element owner = mcidOwners.get(mcidKey(page, mcid));
+            if (owner == null) {
+                if (!sealed) {
+                    issues.add(new Issue(Issue.Type.ORPHANED_MCID, page, "MCID " + mcid + " is not in the structure tree"));
+                }
+            } else if (num != null && (mcid >= refs.size() || refs.get(mcid) != owner)) {
+                issues.add(new Issue(Issue.Type.PARENT_TREE_MISMATCH, page, "Parent tree key " + key + " does not map MCID " + mcid + " to structure element " + owner.getObjectId()));
+            }
+        }
+        if (refs.size() > page.getMcidCount()) {
+            issues.add(new Issue(Issue.Type.PARENT_TREE_MISMATCH, page, "Parent tree key " + key + " has " + refs.size() + " entries for " + page.getMcidCount() + " MCIDs"));
+        }
+    }
+
+    /**
+     * Checks the parent tree entry of a tagged annotation refers to the
+     * structure element that owns it
+     * @param annotation Element of the annotation
+     * @param nums List of the parent tree entries
+     */
+    private void checkAnnotation(Element annotation, List<Num> nums) {
+        Element owner = annotationOwners.get(annotation);
+        int key = -1;
+        if (annotation instanceof Widget widget && owner != null) {
+            key = widget.getStructParents();
+        } else if (annotation instanceof Annotation link) {
+            key = link.getStructParents();
+        }
+        if (key < 0) {
+            return;
+        }
+
+        checkParentTreeKey(key, annotation);
+        if (owner == null) {
+            if (!sealed) {
+                issues.add(new Issue(Issue.Type.ORPHANED_ANNOTATION, annotation, "Tagged annotation is not in the structure tree"));
+            }
+            return;
+        }
+        Num num = key < nums.size() ? nums.get(key) : null;
+        if (num == null) {
+            issues.add(new Issue(Issue.Type.MISSING_PARENT_TREE_ENTRY, annotation, "Annotation has no parent tree entry for key " + key));
+        } else if (!num.getIsAnnotation() || num.getReference().isEmpty() || num.getReference().get(0) != owner) {
+            issues.add(new Issue(Issue.Type.PARENT_TREE_MISMATCH, annotation, "Parent tree key " + key + " does not refer to structure element " + owner.getObjectId()));
+        }
+    }
+
+    /**
+     * Reports parent tree keys used by more than one page or annotation
+     * @param key int of the parent tree key
+     * @param element Element using the key
+     */
+    private void checkParentTreeKey(int key, Element element) {
+        Element previous = parentTreeKeys.putIfAbsent(key, element);
+        if (previous != null) {
+            issues.add(new Issue(Issue.Type.DUPLICATE_PARENT_TREE_KEY, element, "Parent tree key " + key + " is also used by object " + previous.getObjectId()));
+        }
+    }
+
+    /**
+     * Builds the index key of an MCID on a page
+     * @param page Page of the marked content
+     * @param mcid int of the mcid
+     * @return long of the index key
+     */
+    private static long mcidKey(Page page, int mcid) {
+        return ((long) page.getObjectId() << 32) | (mcid & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Structure problem found by the validator
+     */
+    public static class Issue {
+        /**
+         * Kinds of structure problem
+         */
+        public static enum Type {
+            MISSING_ALT_TEXT,
+            DUPLICATE_MCID,
+            UNASSIGNED_MCID,
+            ORPHANED_MCID,
+            ORPHANED_ANNOTATION,
+            MISSING_PARENT_TREE_ENTRY,
+            PARENT_TREE_MISMATCH,
+            DUPLICATE_PARENT_TREE_KEY,
+            NOT_VALIDATED
+        }
+
+        private Type type;
+        private int objectId;
+        private String message;
+
+        /**
+         * Constructor - Initialize the issue
+         * @param type Type of the issue
+         * @param element Element with the issue
+         * @param message String describing the issue
+         */
+        Issue(Type type, Element element, String message) {
+            this.type = type;
+            this.objectId = element.getObjectId();
+            this.message = message;
+        }
+
+        /**
+         * Gets the type of the issue
+         * @return Type of the issue
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Gets the object Id of the element with the issue
+         * @return int of the object Id
+         */
+        public int getObjectId() {
+            return objectId;
+        }
+
+        /**
+         * Gets the description of the issue
+         * @return String of the message
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return type + " (object " + objectId + "): " + message;
+        }
+    }
+}
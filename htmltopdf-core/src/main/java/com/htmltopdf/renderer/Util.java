@@ -30,6 +30,7 @@ import com.htmltopdf.fonts.Font;
  * Utility methods used in PDF generation
  */
 public class Util {
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
     
     /**
      * Utility method to convert a byte array to a
@@ -38,12 +39,55 @@ public class Util {
      * @return String of Hex
      */
     public static String byteToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0F];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+        }
+
+        return new String(hex);
+    }
+
+    /**
+     * Utility method to write binary data, such as an encrypted string,
+     * as a PDF string. A literal string only escapes the delimiters,
+     * the backslash and carriage return (which readers would turn into
+     * a line feed). Each byte needs at most one escape so the literal
+     * string is never longer than the hex string of the same data
+     * @param bytes byte array of the data
+     * @return String of the PDF string including its delimiters, one char per byte
+     */
+    public static String toPdfString(byte[] bytes) {
+        int escapes = 0;
         for (byte b : bytes) {
-            sb.append(String.format("%02X", b));
+            if (b == '(' || b == ')' || b == '\\' || b == '\r') {
+                escapes++;
+            }
         }
 
-        return sb.toString();
+        char[] literal = new char[bytes.length + escapes + 2];
+        int pos = 0;
+        literal[pos++] = '(';
+        for (byte b : bytes) {
+            switch (b) {
+                case '(':
+                case ')':
+                case '\\':
+                    literal[pos++] = '\\';
+                    literal[pos++] = (char) b;
+                    break;
+                case '\r':
+                    literal[pos++] = '\\';
+                    literal[pos++] = 'r';
+                    break;
+                default:
+                    literal[pos++] = (char) (b & 0xFF);
+                    break;
+            }
+        }
+        literal[pos] = ')';
+
+        return new String(literal);
     }
 
     /**
@@ -19,27 +19,28 @@
 
 package com.htmltopdf.security;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
-import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.htmltopdf.renderer.Util;
+
 /**
- * Class that builds the encryption keys
+ * Class that builds the encryption keys. Digests and ciphers are kept
+ * per thread and object keys are derived once per object
  */
 public class PdfR4V4Security {
     private static final Logger logger = LoggerFactory.getLogger(PdfR4V4Security.class);
@@ -50,22 +51,50 @@ public class PdfR4V4Security {
         (byte) 0x64, (byte) 0x00, (byte) 0x4E, (byte) 0x56,
         (byte) 0xFF, (byte) 0xFA, (byte) 0x01, (byte) 0x08,
         (byte) 0x2E, (byte) 0x2E, (byte) 0x00, (byte) 0xB6,
-        (byte) 0xD0, (byte) 0x2E, (byte) 0x3E, (byte) 0x80,
+        (byte) 0xD0, (byte) 0x68, (byte) 0x3E, (byte) 0x80,
         (byte) 0x2F, (byte) 0x0C, (byte) 0xA9, (byte) 0xFE,
         (byte) 0x64, (byte) 0x53, (byte) 0x69, (byte) 0x7a
     };
 
+    private static final byte[] SALT = {'s', 'A', 'l', 'T'};
+
     private static int KEY_LENGTH_BYTES = 16;
 
+    // Digests and ciphers are not thread safe so each thread keeps its own
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> newInstance(() -> MessageDigest.getInstance("MD5")));
+    private static final ThreadLocal<Cipher> AES = ThreadLocal.withInitial(() -> newInstance(() -> Cipher.getInstance("AES/CBC/PKCS5Padding")));
+    private static final ThreadLocal<Cipher> RC4 = ThreadLocal.withInitial(() -> newInstance(() -> Cipher.getInstance("RC4")));
+
+    // Object keys per document encryption key, dropped with the key
+    private static final Map<byte[], Map<Long, SecretKeySpec>> objectKeys = new WeakHashMap<>();
+
+    // Owner values by password pair digest, shared across documents
+    private static final int OWNER_CACHE_SIZE = 64;
+    private static final Map<String, byte[]> ownerValues = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+            return size() > OWNER_CACHE_SIZE;
+        }
+    };
+
     /**
-     * Compute the Owner password hash
+     * Compute the Owner password hash. The value only depends on the
+     * passwords so it is cached for documents sharing a password pair
      * @param ownerPassword String Owner Password
      * @param userPassword Stirng User Password
      * @return byte array of the owner hash value
      */
     public static byte[] computeOwnerValue(String ownerPassword, String userPassword) {
+        String cacheKey = passwordDigest(ownerPassword, userPassword);
+        synchronized (ownerValues) {
+            byte[] cached = ownerValues.get(cacheKey);
+            if (cached != null) {
+                return cached.clone();
+            }
+        }
+
         try {
-            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            MessageDigest md5 = MD5.get();
             byte[] digest = md5.digest(padPassword(ownerPassword));
 
             // 50 iterations (R > 3)
@@ -74,31 +103,15 @@ public class PdfR4V4Security {
             }
 
             byte[] key = Arrays.copyOf(digest, KEY_LENGTH_BYTES);
-            Cipher rc4 = Cipher.getInstance("RC4");
-            byte[] data = padPassword(userPassword);
-
-            for (int i = 0; i < 20; i++) {
-                byte[] iterKey = xorKey(key, i);
-                rc4.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(iterKey, "RC4"));
-                data = rc4.doFinal(data);
+            byte[] data = rc4Rounds(key, padPassword(userPassword));
+            synchronized (ownerValues) {
+                ownerValues.put(cacheKey, data.clone());
             }
 
             return data;
-        } catch (NoSuchAlgorithmException noAlgorthim) {
-            logger.error("No Such Algoritm", noAlgorthim);
-            throw new RuntimeException(noAlgorthim);
-        } catch (NoSuchPaddingException noPadding) {
-            logger.error("No Such Padding", noPadding);
-            throw new RuntimeException(noPadding);
-        } catch (InvalidKeyException key) {
-            logger.error("Invalid Key", key);
-            throw new RuntimeException(key);
-        } catch (IllegalBlockSizeException block) {
-            logger.error("Illegal Block Sizse", block);
-            throw new RuntimeException(block);
-        } catch (BadPaddingException badPadding) {
-            logger.error("Bad Padding", badPadding);
-            throw new RuntimeException(badPadding);
+        } catch (GeneralSecurityException security) {
+            logger.error("Unable to compute owner value", security);
+            throw new RuntimeException(security);
         }
     }
 
@@ -112,71 +125,46 @@ public class PdfR4V4Security {
      * @return byte array of the encryption key
      */
     public static byte[] computeEncryptionKey(String userPassword, byte[] ownerValue, int permissions, byte[] documentId, boolean encryptMetaData) {
-        try {
-            MessageDigest md5 = MessageDigest.getInstance("MD5");
-            md5.update(padPassword(userPassword));
-            md5.update(ownerValue);
-            md5.update(intToLittleEndian(permissions));
-            md5.update(documentId);
-
-            if (!encryptMetaData) {
-                md5.update(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
-            }
-            byte[] hash = md5.digest();
-
-            for (int i = 0; i < 50; i++) {
-                hash = md5.digest(hash);
-            }
+        MessageDigest md5 = MD5.get();
+        md5.update(padPassword(userPassword));
+        md5.update(ownerValue);
+        md5.update(intToLittleEndian(permissions));
+        md5.update(documentId);
+
+        if (!encryptMetaData) {
+            md5.update(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF});
+        }
+        byte[] hash = md5.digest();
 
-            return Arrays.copyOf(hash, KEY_LENGTH_BYTES);
-        } catch (NoSuchAlgorithmException noAlgorthim) {
-            logger.error("No Such Algorithm", noAlgorthim);
-            throw new RuntimeException(noAlgorthim);
+        for (int i = 0; i < 50; i++) {
+            hash = md5.digest(hash);
         }
+
+        return Arrays.copyOf(hash, KEY_LENGTH_BYTES);
     }
 
     /**
      * Computes the user password hash
      * @param encryptionKey byte array of the encryption key
      * @param documentId byte array of the document id (16 bit)
-     * @return
+     * @return byte array of the user hash value
      */
     public static byte[] computeUserValue(byte[] encryptionKey, byte[] documentId) {
         try {
-            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            MessageDigest md5 = MD5.get();
             md5.update(PASSWORD_PADDING);
             md5.update(documentId);
 
-            byte[] hash = md5.digest();
-            Cipher rc4 = Cipher.getInstance("RC4");
-            byte[] data = hash;
-
-            for (int i = 0; i < 20; i++) {
-                byte[] iterKey = xorKey(encryptionKey, i);
-                rc4.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(iterKey, "RC4"));
-                data = rc4.doFinal(iterKey);
-            }
+            byte[] data = rc4Rounds(encryptionKey, md5.digest());
 
             byte[] user = new byte[32];
             System.arraycopy(data, 0, user, 0, KEY_LENGTH_BYTES);
             Arrays.fill(user, 16, 32, (byte) 0);
 
             return user;
-        } catch (NoSuchAlgorithmException noAlgorithm) {
-            logger.error("No Such Algorithm", noAlgorithm);
-            throw new RuntimeException(noAlgorithm);
-        } catch (NoSuchPaddingException noPadding) {
-            logger.error("No Such Padding", noPadding);
-            throw new RuntimeException(noPadding);
-        } catch (InvalidKeyException invalidKey) {
-            logger.error("Invalid Key", invalidKey);
-            throw new RuntimeException(invalidKey);
-        } catch (IllegalBlockSizeException block) {
-            logger.error("Illegal Block Sizse", block);
-            throw new RuntimeException(block);
-        } catch (BadPaddingException badPadding) {
-            logger.error("Bad Padding", badPadding);
-            throw new RuntimeException(badPadding);
+        } catch (GeneralSecurityException security) {
+            logger.error("Unable to compute user value", security);
+            throw new RuntimeException(security);
         }
     }
 
@@ -189,51 +177,7 @@ public class PdfR4V4Security {
      * @return byte array of the encrypted stream
      */
     public static byte[] encryptObject(byte[] encryptionKey, int objectNubmer, int generationNumber, byte[] plain) {
-        try {
-            MessageDigest md5 = MessageDigest.getInstance("MD5");
-            md5.update(encryptionKey);
-            md5.update(intToLittleEndian(objectNubmer, 3));
-            md5.update(intToLittleEndian(generationNumber, 2));
-            md5.update(new byte[] {'s', 'A', 'l', 'T'});
-
-            byte[] hash = md5.digest();
-            int keyLength = Math.min(16, encryptionKey.length + 5);
-            byte[] key = Arrays.copyOf(hash, keyLength);
-
-            byte[] iv = new byte[16];
-
-            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
-
-            byte[] encrypted = cipher.doFinal(plain);
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            baos.write(iv);
-            baos.write(encrypted);
-
-            return baos.toByteArray();
-        } catch (NoSuchAlgorithmException noAlgorithm) {
-            logger.error("No Such Algorithm", noAlgorithm);
-            throw new RuntimeException(noAlgorithm);
-        } catch (NoSuchPaddingException noPadding) {
-            logger.error("No Such Padding", noPadding);
-            throw new RuntimeException(noPadding);
-        } catch (InvalidKeyException invalidKey) {
-            logger.error("Invalid Key", invalidKey);
-            throw new RuntimeException(invalidKey);
-        } catch (InvalidAlgorithmParameterException param) {
-            logger.error("Invalid Algortigm Parameter", param);
-            throw new RuntimeException(param);
-        } catch (IllegalBlockSizeException block) {
-            logger.error("Illegal Block Sizse", block);
-            throw new RuntimeException(block);
-        } catch (BadPaddingException badPadding) {
-            logger.error("Bad Padding", badPadding);
-            throw new RuntimeException(badPadding);
-        } catch (IOException io) {
-            logger.error("Error accessing stream", io);
-            throw new RuntimeException(io);
-        }
+        return encrypt(objectKey(encryptionKey, objectNubmer, generationNumber), plain);
     }
 
     /**
@@ -245,49 +189,145 @@ public class PdfR4V4Security {
      * @return byte array of the encrypted string
      */
     public static byte[] encryptString(byte[] encryptionKey, int objectNubmer, int generationNumber, byte[] plain) {
-        try {
-            MessageDigest md5 = MessageDigest.getInstance("MD5");
+        return encrypt(objectKey(encryptionKey, objectNubmer, generationNumber), plain);
+    }
+
+    /**
+     * Gets the key of an object, the key is derived once per object
+     * and kept for as long as the document encryption key is in use
+     * @param encryptionKey byte array of the encryption key
+     * @param objectNubmer int of the object Id
+     * @param generationNumber int of the generation number, usually 0
+     * @return SecretKeySpec of the object key
+     */
+    static SecretKeySpec objectKey(byte[] encryptionKey, int objectNubmer, int generationNumber) {
+        Map<Long, SecretKeySpec> keys;
+        synchronized (objectKeys) {
+            keys = objectKeys.computeIfAbsent(encryptionKey, key -> new ConcurrentHashMap<>());
+        }
+
+        return keys.computeIfAbsent(((long) objectNubmer << 16) | generationNumber, id -> {
+            MessageDigest md5 = MD5.get();
             md5.update(encryptionKey);
             md5.update(intToLittleEndian(objectNubmer, 3));
             md5.update(intToLittleEndian(generationNumber, 2));
-            md5.update(new byte[] {'s', 'A', 'l', 'T'});
+            md5.update(SALT);
 
             byte[] hash = md5.digest();
-            byte[] key = Arrays.copyOf(hash, 16);
+            int keyLength = Math.min(16, encryptionKey.length + 5);
 
-            byte[] iv = new byte[16];
+            return new SecretKeySpec(hash, 0, keyLength, "AES");
+        });
+    }
 
+    /**
+     * Creates a cipher for encrypting an object stream in parts, the
+     * stream data starts with the zero IV the cipher is initialized with
+     * @param encryptionKey byte array of the encryption key
+     * @param objectNubmer int of the object Id
+     * @param generationNumber int of the generation number, usually 0
+     * @return Cipher initialized for encryption
+     */
+    public static Cipher objectCipher(byte[] encryptionKey, int objectNubmer, int generationNumber) {
+        try {
+            // A new instance, the thread's cipher may be needed while the stream is open
             Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+            cipher.init(Cipher.ENCRYPT_MODE, objectKey(encryptionKey, objectNubmer, generationNumber), new IvParameterSpec(new byte[16]));
+
+            return cipher;
+        } catch (GeneralSecurityException security) {
+            logger.error("Unable to create object cipher", security);
+            throw new RuntimeException(security);
+        }
+    }
+
+    /**
+     * Encrypts the data with AES-CBC, the output is the IV
+     * followed by the cipher text
+     * @param key SecretKeySpec of the object key
+     * @param plain byte array of the plain data
+     * @return byte array of the encrypted data
+     */
+    private static byte[] encrypt(SecretKeySpec key, byte[] plain) {
+        try {
+            byte[] iv = new byte[16];
 
-            byte[] encrypted = cipher.doFinal(plain);
+            Cipher cipher = AES.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv));
 
-            byte[] result = new byte[iv.length + encrypted.length];
-            System.arraycopy(iv, 0, result, 0, iv.length);
-            System.arraycopy(encrypted, 0, result, iv.length, encrypted.length);
+            byte[] result = new byte[iv.length + cipher.getOutputSize(plain.length)];
+            int length = cipher.doFinal(plain, 0, plain.length, result, iv.length);
 
-            return result;
+            return length + iv.length == result.length ? result : Arrays.copyOf(result, length + iv.length);
+        } catch (GeneralSecurityException security) {
+            logger.error("Unable to encrypt data", security);
+            throw new RuntimeException(security);
+        }
+    }
+
+    /**
+     * Runs the 20 RC4 rounds of the owner and user values,
+     * each round uses the key XORed with the round number
+     * @param key byte array of the RC4 key
+     * @param data byte array of the data
+     * @return byte array of the encrypted data
+     * @throws GeneralSecurityException throws if RC4 is not available
+     */
+    private static byte[] rc4Rounds(byte[] key, byte[] data) throws GeneralSecurityException {
+        Cipher rc4 = RC4.get();
+        for (int i = 0; i < 20; i++) {
+            byte[] iterKey = xorKey(key, i);
+            rc4.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(iterKey, "RC4"));
+            data = rc4.doFinal(data);
+        }
+
+        return data;
+    }
+
+    /**
+     * Computes the digest of a password pair used to cache owner values
+     * without keeping the passwords
+     * @param ownerPassword String of the owner password
+     * @param userPassword String of the user password
+     * @return String of the hex digest
+     */
+    private static String passwordDigest(String ownerPassword, String userPassword) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(padPassword(ownerPassword));
+            sha256.update(padPassword(userPassword));
+
+            return Util.byteToHex(sha256.digest());
         } catch (NoSuchAlgorithmException noAlgorithm) {
             logger.error("No Such Algorithm", noAlgorithm);
             throw new RuntimeException(noAlgorithm);
-        } catch (NoSuchPaddingException noPadding) {
-            logger.error("No Such Padding", noPadding);
-            throw new RuntimeException(noPadding);
-        } catch (InvalidKeyException invalidKey) {
-            logger.error("Invalid Key", invalidKey);
-            throw new RuntimeException(invalidKey);
-        } catch (InvalidAlgorithmParameterException param) {
-            logger.error("Invalid Algortigm Parameter", param);
-            throw new RuntimeException(param);
-        } catch (IllegalBlockSizeException block) {
-            logger.error("Illegal Block Sizse", block);
-            throw new RuntimeException(block);
-        } catch (BadPaddingException badPadding) {
-            logger.error("Bad Padding", badPadding);
-            throw new RuntimeException(badPadding);
         }
     }
 
+    /**
+     * Gets a cryptographic instance for a thread local
+     * @param <T> type of the instance
+     * @param supplier CryptoSupplier creating the instance
+     * @return T of the instance
+     */
+    private static <T> T newInstance(CryptoSupplier<T> supplier) {
+        try {
+            return supplier.get();
+        } catch (GeneralSecurityException security) {
+            logger.error("Unable to create cryptographic instance", security);
+            throw new RuntimeException(security);
+        }
+    }
+
+    /**
+     * Creates a cryptographic instance that may be unavailable
+     * @param <T> type of the instance
+     */
+    @FunctionalInterface
+    private interface CryptoSupplier<T> {
+        T get() throws GeneralSecurityException;
+    }
+
     /**
      * Pads the password using password padding
      * @param password String of the password
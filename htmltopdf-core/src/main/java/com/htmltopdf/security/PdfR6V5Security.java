@@ -0,0 +1,294 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.text.Normalizer;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Class that builds the AES-256 (V5 R6) encryption values. A random
+ * file key is used directly for every object and string, so there is
+ * no per-object key derivation
+ */
+public class PdfR6V5Security {
+    private static final Logger logger = LoggerFactory.getLogger(PdfR6V5Security.class);
+
+    public static final int KEY_LENGTH_BYTES = 32;
+    private static final int SALT_LENGTH_BYTES = 8;
+    private static final int MAX_PASSWORD_BYTES = 127;
+    private static final SecureRandom random = new SecureRandom();
+
+    /**
+     * Generates a random file encryption key
+     * @return byte array of the 32 byte file key
+     */
+    public static byte[] generateFileKey() {
+        return randomBytes(KEY_LENGTH_BYTES);
+    }
+
+    /**
+     * Computes the /U value, the hash of the user password followed by
+     * the validation and key salts (Algorithm 8)
+     * @param userPassword String of the user password
+     * @return byte array of the 48 byte user value
+     */
+    public static byte[] computeUserValue(String userPassword) {
+        byte[] password = preparePassword(userPassword);
+        byte[] validationSalt = randomBytes(SALT_LENGTH_BYTES);
+        byte[] keySalt = randomBytes(SALT_LENGTH_BYTES);
+
+        byte[] user = new byte[48];
+        System.arraycopy(computeHash(password, validationSalt, new byte[0]), 0, user, 0, 32);
+        System.arraycopy(validationSalt, 0, user, 32, SALT_LENGTH_BYTES);
+        System.arraycopy(keySalt, 0, user, 40, SALT_LENGTH_BYTES);
+
+        return user;
+    }
+
+    /**
+     * Computes the /UE value, the file key encrypted with the user password
+     * @param userPassword String of the user password
+     * @param userValue byte array of the 48 byte user value
+     * @param fileKey byte array of the file key
+     * @return byte array of the 32 byte encrypted file key
+     */
+    public static byte[] computeUserEncryptionValue(String userPassword, byte[] userValue, byte[] fileKey) {
+        byte[] keySalt = Arrays.copyOfRange(userValue, 40, 48);
+        return wrapKey(computeHash(preparePassword(userPassword), keySalt, new byte[0]), fileKey);
+    }
+
+    /**
+     * Computes the /O value, the hash of the owner password over the
+     * user value followed by the validation and key salts (Algorithm 9)
+     * @param ownerPassword String of the owner password
+     * @param userValue byte array of the 48 byte user value
+     * @return byte array of the 48 byte owner value
+     */
+    public static byte[] computeOwnerValue(String ownerPassword, byte[] userValue) {
+        byte[] password = preparePassword(ownerPassword);
+        byte[] validationSalt = randomBytes(SALT_LENGTH_BYTES);
+        byte[] keySalt = randomBytes(SALT_LENGTH_BYTES);
+
+        byte[] owner = new byte[48];
+        System.arraycopy(computeHash(password, validationSalt, userValue), 0, owner, 0, 32);
+        System.arraycopy(validationSalt, 0, owner, 32, SALT_LENGTH_BYTES);
+        System.arraycopy(keySalt, 0, owner, 40, SALT_LENGTH_BYTES);
+
+        return owner;
+    }
+
+    /**
+     * Computes the /OE value, the file key encrypted with the owner password
+     * @param ownerPassword String of the owner password
+     * @param ownerValue byte array of the 48 byte owner value
+     * @param userValue byte array of the 48 byte user value
+     * @param fileKey byte array of the file key
+     * @return byte array of the 32 byte encrypted file key
+     */
+    public static byte[] computeOwnerEncryptionValue(String ownerPassword, byte[] ownerValue, byte[] userValue, byte[] fileKey) {
+        byte[] keySalt = Arrays.copyOfRange(ownerValue, 40, 48);
+        return wrapKey(computeHash(preparePassword(ownerPassword), keySalt, userValue), fileKey);
+    }
+
+    /**
+     * Computes the /Perms value, the permissions encrypted with the
+     * file key so they can be checked for tampering (Algorithm 10)
+     * @param fileKey byte array of the file key
+     * @param permissions int of the permissions
+     * @param encryptMetaData boolean true if the meta data is encrypted
+     * @return byte array of the 16 byte permissions value
+     */
+    public static byte[] computePermsValue(byte[] fileKey, int permissions, boolean encryptMetaData) {
+        byte[] perms = new byte[16];
+        for (int i = 0; i < 4; i++) {
+            perms[i] = (byte) (permissions >> (8 * i));
+        }
+        Arrays.fill(perms, 4, 8, (byte) 0xFF);
+        perms[8] = (byte) (encryptMetaData ? 'T' : 'F');
+        perms[9] = 'a';
+        perms[10] = 'd';
+        perms[11] = 'b';
+        System.arraycopy(randomBytes(4), 0, perms, 12, 4);
+
+        try {
+            Cipher cipher = Cipher.getInstance("AES/ECB/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(fileKey, "AES"));
+            return cipher.doFinal(perms);
+        } catch (GeneralSecurityException security) {
+            logger.error("Unable to encrypt permissions", security);
+            throw new RuntimeException(security);
+        }
+    }
+
+    /**
+     * Encrypts an object stream or string with the file key, the
+     * output is a random 16 byte IV followed by the cipher text
+     * @param fileKey byte array of the file key
+     * @param plain byte array of the plain data
+     * @return byte array of the encrypted data
+     */
+    public static byte[] encrypt(byte[] fileKey, byte[] plain) {
+        try {
+            byte[] iv = generateIv();
+            Cipher cipher = cipher(fileKey, iv);
+
+            byte[] result = new byte[iv.length + cipher.getOutputSize(plain.length)];
+            System.arraycopy(iv, 0, result, 0, iv.length);
+            int length = cipher.doFinal(plain, 0, plain.length, result, iv.length);
+
+            return length + iv.length == result.length ? result : Arrays.copyOf(result, length + iv.length);
+        } catch (GeneralSecurityException security) {
+            logger.error("Unable to encrypt data", security);
+            throw new RuntimeException(security);
+        }
+    }
+
+    /**
+     * Creates a cipher for encrypting an object stream in parts,
+     * the stream data starts with the IV
+     * @param fileKey byte array of the file key
+     * @param iv byte array of the 16 byte IV
+     * @return Cipher initialized for encryption
+     */
+    public static Cipher cipher(byte[] fileKey, byte[] iv) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(fileKey, "AES"), new IvParameterSpec(iv));
+
+            return cipher;
+        } catch (GeneralSecurityException security) {
+            logger.error("Unable to create cipher", security);
+            throw new RuntimeException(security);
+        }
+    }
+
+    /**
+     * Generates a random IV
+     * @return byte array of the 16 byte IV
+     */
+    public static byte[] generateIv() {
+        return randomBytes(16);
+    }
+
+    /**
+     * Computes the revision 6 password hash (Algorithm 2.B)
+     * @param password byte array of the prepared password
+     * @param salt byte array of the 8 byte salt
+     * @param userValue byte array of the user value for the owner hash, empty for the user hash
+     * @return byte array of the 32 byte hash
+     */
+    static byte[] computeHash(byte[] password, byte[] salt, byte[] userValue) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(password);
+            sha256.update(salt);
+            sha256.update(userValue);
+            byte[] k = sha256.digest();
+
+            Cipher aes = Cipher.getInstance("AES/CBC/NoPadding");
+            MessageDigest[] digests = {
+                sha256,
+                MessageDigest.getInstance("SHA-384"),
+                MessageDigest.getInstance("SHA-512")
+            };
+            byte[] e = null;
+            for (int round = 0; round < 64 || (e[e.length - 1] & 0xFF) > round - 32; round++) {
+                int sequenceLength = password.length + k.length + userValue.length;
+                byte[] k1 = new byte[sequenceLength * 64];
+                for (int i = 0; i < 64; i++) {
+                    int offset = i * sequenceLength;
+                    System.arraycopy(password, 0, k1, offset, password.length);
+                    System.arraycopy(k, 0, k1, offset + password.length, k.length);
+                    System.arraycopy(userValue, 0, k1, offset + password.length + k.length, userValue.length);
+                }
+
+                aes.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(k, 0, 16, "AES"), new IvParameterSpec(k, 16, 16));
+                e = aes.doFinal(k1);
+
+                // The first 16 bytes as a big endian number mod 3 picks the next hash
+                int sum = 0;
+                for (int i = 0; i < 16; i++) {
+                    sum += e[i] & 0xFF;
+                }
+                k = digests[sum % 3].digest(e);
+            }
+
+            return Arrays.copyOf(k, 32);
+        } catch (GeneralSecurityException security) {
+            logger.error("Unable to compute password hash", security);
+            throw new RuntimeException(security);
+        }
+    }
+
+    /**
+     * Encrypts the file key with an intermediate key
+     * @param intermediateKey byte array of the 32 byte intermediate key
+     * @param fileKey byte array of the file key
+     * @return byte array of the encrypted file key
+     */
+    private static byte[] wrapKey(byte[] intermediateKey, byte[] fileKey) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/CBC/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(intermediateKey, "AES"), new IvParameterSpec(new byte[16]));
+            return cipher.doFinal(fileKey);
+        } catch (GeneralSecurityException security) {
+            logger.error("Unable to encrypt file key", security);
+            throw new RuntimeException(security);
+        }
+    }
+
+    /**
+     * Prepares the password as UTF-8 truncated to 127 bytes, NFKC
+     * normalization stands in for the SASLprep profile
+     * @param password String of the password
+     * @return byte array of the prepared password
+     */
+    private static byte[] preparePassword(String password) {
+        if (password == null) {
+            return new byte[0];
+        }
+        byte[] bytes = Normalizer.normalize(password, Normalizer.Form.NFKC).getBytes(StandardCharsets.UTF_8);
+
+        return bytes.length > MAX_PASSWORD_BYTES ? Arrays.copyOf(bytes, MAX_PASSWORD_BYTES) : bytes;
+    }
+
+    /**
+     * Gets random bytes
+     * @param length int of the number of bytes
+     * @return byte array of random bytes
+     */
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+
+        return bytes;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.security;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.crypto.Cipher;
+import javax.crypto.CipherOutputStream;
+
+/**
+ * Class that encrypts objects and strings with the security handler
+ * matching the encryption key. A 32 byte key is an AES-256 (R6) file
+ * key, any other key is an AES-128 (R4) key
+ */
+public class PdfSecurity {
+
+    /**
+     * Encrypt an object stream
+     * @param encryptionKey byte array of the encryption key
+     * @param objectNumber int of the object Id
+     * @param generationNumber int of the generation number, usually 0
+     * @param plain byte array of the plain stream
+     * @return byte array of the encrypted stream
+     */
+    public static byte[] encryptObject(byte[] encryptionKey, int objectNumber, int generationNumber, byte[] plain) {
+        if (encryptionKey.length == PdfR6V5Security.KEY_LENGTH_BYTES) {
+            return PdfR6V5Security.encrypt(encryptionKey, plain);
+        }
+
+        return PdfR4V4Security.encryptObject(encryptionKey, objectNumber, generationNumber, plain);
+    }
+
+    /**
+     * Encrypts a String
+     * @param encryptionKey byte array of the encryption key
+     * @param objectNumber int of the object Id
+     * @param generationNumber int of the generation number, usually 0
+     * @param plain byte array of the plain string
+     * @return byte array of the encrypted string
+     */
+    public static byte[] encryptString(byte[] encryptionKey, int objectNumber, int generationNumber, byte[] plain) {
+        if (encryptionKey.length == PdfR6V5Security.KEY_LENGTH_BYTES) {
+            return PdfR6V5Security.encrypt(encryptionKey, plain);
+        }
+
+        return PdfR4V4Security.encryptString(encryptionKey, objectNumber, generationNumber, plain);
+    }
+
+    /**
+     * Gets the length of encrypted stream data, the 16 byte IV
+     * followed by the AES cipher text padded to a whole block
+     * @param plainLength long of the plain stream length
+     * @return long of the encrypted stream length
+     */
+    public static long encryptedLength(long plainLength) {
+        return 16 + (plainLength / 16 + 1) * 16;
+    }
+
+    /**
+     * Opens an encrypting stage in front of the output. The IV is written
+     * straight away and the data is encrypted as it is written, closing
+     * the returned stream writes the final block but leaves the output open
+     * @param encryptionKey byte array of the encryption key
+     * @param objectNumber int of the object Id
+     * @param generationNumber int of the generation number, usually 0
+     * @param outputStream OutputStream to write the encrypted data to
+     * @return OutputStream of the plain stream data
+     * @throws IOException throws if the IV cannot be written
+     */
+    public static OutputStream encryptingStream(byte[] encryptionKey, int objectNumber, int generationNumber, OutputStream outputStream) throws IOException {
+        byte[] iv;
+        Cipher cipher;
+        if (encryptionKey.length == PdfR6V5Security.KEY_LENGTH_BYTES) {
+            iv = PdfR6V5Security.generateIv();
+            cipher = PdfR6V5Security.cipher(encryptionKey, iv);
+        } else {
+            iv = new byte[16];
+            cipher = PdfR4V4Security.objectCipher(encryptionKey, objectNumber, generationNumber);
+        }
+        outputStream.write(iv);
+
+        return new CipherOutputStream(new FilterOutputStream(outputStream) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        }, cipher);
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.security;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.DERSet;
+import org.bouncycastle.asn1.cms.Attribute;
+import org.bouncycastle.asn1.cms.AttributeTable;
+import org.bouncycastle.asn1.cms.CMSAttributes;
+import org.bouncycastle.asn1.ess.ESSCertIDv2;
+import org.bouncycastle.asn1.ess.SigningCertificateV2;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.x500.RDN;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.asn1.x500.style.IETFUtils;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.cert.jcajce.JcaCertStore;
+import org.bouncycastle.cms.CMSAbsentContent;
+import org.bouncycastle.cms.CMSAttributeTableGenerator;
+import org.bouncycastle.cms.CMSException;
+import org.bouncycastle.cms.CMSSignedDataGenerator;
+import org.bouncycastle.cms.SignerInfoGenerator;
+import org.bouncycastle.cms.jcajce.JcaSignerInfoGeneratorBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.DigestCalculator;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Class that creates the detached CMS signature of a PAdES (ETSI.CAdES.detached)
+ * signature from the SHA-256 digest of the signed byte ranges. The signed
+ * attributes are the content type, message digest and signing certificate,
+ * the signing time is the /M entry of the signature dictionary. RSA,
+ * EC and DSA signing keys are supported
+ */
+public class PdfSigner {
+    private static final Logger logger = LoggerFactory.getLogger(PdfSigner.class);
+    private static final AlgorithmIdentifier SHA_256 = new AlgorithmIdentifier(NISTObjectIdentifiers.id_sha256);
+
+    private PrivateKey privateKey;
+    private Certificate[] certificateChain;
+    private String signatureAlgorithm;
+
+    /**
+     * Constructor - Loads the signing key and certificate chain from a
+     * local keystore, PKCS12 and JKS keystores are supported
+     * @param keyStorePath String path of the keystore
+     * @param password char array of the keystore and key password
+     * @param alias String of the key alias
+     */
+    public PdfSigner(String keyStorePath, char[] password, String alias) {
+        try {
+            KeyStore keyStore = KeyStore.getInstance(new File(keyStorePath), password);
+            privateKey = (PrivateKey) keyStore.getKey(alias, password);
+            certificateChain = keyStore.getCertificateChain(alias);
+        } catch (IOException ioEx) {
+            logger.error("IO Exception was encountered reading keystore " + keyStorePath, ioEx);
+            throw new RuntimeException("IO Exception was encountered while reading keystore " + keyStorePath);
+        } catch (GeneralSecurityException security) {
+            logger.error("Unable to load key " + alias + " from keystore " + keyStorePath, security);
+            throw new RuntimeException(security);
+        }
+        if (privateKey == null || certificateChain == null) {
+            throw new IllegalArgumentException("No private key with a certificate chain for alias " + alias);
+        }
+        signatureAlgorithm = signatureAlgorithm(privateKey);
+    }
+
+    /**
+     * Constructor - Initialize with the signing key and certificate chain
+     * @param privateKey PrivateKey of the signer
+     * @param certificateChain Certificate array of the chain, the signing certificate first
+     * @throws IllegalArgumentException throws if the key is not an RSA, EC or DSA key
+     */
+    public PdfSigner(PrivateKey privateKey, Certificate[] certificateChain) {
+        this.privateKey = privateKey;
+        this.certificateChain = certificateChain;
+        this.signatureAlgorithm = signatureAlgorithm(privateKey);
+    }
+
+    /**
+     * Gets the signer's common name, the whole subject if the signing
+     * certificate has no common name
+     * @return String of the signer name
+     */
+    public String getSignerName() {
+        X509Certificate signingCertificate = (X509Certificate) certificateChain[0];
+        RDN[] commonNames = X500Name.getInstance(signingCertificate.getSubjectX500Principal().getEncoded()).getRDNs(BCStyle.CN);
+        if (commonNames.length == 0) {
+            return signingCertificate.getSubjectX500Principal().getName();
+        }
+
+        return IETFUtils.valueToString(commonNames[0].getFirst().getValue());
+    }
+
+    /**
+     * Creates the CMS signature for the digest of the signed byte ranges
+     * @param digest byte array of the SHA-256 digest
+     * @return byte array of the DER encoded CMS SignedData
+     */
+    public byte[] sign(byte[] digest) {
+        try {
+            X509Certificate signingCertificate = (X509Certificate) certificateChain[0];
+            ContentSigner contentSigner = new JcaContentSignerBuilder(signatureAlgorithm).build(privateKey);
+
+            byte[] certificateHash = MessageDigest.getInstance("SHA-256").digest(signingCertificate.getEncoded());
+            Attribute signingCertificateAttribute = new Attribute(PKCSObjectIdentifiers.id_aa_signingCertificateV2,
+                new DERSet(new SigningCertificateV2(new ESSCertIDv2(certificateHash))));
+
+            SignerInfoGenerator signerInfoGenerator = new JcaSignerInfoGeneratorBuilder(precomputed(digest))
+                .setSignedAttributeGenerator(signedAttributes(signingCertificateAttribute))
+                .build(contentSigner, signingCertificate);
+
+            CMSSignedDataGenerator generator = new CMSSignedDataGenerator();
+            generator.addSignerInfoGenerator(signerInfoGenerator);
+            List<Certificate> certificates = new ArrayList<>(List.of(certificateChain));
+            generator.addCertificates(new JcaCertStore(certificates));
+
+            // Detached, the signed content is the byte ranges of the document
+            return generator.generate(new CMSAbsentContent(), false).getEncoded();
+        } catch (GeneralSecurityException security) {
+            logger.error("Unable to sign document", security);
+            throw new RuntimeException(security);
+        } catch (OperatorCreationException | CMSException cms) {
+            logger.error("Unable to create CMS signature", cms);
+            throw new RuntimeException(cms);
+        } catch (IOException ioEx) {
+            logger.error("IO Exception was encountered encoding the signature", ioEx);
+            throw new RuntimeException("IO Exception was encountered while encoding the signature");
+        }
+    }
+
+    /**
+     * Maps the signing key to its SHA-256 signature algorithm. Other keys
+     * such as Ed25519 and RSASSA-PSS do not sign a SHA-256 digest this way
+     * @param privateKey PrivateKey of the signer
+     * @return String of the signature algorithm
+     */
+    private static String signatureAlgorithm(PrivateKey privateKey) {
+        switch (privateKey.getAlgorithm()) {
+            case "RSA":
+                return "SHA256withRSA";
+            case "EC":
+                return "SHA256withECDSA";
+            case "DSA":
+                return "SHA256withDSA";
+            default:
+                throw new IllegalArgumentException("Unsupported signing key algorithm " + privateKey.getAlgorithm() + ", RSA, EC and DSA keys are supported");
+        }
+    }
+
+    /**
+     * Builds the signed attributes without a signing time attribute,
+     * PAdES takes the signing time from the signature dictionary
+     * @param signingCertificate Attribute of the signing certificate
+     * @return CMSAttributeTableGenerator of the signed attributes
+     */
+    private static CMSAttributeTableGenerator signedAttributes(Attribute signingCertificate) {
+        return parameters -> {
+            Hashtable<ASN1ObjectIdentifier, Attribute> attributes = new Hashtable<>();
+            attributes.put(CMSAttributes.contentType, new Attribute(CMSAttributes.contentType,
+                new DERSet((ASN1ObjectIdentifier) parameters.get(CMSAttributeTableGenerator.CONTENT_TYPE))));
+            attributes.put(CMSAttributes.messageDigest, new Attribute(CMSAttributes.messageDigest,
+                new DERSet(new DEROctetString((byte[]) parameters.get(CMSAttributeTableGenerator.DIGEST)))));
+            attributes.put(signingCertificate.getAttrType(), signingCertificate);
+
+            return new AttributeTable(attributes);
+        };
+    }
+
+    /**
+     * Digest calculator provider returning the digest computed while the
+     * document was written, the detached content is never read again
+     * @param digest byte array of the SHA-256 digest
+     * @return DigestCalculatorProvider of the precomputed digest
+     */
+    private static DigestCalculatorProvider precomputed(byte[] digest) {
+        return algorithm -> new DigestCalculator() {
+            @Override
+            public AlgorithmIdentifier getAlgorithmIdentifier() {
+                return SHA_256;
+            }
+
+            @Override
+            public OutputStream getOutputStream() {
+                return OutputStream.nullOutputStream();
+            }
+
+            @Override
+            public byte[] getDigest() {
+                return digest.clone();
+            }
+        };
+    }
+}
@@ -19,8 +19,13 @@
 
 package com.htmltopdf;
 
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -28,6 +33,7 @@ import java.util.List;
 import org.junit.jupiter.api.Test;
 
 import com.htmltopdf.element.ContentStream;
+import com.htmltopdf.element.FormXObject;
 import com.htmltopdf.element.Info;
 import com.htmltopdf.element.MarkedContentRecord;
 import com.htmltopdf.element.Num;
@@ -48,6 +54,23 @@ public class TestPDFRenderer {
     public void testRenderer() throws IOException {
         render();
     }
+
+    @Test
+    public void testWatermarkPerFont() throws IOException {
+        PDFRenderer renderer = new PDFRenderer();
+        Font courier = renderer.getFont(FontName.COURIER);
+        Font helvetica = renderer.getFont(FontName.HELVETICA);
+
+        FormXObject watermark = renderer.getWatermark(Page.Size.LETTER, courier);
+        assertSame(watermark, renderer.getWatermark(Page.Size.LETTER, courier));
+        assertNotSame(watermark, renderer.getWatermark(Page.Size.LETTER, helvetica));
+        assertNotSame(watermark, renderer.getWatermark(Page.Size.A4, courier));
+
+        String form = new String(watermark.toByte(null), StandardCharsets.ISO_8859_1);
+        assertTrue(form.contains("/BBox [0 0 612 792]"), form);
+        assertTrue(form.contains("/Font << /F1 " + courier.getObjectId() + " 0 R >>"), form);
+        assertTrue(form.contains("/GS1 <<"), form);
+    }
     
     private void render() throws IOException {
         List<Num> numbers = new ArrayList<>();
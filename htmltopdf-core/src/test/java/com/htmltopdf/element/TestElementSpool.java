@@ -0,0 +1,84 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.element;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TestElementSpool {
+
+    @Test
+    public void testSpooledElementsAreReadBack() throws IOException {
+        try (ElementSpool spool = new ElementSpool()) {
+            spool.append(element(3, "3 0 obj\n(three)\nendobj\n"), null);
+            spool.append(element(7, "7 0 obj\n(seven)\nendobj\n"), null);
+
+            List<Element> elements = new ArrayList<>();
+            spool.walk(new ElementWalker(elements::add));
+
+            assertEquals(2, elements.size());
+            assertEquals(3, elements.get(0).getObjectId());
+            assertArrayEquals(bytes("3 0 obj\n(three)\nendobj\n"), elements.get(0).toByte(null));
+            assertEquals(7, elements.get(1).getObjectId());
+            assertArrayEquals(bytes("7 0 obj\n(seven)\nendobj\n"), elements.get(1).toByte(null));
+        }
+    }
+
+    @Test
+    public void testClosedSpoolFails() throws IOException {
+        ElementSpool spool = new ElementSpool();
+        spool.append(element(3, "3 0 obj\n(three)\nendobj\n"), null);
+        spool.close();
+
+        assertThrows(IllegalStateException.class, () -> spool.walk(new ElementWalker(element -> { })));
+        assertThrows(IllegalStateException.class, () -> spool.append(element(4, "4 0 obj\nnull\nendobj\n"), null));
+    }
+
+    private static Element element(int objectId, String content) {
+        return new Element() {
+            @Override
+            public void setObjectId(int id) {
+                // Fixed for the test
+            }
+
+            @Override
+            public int getObjectId() {
+                return objectId;
+            }
+
+            @Override
+            public byte[] toByte(byte[] encryptionKey) {
+                return bytes(content);
+            }
+        };
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
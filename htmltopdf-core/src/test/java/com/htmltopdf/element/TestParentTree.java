@@ -0,0 +1,216 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.element;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDNumberTreeNode;
+import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDParentTreeValue;
+import org.junit.jupiter.api.Test;
+
+public class TestParentTree {
+    private static final int PARENT_TREE_ID = 4;
+    private static final int FIRST_STRUCT_ELEMENT_ID = 10;
+
+    @Test
+    public void testSmallTreeIsOneNode() throws IOException {
+        ParentTree parentTree = parentTree(3, 3);
+        AtomicInteger objectIds = new AtomicInteger(100);
+        parentTree.buildNodes(objectIds::incrementAndGet);
+
+        try (PDDocument document = Loader.loadPDF(write(parentTree, 3))) {
+            PDNumberTreeNode root = document.getDocumentCatalog().getStructureTreeRoot().getParentTree();
+            assertNull(root.getKids());
+            assertNotNull(root.getCOSObject().getCOSArray(COSName.NUMS));
+            assertKeysResolve(root, 3);
+        }
+        assertEquals(100, objectIds.get());
+    }
+
+    @Test
+    public void testBalancedMultiLevelTree() throws IOException {
+        // 20 entries in leaves of 3 need 7 leaves under 3 intermediate nodes
+        ParentTree parentTree = parentTree(3, 20);
+        parentTree.buildNodes(new AtomicInteger(100)::incrementAndGet);
+
+        try (PDDocument document = Loader.loadPDF(write(parentTree, 20))) {
+            PDNumberTreeNode root = document.getDocumentCatalog().getStructureTreeRoot().getParentTree();
+            COSDictionary rootDictionary = root.getCOSObject();
+            assertTrue(rootDictionary.containsKey(COSName.KIDS));
+            assertFalse(rootDictionary.containsKey(COSName.LIMITS));
+            assertFalse(rootDictionary.containsKey(COSName.NUMS));
+            assertEquals(3, root.getKids().size());
+
+            Set<Integer> leafDepths = new TreeSet<>();
+            List<Integer> leafSizes = new ArrayList<>();
+            checkNode(root, 0, leafDepths, leafSizes);
+            assertEquals(Set.of(2), leafDepths);
+            assertEquals(7, leafSizes.size());
+            for (int leafSize : leafSizes) {
+                assertTrue(leafSize == 2 || leafSize == 3, "Leaf of " + leafSize + " entries");
+            }
+            assertKeysResolve(root, 20);
+        }
+    }
+
+    @Test
+    public void testTreeIsRebuiltAfterEntriesAreAdded() throws IOException {
+        ParentTree parentTree = parentTree(3, 5);
+        AtomicInteger objectIds = new AtomicInteger(100);
+        parentTree.buildNodes(objectIds::incrementAndGet);
+        assertEquals(102, objectIds.get());
+
+        for (int key = 5; key < 15; key++) {
+            parentTree.addNums(num(key));
+        }
+        parentTree.buildNodes(objectIds::incrementAndGet);
+
+        try (PDDocument document = Loader.loadPDF(write(parentTree, 15))) {
+            PDNumberTreeNode root = document.getDocumentCatalog().getStructureTreeRoot().getParentTree();
+            assertKeysResolve(root, 15);
+        }
+        // The two nodes of the first build are reused by the five leaves and two intermediate nodes
+        assertEquals(107, objectIds.get());
+    }
+
+    private static void checkNode(PDNumberTreeNode node, int depth, Set<Integer> leafDepths, List<Integer> leafSizes) throws IOException {
+        if (depth > 0) {
+            assertNotNull(node.getLowerLimit());
+            assertNotNull(node.getUpperLimit());
+        }
+        if (node.getKids() == null) {
+            leafDepths.add(depth);
+            leafSizes.add(node.getNumbers().size());
+            return;
+        }
+        for (PDNumberTreeNode kid : node.getKids()) {
+            assertTrue(kid.getLowerLimit() >= (depth > 0 ? node.getLowerLimit() : 0));
+            checkNode(kid, depth + 1, leafDepths, leafSizes);
+        }
+    }
+
+    private static void assertKeysResolve(PDNumberTreeNode root, int entries) throws IOException {
+        for (int key = 0; key < entries; key++) {
+            PDParentTreeValue value = (PDParentTreeValue) root.getValue(key);
+            assertNotNull(value, "Key " + key);
+            COSBase cosValue = value.getCOSObject();
+            COSDictionary structElement = cosValue instanceof COSArray array
+                ? (COSDictionary) array.getObject(0) : (COSDictionary) cosValue;
+            assertEquals(key, structElement.getInt(COSName.K), "Key " + key);
+        }
+    }
+
+    private static ParentTree parentTree(int leafSize, int entries) {
+        ParentTree parentTree = new ParentTree();
+        parentTree.setObjectId(PARENT_TREE_ID);
+        parentTree.setLeafSize(leafSize);
+        for (int key = 0; key < entries; key++) {
+            parentTree.addNums(num(key));
+        }
+
+        return parentTree;
+    }
+
+    /**
+     * Builds the number array of a key, even keys reference the
+     * structure element directly like an annotation
+     */
+    private static Num num(int key) {
+        Num num = new Num();
+        num.setIsAnnotation(key % 2 == 0);
+        num.addReference(new Element() {
+            @Override
+            public void setObjectId(int objectId) {
+                // Fixed for the test
+            }
+
+            @Override
+            public int getObjectId() {
+                return FIRST_STRUCT_ELEMENT_ID + key;
+            }
+
+            @Override
+            public byte[] toByte(byte[] encryptionKey) {
+                return new byte[0];
+            }
+        });
+
+        return num;
+    }
+
+    private static byte[] write(ParentTree parentTree, int entries) {
+        TreeMap<Integer, String> objects = new TreeMap<>();
+        objects.put(1, "<< /Type /Catalog /Pages 2 0 R /StructTreeRoot 3 0 R >>");
+        objects.put(2, "<< /Type /Pages /Kids [] /Count 0 >>");
+        objects.put(3, "<< /Type /StructTreeRoot /ParentTree " + PARENT_TREE_ID + " 0 R >>");
+        for (int key = 0; key < entries; key++) {
+            objects.put(FIRST_STRUCT_ELEMENT_ID + key, "<< /Type /StructElem /K " + key + " >>");
+        }
+
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        TreeMap<Integer, Integer> offsets = new TreeMap<>();
+        pdf.writeBytes("%PDF-1.7\n".getBytes(StandardCharsets.ISO_8859_1));
+        for (var object : objects.entrySet()) {
+            offsets.put(object.getKey(), pdf.size());
+            pdf.writeBytes((object.getKey() + " 0 obj\n" + object.getValue() + "\nendobj\n").getBytes(StandardCharsets.ISO_8859_1));
+        }
+        List<Element> elements = new ArrayList<>();
+        new ElementWalker(elements::add).walk(parentTree);
+        for (Element element : elements) {
+            if (!(element instanceof Num)) {
+                offsets.put(element.getObjectId(), pdf.size());
+                pdf.writeBytes(element.toByte(null));
+            }
+        }
+
+        int xref = pdf.size();
+        int size = offsets.lastKey() + 1;
+        StringBuilder sb = new StringBuilder();
+        sb.append("xref\n0 " + size + "\n");
+        for (int objectId = 0; objectId < size; objectId++) {
+            Integer offset = offsets.get(objectId);
+            sb.append(offset == null ? "0000000000 65535 f\r\n" : String.format("%010d 00000 n\r\n", offset));
+        }
+        sb.append("trailer\n<< /Size " + size + " /Root 1 0 R >>\nstartxref\n" + xref + "\n%%EOF\n");
+        pdf.writeBytes(sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+
+        return pdf.toByteArray();
+    }
+}
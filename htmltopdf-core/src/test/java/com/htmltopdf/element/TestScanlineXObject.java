@@ -0,0 +1,71 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.element;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.htmltopdf.image.ScanlineSource;
+
+public class TestScanlineXObject {
+
+    @Test
+    public void testSecondWriteFails() throws IOException {
+        boolean[] closed = new boolean[1];
+        ScanlineXObject xObject = new ScanlineXObject(new ScanlineSource() {
+            @Override
+            public int getWidth() {
+                return 4;
+            }
+
+            @Override
+            public int getHeight() {
+                return 4;
+            }
+
+            @Override
+            public int getComponents() {
+                return 1;
+            }
+
+            @Override
+            public void readRow(int y, byte[] row) {
+                Arrays.fill(row, (byte) (y * 64));
+            }
+
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        });
+        xObject.setObjectId(1);
+        xObject.getStreamLength().setObjectId(2);
+
+        xObject.write(new ByteArrayOutputStream(), null);
+        assertTrue(closed[0]);
+        assertThrows(IllegalStateException.class, () -> xObject.write(new ByteArrayOutputStream(), null));
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.htmltopdf.element;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class TestSignatureElement {
+
+    @Test
+    public void testLargeByteRangeFitsPlaceholder() {
+        SignatureElement signature = new SignatureElement(null);
+        signature.setObjectId(12);
+        int contentsOffset = signature.getContentsOffset();
+        byte[] dictionary = new byte[contentsOffset];
+
+        // The offsets of a file over 10 GB have 11 digits
+        signature.setByteRange(new long[] {0, 12345678901L, 12345695287L, 98765432109L});
+        signature.writeByteRange(dictionary);
+
+        assertEquals(contentsOffset, signature.getContentsOffset());
+        String start = new String(dictionary, StandardCharsets.ISO_8859_1);
+        assertTrue(start.matches("(?s).*/ByteRange \\[0 +12345678901 +12345695287 +98765432109 *\\]\n/Contents $"), start);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.htmltopdf.element;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.COSObjectable;
+import org.apache.pdfbox.pdmodel.common.PDNumberTreeNode;
+import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDMarkedContentReference;
+import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDStructureElement;
+import org.apache.pdfbox.pdmodel.documentinterchange.logicalstructure.PDStructureTreeRoot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.htmltopdf.fonts.Font;
+import com.htmltopdf.fonts.FontName;
+import com.htmltopdf.renderer.PDFRenderer;
+
+public class TestStructElement {
+    @TempDir
+    Path tempDir;
+
+    private PDFRenderer renderer;
+    private StructElement document;
+    private ParentTree parentTree;
+    private Font font;
+
+    @Test
+    public void testInlineMarkedContent() throws IOException {
+        createDocument();
+        Page first = addPage();
+        Page second = addPage();
+
+        // A paragraph continued on the next page, its second MCID is on another page
+        StructElement paragraph = structElement(StructElement.P, first);
+        paragraph.addMcid(first, drawText(first, "Starts on the first page"));
+        paragraph.addMcid(second, drawText(second, "Ends on the second page"));
+        StructElement header = structElement(StructElement.H1, second);
+        header.addMcid(second, drawText(second, "Second page header"));
+        nums(first).addReference(paragraph);
+        nums(second).addReference(paragraph);
+        nums(second).addReference(header);
+
+        byte[] pdf = write();
+        String text = new String(pdf, StandardCharsets.ISO_8859_1);
+        assertTrue(text.contains("/K [0 << /Type /MCR /Pg " + second.getObjectId() + " 0 R /MCID 0 >>]"), "Inline MCIDs of the paragraph");
+        assertTrue(text.contains("/Nums [0 [" + paragraph.getObjectId() + " 0 R] 1 [" + paragraph.getObjectId() + " 0 R "
+                + header.getObjectId() + " 0 R]]"), "Inline parent tree entries");
+        assertEquals(0, nums(first).getObjectId());
+
+        try (PDDocument loaded = Loader.loadPDF(pdf)) {
+            PDStructureTreeRoot root = loaded.getDocumentCatalog().getStructureTreeRoot();
+            PDStructureElement documentElement = (PDStructureElement) root.getKids().get(0);
+            PDStructureElement loadedParagraph = (PDStructureElement) documentElement.getKids().get(0);
+            PDStructureElement loadedHeader = (PDStructureElement) documentElement.getKids().get(1);
+
+            List<Object> kids = loadedParagraph.getKids();
+            assertEquals(2, kids.size());
+            assertEquals(0, kids.get(0));
+            assertEquals(loaded.getPage(0).getCOSObject(), loadedParagraph.getPage().getCOSObject());
+            PDMarkedContentReference mcr = assertInstanceOf(PDMarkedContentReference.class, kids.get(1));
+            assertEquals(0, mcr.getMCID());
+            assertEquals(loaded.getPage(1).getCOSObject(), mcr.getPage().getCOSObject());
+            assertEquals(List.of(1), loadedHeader.getKids());
+            assertEquals(loaded.getPage(1).getCOSObject(), loadedHeader.getPage().getCOSObject());
+
+            // Each MCID of a page resolves through its parent tree entry to the element that owns it
+            PDNumberTreeNode tree = root.getParentTree();
+            COSArray firstEntry = (COSArray) ((COSObjectable) tree.getValue(loaded.getPage(0).getStructParents())).getCOSObject();
+            assertEquals(1, firstEntry.size());
+            assertSame(loadedParagraph.getCOSObject(), firstEntry.getObject(0));
+            COSArray secondEntry = (COSArray) ((COSObjectable) tree.getValue(loaded.getPage(1).getStructParents())).getCOSObject();
+            assertEquals(2, secondEntry.size());
+            assertSame(loadedParagraph.getCOSObject(), secondEntry.getObject(mcr.getMCID()));
+            assertSame(loadedHeader.getCOSObject(), secondEntry.getObject((Integer) loadedHeader.getKids().get(0)));
+        }
+    }
+
+    private void createDocument() throws IOException {
+        renderer = new PDFRenderer();
+        font = renderer.getFont(FontName.HELVETICA);
+        Info info = new Info();
+        info.setObjectId(renderer.getNextObjectId());
+        info.setTitle("Inline marked content");
+        renderer.setInfo(info);
+        XmpMetaData metaData = new XmpMetaData();
+        metaData.setObjectId(renderer.getNextObjectId());
+        metaData.setInfo(info);
+        renderer.getCatalog().setMetaData(metaData);
+
+        document = new StructElement(StructElement.DOCUMENT);
+        document.setObjectId(renderer.getNextObjectId());
+        document.setParent(renderer.getCatalog().getStructTreeRoot());
+        renderer.getCatalog().getStructTreeRoot().addKid(document);
+        parentTree = new ParentTree();
+        parentTree.setObjectId(renderer.getNextObjectId());
+        renderer.getCatalog().getStructTreeRoot().setParentTree(parentTree);
+    }
+
+    private Page addPage() {
+        Page page = new Page(Page.Size.LETTER);
+        renderer.addNewPage(page);
+        page.addContent(new ContentStream(renderer.getNextObjectId()));
+        parentTree.addNums(new Num());
+
+        return page;
+    }
+
+    private Num nums(Page page) {
+        return parentTree.getNums().get(page.getStructParents());
+    }
+
+    private int drawText(Page page, String text) {
+        int mcid = page.getMcidCount();
+        page.setMcidCount(mcid + 1);
+        TextContent textContent = new TextContent(page, StructElement.P, font, 12, mcid);
+        textContent.addLines(List.of(text));
+        textContent.setPosition(50, 700 - 20 * mcid);
+        page.getContents().get(0).addContent(textContent);
+
+        return mcid;
+    }
+
+    private StructElement structElement(String type, Page page) {
+        StructElement structElement = new StructElement(type);
+        structElement.setObjectId(renderer.getNextObjectId());
+        structElement.setParent(document);
+        structElement.setPage(page);
+        document.addKid(structElement);
+
+        return structElement;
+    }
+
+    private byte[] write() throws IOException {
+        File file = tempDir.resolve("structure.pdf").toFile();
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            renderer.write(outputStream);
+        }
+
+        return Files.readAllBytes(file.toPath());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.element;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.junit.jupiter.api.Test;
+
+import com.htmltopdf.image.ByteArrayImageSource;
+import com.htmltopdf.image.ImageInfo;
+
+public class TestXObject {
+
+    @Test
+    public void testInlineImageDataContainingEI() throws IOException {
+        // Stored deflate blocks keep the pixels as they are, so the data holds the EI operator
+        byte[] pixels = "\nEI \u0000\u0001\u00fe\u00ff\u0080EI\n\u0002\u0003\u0004\u0005\u0006\u0007 EI \u00fa\u00fb\u00fc\u00fd\u00fe\u00ff"
+            .getBytes(StandardCharsets.ISO_8859_1);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream outputStream = new DeflaterOutputStream(compressed, new Deflater(Deflater.NO_COMPRESSION))) {
+            outputStream.write(pixels);
+        }
+        byte[] data = compressed.toByteArray();
+
+        ImageInfo imageInfo = new ImageInfo();
+        imageInfo.setSize(pixels.length / 2, 2);
+        imageInfo.setComponents(1);
+        imageInfo.setBitsPerComponent(8);
+        imageInfo.setColorSpace(ImageInfo.DEVICE_GRAY);
+        imageInfo.setFilter(ImageInfo.FLATE_DECODE);
+        imageInfo.setImageSource(new ByteArrayImageSource(data));
+        XObject xObject = new XObject(XObject.IMAGE);
+        xObject.setImageInfo(imageInfo);
+        xObject.setInline(true);
+
+        byte[] content = new DrawImage(xObject, 0, 0, 16, 2).toByte(null);
+        // The data ends where /L says, right before the EI operator
+        String text = new String(content, StandardCharsets.ISO_8859_1);
+        int dataStart = text.indexOf("ID ") + 3;
+        assertTrue(text.contains("/L " + data.length + "\n"));
+        assertArrayEquals(data, Arrays.copyOfRange(content, dataStart, dataStart + data.length));
+        assertEquals("\nEI\n", text.substring(dataStart + data.length, dataStart + data.length + 4));
+
+        List<Object> tokens = new ArrayList<>();
+        PDFStreamParser parser = new PDFStreamParser(content);
+        for (Object token = parser.parseNextToken(); token != null; token = parser.parseNextToken()) {
+            tokens.add(token);
+        }
+
+        Operator inlineImage = null;
+        List<String> operators = new ArrayList<>();
+        for (Object token : tokens) {
+            if (token instanceof Operator operator) {
+                operators.add(operator.getName());
+                if ("BI".equals(operator.getName())) {
+                    inlineImage = operator;
+                }
+            }
+        }
+        assertTrue(inlineImage != null, "No inline image in " + operators);
+        assertEquals(data.length, inlineImage.getImageParameters().getInt(COSName.L));
+        // PDFBox keeps the end of line before EI with the data
+        assertArrayEquals(data, Arrays.copyOf(inlineImage.getImageData(), data.length));
+        assertEquals(data.length + 1, inlineImage.getImageData().length);
+        assertEquals(List.of("BMC", "q", "cm", "BI", "Q", "EMC"), operators);
+    }
+}
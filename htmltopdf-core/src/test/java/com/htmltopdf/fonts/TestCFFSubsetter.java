@@ -0,0 +1,168 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.fonts;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.fontbox.cff.CFFFont;
+import org.apache.fontbox.cff.CFFParser;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.junit.jupiter.api.Test;
+
+public class TestCFFSubsetter {
+    private static final int GLYPH_COUNT = 5;
+
+    @Test
+    public void testUnusedGlyphsBecomeEndchar() throws IOException {
+        byte[] cff = buildFont(false);
+        CFFFont original = parse(cff);
+
+        CFFFont subset = parse(new CFFSubsetter(cff).subset(Set.of(2, 4)));
+
+        assertEquals("Test", subset.getName());
+        assertEquals(GLYPH_COUNT, subset.getNumCharStrings());
+        List<byte[]> charStrings = subset.getCharStringBytes();
+        assertArrayEquals(original.getCharStringBytes().get(0), charStrings.get(0));
+        assertArrayEquals(new byte[] {14}, charStrings.get(1));
+        assertArrayEquals(original.getCharStringBytes().get(2), charStrings.get(2));
+        assertArrayEquals(new byte[] {14}, charStrings.get(3));
+        assertArrayEquals(original.getCharStringBytes().get(4), charStrings.get(4));
+        for (int gid = 1; gid < GLYPH_COUNT; gid++) {
+            assertEquals(original.getCharset().getNameForGID(gid), subset.getCharset().getNameForGID(gid));
+        }
+        assertEquals(original.getType2CharString(2).getPath().getBounds2D(),
+                subset.getType2CharString(2).getPath().getBounds2D());
+    }
+
+    @Test
+    public void testCIDKeyedFontRejected() {
+        CFFSubsetter subsetter = new CFFSubsetter(buildFont(true));
+
+        assertThrows(IllegalArgumentException.class, () -> subsetter.subset(Set.of(1)));
+    }
+
+    private CFFFont parse(byte[] cff) throws IOException {
+        return new CFFParser().parse(new RandomAccessReadBuffer(cff)).get(0);
+    }
+
+    /**
+     * Builds a name keyed CFF font program with a square glyph of a
+     * different size for each glyph id, the charset names them A, B, ...
+     * @param cidKeyed boolean true to add a ROS operator to the Top DICT
+     * @return byte array of the CFF font program
+     */
+    private byte[] buildFont(boolean cidKeyed) {
+        ByteArrayOutputStream charset = new ByteArrayOutputStream();
+        charset.write(0);
+        for (int gid = 1; gid < GLYPH_COUNT; gid++) {
+            // Standard string 34 is "A"
+            writeCard16(charset, 33 + gid);
+        }
+        ByteArrayOutputStream[] glyphs = new ByteArrayOutputStream[GLYPH_COUNT];
+        glyphs[0] = new ByteArrayOutputStream();
+        glyphs[0].write(14);
+        for (int gid = 1; gid < GLYPH_COUNT; gid++) {
+            int size = 20 * gid;
+            glyphs[gid] = new ByteArrayOutputStream();
+            glyphs[gid].writeBytes(new byte[] {(byte) 139, (byte) 139, 21});
+            glyphs[gid].writeBytes(new byte[] {(byte) (139 + size), (byte) 139, 5});
+            glyphs[gid].writeBytes(new byte[] {(byte) 139, (byte) (139 + size), 5});
+            glyphs[gid].writeBytes(new byte[] {(byte) (139 - size), (byte) 139, 5, 14});
+        }
+        byte[] charStrings = writeIndex(glyphs);
+        byte[] privateDict = {(byte) 139, 20};
+
+        byte[] nameIndex = writeIndex(bytes("Test"));
+        int topDictSize = (cidKeyed ? 5 : 0) + 6 + 6 + 11;
+        int charsetOffset = 4 + nameIndex.length + (2 + 1 + 8 + topDictSize) + 2 + 2;
+        int charStringsOffset = charsetOffset + charset.size();
+        int privateOffset = charStringsOffset + charStrings.length;
+
+        ByteArrayOutputStream topDict = new ByteArrayOutputStream();
+        if (cidKeyed) {
+            topDict.writeBytes(new byte[] {(byte) 140, (byte) 140, (byte) 139, 12, 30});
+        }
+        writeInt(topDict, charsetOffset);
+        topDict.write(15);
+        writeInt(topDict, charStringsOffset);
+        topDict.write(17);
+        writeInt(topDict, privateDict.length);
+        writeInt(topDict, privateOffset);
+        topDict.write(18);
+
+        ByteArrayOutputStream cff = new ByteArrayOutputStream();
+        cff.writeBytes(new byte[] {1, 0, 4, 4});
+        cff.writeBytes(nameIndex);
+        cff.writeBytes(writeIndex(topDict));
+        cff.writeBytes(new byte[] {0, 0, 0, 0});
+        cff.writeBytes(charset.toByteArray());
+        cff.writeBytes(charStrings);
+        cff.writeBytes(privateDict);
+
+        return cff.toByteArray();
+    }
+
+    private ByteArrayOutputStream bytes(String value) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        outputStream.writeBytes(value.getBytes(StandardCharsets.ISO_8859_1));
+
+        return outputStream;
+    }
+
+    private byte[] writeIndex(ByteArrayOutputStream... entries) {
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        writeCard16(index, entries.length);
+        index.write(4);
+        int offset = 1;
+        writeCard32(index, offset);
+        for (ByteArrayOutputStream entry : entries) {
+            offset += entry.size();
+            writeCard32(index, offset);
+        }
+        for (ByteArrayOutputStream entry : entries) {
+            index.writeBytes(entry.toByteArray());
+        }
+
+        return index.toByteArray();
+    }
+
+    private void writeInt(ByteArrayOutputStream outputStream, int value) {
+        outputStream.write(29);
+        writeCard32(outputStream, value);
+    }
+
+    private void writeCard16(ByteArrayOutputStream outputStream, int value) {
+        outputStream.write(value >> 8);
+        outputStream.write(value);
+    }
+
+    private void writeCard32(ByteArrayOutputStream outputStream, int value) {
+        writeCard16(outputStream, value >> 16);
+        writeCard16(outputStream, value);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.function.BiPredicate;
+
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.filter.Filter;
+import org.apache.pdfbox.filter.FilterFactory;
+import org.junit.jupiter.api.Test;
+
+public class TestCCITTFaxEncoder {
+
+    @Test
+    public void testAllWhite() throws IOException {
+        assertRoundTrip(64, 16, (x, y) -> false);
+    }
+
+    @Test
+    public void testAllBlack() throws IOException {
+        assertRoundTrip(64, 16, (x, y) -> true);
+    }
+
+    @Test
+    public void testCheckerboard() throws IOException {
+        assertRoundTrip(64, 64, (x, y) -> ((x / 4) + (y / 4)) % 2 == 0);
+        assertRoundTrip(32, 8, (x, y) -> (x + y) % 2 == 0);
+    }
+
+    @Test
+    public void testWidthNotMultipleOfEight() throws IOException {
+        assertRoundTrip(13, 9, (x, y) -> (x * y) % 3 == 0);
+        assertRoundTrip(37, 21, (x, y) -> x > y);
+        assertRoundTrip(1, 5, (x, y) -> y % 2 == 0);
+    }
+
+    @Test
+    public void testLongRunsWithMakeupCodes() throws IOException {
+        // Runs longer than 2560 need the extended makeup codes
+        assertRoundTrip(6000, 6, (x, y) -> y % 2 == 0 ? x >= 100 && x < 5300 : x < 2561 || x == 5999);
+    }
+
+    @Test
+    public void testNoise() throws IOException {
+        Random random = new Random(42);
+        boolean[][] pixels = new boolean[50][203];
+        for (boolean[] row : pixels) {
+            for (int x = 0; x < row.length; x++) {
+                row[x] = random.nextInt(4) == 0;
+            }
+        }
+        assertRoundTrip(203, 50, (x, y) -> pixels[y][x]);
+    }
+
+    private static void assertRoundTrip(int width, int height, BiPredicate<Integer, Integer> black) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, black.test(x, y) ? 0x000000 : 0xFFFFFF);
+            }
+        }
+
+        ImageInfo imageInfo = CCITTFaxEncoder.encode(image, 128);
+        byte[] decoded = decode(imageInfo);
+        int stride = (width + 7) / 8;
+        assertEquals(stride * height, decoded.length);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean white = (decoded[y * stride + x / 8] & (0x80 >> (x % 8))) != 0;
+                assertEquals(black.test(x, y), !white, "Pixel " + x + "," + y + " of " + width + "x" + height);
+            }
+        }
+    }
+
+    private static byte[] decode(ImageInfo imageInfo) throws IOException {
+        COSDictionary decodeParms = new COSDictionary();
+        decodeParms.setInt(COSName.K, -1);
+        decodeParms.setInt(COSName.COLUMNS, imageInfo.getWidth());
+        decodeParms.setInt(COSName.ROWS, imageInfo.getHeight());
+        COSDictionary parameters = new COSDictionary();
+        parameters.setItem(COSName.FILTER, COSName.CCITTFAX_DECODE);
+        parameters.setItem(COSName.DECODE_PARMS, decodeParms);
+        parameters.setInt(COSName.WIDTH, imageInfo.getWidth());
+        parameters.setInt(COSName.HEIGHT, imageInfo.getHeight());
+
+        Filter filter = FilterFactory.INSTANCE.getFilter(COSName.CCITTFAX_DECODE);
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        try (InputStream encoded = imageInfo.getImageSource().openStream()) {
+            filter.decode(new ByteArrayInputStream(encoded.readAllBytes()), decoded, parameters, 0);
+        }
+
+        return decoded.toByteArray();
+    }
+}
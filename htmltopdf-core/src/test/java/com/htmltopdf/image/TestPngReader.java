@@ -0,0 +1,230 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.filter.FilterFactory;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.junit.jupiter.api.Test;
+
+public class TestPngReader {
+    private static final int WIDTH = 13;
+    private static final int HEIGHT = 7;
+
+    @Test
+    public void testGray() throws IOException {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_GRAY);
+        fill(image, (x, y, band) -> (x * 19 + y * 7) & 0xFF);
+
+        ImageInfo imageInfo = read(image, false);
+
+        assertEquals(ImageInfo.DEVICE_GRAY, imageInfo.getColorSpace());
+        assertEquals(1, imageInfo.getComponents());
+        assertEquals(8, imageInfo.getBitsPerComponent());
+        assertNull(imageInfo.getAlpha());
+        assertSamples(image, imageInfo, 1);
+    }
+
+    @Test
+    public void testRgb() throws IOException {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+        fill(image, (x, y, band) -> (x * 19 + y * 7 + band * 50) & 0xFF);
+
+        ImageInfo imageInfo = read(image, false);
+
+        assertEquals(ImageInfo.DEVICE_RGB, imageInfo.getColorSpace());
+        assertEquals(3, imageInfo.getComponents());
+        assertNull(imageInfo.getAlpha());
+        assertSamples(image, imageInfo, 3);
+    }
+
+    @Test
+    public void testPaletteWithTransparency() throws IOException {
+        byte[] red = {0, (byte) 255, 0, 0};
+        byte[] green = {0, 0, (byte) 255, 0};
+        byte[] blue = {0, 0, 0, (byte) 255};
+        byte[] alpha = {0, (byte) 128, (byte) 255, (byte) 255};
+        IndexColorModel colorModel = new IndexColorModel(2, 4, red, green, blue, alpha);
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_BINARY, colorModel);
+        fill(image, (x, y, band) -> (x + y) % 4);
+
+        ImageInfo imageInfo = read(image, false);
+
+        assertTrue(imageInfo.getColorSpace().startsWith("[/Indexed /DeviceRGB 3 <"));
+        assertEquals(1, imageInfo.getComponents());
+        assertEquals(2, imageInfo.getBitsPerComponent());
+        assertSamples(image, imageInfo, 1);
+        ImageInfo softMask = imageInfo.getAlpha();
+        assertNotNull(softMask);
+        byte[] maskSamples = decode(softMask);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(alpha[(x + y) % 4] & 0xFF, maskSamples[y * WIDTH + x] & 0xFF, "Alpha of pixel " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    public void testRgba() throws IOException {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, (x * 19 << 24) | (x * 7 << 16) | (y * 30 << 8) | (x + y));
+            }
+        }
+
+        ImageInfo imageInfo = read(image, false);
+
+        assertEquals(ImageInfo.DEVICE_RGB, imageInfo.getColorSpace());
+        assertEquals(3, imageInfo.getComponents());
+        byte[] colorSamples = decode(imageInfo);
+        byte[] alphaSamples = decode(imageInfo.getAlpha());
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int argb = image.getRGB(x, y);
+                int pixel = (y * WIDTH + x) * 3;
+                assertEquals((argb >> 16) & 0xFF, colorSamples[pixel] & 0xFF);
+                assertEquals((argb >> 8) & 0xFF, colorSamples[pixel + 1] & 0xFF);
+                assertEquals(argb & 0xFF, colorSamples[pixel + 2] & 0xFF);
+                assertEquals(argb >>> 24, alphaSamples[y * WIDTH + x] & 0xFF);
+            }
+        }
+    }
+
+    @Test
+    public void testSixteenBitGray() throws IOException {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_USHORT_GRAY);
+        fill(image, (x, y, band) -> x * 4000 + y * 37);
+
+        ImageInfo imageInfo = read(image, false);
+
+        assertEquals(ImageInfo.DEVICE_GRAY, imageInfo.getColorSpace());
+        assertEquals(16, imageInfo.getBitsPerComponent());
+        assertSamples(image, imageInfo, 1);
+    }
+
+    @Test
+    public void testInterlaced() throws IOException {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_3BYTE_BGR);
+        fill(image, (x, y, band) -> (x * 19 + y * 7 + band * 50) & 0xFF);
+
+        ImageInfo imageInfo = read(image, true);
+
+        assertEquals(ImageInfo.DEVICE_RGB, imageInfo.getColorSpace());
+        assertSamples(image, imageInfo, 3);
+    }
+
+    @Test
+    public void testNotPng() {
+        PngReader reader = new PngReader(new ByteArrayImageSource(new byte[16]));
+
+        IOException ioEx = assertThrows(IOException.class, reader::read);
+        assertEquals("Image is not a PNG image", ioEx.getMessage());
+    }
+
+    private interface Sample {
+        int get(int x, int y, int band);
+    }
+
+    private static void fill(BufferedImage image, Sample sample) {
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                for (int band = 0; band < image.getRaster().getNumBands(); band++) {
+                    image.getRaster().setSample(x, y, band, sample.get(x, y, band));
+                }
+            }
+        }
+    }
+
+    private static void assertSamples(BufferedImage image, ImageInfo imageInfo, int components) throws IOException {
+        byte[] samples = decode(imageInfo);
+        int bitsPerComponent = imageInfo.getBitsPerComponent();
+        int stride = (WIDTH * components * bitsPerComponent + 7) / 8;
+        assertEquals(stride * HEIGHT, samples.length);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                for (int band = 0; band < components; band++) {
+                    int bit = (x * components + band) * bitsPerComponent;
+                    int value;
+                    if (bitsPerComponent == 16) {
+                        value = ((samples[y * stride + bit / 8] & 0xFF) << 8) | (samples[y * stride + bit / 8 + 1] & 0xFF);
+                    } else {
+                        value = ((samples[y * stride + bit / 8] & 0xFF) >> (8 - bitsPerComponent - bit % 8)) & ((1 << bitsPerComponent) - 1);
+                    }
+                    assertEquals(image.getRaster().getSample(x, y, band), value, "Sample " + band + " of pixel " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    private static ImageInfo read(BufferedImage image, boolean interlaced) throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        try (ImageOutputStream outputStream = ImageIO.createImageOutputStream(png)) {
+            writer.setOutput(outputStream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setProgressiveMode(interlaced ? ImageWriteParam.MODE_DEFAULT : ImageWriteParam.MODE_DISABLED);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+
+        return new PngReader(new ByteArrayImageSource(png.toByteArray())).read();
+    }
+
+    private static byte[] decode(ImageInfo imageInfo) throws IOException {
+        assertEquals(ImageInfo.FLATE_DECODE, imageInfo.getFilter());
+        COSDictionary parameters = new COSDictionary();
+        parameters.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+        if (imageInfo.getDecodeParms() != null) {
+            byte[] decodeParms = imageInfo.getDecodeParms().getBytes(StandardCharsets.ISO_8859_1);
+            parameters.setItem(COSName.DECODE_PARMS, (COSDictionary) new PDFStreamParser(decodeParms).parseNextToken());
+        }
+
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        try (InputStream encoded = imageInfo.getImageSource().openStream()) {
+            FilterFactory.INSTANCE.getFilter(COSName.FLATE_DECODE)
+                .decode(new ByteArrayInputStream(encoded.readAllBytes()), decoded, parameters, 0);
+        }
+
+        return decoded.toByteArray();
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.htmltopdf.renderer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNumber;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationWidget;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceStream;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDCheckBox;
+import org.apache.pdfbox.pdmodel.interactive.form.PDComboBox;
+import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.htmltopdf.element.AcroForm;
+import com.htmltopdf.element.AppearanceStream;
+import com.htmltopdf.element.FormElement;
+import com.htmltopdf.element.Info;
+import com.htmltopdf.element.Num;
+import com.htmltopdf.element.Page;
+import com.htmltopdf.element.ParentTree;
+import com.htmltopdf.element.StructElement;
+import com.htmltopdf.element.Widget;
+import com.htmltopdf.element.XmpMetaData;
+import com.htmltopdf.fonts.Font;
+import com.htmltopdf.fonts.FontName;
+
+public class TestAppearanceStreams {
+    private static final float PADDING = 2;
+    private static final float TOLERANCE = 0.05f;
+
+    @TempDir
+    Path tempDir;
+
+    private PDFRenderer renderer;
+    private StructElement document;
+    private ParentTree parentTree;
+    private AcroForm acroForm;
+    private Font font;
+    private Page page;
+
+    @Test
+    public void testTextAlignments() throws IOException {
+        createDocument();
+        addField(Widget.TEXT, "Left", "Left text", AppearanceStream.ALIGN_LEFT, 10, 0, 700);
+        addField(Widget.TEXT, "Center", "Centered text", AppearanceStream.ALIGN_CENTER, 10, 0, 660);
+        addField(Widget.TEXT, "Right", "Right text", AppearanceStream.ALIGN_RIGHT, 10, 0, 620);
+
+        try (PDDocument pdf = Loader.loadPDF(write())) {
+            PDAcroForm form = pdf.getDocumentCatalog().getAcroForm();
+            assertFalse(form.getNeedAppearances());
+
+            Shown left = show(((PDTextField) form.getField("Left")).getWidgets().get(0));
+            assertEquals(List.of("Left text"), left.texts);
+            assertEquals(PADDING, left.x.get(0), TOLERANCE);
+
+            Shown center = show(((PDTextField) form.getField("Center")).getWidgets().get(0));
+            assertEquals(List.of("Centered text"), center.texts);
+            float centerStart = center.x.get(0) - PADDING;
+            float centerEnd = center.width - PADDING - (center.x.get(0) + center.textWidth(0));
+            assertTrue(centerStart > PADDING, "Centered text starts at the padding");
+            assertEquals(centerStart, centerEnd, TOLERANCE);
+
+            Shown right = show(((PDTextField) form.getField("Right")).getWidgets().get(0));
+            assertEquals(List.of("Right text"), right.texts);
+            assertEquals(right.width - PADDING, right.x.get(0) + right.textWidth(0), TOLERANCE);
+        }
+    }
+
+    @Test
+    public void testMultiLineText() throws IOException {
+        createDocument();
+        String value = "The quick brown fox jumps over the lazy dog\nSecond paragraph";
+        addField(Widget.TEXT, "Comments", value, AppearanceStream.ALIGN_LEFT, 10, Widget.MULTILINE, 600);
+
+        try (PDDocument pdf = Loader.loadPDF(write())) {
+            PDAcroForm form = pdf.getDocumentCatalog().getAcroForm();
+            assertFalse(form.getNeedAppearances());
+            PDTextField field = (PDTextField) form.getField("Comments");
+            assertTrue(field.isMultiline());
+
+            Shown shown = show(field.getWidgets().get(0));
+            assertTrue(shown.texts.size() > 2, "Long line is wrapped " + shown.texts);
+            assertEquals("Second paragraph", shown.texts.get(shown.texts.size() - 1));
+            assertEquals(value.replace("\n", " "), String.join(" ", shown.texts));
+            for (int i = 0; i < shown.texts.size(); i++) {
+                assertTrue(shown.textWidth(i) <= shown.width - 2 * PADDING, "Line fits the box " + shown.texts.get(i));
+                if (i > 0) {
+                    assertTrue(shown.y.get(i) < shown.y.get(i - 1), "Lines run down the box");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAutoSizedText() throws IOException {
+        createDocument();
+        addField(Widget.TEXT, "Auto", "Auto sized", AppearanceStream.ALIGN_LEFT, 0, 0, 700);
+
+        try (PDDocument pdf = Loader.loadPDF(write())) {
+            PDAcroForm form = pdf.getDocumentCatalog().getAcroForm();
+            assertFalse(form.getNeedAppearances());
+
+            Shown shown = show(((PDTextField) form.getField("Auto")).getWidgets().get(0));
+            assertEquals(List.of("Auto sized"), shown.texts);
+            assertTrue(shown.fontSize > 0 && shown.fontSize <= 12, "Font size " + shown.fontSize);
+            float ascent = font.getFontDecriptor().getAscent() / (float) font.getUnitsPerEm();
+            float descent = font.getFontDecriptor().getDescent() / (float) font.getUnitsPerEm();
+            assertTrue(shown.fontSize * (ascent - descent) <= shown.height - 2 * PADDING + TOLERANCE, "Text fits the height of the box");
+        }
+    }
+
+    @Test
+    public void testCheckBoxStates() throws IOException {
+        createDocument();
+        addField(Widget.BUTTON, "Checked", AppearanceStream.ON, AppearanceStream.ALIGN_LEFT, 10, 0, 700);
+        addField(Widget.BUTTON, "Unchecked", "", AppearanceStream.ALIGN_LEFT, 10, 0, 660);
+
+        try (PDDocument pdf = Loader.loadPDF(write())) {
+            PDAcroForm form = pdf.getDocumentCatalog().getAcroForm();
+            assertFalse(form.getNeedAppearances());
+
+            PDCheckBox checked = (PDCheckBox) form.getField("Checked");
+            assertTrue(checked.isChecked());
+            assertEquals(AppearanceStream.ON, checked.getOnValue());
+            PDAnnotationWidget checkedWidget = checked.getWidgets().get(0);
+            assertEquals(Set.of(COSName.getPDFName(AppearanceStream.ON), COSName.Off),
+                    checkedWidget.getAppearance().getNormalAppearance().getSubDictionary().keySet());
+            assertEquals(AppearanceStream.ON, checkedWidget.getAppearanceState().getName());
+
+            PDCheckBox unchecked = (PDCheckBox) form.getField("Unchecked");
+            assertFalse(unchecked.isChecked());
+            assertEquals(AppearanceStream.OFF, unchecked.getWidgets().get(0).getAppearanceState().getName());
+
+            // The on state draws the cross, the off state only the box
+            PDAppearanceStream on = checkedWidget.getAppearance().getNormalAppearance().getSubDictionary().get(COSName.getPDFName(AppearanceStream.ON));
+            PDAppearanceStream off = checkedWidget.getAppearance().getNormalAppearance().getSubDictionary().get(COSName.Off);
+            assertTrue(operators(on).contains("S"));
+            assertFalse(operators(off).contains("S"));
+        }
+    }
+
+    @Test
+    public void testComboBox() throws IOException {
+        createDocument();
+        Widget widget = addField(Widget.CHOICE, "State", "Ohio", AppearanceStream.ALIGN_LEFT, 10, Widget.COMBO, 700);
+        widget.setOptions(List.of("Indiana", "Ohio", "Texas"));
+
+        try (PDDocument pdf = Loader.loadPDF(write())) {
+            PDAcroForm form = pdf.getDocumentCatalog().getAcroForm();
+            assertFalse(form.getNeedAppearances());
+
+            PDComboBox field = (PDComboBox) form.getField("State");
+            assertEquals(List.of("Indiana", "Ohio", "Texas"), field.getOptions());
+            assertEquals(List.of("Ohio"), field.getValue());
+            Shown shown = show(field.getWidgets().get(0));
+            assertEquals(List.of("Ohio"), shown.texts);
+            assertEquals(PADDING, shown.x.get(0), TOLERANCE);
+        }
+    }
+
+    @Test
+    public void testRadioButtonsNeedAppearances() throws IOException {
+        createDocument();
+        Widget radio = addField(Widget.BUTTON, "Choice", "", AppearanceStream.ALIGN_LEFT, 10, Widget.RADIO, 700);
+
+        assertTrue(radio.isRadio());
+        assertTrue(radio.getAppearanceStreams().isEmpty());
+        assertThrows(IllegalStateException.class, () -> acroForm.setNeedAppearances(false));
+
+        AcroForm withoutRadio = new AcroForm();
+        withoutRadio.setNeedAppearances(false);
+        assertThrows(IllegalStateException.class, () -> withoutRadio.addField(radio));
+    }
+
+    private Shown show(PDAnnotationWidget widget) throws IOException {
+        PDAppearanceStream stream = widget.getAppearance().getNormalAppearance().getAppearanceStream();
+        Shown shown = new Shown();
+        shown.width = stream.getBBox().getWidth();
+        shown.height = stream.getBBox().getHeight();
+        List<Object> operands = new ArrayList<>();
+        for (Object token : new PDFStreamParser(stream).parse()) {
+            if (!(token instanceof Operator operator)) {
+                operands.add(token);
+                continue;
+            }
+            switch (operator.getName()) {
+                case "Tf" -> {
+                    shown.font = stream.getResources().getFont((COSName) operands.get(0));
+                    shown.fontSize = ((COSNumber) operands.get(1)).floatValue();
+                }
+                case "Tm" -> {
+                    shown.x.add(((COSNumber) operands.get(4)).floatValue());
+                    shown.y.add(((COSNumber) operands.get(5)).floatValue());
+                }
+                case "Tj" -> shown.texts.add(((COSString) operands.get(0)).getString());
+                default -> {
+                }
+            }
+            operands.clear();
+        }
+
+        return shown;
+    }
+
+    private List<String> operators(PDAppearanceStream stream) throws IOException {
+        List<String> operators = new ArrayList<>();
+        for (Object token : new PDFStreamParser(stream).parse()) {
+            if (token instanceof Operator operator) {
+                operators.add(operator.getName());
+            }
+        }
+
+        return operators;
+    }
+
+    private void createDocument() throws IOException {
+        renderer = new PDFRenderer();
+        font = renderer.getFont(FontName.HELVETICA);
+        Info info = new Info();
+        info.setObjectId(renderer.getNextObjectId());
+        info.setTitle("Appearance streams");
+        renderer.setInfo(info);
+        XmpMetaData metaData = new XmpMetaData();
+        metaData.setObjectId(renderer.getNextObjectId());
+        metaData.setInfo(info);
+        renderer.getCatalog().setMetaData(metaData);
+
+        document = new StructElement(StructElement.DOCUMENT);
+        document.setObjectId(renderer.getNextObjectId());
+        document.setParent(renderer.getCatalog().getStructTreeRoot());
+        renderer.getCatalog().getStructTreeRoot().addKid(document);
+        parentTree = new ParentTree();
+        parentTree.setObjectId(renderer.getNextObjectId());
+        renderer.getCatalog().getStructTreeRoot().setParentTree(parentTree);
+
+        acroForm = new AcroForm();
+        acroForm.setObjectId(renderer.getNextObjectId());
+        acroForm.addFont(font);
+        acroForm.setNeedAppearances(false);
+        renderer.getCatalog().setAcroForm(acroForm);
+
+        page = new Page(Page.Size.LETTER);
+        renderer.addNewPage(page);
+        parentTree.addNums(new Num());
+    }
+
+    private Widget addField(String type, String name, String value, int alignment, int size, int formFlag, float y) {
+        Widget widget = new Widget(type);
+        widget.setObjectId(renderer.getNextObjectId());
+        widget.setPage(page);
+        widget.setRect(50, y, 250, y + (formFlag == Widget.MULTILINE ? 60 : 20));
+        widget.setFieldName(name);
+        widget.setToolTip(name);
+        widget.setFlag(4);
+        widget.setFormFlag(formFlag);
+        widget.setFont("F1", size);
+        widget.setAlignment(alignment);
+        widget.setValue(value);
+        widget.setStructParents(renderer.getNextParentTreeKey());
+        renderer.addAppearanceStreams(widget, font);
+        page.addAnnotation(widget);
+        if (widget.isRadio()) {
+            acroForm.setNeedAppearances(true);
+        }
+        acroForm.addField(widget);
+
+        FormElement formElement = new FormElement();
+        formElement.setObjectId(renderer.getNextObjectId());
+        formElement.setParent(document);
+        formElement.setPage(page);
+        formElement.setWidget(widget);
+        document.addKid(formElement);
+
+        Num num = new Num();
+        num.setIsAnnotation(true);
+        num.addReference(formElement);
+        parentTree.addNums(num);
+
+        return widget;
+    }
+
+    private File write() throws IOException {
+        File file = tempDir.resolve("appearances.pdf").toFile();
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            renderer.write(outputStream);
+        }
+
+        return file;
+    }
+
+    /**
+     * Text shown by an appearance stream
+     */
+    private static class Shown {
+        private final List<String> texts = new ArrayList<>();
+        private final List<Float> x = new ArrayList<>();
+        private final List<Float> y = new ArrayList<>();
+        private float width;
+        private float height;
+        private PDFont font;
+        private float fontSize;
+
+        private float textWidth(int line) throws IOException {
+            return font.getStringWidth(texts.get(line)) / 1000 * fontSize;
+        }
+    }
+}
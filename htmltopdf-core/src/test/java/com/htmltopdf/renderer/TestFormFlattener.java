@@ -0,0 +1,217 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.renderer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.htmltopdf.element.AcroForm;
+import com.htmltopdf.element.ContentStream;
+import com.htmltopdf.element.FormElement;
+import com.htmltopdf.element.Info;
+import com.htmltopdf.element.MarkedContentRecord;
+import com.htmltopdf.element.Num;
+import com.htmltopdf.element.Page;
+import com.htmltopdf.element.ParentTree;
+import com.htmltopdf.element.StructElement;
+import com.htmltopdf.element.TextContent;
+import com.htmltopdf.element.Widget;
+import com.htmltopdf.element.XmpMetaData;
+import com.htmltopdf.fonts.Font;
+import com.htmltopdf.fonts.FontName;
+
+public class TestFormFlattener {
+    @TempDir
+    Path tempDir;
+
+    private PDFRenderer renderer;
+    private StructElement document;
+    private ParentTree parentTree;
+    private AcroForm acroForm;
+    private Font font;
+
+    @Test
+    public void testFlattenedFormValidates() throws IOException {
+        createDocument();
+        Page first = addPage("First page");
+        Page second = addPage("Second page");
+        FormElement firstField = addTextField(first, "Name", "Jane Doe");
+        FormElement secondField = addTextField(second, "City", "Springfield");
+
+        File file = write();
+
+        assertEquals(List.of(), renderer.validateStructure());
+        assertField(first, firstField, 1);
+        assertField(second, secondField, 1);
+        try (PDDocument pdf = Loader.loadPDF(file)) {
+            assertNull(pdf.getDocumentCatalog().getAcroForm());
+            assertEquals(0, pdf.getPage(0).getAnnotations().size());
+            String text = new PDFTextStripper().getText(pdf);
+            assertTrue(text.contains("Jane Doe"), text);
+            assertTrue(text.contains("Springfield"), text);
+        }
+    }
+
+    @Test
+    public void testStaleMcidCountUsesParentTreeEntry() throws IOException {
+        createDocument();
+        Page first = addPage("First page");
+        addPage("Second page");
+        // Tagged after the second page was added, the MCID count of the first page is not updated
+        StructElement paragraph = new StructElement(StructElement.P);
+        paragraph.setObjectId(renderer.getNextObjectId());
+        paragraph.setParent(document);
+        paragraph.addMcid(first, 1);
+        document.addKid(paragraph);
+        parentTree.getNums().get(first.getStructParents()).addReference(paragraph);
+        FormElement field = addTextField(first, "Name", "Jane Doe");
+
+        write();
+
+        assertField(first, field, 2);
+        assertEquals(List.of(), renderer.validateStructure());
+    }
+
+    @Test
+    public void testUnmappedMcidFails() throws IOException {
+        createDocument();
+        Page first = addPage("First page");
+        first.setMcidCount(3);
+        addTextField(first, "Name", "Jane Doe");
+
+        assertThrows(IllegalStateException.class, () -> renderer.buildElementList());
+    }
+
+    private void assertField(Page page, FormElement field, int mcid) {
+        assertEquals(mcid, field.getMcid());
+        assertNull(field.getWidget());
+        assertSame(field, parentTree.getNums().get(page.getStructParents()).getReference().get(mcid));
+        assertEquals(mcid + 1, page.getMcidCount());
+    }
+
+    private void createDocument() throws IOException {
+        renderer = new PDFRenderer();
+        renderer.setFlattenForms(true);
+        font = renderer.getFont(FontName.HELVETICA);
+        Info info = new Info();
+        info.setObjectId(renderer.getNextObjectId());
+        info.setTitle("Flattened form");
+        renderer.setInfo(info);
+        XmpMetaData metaData = new XmpMetaData();
+        metaData.setObjectId(renderer.getNextObjectId());
+        metaData.setInfo(info);
+        renderer.getCatalog().setMetaData(metaData);
+
+        document = new StructElement(StructElement.DOCUMENT);
+        document.setObjectId(renderer.getNextObjectId());
+        document.setParent(renderer.getCatalog().getStructTreeRoot());
+        renderer.getCatalog().getStructTreeRoot().addKid(document);
+        parentTree = new ParentTree();
+        parentTree.setObjectId(renderer.getNextObjectId());
+        renderer.getCatalog().getStructTreeRoot().setParentTree(parentTree);
+
+        acroForm = new AcroForm();
+        acroForm.setObjectId(renderer.getNextObjectId());
+        acroForm.addFont(font);
+        renderer.getCatalog().setAcroForm(acroForm);
+    }
+
+    private Page addPage(String text) {
+        Page page = new Page(Page.Size.LETTER);
+        renderer.addNewPage(page);
+        ContentStream contentStream = new ContentStream(renderer.getNextObjectId());
+        page.addContent(contentStream);
+
+        StructElement header = new StructElement(StructElement.H1);
+        header.setObjectId(renderer.getNextObjectId());
+        header.setParent(document);
+        header.setPage(page);
+        document.addKid(header);
+        int mcid = renderer.getNextMcid();
+        TextContent textContent = new TextContent(page, StructElement.H1, font, 12, mcid);
+        textContent.addLines(List.of(text));
+        textContent.setPosition(50, 700);
+        contentStream.addContent(textContent);
+        MarkedContentRecord mcr = new MarkedContentRecord(page);
+        mcr.setObjectId(renderer.getNextObjectId());
+        mcr.setMcid(mcid);
+        header.addKid(mcr);
+
+        Num num = new Num();
+        num.addReference(header);
+        parentTree.addNums(num);
+
+        return page;
+    }
+
+    private FormElement addTextField(Page page, String name, String value) {
+        Widget widget = new Widget(Widget.TEXT);
+        widget.setObjectId(renderer.getNextObjectId());
+        widget.setPage(page);
+        widget.setRect(50, 500, 250, 520);
+        widget.setFieldName(name);
+        widget.setToolTip(name);
+        widget.setFlag(4);
+        widget.setFont("F1", 10);
+        widget.setValue(value);
+        widget.setStructParents(renderer.getNextParentTreeKey());
+        renderer.addAppearanceStreams(widget, font);
+        page.addAnnotation(widget);
+        acroForm.addField(widget);
+
+        FormElement formElement = new FormElement();
+        formElement.setObjectId(renderer.getNextObjectId());
+        formElement.setParent(document);
+        formElement.setPage(page);
+        formElement.setWidget(widget);
+        document.addKid(formElement);
+
+        Num num = new Num();
+        num.setIsAnnotation(true);
+        num.addReference(formElement);
+        parentTree.addNums(num);
+
+        return formElement;
+    }
+
+    private File write() throws IOException {
+        File file = tempDir.resolve("flattened.pdf").toFile();
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            renderer.write(outputStream);
+        }
+
+        return file;
+    }
+}
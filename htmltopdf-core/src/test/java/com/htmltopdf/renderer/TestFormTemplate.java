@@ -0,0 +1,195 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.htmltopdf.renderer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.pdmodel.interactive.form.PDCheckBox;
+import org.apache.pdfbox.pdmodel.interactive.form.PDTextField;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.htmltopdf.element.AcroForm;
+import com.htmltopdf.element.AppearanceStream;
+import com.htmltopdf.element.FormElement;
+import com.htmltopdf.element.Info;
+import com.htmltopdf.element.Num;
+import com.htmltopdf.element.Page;
+import com.htmltopdf.element.ParentTree;
+import com.htmltopdf.element.StructElement;
+import com.htmltopdf.element.Widget;
+import com.htmltopdf.element.XmpMetaData;
+import com.htmltopdf.fonts.Font;
+import com.htmltopdf.fonts.FontName;
+
+public class TestFormTemplate {
+    @TempDir
+    Path tempDir;
+
+    private PDFRenderer renderer;
+    private StructElement document;
+    private ParentTree parentTree;
+    private AcroForm acroForm;
+    private Font font;
+    private Page page;
+
+    @Test
+    public void testRecordsHaveTheirOwnValues() throws IOException {
+        createDocument();
+        addField(Widget.TEXT, "Name", "", 700);
+        addField(Widget.BUTTON, "Agree", AppearanceStream.OFF, 660);
+        FormTemplate template = new FormTemplate(renderer);
+
+        template.setValues(Map.of("Name", "Jane Doe", "Agree", AppearanceStream.ON));
+        File first = write(template, "first.pdf");
+        template.setValues(Map.of("Name", "John Smith", "Agree", AppearanceStream.OFF));
+        File second = write(template, "second.pdf");
+
+        assertRecord(first, "Jane Doe", true);
+        assertRecord(second, "John Smith", false);
+    }
+
+    @Test
+    public void testUnknownCheckboxStateRejected() throws IOException {
+        createDocument();
+        addField(Widget.BUTTON, "Agree", AppearanceStream.ON, 660);
+        FormTemplate template = new FormTemplate(renderer);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> template.setValue("Agree", "true"));
+        assertTrue(exception.getMessage().contains("Agree"), exception.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> template.setValue("Missing", "Yes"));
+
+        // The rejected value leaves the field unchanged
+        assertRecord(write(template, "record.pdf"), null, true);
+    }
+
+    private void assertRecord(File file, String name, boolean agree) throws IOException {
+        try (PDDocument pdf = Loader.loadPDF(file)) {
+            PDAcroForm form = pdf.getDocumentCatalog().getAcroForm();
+            if (name != null) {
+                PDTextField field = (PDTextField) form.getField("Name");
+                assertEquals(name, field.getValue());
+                assertEquals(List.of(name), shownText(field));
+            }
+
+            PDCheckBox checkBox = (PDCheckBox) form.getField("Agree");
+            assertEquals(agree, checkBox.isChecked());
+            assertEquals(agree ? AppearanceStream.ON : AppearanceStream.OFF, checkBox.getWidgets().get(0).getAppearanceState().getName());
+            assertEquals(agree ? AppearanceStream.ON : AppearanceStream.OFF, checkBox.getValue());
+            assertFalse(checkBox.getWidgets().get(0).getAppearance().getNormalAppearance().isStream());
+        }
+    }
+
+    private List<String> shownText(PDTextField field) throws IOException {
+        List<String> texts = new ArrayList<>();
+        List<Object> tokens = new PDFStreamParser(field.getWidgets().get(0).getNormalAppearanceStream()).parse();
+        for (int i = 1; i < tokens.size(); i++) {
+            if (tokens.get(i) instanceof Operator operator && "Tj".equals(operator.getName())) {
+                texts.add(((COSString) tokens.get(i - 1)).getString());
+            }
+        }
+
+        return texts;
+    }
+
+    private void createDocument() throws IOException {
+        renderer = new PDFRenderer();
+        font = renderer.getFont(FontName.HELVETICA);
+        Info info = new Info();
+        info.setObjectId(renderer.getNextObjectId());
+        info.setTitle("Form template");
+        renderer.setInfo(info);
+        XmpMetaData metaData = new XmpMetaData();
+        metaData.setObjectId(renderer.getNextObjectId());
+        metaData.setInfo(info);
+        renderer.getCatalog().setMetaData(metaData);
+
+        document = new StructElement(StructElement.DOCUMENT);
+        document.setObjectId(renderer.getNextObjectId());
+        document.setParent(renderer.getCatalog().getStructTreeRoot());
+        renderer.getCatalog().getStructTreeRoot().addKid(document);
+        parentTree = new ParentTree();
+        parentTree.setObjectId(renderer.getNextObjectId());
+        renderer.getCatalog().getStructTreeRoot().setParentTree(parentTree);
+
+        acroForm = new AcroForm();
+        acroForm.setObjectId(renderer.getNextObjectId());
+        acroForm.addFont(font);
+        acroForm.setNeedAppearances(false);
+        renderer.getCatalog().setAcroForm(acroForm);
+
+        page = new Page(Page.Size.LETTER);
+        renderer.addNewPage(page);
+        parentTree.addNums(new Num());
+    }
+
+    private void addField(String type, String name, String value, float y) {
+        Widget widget = new Widget(type);
+        widget.setObjectId(renderer.getNextObjectId());
+        widget.setPage(page);
+        widget.setRect(50, y, Widget.BUTTON.equals(type) ? 70 : 250, y + 20);
+        widget.setFieldName(name);
+        widget.setToolTip(name);
+        widget.setFlag(4);
+        widget.setFont("F1", 10);
+        widget.setValue(value);
+        widget.setStructParents(renderer.getNextParentTreeKey());
+        renderer.addAppearanceStreams(widget, font);
+        page.addAnnotation(widget);
+        acroForm.addField(widget);
+
+        FormElement formElement = new FormElement();
+        formElement.setObjectId(renderer.getNextObjectId());
+        formElement.setParent(document);
+        formElement.setPage(page);
+        formElement.setWidget(widget);
+        document.addKid(formElement);
+
+        Num num = new Num();
+        num.setIsAnnotation(true);
+        num.addReference(formElement);
+        parentTree.addNums(num);
+    }
+
+    private File write(FormTemplate template, String name) throws IOException {
+        File file = tempDir.resolve(name).toFile();
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            template.write(outputStream);
+        }
+
+        return file;
+    }
+}
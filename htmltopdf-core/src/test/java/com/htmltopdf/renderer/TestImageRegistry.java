@@ -0,0 +1,138 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.renderer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+import com.htmltopdf.element.DrawImage;
+import com.htmltopdf.element.XObject;
+import com.htmltopdf.image.ByteArrayImageSource;
+import com.htmltopdf.image.ImageInfo;
+import com.htmltopdf.image.ImageScanner;
+
+public class TestImageRegistry {
+
+    @Test
+    public void testSoftMaskImageIsNotInlined() throws IOException {
+        ImageRegistry registry = new ImageRegistry();
+        registry.setInlineLimit(65536);
+        AtomicInteger objectIds = new AtomicInteger();
+
+        ImageInfo imageInfo = ImageScanner.read(new ByteArrayImageSource(png(BufferedImage.TYPE_INT_ARGB)));
+        assertNotNull(imageInfo.getAlpha());
+        XObject xObject = registry.getImage(imageInfo, objectIds::incrementAndGet);
+
+        assertFalse(xObject.isInline());
+        assertTrue(xObject.getObjectId() > 0);
+        assertNotNull(xObject.getSMask());
+        assertTrue(xObject.getSMask().getObjectId() > 0);
+    }
+
+    @Test
+    public void testSmallImageIsInlined() throws IOException {
+        ImageRegistry registry = new ImageRegistry();
+        registry.setInlineLimit(65536);
+        AtomicInteger objectIds = new AtomicInteger();
+
+        ImageInfo imageInfo = ImageScanner.read(new ByteArrayImageSource(png(BufferedImage.TYPE_INT_RGB)));
+        assertNull(imageInfo.getAlpha());
+        XObject xObject = registry.getImage(imageInfo, objectIds::incrementAndGet);
+
+        assertTrue(xObject.isInline());
+        assertNull(xObject.getSMask());
+    }
+
+    @Test
+    public void testSharedImageNamesDoNotClashWithCallerImages() throws IOException {
+        ImageRegistry registry = new ImageRegistry();
+        AtomicInteger objectIds = new AtomicInteger();
+        XObject shared = registry.getImage(ImageScanner.read(new ByteArrayImageSource(png(BufferedImage.TYPE_INT_RGB))),
+                objectIds::incrementAndGet);
+        XObject callerImage = new XObject(XObject.IMAGE);
+        callerImage.setIdentifier(shared.getIdentifier());
+
+        assertNotEquals(shared.getResourceName(), callerImage.getResourceName());
+        String content = new String(new DrawImage(shared, 0, 0, 8, 8).toByte(null), StandardCharsets.ISO_8859_1);
+        assertTrue(content.contains("/" + shared.getResourceName() + " Do"));
+        assertEquals("Im" + callerImage.getIdentifier(), callerImage.getResourceName());
+    }
+
+    @Test
+    public void testImageDictionaryIsPartOfKey() {
+        ImageRegistry registry = new ImageRegistry();
+        AtomicInteger objectIds = new AtomicInteger();
+        byte[] data = new byte[] {0, 64, (byte) 128, (byte) 255, 1, 2, 3, 4};
+
+        XObject image = registry.getImage(imageInfo(data, 8, null, null, null), objectIds::incrementAndGet);
+        assertSame(image, registry.getImage(imageInfo(data, 8, null, null, null), objectIds::incrementAndGet));
+
+        // The same bytes decode to a different image with other dictionary entries
+        assertNotSame(image, registry.getImage(imageInfo(data, 4, null, null, null), objectIds::incrementAndGet));
+        assertNotSame(image, registry.getImage(imageInfo(data, 8, "FlateDecode", null, null), objectIds::incrementAndGet));
+        assertNotSame(registry.getImage(imageInfo(data, 8, "FlateDecode", null, null), objectIds::incrementAndGet),
+                registry.getImage(imageInfo(data, 8, "FlateDecode", "<< /Predictor 15 /Columns 4 >>", null), objectIds::incrementAndGet));
+        assertNotSame(image, registry.getImage(imageInfo(data, 8, null, null, "[1 0]"), objectIds::incrementAndGet));
+        assertEquals(5, registry.size());
+    }
+
+    private static ImageInfo imageInfo(byte[] data, int bitsPerComponent, String filter, String decodeParms, String decode) {
+        ImageInfo imageInfo = new ImageInfo();
+        imageInfo.setSize(8, 1);
+        imageInfo.setComponents(1);
+        imageInfo.setBitsPerComponent(bitsPerComponent);
+        imageInfo.setColorSpace("DeviceGray");
+        imageInfo.setFilter(filter);
+        imageInfo.setDecodeParms(decodeParms);
+        imageInfo.setDecode(decode);
+        imageInfo.setImageSource(new ByteArrayImageSource(data));
+
+        return imageInfo;
+    }
+
+    private static byte[] png(int type) throws IOException {
+        BufferedImage image = new BufferedImage(8, 8, type);
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                image.setRGB(x, y, ((x * 32) << 24) | (x * 32) << 16 | (y * 32) << 8 | 0x80);
+            }
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", outputStream);
+
+        return outputStream.toByteArray();
+    }
+}
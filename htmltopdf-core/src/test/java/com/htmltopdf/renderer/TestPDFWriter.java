@@ -0,0 +1,156 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.renderer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.interactive.digitalsignature.PDSignature;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cms.CMSProcessableByteArray;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.htmltopdf.element.AcroForm;
+import com.htmltopdf.element.ContentStream;
+import com.htmltopdf.element.EncryptionElement;
+import com.htmltopdf.element.Info;
+import com.htmltopdf.element.Page;
+import com.htmltopdf.element.ParentTree;
+import com.htmltopdf.element.SignatureElement;
+import com.htmltopdf.element.Widget;
+import com.htmltopdf.element.XmpMetaData;
+import com.htmltopdf.security.PdfSigner;
+
+public class TestPDFWriter {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSignedAes256Document() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        X500Name name = new X500Name("CN=Test Signer");
+        X509CertificateHolder holder = new JcaX509v3CertificateBuilder(name, BigInteger.ONE, new Date(System.currentTimeMillis() - 60000),
+                new Date(System.currentTimeMillis() + 3600000), name, keyPair.getPublic())
+                .build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate()));
+        X509Certificate certificate = new JcaX509CertificateConverter().getCertificate(holder);
+
+        // Each encrypted string has a random IV, so sign several times
+        for (int i = 0; i < 10; i++) {
+            File file = tempDir.resolve("signed" + i + ".pdf").toFile();
+            writeSignedDocument(file, new PdfSigner(keyPair.getPrivate(), new Certificate[] {certificate}));
+
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            try (PDDocument document = Loader.loadPDF(file, "")) {
+                assertTrue(document.isEncrypted());
+                List<PDSignature> signatures = document.getSignatureDictionaries();
+                assertEquals(1, signatures.size());
+                PDSignature signature = signatures.get(0);
+                assertEquals("Approved (draft)", signature.getReason());
+                int[] byteRange = signature.getByteRange();
+                assertEquals(0, byteRange[0]);
+                assertEquals(bytes.length, byteRange[2] + byteRange[3]);
+
+                byte[] signedContent = signature.getSignedContent(new ByteArrayInputStream(bytes));
+                CMSSignedData cms = new CMSSignedData(new CMSProcessableByteArray(signedContent), signature.getContents(bytes));
+                SignerInformation signer = cms.getSignerInfos().getSigners().iterator().next();
+                assertTrue(signer.verify(new JcaSimpleSignerInfoVerifierBuilder().build(certificate)));
+            }
+        }
+    }
+
+    private void writeSignedDocument(File file, PdfSigner signer) throws IOException {
+        PDFRenderer renderer = new PDFRenderer();
+        Info info = new Info();
+        info.setObjectId(renderer.getNextObjectId());
+        info.setTitle("Signed");
+        info.setAuthor("Author");
+        info.setSubject("Subject");
+        info.setProducer("Producer");
+        info.setCreator("Creator");
+        renderer.setInfo(info);
+        XmpMetaData metaData = new XmpMetaData();
+        metaData.setObjectId(renderer.getNextObjectId());
+        metaData.setInfo(info);
+        renderer.getCatalog().setMetaData(metaData);
+
+        EncryptionElement encryption = new EncryptionElement(EncryptionElement.AES_256, "owner", "", metaData.getDocumentId(), -4, true);
+        encryption.setObjectId(renderer.getNextObjectId());
+        renderer.setEncryptionElement(encryption);
+
+        AcroForm acroForm = new AcroForm();
+        acroForm.setObjectId(renderer.getNextObjectId());
+        renderer.getCatalog().setAcroForm(acroForm);
+        Page page = new Page(Page.Size.LETTER);
+        renderer.addNewPage(page);
+        page.addContent(new ContentStream(renderer.getNextObjectId()));
+
+        Widget widget = new Widget(Widget.SIGNATURE);
+        widget.setObjectId(renderer.getNextObjectId());
+        widget.setPage(page);
+        widget.setRect(50, 50, 250, 100);
+        widget.setFieldName("Signature1");
+        widget.setToolTip("Sign here");
+        widget.setFlag(4);
+        widget.setFont("F1", 10);
+        widget.setStructParents(renderer.getNextParentTreeKey());
+        page.addAnnotation(widget);
+        acroForm.addField(widget);
+
+        SignatureElement signature = new SignatureElement(signer);
+        signature.setReason("Approved (draft)");
+        signature.setLocation("Springfield \\ Office");
+        signature.setContactInfo("signer@example.com");
+        renderer.setSignature(signature, widget);
+
+        ParentTree parentTree = new ParentTree();
+        parentTree.setObjectId(renderer.getNextObjectId());
+        renderer.getCatalog().getStructTreeRoot().setParentTree(parentTree);
+
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            renderer.write(outputStream);
+        }
+    }
+}
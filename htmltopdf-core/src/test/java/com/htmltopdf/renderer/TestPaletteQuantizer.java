@@ -0,0 +1,75 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.renderer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.htmltopdf.element.XObject;
+import com.htmltopdf.image.ImageInfo;
+import com.htmltopdf.image.RawImage;
+
+public class TestPaletteQuantizer {
+    private static final int SIZE = 32;
+
+    @Test
+    public void testEightBitImageIsQuantized() {
+        XObject xObject = image(8);
+        new PaletteQuantizer(0).quantize(xObject);
+
+        assertTrue(xObject.getImageInfo().getColorSpace().startsWith("[/Indexed"));
+    }
+
+    @Test
+    public void testSixteenBitImageIsNotQuantized() {
+        XObject xObject = image(16);
+        ImageInfo imageInfo = xObject.getImageInfo();
+        new PaletteQuantizer(0).quantize(xObject);
+
+        assertEquals(ImageInfo.DEVICE_RGB, xObject.getImageInfo().getColorSpace());
+        assertEquals(16, xObject.getImageInfo().getBitsPerComponent());
+        assertEquals(imageInfo.getImageSource(), xObject.getImageInfo().getImageSource());
+    }
+
+    /**
+     * Builds a noisy RGB image of four colours, the low byte of the
+     * 16 bit samples differs per pixel
+     * @param bitsPerComponent int of the bits per component
+     * @return XObject of the image
+     */
+    private static XObject image(int bitsPerComponent) {
+        int sampleBytes = bitsPerComponent / 8;
+        byte[] pixels = new byte[SIZE * SIZE * 3 * sampleBytes];
+        int seed = 17;
+        for (int i = 0; i < SIZE * SIZE * 3; i++) {
+            seed = seed * 1103515245 + 12345;
+            pixels[i * sampleBytes] = (byte) ((seed >>> 28) * 0x40);
+            if (sampleBytes == 2) {
+                pixels[i * 2 + 1] = (byte) (seed >>> 16);
+            }
+        }
+
+        XObject xObject = new XObject(XObject.IMAGE);
+        xObject.setImageInfo(RawImage.fromPixels(pixels, SIZE, SIZE, 3, bitsPerComponent));
+        return xObject;
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.htmltopdf.renderer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.htmltopdf.element.Annotation;
+import com.htmltopdf.element.FormElement;
+import com.htmltopdf.element.LinkElement;
+import com.htmltopdf.element.Num;
+import com.htmltopdf.element.Page;
+import com.htmltopdf.element.ParentTree;
+import com.htmltopdf.element.StructElement;
+import com.htmltopdf.element.Widget;
+import com.htmltopdf.renderer.StructureValidator.Issue;
+
+public class TestStructureValidator {
+    private PDFRenderer renderer;
+    private StructElement document;
+    private ParentTree parentTree;
+
+    @Test
+    public void testWellFormedDocument() {
+        createDocument();
+        Page first = addPage();
+        tag(first, StructElement.P);
+        StructElement figure = tag(first, StructElement.FIGURE);
+        figure.setAltText("Company logo");
+        addLink(first, "Home page");
+        Page second = addPage();
+        tag(second, StructElement.P);
+        addField(second, "Name");
+
+        assertEquals(List.of(), renderer.validateStructure());
+    }
+
+    @Test
+    public void testOrphanedMcid() {
+        createDocument();
+        Page page = addPage();
+        tag(page, StructElement.P);
+        renderer.getNextMcid();
+
+        assertTypes(List.of(Issue.Type.ORPHANED_MCID));
+    }
+
+    @Test
+    public void testDuplicateMcid() {
+        createDocument();
+        Page page = addPage();
+        StructElement paragraph = tag(page, StructElement.P);
+        paragraph.addMcid(page, 0);
+
+        List<Issue> issues = renderer.validateStructure();
+
+        assertEquals(List.of(Issue.Type.DUPLICATE_MCID), types(issues));
+        assertEquals(paragraph.getObjectId(), issues.get(0).getObjectId());
+    }
+
+    @Test
+    public void testUnassignedMcid() {
+        createDocument();
+        Page page = addPage();
+        tag(page, StructElement.P);
+        structElement(StructElement.P).addMcid(page, 5);
+
+        assertTypes(List.of(Issue.Type.UNASSIGNED_MCID));
+    }
+
+    @Test
+    public void testParentTreeMismatch() {
+        createDocument();
+        Page page = addPage();
+        StructElement paragraph = structElement(StructElement.P);
+        paragraph.addMcid(page, renderer.getNextMcid());
+        parentTree.getNums().get(page.getStructParents()).addReference(document);
+
+        assertTypes(List.of(Issue.Type.PARENT_TREE_MISMATCH));
+    }
+
+    @Test
+    public void testExtraParentTreeEntries() {
+        createDocument();
+        Page page = addPage();
+        StructElement paragraph = tag(page, StructElement.P);
+        parentTree.getNums().get(page.getStructParents()).addReference(paragraph);
+
+        assertTypes(List.of(Issue.Type.PARENT_TREE_MISMATCH));
+    }
+
+    @Test
+    public void testMissingParentTreeEntry() {
+        createDocument();
+        Page page = new Page(Page.Size.LETTER);
+        renderer.addNewPage(page);
+        structElement(StructElement.P).addMcid(page, renderer.getNextMcid());
+
+        assertTypes(List.of(Issue.Type.MISSING_PARENT_TREE_ENTRY));
+    }
+
+    @Test
+    public void testDuplicateParentTreeKey() {
+        createDocument();
+        Page page = addPage();
+        tag(page, StructElement.P);
+        Widget widget = addField(page, "Name");
+        widget.setStructParents(page.getStructParents());
+
+        List<Issue> issues = renderer.validateStructure();
+
+        assertEquals(Issue.Type.DUPLICATE_PARENT_TREE_KEY, issues.get(0).getType());
+        assertEquals(widget.getObjectId(), issues.get(0).getObjectId());
+    }
+
+    @Test
+    public void testMissingAltText() {
+        createDocument();
+        Page page = addPage();
+        tag(page, StructElement.FIGURE);
+        addLink(page, null);
+        addField(page, "Name").setToolTip(null);
+
+        assertTypes(List.of(Issue.Type.MISSING_ALT_TEXT, Issue.Type.MISSING_ALT_TEXT, Issue.Type.MISSING_ALT_TEXT));
+    }
+
+    @Test
+    public void testOrphanedAnnotation() {
+        createDocument();
+        Page page = addPage();
+        tag(page, StructElement.P);
+        Annotation annotation = new Annotation(Annotation.LINK, 50, 500, 150, 520);
+        annotation.setObjectId(renderer.getNextObjectId());
+        annotation.setPage(page);
+        annotation.setStructParents(renderer.getNextParentTreeKey());
+        page.addAnnotation(annotation);
+
+        List<Issue> issues = renderer.validateStructure();
+
+        assertEquals(List.of(Issue.Type.ORPHANED_ANNOTATION), types(issues));
+        assertEquals(annotation.getObjectId(), issues.get(0).getObjectId());
+    }
+
+    @Test
+    public void testSealedSubtree() {
+        createDocument();
+        Page page = addPage();
+        StructElement section = structElement(StructElement.SECT);
+        StructElement paragraph = new StructElement(StructElement.P);
+        paragraph.setObjectId(renderer.getNextObjectId());
+        paragraph.setParent(section);
+        int mcid = renderer.getNextMcid();
+        paragraph.addMcid(page, mcid);
+        section.addKid(paragraph);
+        parentTree.getNums().get(page.getStructParents()).addReference(paragraph);
+        renderer.sealStructElement(section);
+
+        List<Issue> issues = renderer.validateStructure();
+
+        // The MCID of the sealed paragraph is not reported as orphaned
+        assertEquals(List.of(Issue.Type.NOT_VALIDATED), types(issues));
+        assertEquals(section.getObjectId(), issues.get(0).getObjectId());
+    }
+
+    private void assertTypes(List<Issue.Type> expected) {
+        List<Issue> issues = renderer.validateStructure();
+        assertEquals(expected, types(issues), issues.toString());
+    }
+
+    private List<Issue.Type> types(List<Issue> issues) {
+        return issues.stream().map(Issue::getType).toList();
+    }
+
+    private void createDocument() {
+        renderer = new PDFRenderer();
+        document = new StructElement(StructElement.DOCUMENT);
+        document.setObjectId(renderer.getNextObjectId());
+        document.setParent(renderer.getCatalog().getStructTreeRoot());
+        renderer.getCatalog().getStructTreeRoot().addKid(document);
+        parentTree = new ParentTree();
+        parentTree.setObjectId(renderer.getNextObjectId());
+        renderer.getCatalog().getStructTreeRoot().setParentTree(parentTree);
+    }
+
+    private Page addPage() {
+        Page page = new Page(Page.Size.LETTER);
+        renderer.addNewPage(page);
+        parentTree.addNums(new Num());
+
+        return page;
+    }
+
+    private StructElement structElement(String type) {
+        StructElement structElement = new StructElement(type);
+        structElement.setObjectId(renderer.getNextObjectId());
+        structElement.setParent(document);
+        document.addKid(structElement);
+
+        return structElement;
+    }
+
+    private StructElement tag(Page page, String type) {
+        StructElement structElement = structElement(type);
+        structElement.addMcid(page, renderer.getNextMcid());
+        parentTree.getNums().get(page.getStructParents()).addReference(structElement);
+
+        return structElement;
+    }
+
+    private LinkElement addLink(Page page, String altText) {
+        Annotation annotation = new Annotation(Annotation.LINK, 50, 500, 150, 520);
+        annotation.setObjectId(renderer.getNextObjectId());
+        annotation.setPage(page);
+        annotation.setUri("https://example.com");
+        annotation.setStructParents(renderer.getNextParentTreeKey());
+        page.addAnnotation(annotation);
+
+        LinkElement link = new LinkElement();
+        link.setObjectId(renderer.getNextObjectId());
+        link.setParent(document);
+        link.setPage(page);
+        link.setAltText(altText);
+        link.setMcid(renderer.getNextMcid());
+        link.setAnnotation(annotation);
+        document.addKid(link);
+        parentTree.getNums().get(page.getStructParents()).addReference(link);
+
+        Num num = new Num();
+        num.setIsAnnotation(true);
+        num.addReference(link);
+        parentTree.addNums(num);
+
+        return link;
+    }
+
+    private Widget addField(Page page, String name) {
+        Widget widget = new Widget(Widget.TEXT);
+        widget.setObjectId(renderer.getNextObjectId());
+        widget.setPage(page);
+        widget.setFieldName(name);
+        widget.setToolTip(name);
+        widget.setStructParents(renderer.getNextParentTreeKey());
+        page.addAnnotation(widget);
+
+        FormElement formElement = new FormElement();
+        formElement.setObjectId(renderer.getNextObjectId());
+        formElement.setParent(document);
+        formElement.setPage(page);
+        formElement.setWidget(widget);
+        document.addKid(formElement);
+
+        Num num = new Num();
+        num.setIsAnnotation(true);
+        num.addReference(formElement);
+        parentTree.addNums(num);
+
+        return widget;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.htmltopdf.renderer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.junit.jupiter.api.Test;
+
+public class TestUtil {
+
+    @Test
+    public void testDelimitersAreEscaped() throws IOException {
+        assertEquals("(a\\(b\\)c\\\\d)", Util.toPdfString(bytes("a(b)c\\d")));
+        assertEquals("(\\(\\)\\\\\\r\n)", Util.toPdfString(bytes("()\\\r\n")));
+        assertEquals("()", Util.toPdfString(new byte[0]));
+        assertRoundTrip(bytes("a(b)c\\d"));
+        assertRoundTrip(bytes("((((\\\\))))"));
+        assertRoundTrip(bytes("line\rbreaks\r\nand\n\rfeeds\n"));
+    }
+
+    @Test
+    public void testAllByteValuesRoundTrip() throws IOException {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        assertRoundTrip(bytes);
+
+        Random random = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            byte[] data = new byte[random.nextInt(64)];
+            random.nextBytes(data);
+            assertRoundTrip(data);
+        }
+    }
+
+    @Test
+    public void testLiteralIsNeverLongerThanHex() {
+        byte[] bytes = bytes("()\\\r()\\\r");
+        assertEquals(bytes.length * 2 + 2, Util.toPdfString(bytes).length());
+    }
+
+    private static void assertRoundTrip(byte[] bytes) throws IOException {
+        byte[] pdfString = Util.toPdfString(bytes).getBytes(StandardCharsets.ISO_8859_1);
+        COSString parsed = (COSString) new PDFStreamParser(pdfString).parseNextToken();
+        assertArrayEquals(bytes, parsed.getBytes());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
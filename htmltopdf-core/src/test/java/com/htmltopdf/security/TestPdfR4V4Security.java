@@ -0,0 +1,193 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.htmltopdf.security;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
+import org.apache.pdfbox.pdmodel.encryption.PDEncryption;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.htmltopdf.element.EncryptionElement;
+
+public class TestPdfR4V4Security {
+    private static final byte[] PASSWORD_PADDING = {
+        (byte) 0x28, (byte) 0xBF, (byte) 0x4E, (byte) 0x5E, (byte) 0x4E, (byte) 0x75, (byte) 0x8A, (byte) 0x41,
+        (byte) 0x64, (byte) 0x00, (byte) 0x4E, (byte) 0x56, (byte) 0xFF, (byte) 0xFA, (byte) 0x01, (byte) 0x08,
+        (byte) 0x2E, (byte) 0x2E, (byte) 0x00, (byte) 0xB6, (byte) 0xD0, (byte) 0x68, (byte) 0x3E, (byte) 0x80,
+        (byte) 0x2F, (byte) 0x0C, (byte) 0xA9, (byte) 0xFE, (byte) 0x64, (byte) 0x53, (byte) 0x69, (byte) 0x7A
+    };
+    private static final int THREADS = 8;
+    private static final int OBJECTS = 400;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testConcurrentEncryptionMatchesUncached() throws Exception {
+        // Several documents encrypted at once, each object is encrypted by more than one thread
+        byte[][] keys = new byte[3][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = PdfR4V4Security.computeEncryptionKey("user" + i, PdfR4V4Security.computeOwnerValue("owner" + i, "user" + i),
+                    -4, ("document id " + i).getBytes(StandardCharsets.ISO_8859_1), true);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int seed = thread;
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < OBJECTS; i++) {
+                        byte[] key = keys[random.nextInt(keys.length)];
+                        int objectNumber = random.nextInt(OBJECTS / 4) + 1;
+                        byte[] plain = new byte[random.nextInt(100)];
+                        random.nextBytes(plain);
+                        byte[] expected = uncachedEncrypt(key, objectNumber, plain);
+
+                        assertArrayEquals(expected, PdfR4V4Security.encryptString(key, objectNumber, 0, plain));
+                        assertArrayEquals(expected, PdfR4V4Security.encryptObject(key, objectNumber, 0, plain));
+                        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+                        try (OutputStream encrypting = PdfSecurity.encryptingStream(key, objectNumber, 0, streamed)) {
+                            encrypting.write(plain, 0, plain.length / 2);
+                            encrypting.write(plain, plain.length / 2, plain.length - plain.length / 2);
+                        }
+                        assertArrayEquals(expected, streamed.toByteArray());
+
+                        // More password pairs than the owner cache holds
+                        String owner = "owner" + random.nextInt(100);
+                        assertArrayEquals(uncachedOwnerValue(owner, "user"), PdfR4V4Security.computeOwnerValue(owner, "user"));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testOpensWithUserAndOwnerPassword() throws IOException {
+        // Opening checks the password padding and the /U value
+        File file = TestPdfR6V5Security.writeDocument(EncryptionElement.AES_128, "owner", "user", true, tempDir);
+
+        try (PDDocument document = Loader.loadPDF(file, "user")) {
+            PDEncryption encryption = document.getEncryption();
+            assertEquals(4, encryption.getVersion());
+            assertEquals(4, encryption.getRevision());
+            assertFalse(document.getCurrentAccessPermission().isOwnerPermission());
+            assertEquals("Encrypted page text", new PDFTextStripper().getText(document).trim());
+        }
+        try (PDDocument document = Loader.loadPDF(file, "owner")) {
+            assertTrue(document.getCurrentAccessPermission().isOwnerPermission());
+            assertEquals("Encrypted page text", new PDFTextStripper().getText(document).trim());
+        }
+        assertThrows(InvalidPasswordException.class, () -> Loader.loadPDF(file, "wrong").close());
+    }
+
+    @Test
+    public void testOpensWithEmptyUserPassword() throws IOException {
+        File file = TestPdfR6V5Security.writeDocument(EncryptionElement.AES_128, "owner", "", true, tempDir);
+
+        try (PDDocument document = Loader.loadPDF(file)) {
+            assertTrue(document.isEncrypted());
+            assertEquals("Encrypted page text", new PDFTextStripper().getText(document).trim());
+        }
+    }
+
+    // Encrypts with a new digest and cipher and a key derived for the call (Algorithm 1)
+    private static byte[] uncachedEncrypt(byte[] key, int objectNumber, byte[] plain) throws Exception {
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        md5.update(key);
+        md5.update(new byte[] {(byte) objectNumber, (byte) (objectNumber >> 8), (byte) (objectNumber >> 16), 0, 0});
+        md5.update(new byte[] {'s', 'A', 'l', 'T'});
+        byte[] objectKey = Arrays.copyOf(md5.digest(), Math.min(16, key.length + 5));
+
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(objectKey, "AES"), new IvParameterSpec(new byte[16]));
+        byte[] encrypted = cipher.doFinal(plain);
+        byte[] result = new byte[16 + encrypted.length];
+        System.arraycopy(encrypted, 0, result, 16, encrypted.length);
+
+        return result;
+    }
+
+    // Computes the owner value without the cache (Algorithm 3)
+    private static byte[] uncachedOwnerValue(String ownerPassword, String userPassword) throws Exception {
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        byte[] digest = md5.digest(pad(ownerPassword));
+        for (int i = 0; i < 50; i++) {
+            digest = md5.digest(digest);
+        }
+        byte[] key = Arrays.copyOf(digest, 16);
+
+        byte[] data = pad(userPassword);
+        Cipher rc4 = Cipher.getInstance("RC4");
+        for (int i = 0; i < 20; i++) {
+            byte[] roundKey = new byte[key.length];
+            for (int j = 0; j < key.length; j++) {
+                roundKey[j] = (byte) (key[j] ^ i);
+            }
+            rc4.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(roundKey, "RC4"));
+            data = rc4.doFinal(data);
+        }
+
+        return data;
+    }
+
+    private static byte[] pad(String password) {
+        byte[] bytes = password.getBytes(StandardCharsets.ISO_8859_1);
+        byte[] padded = Arrays.copyOf(bytes, 32);
+        System.arraycopy(PASSWORD_PADDING, 0, padded, bytes.length, 32 - bytes.length);
+
+        return padded;
+    }
+}
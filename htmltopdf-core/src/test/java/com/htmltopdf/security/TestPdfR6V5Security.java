@@ -0,0 +1,215 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.htmltopdf.security;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
+import org.apache.pdfbox.pdmodel.encryption.PDEncryption;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.htmltopdf.element.ContentStream;
+import com.htmltopdf.element.EncryptionElement;
+import com.htmltopdf.element.Info;
+import com.htmltopdf.element.Page;
+import com.htmltopdf.element.ParentTree;
+import com.htmltopdf.element.StructElement;
+import com.htmltopdf.element.TextContent;
+import com.htmltopdf.element.XmpMetaData;
+import com.htmltopdf.fonts.FontName;
+import com.htmltopdf.renderer.PDFRenderer;
+
+public class TestPdfR6V5Security {
+    // Printing allowed, modifying and extracting denied
+    private static final int PERMISSIONS = -28;
+    private static final String TEXT = "Encrypted page text";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testOpensWithUserPassword() throws IOException {
+        File file = writeDocument(EncryptionElement.AES_256, "owner", "user", true);
+
+        try (PDDocument document = Loader.loadPDF(file, "user")) {
+            assertTrue(document.isEncrypted());
+            assertFalse(document.getCurrentAccessPermission().isOwnerPermission());
+            assertTrue(document.getCurrentAccessPermission().canPrint());
+            assertFalse(document.getCurrentAccessPermission().canModify());
+            assertEquals(TEXT, new PDFTextStripper().getText(document).trim());
+            assertEquals("Encrypted", document.getDocumentInformation().getTitle());
+        }
+    }
+
+    @Test
+    public void testOpensWithOwnerPassword() throws IOException {
+        File file = writeDocument(EncryptionElement.AES_256, "owner", "user", true);
+
+        try (PDDocument document = Loader.loadPDF(file, "owner")) {
+            assertTrue(document.getCurrentAccessPermission().isOwnerPermission());
+            assertEquals(TEXT, new PDFTextStripper().getText(document).trim());
+        }
+        assertThrows(InvalidPasswordException.class, () -> Loader.loadPDF(file, "wrong").close());
+    }
+
+    @Test
+    public void testEncryptionDictionary() throws IOException {
+        File file = writeDocument(EncryptionElement.AES_256, "owner", "user", false);
+
+        try (PDDocument document = Loader.loadPDF(file, "user")) {
+            PDEncryption encryption = document.getEncryption();
+            assertEquals("Standard", encryption.getFilter());
+            assertEquals(5, encryption.getVersion());
+            assertEquals(6, encryption.getRevision());
+            assertEquals(256, encryption.getLength());
+            assertEquals(COSName.getPDFName("AESV3"), encryption.getStdCryptFilterDictionary().getCryptFilterMethod());
+            assertEquals(32, encryption.getStdCryptFilterDictionary().getLength());
+            assertEquals(48, encryption.getOwnerKey().length);
+            assertEquals(48, encryption.getUserKey().length);
+            assertEquals(32, encryption.getOwnerEncryptionKey().length);
+            assertEquals(32, encryption.getUserEncryptionKey().length);
+            assertEquals(16, encryption.getPerms().length);
+            assertEquals(PERMISSIONS, encryption.getPermissions());
+            assertFalse(encryption.isEncryptMetaData());
+        }
+    }
+
+    @Test
+    public void testPermsValue() throws Exception {
+        for (boolean encryptMetaData : new boolean[] {true, false}) {
+            byte[] fileKey = PdfR6V5Security.generateFileKey();
+            byte[] perms = PdfR6V5Security.computePermsValue(fileKey, PERMISSIONS, encryptMetaData);
+
+            Cipher cipher = Cipher.getInstance("AES/ECB/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(fileKey, "AES"));
+            byte[] plain = cipher.doFinal(perms);
+
+            int permissions = (plain[0] & 0xFF) | (plain[1] & 0xFF) << 8 | (plain[2] & 0xFF) << 16 | (plain[3] & 0xFF) << 24;
+            assertEquals(PERMISSIONS, permissions);
+            for (int i = 4; i < 8; i++) {
+                assertEquals((byte) 0xFF, plain[i]);
+            }
+            assertEquals(encryptMetaData ? 'T' : 'F', plain[8]);
+            assertEquals("adb", new String(plain, 9, 3, StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    @Test
+    public void testUserAndOwnerValues() throws Exception {
+        byte[] fileKey = PdfR6V5Security.generateFileKey();
+        byte[] user = PdfR6V5Security.computeUserValue("user");
+        byte[] owner = PdfR6V5Security.computeOwnerValue("owner", user);
+        byte[] password = "user".getBytes(StandardCharsets.UTF_8);
+        byte[] ownerPassword = "owner".getBytes(StandardCharsets.UTF_8);
+
+        // The hash over the validation salt checks the password
+        assertArrayEquals(Arrays.copyOf(user, 32), PdfR6V5Security.computeHash(password, Arrays.copyOfRange(user, 32, 40), new byte[0]));
+        assertArrayEquals(Arrays.copyOf(owner, 32), PdfR6V5Security.computeHash(ownerPassword, Arrays.copyOfRange(owner, 32, 40), user));
+
+        // The hash over the key salt unwraps the file key
+        byte[] userEncryption = PdfR6V5Security.computeUserEncryptionValue("user", user, fileKey);
+        byte[] userKey = PdfR6V5Security.computeHash(password, Arrays.copyOfRange(user, 40, 48), new byte[0]);
+        assertArrayEquals(fileKey, unwrap(userKey, userEncryption));
+        byte[] ownerEncryption = PdfR6V5Security.computeOwnerEncryptionValue("owner", owner, user, fileKey);
+        byte[] ownerKey = PdfR6V5Security.computeHash(ownerPassword, Arrays.copyOfRange(owner, 40, 48), user);
+        assertArrayEquals(fileKey, unwrap(ownerKey, ownerEncryption));
+    }
+
+    private static byte[] unwrap(byte[] key, byte[] wrapped) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/CBC/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(new byte[16]));
+
+        return cipher.doFinal(wrapped);
+    }
+
+    /**
+     * Writes a one page document encrypted with the security handler revision
+     * @param revision int of the revision, EncryptionElement.AES_128 or AES_256
+     * @param ownerPassword String of the owner password
+     * @param userPassword String of the user password
+     * @param encryptMetaData boolean true to encrypt the meta data
+     * @param tempDir Path of the directory to write to
+     * @return File of the document
+     * @throws IOException throws if the document cannot be written
+     */
+    static File writeDocument(int revision, String ownerPassword, String userPassword, boolean encryptMetaData, Path tempDir) throws IOException {
+        PDFRenderer renderer = new PDFRenderer();
+        Info info = new Info();
+        info.setObjectId(renderer.getNextObjectId());
+        info.setTitle("Encrypted");
+        info.setAuthor("Author");
+        info.setSubject("Subject");
+        info.setProducer("Producer");
+        info.setCreator("Creator");
+        renderer.setInfo(info);
+        XmpMetaData metaData = new XmpMetaData();
+        metaData.setObjectId(renderer.getNextObjectId());
+        metaData.setInfo(info);
+        renderer.getCatalog().setMetaData(metaData);
+
+        EncryptionElement encryption = new EncryptionElement(revision, ownerPassword, userPassword, metaData.getDocumentId(), PERMISSIONS, encryptMetaData);
+        encryption.setObjectId(renderer.getNextObjectId());
+        renderer.setEncryptionElement(encryption);
+
+        Page page = new Page(Page.Size.LETTER);
+        renderer.addNewPage(page);
+        ContentStream contentStream = new ContentStream(renderer.getNextObjectId());
+        page.addContent(contentStream);
+        TextContent textContent = new TextContent(page, StructElement.P, renderer.getFont(FontName.HELVETICA), 12, renderer.getNextMcid());
+        textContent.addLines(List.of(TEXT));
+        textContent.setPosition(50, 700);
+        contentStream.addContent(textContent);
+
+        ParentTree parentTree = new ParentTree();
+        parentTree.setObjectId(renderer.getNextObjectId());
+        renderer.getCatalog().getStructTreeRoot().setParentTree(parentTree);
+
+        File file = tempDir.resolve("encrypted" + revision + ".pdf").toFile();
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            renderer.write(outputStream);
+        }
+
+        return file;
+    }
+
+    private File writeDocument(int revision, String ownerPassword, String userPassword, boolean encryptMetaData) throws IOException {
+        return writeDocument(revision, ownerPassword, userPassword, encryptMetaData, tempDir);
+    }
+}
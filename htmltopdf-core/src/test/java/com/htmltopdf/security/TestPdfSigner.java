@@ -0,0 +1,108 @@
+/*
+ * This file is part of HTML To PDF Generator.
+ *
+ * Copyright (C) 2025 Gregory Echelberry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.htmltopdf.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.cms.CMSProcessableByteArray;
+import org.bouncycastle.cms.CMSSignedData;
+import org.bouncycastle.cms.SignerInformation;
+import org.bouncycastle.cms.jcajce.JcaSimpleSignerInfoVerifierBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.Test;
+
+public class TestPdfSigner {
+
+    @Test
+    public void testSignerCommonName() throws Exception {
+        KeyPair keyPair = keyPair("RSA");
+        X509Certificate certificate = certificate(keyPair, "SHA256withRSA", "CN=Test Signer, O=Example\\, Inc., C=US");
+        assertEquals("Test Signer", new PdfSigner(keyPair.getPrivate(), new Certificate[] {certificate}).getSignerName());
+
+        X509Certificate noCommonName = certificate(keyPair, "SHA256withRSA", "O=Example, C=US");
+        assertEquals(noCommonName.getSubjectX500Principal().getName(), new PdfSigner(keyPair.getPrivate(), new Certificate[] {noCommonName}).getSignerName());
+    }
+
+    @Test
+    public void testSupportedKeys() throws Exception {
+        assertSignatureVerifies(keyPair("RSA"), "SHA256withRSA");
+        assertSignatureVerifies(keyPair("EC"), "SHA256withECDSA");
+        assertSignatureVerifies(keyPair("DSA"), "SHA256withDSA");
+    }
+
+    @Test
+    public void testUnsupportedKeysRejected() throws Exception {
+        for (String algorithm : new String[] {"Ed25519", "RSASSA-PSS"}) {
+            KeyPair keyPair = keyPair(algorithm);
+            X509Certificate certificate = certificate(keyPair(), "SHA256withRSA", "CN=Test Signer");
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> new PdfSigner(keyPair.getPrivate(), new Certificate[] {certificate}));
+            assertTrue(exception.getMessage().contains(keyPair.getPrivate().getAlgorithm()), exception.getMessage());
+        }
+    }
+
+    private static void assertSignatureVerifies(KeyPair keyPair, String algorithm) throws Exception {
+        X509Certificate certificate = certificate(keyPair, algorithm, "CN=Test Signer");
+        byte[] content = "signed byte ranges".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+
+        byte[] signature = new PdfSigner(keyPair.getPrivate(), new Certificate[] {certificate}).sign(digest);
+
+        CMSSignedData cms = new CMSSignedData(new CMSProcessableByteArray(content), signature);
+        SignerInformation signer = cms.getSignerInfos().getSigners().iterator().next();
+        assertTrue(signer.verify(new JcaSimpleSignerInfoVerifierBuilder().build(certificate)), algorithm);
+    }
+
+    private static KeyPair keyPair() throws Exception {
+        return keyPair("RSA");
+    }
+
+    private static KeyPair keyPair(String algorithm) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm);
+        if ("RSA".equals(algorithm) || "RSASSA-PSS".equals(algorithm) || "DSA".equals(algorithm)) {
+            generator.initialize(2048);
+        }
+
+        return generator.generateKeyPair();
+    }
+
+    private static X509Certificate certificate(KeyPair keyPair, String algorithm, String subject) throws Exception {
+        X500Name name = new X500Name(subject);
+        X509CertificateHolder holder = new JcaX509v3CertificateBuilder(name, BigInteger.ONE, new Date(System.currentTimeMillis() - 60000),
+                new Date(System.currentTimeMillis() + 3600000), name, keyPair.getPublic())
+                .build(new JcaContentSignerBuilder(algorithm).build(keyPair.getPrivate()));
+
+        return new JcaX509CertificateConverter().getCertificate(holder);
+    }
+}